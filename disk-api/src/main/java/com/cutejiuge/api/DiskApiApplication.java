@@ -15,7 +15,8 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 @SpringBootApplication(
         scanBasePackages = {
                 "com.cutejiuge.api",
-                "com.cutejiuge.common"
+                "com.cutejiuge.common",
+                "com.cutejiuge.storage"
         },
         exclude = {DataSourceAutoConfiguration.class})
 @EnableDiscoveryClient
@@ -0,0 +1,256 @@
+package com.cutejiuge.api.controller;
+
+import com.cutejiuge.api.request.file.BatchFileRequest;
+import com.cutejiuge.api.request.file.BatchMoveRequest;
+import com.cutejiuge.api.request.file.CdcCheckRequest;
+import com.cutejiuge.api.request.file.CdcCommitRequest;
+import com.cutejiuge.api.request.file.DeltaUploadRequest;
+import com.cutejiuge.api.request.file.InitUploadRequest;
+import com.cutejiuge.api.request.file.InstantUploadProofRequest;
+import com.cutejiuge.api.request.file.RenameFileRequest;
+import com.cutejiuge.api.request.folder.MoveRequest;
+import com.cutejiuge.api.response.file.CdcCheckResponse;
+import com.cutejiuge.api.response.file.InitUploadResponse;
+import com.cutejiuge.api.response.file.MergeUploadResponse;
+import com.cutejiuge.api.response.file.UploadChunkResponse;
+import com.cutejiuge.api.response.file.UploadProgressResponse;
+import com.cutejiuge.api.security.CurrentUserUtil;
+import com.cutejiuge.api.service.FileDownloadService;
+import com.cutejiuge.api.service.FileGatewayService;
+import com.cutejiuge.api.service.FileUploadService;
+import com.cutejiuge.api.service.FolderGatewayService;
+import com.cutejiuge.api.service.RecycleBinGatewayService;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.RecycleItemVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 文件相关接口controller
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 上午10:05
+ */
+@Slf4j
+@RestController
+@RequestMapping("/file")
+@Tag(name = "文件管理")
+@Validated
+public class FileController {
+    @Resource
+    private FileUploadService fileUploadService;
+
+    @Resource
+    private FileDownloadService fileDownloadService;
+
+    @Resource
+    private FileGatewayService fileGatewayService;
+
+    @Resource
+    private FolderGatewayService folderGatewayService;
+
+    @Resource
+    private RecycleBinGatewayService recycleBinGatewayService;
+
+    @PostMapping("/upload/init")
+    @Operation(description = "初始化分片上传")
+    public Result<InitUploadResponse> initUpload(@Valid @RequestBody InitUploadRequest request, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("初始化分片上传请求: userId={}, fileName={}, fileSize={}", userId, request.getFileName(), request.getFileSize());
+        InitUploadResponse response = fileUploadService.initUpload(userId, request);
+        return Result.success("初始化上传成功", response);
+    }
+
+    @PutMapping(value = "/upload/{uploadId}/chunks/{chunkIndex}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(description = "上传分片，请求体为分片的原始字节，并发超出限制时返回429并在Retry-After后重试，分片已上传或正在上传时返回30023，不会覆盖已写入的分片")
+    public Result<UploadChunkResponse> uploadChunk(@PathVariable String uploadId, @PathVariable Integer chunkIndex,
+                                                   HttpServletRequest httpRequest) throws IOException {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        UploadChunkResponse response = fileUploadService.uploadChunk(userId, uploadId, chunkIndex, httpRequest.getInputStream());
+        return Result.success(response);
+    }
+
+    @GetMapping("/upload/{uploadId}")
+    @Operation(description = "查询分片上传进度")
+    public Result<UploadProgressResponse> getUploadProgress(@PathVariable String uploadId, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        return Result.success(fileUploadService.getUploadProgress(userId, uploadId));
+    }
+
+    @PostMapping("/upload/{uploadId}/instant")
+    @Operation(description = "提交秒传持有证明，初始化返回了proofNonce时可用，校验不通过时继续上传分片")
+    public Result<MergeUploadResponse> proveInstantUpload(@PathVariable String uploadId, @Valid @RequestBody InstantUploadProofRequest request,
+                                                          HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("秒传持有证明请求: userId={}, uploadId={}", userId, uploadId);
+        MergeUploadResponse response = fileUploadService.proveInstantUpload(userId, uploadId, request);
+        return Result.success("上传成功", response);
+    }
+
+    @PostMapping("/upload/{uploadId}/merge")
+    @Operation(description = "合并分片")
+    public Result<MergeUploadResponse> mergeChunks(@PathVariable String uploadId, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("合并分片请求: userId={}, uploadId={}", userId, uploadId);
+        MergeUploadResponse response = fileUploadService.mergeChunks(userId, uploadId);
+        return Result.success("上传成功", response);
+    }
+
+    @DeleteMapping("/upload/{uploadId}")
+    @Operation(description = "取消分片上传")
+    public Result<Void> abortUpload(@PathVariable String uploadId, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        fileUploadService.abortUpload(userId, uploadId);
+        return Result.success();
+    }
+
+    @PostMapping("/upload/cdc/check")
+    @Operation(description = "查询本地按内容分块得到的块中哪些需要上传，同时返回服务端的分块参数")
+    public Result<CdcCheckResponse> checkCdcChunks(@Valid @RequestBody CdcCheckRequest request, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        return Result.success(fileUploadService.checkCdcChunks(userId, request));
+    }
+
+    @PutMapping(value = "/upload/cdc/chunks/{chunkSha256}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(description = "上传单个内容分块，请求体为块的原始字节")
+    public Result<Void> uploadCdcChunk(@PathVariable String chunkSha256, HttpServletRequest httpRequest) throws IOException {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        fileUploadService.uploadCdcChunk(userId, chunkSha256, httpRequest.getInputStream());
+        return Result.success();
+    }
+
+    @PostMapping("/upload/cdc/commit")
+    @Operation(description = "提交块清单完成上传")
+    public Result<MergeUploadResponse> commitCdcUpload(@Valid @RequestBody CdcCommitRequest request, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("提交块清单请求: userId={}, fileName={}, fileSize={}, chunkCount={}",
+                userId, request.getFileName(), request.getFileSize(), request.getChunks().size());
+        MergeUploadResponse response = fileUploadService.commitCdcUpload(userId, request);
+        return Result.success("上传成功", response);
+    }
+
+    @GetMapping("/{fileId}/signature")
+    @Operation(description = "下载文件当前版本的块签名，用于增量上传，未指定块大小时按文件大小选取")
+    public void downloadSignature(@PathVariable Long fileId, @RequestParam(required = false) Integer blockSize,
+                                  HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        fileDownloadService.downloadSignature(userId, fileId, blockSize, httpRequest, httpResponse);
+    }
+
+    @PutMapping(value = "/{fileId}/delta", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(description = "增量上传修改后的文件，请求体为按签名生成的增量指令，参数中的基准sha256与当前版本不一致时拒绝")
+    public Result<MergeUploadResponse> uploadDelta(@PathVariable Long fileId, @Valid DeltaUploadRequest request,
+                                                   HttpServletRequest httpRequest) throws IOException {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("增量上传请求: userId={}, fileId={}, blockSize={}, fileSize={}",
+                userId, fileId, request.getBlockSize(), request.getFileSize());
+        MergeUploadResponse response = fileUploadService.uploadDelta(userId, fileId, request, httpRequest.getInputStream(),
+                httpRequest.getContentLengthLong());
+        return Result.success("上传成功", response);
+    }
+
+    @GetMapping("/{fileId}/download")
+    @Operation(description = "下载文件，支持Range断点续传和多区间请求，浏览器下载可通过token参数传递令牌")
+    public void download(@PathVariable Long fileId, @RequestParam(defaultValue = "false") boolean inline,
+                         HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        fileDownloadService.download(userId, fileId, inline, httpRequest, httpResponse);
+    }
+
+    @GetMapping("/archive")
+    @Operation(description = "把多个文件和文件夹打包成ZIP下载，文件夹保留目录结构，边读边写不生成临时文件，支持超过4GB的压缩包")
+    public void downloadArchive(@RequestParam(required = false) List<Long> fileIds,
+                                @RequestParam(required = false) List<Long> folderIds,
+                                @RequestParam(required = false) String name,
+                                HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("打包下载请求: userId={}, fileIds={}, folderIds={}", userId, fileIds, folderIds);
+        fileDownloadService.downloadArchive(userId, fileIds, folderIds, name, httpRequest, httpResponse);
+    }
+
+    @PutMapping("/{fileId}/move")
+    @Operation(description = "移动文件到指定文件夹")
+    public Result<UserFileVO> moveFile(@PathVariable Long fileId, @Valid @RequestBody MoveRequest request,
+                                       HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("移动文件请求: userId={}, fileId={}, targetFolderId={}", userId, fileId, request.getTargetFolderId());
+        return Result.success("移动成功", folderGatewayService.moveFile(userId, fileId, request.getTargetFolderId()));
+    }
+
+    @PutMapping("/{fileId}/name")
+    @Operation(description = "重命名文件")
+    public Result<UserFileVO> renameFile(@PathVariable Long fileId, @Valid @RequestBody RenameFileRequest request,
+                                         HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("重命名文件请求: userId={}, fileId={}, fileName={}", userId, fileId, request.getFileName());
+        return Result.success("重命名成功", fileGatewayService.renameFile(userId, fileId, request.getFileName()));
+    }
+
+    @GetMapping("/search")
+    @Operation(description = "按文件名搜索，英文和数字按单词前缀匹配，中文按连续子串匹配，可按分类和扩展名过滤，最近上传的在前")
+    public Result<List<UserFileVO>> searchFiles(@RequestParam String keyword,
+                                                @RequestParam(required = false) String category,
+                                                @RequestParam(required = false) String extension,
+                                                @RequestParam(required = false) Integer size,
+                                                HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        return Result.success(fileGatewayService.searchFiles(userId, keyword, category, extension, size));
+    }
+
+    @DeleteMapping("/{fileId}")
+    @Operation(description = "删除文件，放入回收站")
+    public Result<RecycleItemVO> deleteFile(@PathVariable Long fileId, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("删除文件请求: userId={}, fileId={}", userId, fileId);
+        return Result.success("已放入回收站", recycleBinGatewayService.deleteFile(userId, fileId));
+    }
+
+    @PostMapping("/batch/move")
+    @Operation(description = "批量移动文件到同一个文件夹，不存在的文件在failures中逐个列出")
+    public Result<BatchResultVO> batchMoveFiles(@Valid @RequestBody BatchMoveRequest request, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("批量移动文件请求: userId={}, fileCount={}, targetFolderId={}", userId, request.getFileIds().size(),
+                request.getTargetFolderId());
+        return Result.success("移动成功",
+                folderGatewayService.batchMoveFiles(userId, request.getFileIds(), request.getTargetFolderId()));
+    }
+
+    @PostMapping("/batch/copy")
+    @Operation(description = "批量复制文件到同一个文件夹，不复制数据，复制的大小计入已用空间，不存在的文件在failures中逐个列出")
+    public Result<BatchResultVO> batchCopyFiles(@Valid @RequestBody BatchMoveRequest request, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("批量复制文件请求: userId={}, fileCount={}, targetFolderId={}", userId, request.getFileIds().size(),
+                request.getTargetFolderId());
+        return Result.success("复制成功",
+                fileGatewayService.batchCopyFiles(userId, request.getFileIds(), request.getTargetFolderId()));
+    }
+
+    @PostMapping("/batch/delete")
+    @Operation(description = "批量删除文件，每个文件单独放入回收站，不存在的文件在failures中逐个列出")
+    public Result<BatchResultVO> batchDeleteFiles(@Valid @RequestBody BatchFileRequest request, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("批量删除文件请求: userId={}, fileCount={}", userId, request.getFileIds().size());
+        return Result.success("已放入回收站", recycleBinGatewayService.batchDeleteFiles(userId, request.getFileIds()));
+    }
+
+    @GetMapping("/{fileId}/thumbnail")
+    @Operation(description = "获取图片缩略图，返回不小于size的最小规格，尚未生成时返回202并在Retry-After后重试")
+    public void thumbnail(@PathVariable Long fileId, @RequestParam(required = false) Integer size,
+                          HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        fileDownloadService.thumbnail(userId, fileId, size, httpRequest, httpResponse);
+    }
+}
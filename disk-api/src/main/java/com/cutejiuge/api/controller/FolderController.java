@@ -0,0 +1,107 @@
+package com.cutejiuge.api.controller;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.api.request.folder.CreateFolderRequest;
+import com.cutejiuge.api.request.folder.MoveRequest;
+import com.cutejiuge.api.request.folder.RenameFolderRequest;
+import com.cutejiuge.api.security.CurrentUserUtil;
+import com.cutejiuge.api.service.FolderGatewayService;
+import com.cutejiuge.api.service.RecycleBinGatewayService;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.FolderVO;
+import com.cutejiuge.iface.vo.file.RecycleItemVO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 文件夹相关接口controller，文件夹ID为0表示根目录
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午11:50
+ */
+@Slf4j
+@RestController
+@RequestMapping("/folder")
+@Tag(name = "文件夹管理")
+@Validated
+public class FolderController {
+    @Resource
+    private FolderGatewayService folderGatewayService;
+
+    @Resource
+    private RecycleBinGatewayService recycleBinGatewayService;
+
+    @PostMapping
+    @Operation(description = "创建文件夹，同一目录下不能重名")
+    public Result<FolderVO> createFolder(@Valid @RequestBody CreateFolderRequest request, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        Long parentId = ObjectUtil.defaultIfNull(request.getParentId(), FileConstants.ROOT_FOLDER_ID);
+        log.info("创建文件夹请求: userId={}, parentId={}, folderName={}", userId, parentId, request.getFolderName());
+        return Result.success("创建成功", folderGatewayService.createFolder(userId, parentId, request.getFolderName()));
+    }
+
+    @GetMapping("/{folderId}")
+    @Operation(description = "列出文件夹的直接子文件夹和文件")
+    public Result<FolderContentVO> listFolder(@PathVariable Long folderId, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        return Result.success(folderGatewayService.listFolder(userId, folderId));
+    }
+
+    @GetMapping("/{folderId}/tree")
+    @Operation(description = "查询文件夹的整棵子树，包含全部子孙文件夹和文件")
+    public Result<FolderContentVO> getFolderTree(@PathVariable Long folderId, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        return Result.success(folderGatewayService.getFolderTree(userId, folderId));
+    }
+
+    @PutMapping("/{folderId}/name")
+    @Operation(description = "重命名文件夹，子文件夹和文件不需要更新")
+    public Result<FolderVO> renameFolder(@PathVariable Long folderId, @Valid @RequestBody RenameFolderRequest request,
+                                         HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("重命名文件夹请求: userId={}, folderId={}, folderName={}", userId, folderId, request.getFolderName());
+        return Result.success("重命名成功", folderGatewayService.renameFolder(userId, folderId, request.getFolderName()));
+    }
+
+    @PutMapping("/{folderId}/move")
+    @Operation(description = "移动文件夹及其整棵子树，不能移动到自身或自身的子文件夹中")
+    public Result<FolderVO> moveFolder(@PathVariable Long folderId, @Valid @RequestBody MoveRequest request,
+                                       HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("移动文件夹请求: userId={}, folderId={}, targetFolderId={}", userId, folderId, request.getTargetFolderId());
+        return Result.success("移动成功", folderGatewayService.moveFolder(userId, folderId, request.getTargetFolderId()));
+    }
+
+    @PostMapping("/{folderId}/copy")
+    @Operation(description = "复制文件夹及其整棵子树，不复制数据，重名时加序号；文件较多时在后台复制，返回的任务可查询进度")
+    public Result<CopyJobVO> copyFolder(@PathVariable Long folderId, @Valid @RequestBody MoveRequest request,
+                                       HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("复制文件夹请求: userId={}, folderId={}, targetFolderId={}", userId, folderId, request.getTargetFolderId());
+        return Result.success("复制成功", folderGatewayService.copyFolder(userId, folderId, request.getTargetFolderId()));
+    }
+
+    @GetMapping("/copy-jobs/{jobId}")
+    @Operation(description = "查询复制任务的进度，状态1-进行中 2-已完成 3-失败或中断")
+    public Result<CopyJobVO> getCopyJob(@PathVariable String jobId, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        return Result.success(folderGatewayService.getCopyJob(userId, jobId));
+    }
+
+    @DeleteMapping("/{folderId}")
+    @Operation(description = "删除文件夹，整棵子树作为一个项目放入回收站")
+    public Result<RecycleItemVO> deleteFolder(@PathVariable Long folderId, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("删除文件夹请求: userId={}, folderId={}", userId, folderId);
+        return Result.success("已放入回收站", recycleBinGatewayService.deleteFolder(userId, folderId));
+    }
+}
@@ -0,0 +1,65 @@
+package com.cutejiuge.api.controller;
+
+import com.cutejiuge.api.security.CurrentUserUtil;
+import com.cutejiuge.api.service.RecycleBinGatewayService;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.iface.vo.file.RecycleItemVO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 回收站相关接口controller
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午4:10
+ */
+@Slf4j
+@RestController
+@RequestMapping("/recycle")
+@Tag(name = "回收站")
+@Validated
+public class RecycleBinController {
+    @Resource
+    private RecycleBinGatewayService recycleBinGatewayService;
+
+    @GetMapping
+    @Operation(description = "按删除时间倒序查询回收站，翻页时beforeId传上一页最后一条记录的recycleId")
+    public Result<List<RecycleItemVO>> listRecycleBin(@RequestParam(required = false) Long beforeId,
+                                                      @RequestParam(required = false) Integer size,
+                                                      HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        return Result.success(recycleBinGatewayService.listRecycleBin(userId, beforeId, size));
+    }
+
+    @PostMapping("/{recycleId}/restore")
+    @Operation(description = "还原回收站项目，原所在文件夹已不存在时还原到根目录，与同名文件夹冲突时自动重命名")
+    public Result<RecycleItemVO> restore(@PathVariable Long recycleId, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("还原回收站项目请求: userId={}, recycleId={}", userId, recycleId);
+        return Result.success("还原成功", recycleBinGatewayService.restore(userId, recycleId));
+    }
+
+    @DeleteMapping("/{recycleId}")
+    @Operation(description = "彻底删除回收站项目，立即不可还原，数据在后台清理")
+    public Result<Void> purge(@PathVariable Long recycleId, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("彻底删除回收站项目请求: userId={}, recycleId={}", userId, recycleId);
+        recycleBinGatewayService.purge(userId, recycleId);
+        return Result.success();
+    }
+
+    @DeleteMapping
+    @Operation(description = "清空回收站，数据在后台清理")
+    public Result<Integer> emptyRecycleBin(HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("清空回收站请求: userId={}", userId);
+        return Result.success("已清空", recycleBinGatewayService.emptyRecycleBin(userId));
+    }
+}
@@ -0,0 +1,103 @@
+package com.cutejiuge.api.controller;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.cutejiuge.api.request.share.CreateShareRequest;
+import com.cutejiuge.api.request.share.SaveShareRequest;
+import com.cutejiuge.api.security.CurrentUserUtil;
+import com.cutejiuge.api.service.ShareGatewayService;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.util.IpAddressUtil;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.ShareVO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 分享相关接口controller
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午9:15
+ */
+@Slf4j
+@RestController
+@RequestMapping("/share")
+@Tag(name = "分享")
+@Validated
+public class ShareController {
+    @Resource
+    private ShareGatewayService shareGatewayService;
+
+    @PostMapping
+    @Operation(description = "创建分享，可以设置提取码和有效天数")
+    public Result<ShareVO> createShare(@Valid @RequestBody CreateShareRequest request, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("创建分享请求: userId={}, itemType={}, itemId={}", userId, request.getItemType(), request.getItemId());
+        return Result.success("分享成功", shareGatewayService.createShare(userId, request));
+    }
+
+    @GetMapping
+    @Operation(description = "按创建时间倒序查询我的分享，翻页时beforeId传上一页最后一条记录的shareId")
+    public Result<List<ShareVO>> listShares(@RequestParam(required = false) Long beforeId,
+                                            @RequestParam(required = false) Integer size,
+                                            HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        return Result.success(shareGatewayService.listShares(userId, beforeId, size));
+    }
+
+    @DeleteMapping("/{shareId}")
+    @Operation(description = "取消分享")
+    public Result<Void> cancelShare(@PathVariable Long shareId, HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("取消分享请求: userId={}, shareId={}", userId, shareId);
+        shareGatewayService.cancelShare(userId, shareId);
+        return Result.success();
+    }
+
+    @GetMapping("/{shareCode}")
+    @Operation(description = "查看分享，无需登录，设置了提取码的分享需要传extractCode")
+    public Result<ShareVO> viewShare(@PathVariable String shareCode,
+                                     @RequestParam(required = false) String extractCode,
+                                     HttpServletRequest httpRequest) {
+        Long viewerId = (Long) httpRequest.getAttribute(CurrentUserUtil.CURRENT_USER_ID_ATTRIBUTE);
+        return Result.success(shareGatewayService.viewShare(shareCode, extractCode, viewerId, getVisitorId(viewerId, httpRequest),
+                IpAddressUtil.getClientIp(httpRequest)));
+    }
+
+    @GetMapping("/{shareCode}/files")
+    @Operation(description = "查询分享的内容，无需登录，folderId不传表示分享的文件夹本身")
+    public Result<FolderContentVO> listShareContent(@PathVariable String shareCode,
+                                                    @RequestParam(required = false) String extractCode,
+                                                    @RequestParam(required = false) Long folderId,
+                                                    HttpServletRequest httpRequest) {
+        Long viewerId = (Long) httpRequest.getAttribute(CurrentUserUtil.CURRENT_USER_ID_ATTRIBUTE);
+        return Result.success(shareGatewayService.listShareContent(shareCode, extractCode, viewerId, folderId,
+                IpAddressUtil.getClientIp(httpRequest)));
+    }
+
+    @PostMapping("/{shareCode}/save")
+    @Operation(description = "转存分享到我的网盘，不复制数据；转存文件夹时文件较多会在后台复制，通过/folder/copy-jobs/{jobId}查询进度")
+    public Result<CopyJobVO> saveShare(@PathVariable String shareCode, @Valid @RequestBody SaveShareRequest request,
+                                       HttpServletRequest httpRequest) {
+        Long userId = CurrentUserUtil.getCurrentUserId(httpRequest);
+        log.info("转存分享请求: userId={}, shareCode={}, targetFolderId={}", userId, shareCode, request.getTargetFolderId());
+        return Result.success("转存成功", shareGatewayService.saveShare(userId, shareCode, request, IpAddressUtil.getClientIp(httpRequest)));
+    }
+
+
+    // 访客标识，登录用户为用户ID，未登录为IP和User-Agent的摘要
+    private String getVisitorId(Long viewerId, HttpServletRequest httpRequest) {
+        if (viewerId != null) {
+            return "u:" + viewerId;
+        }
+        return "a:" + DigestUtil.md5Hex16(IpAddressUtil.getClientIp(httpRequest) + "|" + httpRequest.getHeader("User-Agent"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.cutejiuge.api.pojo.dto;
+
+import com.cutejiuge.iface.dto.file.ChunkRefDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * CDC块清单，按顺序记录文件由哪些块组成
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 上午10:12
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class ChunkManifestDTO {
+    /**
+     * 文件大小(字节)
+     */
+    private Long fileSize;
+
+    /**
+     * 按文件顺序排列的块
+     */
+    private List<ChunkRefDTO> chunks;
+
+    /**
+     * 每个块在文件中的起始偏移，与chunks一一对应
+     */
+    private long[] chunkOffsets;
+
+    /**
+     * 本次新写入的块数，其余块已存在于块存储中
+     */
+    private Integer newChunkCount;
+
+    /**
+     * 本次新写入的字节数
+     */
+    private Long newChunkBytes;
+}
@@ -0,0 +1,35 @@
+package com.cutejiuge.api.pojo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * 秒传的持有证明挑战，客户端需返回 sha256(nonce的UTF-8字节 + 文件[offset, offset + length)的字节)
+ *
+ * @author cutejiuge
+ * @since 2026/10/21 上午11:10
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class InstantUploadChallengeDTO {
+    /**
+     * 随机数，防止客户端用已知的文件sha256或预先算好的结果作答
+     */
+    private String nonce;
+
+    /**
+     * 区间起始位置
+     */
+    private Long offset;
+
+    /**
+     * 区间长度
+     */
+    private Integer length;
+}
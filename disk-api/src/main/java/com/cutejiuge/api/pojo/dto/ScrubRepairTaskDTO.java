@@ -0,0 +1,75 @@
+package com.cutejiuge.api.pojo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * 完整性校验发现的待修复物理文件
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午9:50
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class ScrubRepairTaskDTO {
+    /**
+     * 物理文件ID
+     */
+    private Long blobId;
+
+    /**
+     * 登记的sha256
+     */
+    private String sha256;
+
+    /**
+     * 登记的文件大小(字节)
+     */
+    private Long fileSize;
+
+    /**
+     * 存储路径
+     */
+    private String storagePath;
+
+    /**
+     * 存储方式
+     */
+    private Integer storageType;
+
+    /**
+     * 引用计数，为0的物理文件没有用户文件引用，修复优先级较低
+     */
+    private Integer refCount;
+
+    /**
+     * 问题类型，CORRUPTED-内容与sha256不一致 MISSING-对象不存在 UNREADABLE-读取或解压失败
+     */
+    private String reason;
+
+    /**
+     * 实际读出内容的sha256，读取失败时为空
+     */
+    private String actualSha256;
+
+    /**
+     * 实际读出的字节数
+     */
+    private Long actualSize;
+
+    /**
+     * 读取失败的异常信息
+     */
+    private String message;
+
+    /**
+     * 发现时间戳(ms)
+     */
+    private Long detectTime;
+}
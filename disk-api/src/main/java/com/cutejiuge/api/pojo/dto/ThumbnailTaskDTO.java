@@ -0,0 +1,40 @@
+package com.cutejiuge.api.pojo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * 缩略图生成任务
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午2:05
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class ThumbnailTaskDTO {
+    /**
+     * 物理文件sha256，同一个物理文件只生成一次缩略图
+     */
+    private String fileSha256;
+
+    /**
+     * 文件名
+     */
+    private String fileName;
+
+    /**
+     * 物理文件的存储路径(相对存储根目录)
+     */
+    private String storagePath;
+
+    /**
+     * 存储方式，1-完整文件 2-CDC块清单 3-分块压缩文件
+     */
+    private Integer storageType;
+}
@@ -0,0 +1,40 @@
+package com.cutejiuge.api.pojo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * 上传任务及已上传分片位图，断点续传时一次往返从redis取出
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午6:20
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class UploadProgressDTO {
+    /**
+     * 上传任务
+     */
+    private UploadSessionDTO session;
+
+    /**
+     * 已上传分片位图，字节内高位在前，第i个分片对应第i/8个字节的第7-i%8位
+     */
+    private byte[] uploadedBitmap;
+
+    /**
+     * 已上传分片数量
+     */
+    private Integer uploadedCount;
+
+    /**
+     * 第一个未上传的分片序号，分片全部上传时为null
+     */
+    private Integer nextChunkIndex;
+}
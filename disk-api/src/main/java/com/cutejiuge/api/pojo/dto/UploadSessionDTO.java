@@ -0,0 +1,81 @@
+package com.cutejiuge.api.pojo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 分片上传会话信息，缓存在redis中
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 上午9:20
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class UploadSessionDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -2318846715309021641L;
+
+    /**
+     * 上传任务ID
+     */
+    private String uploadId;
+
+    /**
+     * 上传用户ID
+     */
+    private Long userId;
+
+    /**
+     * 目标文件夹ID，0为根目录
+     */
+    private Long folderId;
+
+    /**
+     * 原始文件名
+     */
+    private String fileName;
+
+    /**
+     * 文件大小(字节)
+     */
+    private Long fileSize;
+
+    /**
+     * 分片大小(字节)
+     */
+    private Long chunkSize;
+
+    /**
+     * 分片数量
+     */
+    private Integer chunkCount;
+
+    /**
+     * 文件sha256
+     */
+    private String fileSha256;
+
+    /**
+     * 已计入摘要的连续分片数量
+     */
+    private Integer hashedChunkCount;
+
+    /**
+     * 增量sha256的中间状态
+     */
+    private String hashState;
+
+    /**
+     * 创建时间戳(ms)
+     */
+    private Long createTime;
+}
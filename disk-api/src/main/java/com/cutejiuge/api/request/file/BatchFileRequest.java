@@ -0,0 +1,31 @@
+package com.cutejiuge.api.request.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量删除文件请求
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午2:10
+ */
+@Data
+@Schema(
+        description = "批量删除文件请求",
+        requiredProperties = {"fileIds"}
+)
+public class BatchFileRequest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 6032518874410729385L;
+
+    @Schema(name = "文件ID列表", example = "[1001, 1002]")
+    @NotEmpty(message = "文件ID列表不能为空")
+    @Size(max = 2000, message = "单次最多操作2000个文件")
+    private List<Long> fileIds;
+}
@@ -0,0 +1,38 @@
+package com.cutejiuge.api.request.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量移动或复制文件请求
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午2:12
+ */
+@Data
+@Schema(
+        description = "批量移动或复制文件请求",
+        requiredProperties = {"fileIds", "targetFolderId"}
+)
+public class BatchMoveRequest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 2770451396185524067L;
+
+    @Schema(name = "文件ID列表", example = "[1001, 1002]")
+    @NotEmpty(message = "文件ID列表不能为空")
+    @Size(max = 2000, message = "单次最多操作2000个文件")
+    private List<Long> fileIds;
+
+    @Schema(name = "目标文件夹ID，0为根目录", example = "0")
+    @NotNull(message = "目标文件夹ID不能为空")
+    @PositiveOrZero(message = "文件夹ID不能为负数")
+    private Long targetFolderId;
+}
@@ -0,0 +1,32 @@
+package com.cutejiuge.api.request.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 查询CDC块是否已存在的请求
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 上午10:40
+ */
+@Data
+@Schema(
+        description = "查询CDC块是否已存在的请求",
+        requiredProperties = {"chunkSha256s"}
+)
+public class CdcCheckRequest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -7706420331652618430L;
+
+    @Schema(name = "客户端本地分块得到的块sha256列表", example = "[\"9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08\"]")
+    @NotEmpty(message = "块列表不能为空")
+    @Size(max = 10000, message = "单次最多查询10000个块")
+    private List<@Pattern(regexp = "^[0-9a-fA-F]{64}$", message = "块sha256格式不正确") String> chunkSha256s;
+}
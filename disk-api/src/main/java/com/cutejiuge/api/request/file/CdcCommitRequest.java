@@ -0,0 +1,55 @@
+package com.cutejiuge.api.request.file;
+
+import com.cutejiuge.iface.dto.file.ChunkRefDTO;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 提交CDC块清单完成上传的请求
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 上午10:42
+ */
+@Data
+@Schema(
+        description = "提交CDC块清单完成上传的请求",
+        requiredProperties = {"fileName", "fileSize", "fileSha256", "chunks"}
+)
+public class CdcCommitRequest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 4405813627391150878L;
+
+    @Schema(name = "文件名", example = "report.docx")
+    @NotBlank(message = "文件名不能为空")
+    @Size(max = 255, message = "文件名长度不能超过255个字符")
+    private String fileName;
+
+    @Schema(name = "文件大小(字节)", example = "104857600")
+    @NotNull(message = "文件大小不能为空")
+    @Positive(message = "文件大小必须大于0")
+    private Long fileSize;
+
+    @Schema(name = "文件sha256", example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    @NotBlank(message = "文件sha256不能为空")
+    @Pattern(regexp = "^[0-9a-fA-F]{64}$", message = "文件sha256格式不正确")
+    private String fileSha256;
+
+    @Schema(name = "目标文件夹ID，不传则保存到根目录", example = "0")
+    @PositiveOrZero(message = "文件夹ID不能为负数")
+    private Long folderId;
+
+    @Schema(name = "按文件顺序排列的块")
+    @NotEmpty(message = "块列表不能为空")
+    private List<ChunkRefDTO> chunks;
+}
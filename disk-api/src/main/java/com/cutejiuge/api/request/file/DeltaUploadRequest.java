@@ -0,0 +1,48 @@
+package com.cutejiuge.api.request.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 增量上传请求，通过查询参数传递，请求体为增量指令
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午5:20
+ */
+@Data
+@Schema(
+        description = "增量上传请求",
+        requiredProperties = {"baseSha256", "blockSize", "fileSize", "fileSha256"}
+)
+public class DeltaUploadRequest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -7381250964417706928L;
+
+    @Schema(name = "签名对应的文件sha256，文件已被修改时返回冲突", example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    @NotBlank(message = "原文件sha256不能为空")
+    @Pattern(regexp = "^[0-9a-fA-F]{64}$", message = "原文件sha256格式不正确")
+    private String baseSha256;
+
+    @Schema(name = "签名的块大小(字节)", example = "32768")
+    @NotNull(message = "块大小不能为空")
+    @Positive(message = "块大小必须大于0")
+    private Integer blockSize;
+
+    @Schema(name = "新文件大小(字节)", example = "2147483648")
+    @NotNull(message = "文件大小不能为空")
+    @PositiveOrZero(message = "文件大小不能为负数")
+    private Long fileSize;
+
+    @Schema(name = "新文件sha256", example = "2c26b46b68ffc68ff99b453c1d30413413422d706483bfa0f98a5e886266e7ae")
+    @NotBlank(message = "文件sha256不能为空")
+    @Pattern(regexp = "^[0-9a-fA-F]{64}$", message = "文件sha256格式不正确")
+    private String fileSha256;
+}
@@ -0,0 +1,31 @@
+package com.cutejiuge.api.request.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 秒传持有证明请求
+ *
+ * @author cutejiuge
+ * @since 2026/10/21 上午11:15
+ */
+@Data
+@Schema(
+        description = "秒传持有证明请求",
+        requiredProperties = {"proofHash"}
+)
+public class InstantUploadProofRequest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 5310846223917450172L;
+
+    @Schema(name = "sha256(proofNonce的UTF-8字节 + 文件[proofOffset, proofOffset + proofLength)的字节)",
+            example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    @NotBlank(message = "持有证明不能为空")
+    @Pattern(regexp = "^[0-9a-fA-F]{64}$", message = "持有证明格式不正确")
+    private String proofHash;
+}
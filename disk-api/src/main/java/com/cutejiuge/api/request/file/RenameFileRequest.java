@@ -0,0 +1,30 @@
+package com.cutejiuge.api.request.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 重命名文件请求
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 上午10:50
+ */
+@Data
+@Schema(
+        description = "重命名文件请求",
+        requiredProperties = {"fileName"}
+)
+public class RenameFileRequest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 4418907532016623951L;
+
+    @Schema(name = "新的文件名称", example = "2024年度报告.pdf")
+    @NotBlank(message = "文件名称不能为空")
+    @Size(max = 255, message = "文件名称长度不能超过255个字符")
+    private String fileName;
+}
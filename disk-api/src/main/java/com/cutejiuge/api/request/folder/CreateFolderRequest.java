@@ -0,0 +1,35 @@
+package com.cutejiuge.api.request.folder;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 创建文件夹请求
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午11:30
+ */
+@Data
+@Schema(
+        description = "创建文件夹请求",
+        requiredProperties = {"folderName"}
+)
+public class CreateFolderRequest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -2817704503364811596L;
+
+    @Schema(name = "父文件夹ID，不传则创建在根目录", example = "0")
+    @PositiveOrZero(message = "文件夹ID不能为负数")
+    private Long parentId;
+
+    @Schema(name = "文件夹名称", example = "照片")
+    @NotBlank(message = "文件夹名称不能为空")
+    @Size(max = 255, message = "文件夹名称长度不能超过255个字符")
+    private String folderName;
+}
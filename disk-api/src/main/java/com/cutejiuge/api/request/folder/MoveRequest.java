@@ -0,0 +1,30 @@
+package com.cutejiuge.api.request.folder;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 移动文件或文件夹请求
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午11:34
+ */
+@Data
+@Schema(
+        description = "移动文件或文件夹请求",
+        requiredProperties = {"targetFolderId"}
+)
+public class MoveRequest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1948263310573829160L;
+
+    @Schema(name = "目标文件夹ID，0为根目录", example = "0")
+    @NotNull(message = "目标文件夹ID不能为空")
+    @PositiveOrZero(message = "文件夹ID不能为负数")
+    private Long targetFolderId;
+}
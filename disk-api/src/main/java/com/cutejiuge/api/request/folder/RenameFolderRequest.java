@@ -0,0 +1,30 @@
+package com.cutejiuge.api.request.folder;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 重命名文件夹请求
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午11:32
+ */
+@Data
+@Schema(
+        description = "重命名文件夹请求",
+        requiredProperties = {"folderName"}
+)
+public class RenameFolderRequest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 6032265874415523307L;
+
+    @Schema(name = "新的文件夹名称", example = "旅行照片")
+    @NotBlank(message = "文件夹名称不能为空")
+    @Size(max = 255, message = "文件夹名称长度不能超过255个字符")
+    private String folderName;
+}
@@ -0,0 +1,48 @@
+package com.cutejiuge.api.request.share;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 创建分享请求
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午8:55
+ */
+@Data
+@Schema(
+        description = "创建分享请求",
+        requiredProperties = {"itemType", "itemId"}
+)
+public class CreateShareRequest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 7720415836092617385L;
+
+    @Schema(name = "分享项目类型，1-文件 2-文件夹", example = "1")
+    @NotNull(message = "分享项目类型不能为空")
+    @Min(value = 1, message = "分享项目类型不正确")
+    @Max(value = 2, message = "分享项目类型不正确")
+    private Integer itemType;
+
+    @Schema(name = "分享的文件或文件夹ID", example = "1846012345678901234")
+    @NotNull(message = "分享的文件或文件夹ID不能为空")
+    @Positive(message = "分享的文件或文件夹ID不正确")
+    private Long itemId;
+
+    @Schema(name = "提取码，4到6位字母或数字，不传则公开分享", example = "a1b2")
+    @Pattern(regexp = "^[0-9A-Za-z]{4,6}$", message = "提取码为4到6位字母或数字")
+    private String extractCode;
+
+    @Schema(name = "有效天数，不传则永久有效", example = "7")
+    @Min(value = 1, message = "有效天数最少为1天")
+    @Max(value = 365, message = "有效天数最多为365天")
+    private Integer expireDays;
+}
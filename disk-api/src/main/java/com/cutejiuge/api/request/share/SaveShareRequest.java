@@ -0,0 +1,44 @@
+package com.cutejiuge.api.request.share;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 转存分享请求
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午5:20
+ */
+@Data
+@Schema(
+        description = "转存分享请求",
+        requiredProperties = {"targetFolderId"}
+)
+public class SaveShareRequest implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -2309874512260381547L;
+
+    @Schema(name = "提取码，分享设置了提取码时必填", example = "a1b2")
+    private String extractCode;
+
+    @Schema(name = "文件夹分享中要转存的子文件夹ID，不传表示分享的文件夹本身", example = "1846012345678901234")
+    @Positive(message = "文件夹ID不正确")
+    private Long folderId;
+
+    @Schema(name = "文件夹分享中要转存的文件ID，传了则只转存这些文件", example = "[1001, 1002]")
+    @Size(max = 2000, message = "单次最多转存2000个文件")
+    private List<Long> fileIds;
+
+    @Schema(name = "转存到的文件夹ID，0为根目录", example = "0")
+    @NotNull(message = "目标文件夹ID不能为空")
+    @PositiveOrZero(message = "文件夹ID不能为负数")
+    private Long targetFolderId;
+}
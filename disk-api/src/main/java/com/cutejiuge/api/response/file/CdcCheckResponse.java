@@ -0,0 +1,37 @@
+package com.cutejiuge.api.response.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 查询CDC块是否已存在的响应
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 上午10:45
+ */
+@Data
+@Builder
+@Accessors(chain = true)
+@Schema(name = "查询CDC块是否已存在的响应")
+public class CdcCheckResponse implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 2218710566293045627L;
+
+    @Schema(name = "需要上传的块sha256，包括服务端不存在的块和该用户没有上传过的块", example = "[\"9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08\"]")
+    private List<String> missingChunks;
+
+    @Schema(name = "最小块大小(字节)，客户端分块参数必须与服务端一致", example = "16384")
+    private Integer minChunkSize;
+
+    @Schema(name = "平均块大小(字节)", example = "65536")
+    private Integer avgChunkSize;
+
+    @Schema(name = "最大块大小(字节)", example = "262144")
+    private Integer maxChunkSize;
+}
@@ -0,0 +1,62 @@
+package com.cutejiuge.api.response.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 初始化分片上传响应
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 上午9:28
+ */
+@Data
+@Builder
+@Accessors(chain = true)
+@Schema(name = "初始化分片上传响应")
+public class InitUploadResponse implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -6165305874932281734L;
+
+    @Schema(name = "是否秒传成功，初始化时不直接秒传，固定为false，需提交持有证明后秒传", example = "false")
+    private Boolean instantUpload;
+
+    @Schema(name = "文件ID，秒传成功时返回，初始化时为空", example = "1846012345678901234")
+    private Long fileId;
+
+    @Schema(name = "上传任务ID", example = "3f1c0e6a9b8d4e2f8a7b6c5d4e3f2a1b")
+    private String uploadId;
+
+    @Schema(name = "分片大小(字节)", example = "5242880")
+    private Long chunkSize;
+
+    @Schema(name = "分片数量", example = "20")
+    private Integer chunkCount;
+
+    @Schema(name = "已上传分片数量", example = "3")
+    private Integer uploadedCount;
+
+    @Schema(name = "第一个未上传的分片序号，分片全部上传时为空", example = "3")
+    private Integer nextChunkIndex;
+
+    @Schema(name = "已上传分片位图的base64，字节内高位在前，第i个分片对应第i/8个字节的第7-i%8位，为1时断点续传跳过该分片",
+            example = "4A==")
+    private String uploadedBitmap;
+
+    @Schema(name = "秒传持有证明的随机数，物理文件已存在时返回，客户端持有文件时可提交持有证明完成秒传，否则正常上传分片",
+            example = "5f0b1c9e2a7d4c38b6e1f0a9d8c7b6a5")
+    private String proofNonce;
+
+    @Schema(name = "秒传持有证明的区间起始位置", example = "52428800")
+    private Long proofOffset;
+
+    @Schema(name = "秒传持有证明的区间长度", example = "65536")
+    private Integer proofLength;
+
+    @Schema(name = "建议的并发上传分片数，超出时分片请求会收到429和Retry-After", example = "4")
+    private Integer parallelism;
+}
@@ -0,0 +1,39 @@
+package com.cutejiuge.api.response.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 合并分片响应
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 上午9:35
+ */
+@Data
+@Builder
+@Accessors(chain = true)
+@Schema(name = "合并分片响应")
+public class MergeUploadResponse implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 8810253372176401925L;
+
+    @Schema(name = "文件ID", example = "1846012345678901234")
+    private Long fileId;
+
+    @Schema(name = "文件名", example = "movie.mp4")
+    private String fileName;
+
+    @Schema(name = "文件存储路径", example = "user-files/1001/2026/10/1979403538843844608.mp4")
+    private String filePath;
+
+    @Schema(name = "文件大小(字节)", example = "104857600")
+    private Long fileSize;
+
+    @Schema(name = "文件sha256", example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    private String fileSha256;
+}
@@ -0,0 +1,33 @@
+package com.cutejiuge.api.response.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 上传分片响应
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 上午9:31
+ */
+@Data
+@Builder
+@Accessors(chain = true)
+@Schema(name = "上传分片响应")
+public class UploadChunkResponse implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1937624513270546081L;
+
+    @Schema(name = "分片序号", example = "3")
+    private Integer chunkIndex;
+
+    @Schema(name = "已上传分片数量", example = "4")
+    private Integer uploadedCount;
+
+    @Schema(name = "分片总数", example = "20")
+    private Integer chunkCount;
+}
@@ -0,0 +1,49 @@
+package com.cutejiuge.api.response.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 分片上传进度响应
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 上午9:33
+ */
+@Data
+@Builder
+@Accessors(chain = true)
+@Schema(name = "分片上传进度响应")
+public class UploadProgressResponse implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -4402186951630158372L;
+
+    @Schema(name = "上传任务ID", example = "3f1c0e6a9b8d4e2f8a7b6c5d4e3f2a1b")
+    private String uploadId;
+
+    @Schema(name = "文件名", example = "movie.mp4")
+    private String fileName;
+
+    @Schema(name = "文件大小(字节)", example = "104857600")
+    private Long fileSize;
+
+    @Schema(name = "分片大小(字节)", example = "5242880")
+    private Long chunkSize;
+
+    @Schema(name = "分片总数", example = "20")
+    private Integer chunkCount;
+
+    @Schema(name = "已上传分片数量", example = "3")
+    private Integer uploadedCount;
+
+    @Schema(name = "第一个未上传的分片序号，分片全部上传时为空", example = "3")
+    private Integer nextChunkIndex;
+
+    @Schema(name = "已上传分片位图的base64，字节内高位在前，第i个分片对应第i/8个字节的第7-i%8位，为1时断点续传跳过该分片",
+            example = "4A==")
+    private String uploadedBitmap;
+}
@@ -0,0 +1,36 @@
+package com.cutejiuge.api.security;
+
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.ResultCode;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * 当前登录用户工具类，用户信息由JwtAuthenticationFilter认证成功后写入请求属性
+ *
+ * @author cutejiuge
+ * @since 2026/10/21 上午10:05
+ */
+public class CurrentUserUtil {
+    // 当前用户ID的请求属性名
+    public static final String CURRENT_USER_ID_ATTRIBUTE = "currentUserId";
+
+    // 当前用户名的请求属性名
+    public static final String CURRENT_USERNAME_ATTRIBUTE = "currentUsername";
+
+    private CurrentUserUtil() {
+    }
+
+    /**
+     * 获取当前登录用户ID，未登录时抛出NOT_AUTHENTICATED
+     *
+     * @param request HttpServletRequest
+     * @return 用户ID
+     */
+    public static Long getCurrentUserId(HttpServletRequest request) {
+        Object userId = request.getAttribute(CURRENT_USER_ID_ATTRIBUTE);
+        if (userId == null) {
+            throw new BusinessException(ResultCode.NOT_AUTHENTICATED);
+        }
+        return (Long) userId;
+    }
+}
@@ -74,8 +74,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 // 设置用户信息到请求属性中，供后续使用
                 Long userId = jwtTokenUtil.getUserIdFromToken(token);
-                request.setAttribute("currentUserId", userId);
-                request.setAttribute("currentUsername", username);
+                request.setAttribute(CurrentUserUtil.CURRENT_USER_ID_ATTRIBUTE, userId);
+                request.setAttribute(CurrentUserUtil.CURRENT_USERNAME_ATTRIBUTE, username);
                 log.debug("JWT认证成功，用户: {}, ID: {}", username, userId);
             }
         } catch (Exception e) {
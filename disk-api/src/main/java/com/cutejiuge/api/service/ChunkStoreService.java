@@ -0,0 +1,87 @@
+package com.cutejiuge.api.service;
+
+import com.cutejiuge.api.pojo.dto.ChunkManifestDTO;
+import com.cutejiuge.common.util.FastCdcChunker;
+import com.cutejiuge.storage.ObjectStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * CDC块存储服务接口，块按sha256内容寻址存放，相同内容的块只保存一份
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 上午10:15
+ */
+public interface ChunkStoreService {
+    /**
+     * 文件是否按CDC块清单存储，只对文档等可增量修改的类型生效
+     */
+    boolean isCdcApplicable(String fileName, long fileSize);
+
+    /**
+     * 当前使用的分块器，客户端本地分块时需要使用相同的参数
+     */
+    FastCdcChunker getChunker();
+
+    /**
+     * 把按顺序排列的多个对象视为一个整体做内容分块，只写入块存储中不存在的块
+     */
+    ChunkManifestDTO storeChunks(List<String> sourceKeys) throws IOException;
+
+    /**
+     * 对通道中的全部数据做内容分块，只写入块存储中不存在的块，通道由调用方关闭
+     */
+    ChunkManifestDTO storeChunks(ReadableByteChannel source) throws IOException;
+
+    /**
+     * 保存客户端上传的单个块，校验摘要和大小
+     *
+     * @return 块已存在时返回false
+     */
+    boolean saveChunk(String chunkSha256, InputStream inputStream) throws IOException;
+
+    /**
+     * 返回块存储中不存在的块
+     */
+    List<String> findMissingChunks(Collection<String> chunkSha256s) throws IOException;
+
+    /**
+     * 按块清单顺序计算整个文件的sha256
+     */
+    String calculateSha256(ChunkManifestDTO manifest) throws IOException;
+
+    /**
+     * 写入块清单对象
+     */
+    void writeManifest(ChunkManifestDTO manifest, String manifestKey) throws IOException;
+
+    /**
+     * 读取块清单对象
+     */
+    ChunkManifestDTO readManifest(String manifestKey) throws IOException;
+
+    /**
+     * 从指定的存储读取块清单对象，后台校验时传入不经过缓存的底层存储
+     */
+    ChunkManifestDTO readManifest(String manifestKey, ObjectStorage source) throws IOException;
+
+    /**
+     * 按块清单顺序打开整个文件的输入流
+     */
+    InputStream openInputStream(ChunkManifestDTO manifest);
+
+    /**
+     * 从指定的存储按块清单顺序打开整个文件的输入流，后台校验时传入不经过缓存的底层存储
+     */
+    InputStream openInputStream(ChunkManifestDTO manifest, ObjectStorage source);
+
+    /**
+     * 把块清单表示的文件中的一个区间写到目标通道
+     */
+    void transferTo(ChunkManifestDTO manifest, long position, long count, WritableByteChannel target) throws IOException;
+}
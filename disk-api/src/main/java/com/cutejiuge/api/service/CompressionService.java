@@ -0,0 +1,33 @@
+package com.cutejiuge.api.service;
+
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.compress.CompressionCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * 存储压缩服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午10:40
+ */
+public interface CompressionService {
+    /**
+     * 按文件分类选择压缩算法，图片音视频和压缩包本身已压缩，返回不压缩
+     */
+    CompressionCodec selectCodec(String fileName);
+
+    /**
+     * 把按顺序排列的多个对象拼接后分块压缩写入目标对象
+     *
+     * @param rawSize 拼接后的原始大小，与实际不一致时抛出ObjectSizeMismatchException且不留下目标对象
+     */
+    ObjectMetadata composeCompressed(String key, List<String> sourceKeys, long rawSize, CompressionCodec codec) throws IOException;
+
+    /**
+     * 把输入流中恰好rawSize字节的数据分块压缩写入目标对象，输入流由调用方关闭
+     */
+    ObjectMetadata writeCompressed(String key, InputStream input, long rawSize, CompressionCodec codec) throws IOException;
+}
@@ -0,0 +1,51 @@
+package com.cutejiuge.api.service;
+
+import com.cutejiuge.iface.vo.file.UserFileVO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * 增量同步服务接口
+ * <p>
+ * 修改已有文件时，客户端先下载当前版本的签名，在本地按滚动校验和查找没有变化的块，只上传变化的数据。
+ * <p>
+ * 签名格式（大端序）：魔数"EDSG"(4)、版本(1)、块大小(4)、文件大小(8)、文件sha256(32)、块数(4)，
+ * 之后每个块依次为{@link com.cutejiuge.common.util.RollingChecksum}弱校验和(4)和MD5强校验和(16)，最后一个块可能不满。
+ * <p>
+ * 增量数据是一串指令，每条指令以1字节操作码开头：
+ * 1-COPY 后跟起始块序号(4)和块数(4)，引用当前版本中连续的块；
+ * 2-LITERAL 后跟长度(4)和数据，是新版本中找不到匹配块的部分；
+ * 0-END 结束，之后不能再有数据。按顺序执行全部指令得到新版本。
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午4:40
+ */
+public interface DeltaSyncService {
+    /**
+     * 确定签名的块大小，未指定时按文件大小的平方根选取，指定时取不超过它的2的幂，都限制在允许的范围内
+     */
+    int resolveBlockSize(long fileSize, Integer requestedBlockSize);
+
+    /**
+     * 块大小是否是签名使用的块大小
+     */
+    boolean isValidBlockSize(int blockSize);
+
+    /**
+     * 获取文件当前版本的签名对象key，签名按sha256和块大小缓存，不存在时读取整个文件生成
+     */
+    String prepareSignature(UserFileVO file, int blockSize) throws IOException;
+
+    /**
+     * 以文件当前版本为基准执行增量指令，把新版本写入本地临时文件，块引用由通道直接拷贝，调用方负责删除临时文件
+     *
+     * @param base 当前版本
+     * @param blockSize 签名的块大小
+     * @param delta 增量数据，调用方负责关闭
+     * @param fileSize 新版本的大小，写出的数据超出或不足时抛出DELTA_VALIDATION_FAILED
+     * @return 新版本的临时文件
+     */
+    Path applyDelta(UserFileVO base, int blockSize, InputStream delta, long fileSize) throws IOException;
+}
@@ -0,0 +1,52 @@
+package com.cutejiuge.api.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.List;
+
+/**
+ * 文件下载服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午4:30
+ */
+public interface FileDownloadService {
+    /**
+     * 下载文件，支持Range和If-Range断点续传及多区间请求
+     *
+     * @param userId 用户ID
+     * @param fileId 文件ID
+     * @param inline 是否在浏览器内直接打开（视频、图片预览）
+     */
+    void download(Long userId, Long fileId, boolean inline, HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * 把多个文件和文件夹打包成ZIP边读边写到响应，不生成临时文件
+     *
+     * @param userId 用户ID
+     * @param fileIds 文件ID列表，重复的ID只打包一次
+     * @param folderIds 文件夹ID列表，文件夹中的文件按相对路径打包
+     * @param archiveName 压缩包名称，为空时按第一个文件或文件夹命名
+     */
+    void downloadArchive(Long userId, List<Long> fileIds, List<Long> folderIds, String archiveName,
+                         HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * 获取图片缩略图，尚未生成时提交生成任务并返回202
+     *
+     * @param userId 用户ID
+     * @param fileId 文件ID
+     * @param size 期望的缩略图最长边像素数，返回不小于该尺寸的最小规格
+     */
+    void thumbnail(Long userId, Long fileId, Integer size, HttpServletRequest request, HttpServletResponse response);
+
+    /**
+     * 下载文件当前版本的增量同步签名，客户端据此在本地找出没有变化的块
+     *
+     * @param userId 用户ID
+     * @param fileId 文件ID
+     * @param blockSize 期望的块大小，不传时按文件大小选取，实际使用的块大小写在签名头部
+     */
+    void downloadSignature(Long userId, Long fileId, Integer blockSize, HttpServletRequest request, HttpServletResponse response);
+}
@@ -0,0 +1,36 @@
+package com.cutejiuge.api.service;
+
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+
+import java.util.List;
+
+/**
+ * 文件网关层接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 上午10:40
+ */
+public interface FileGatewayService {
+    /**
+     * 重命名文件
+     */
+    UserFileVO renameFile(Long userId, Long fileId, String fileName);
+
+    /**
+     * 批量复制文件到指定文件夹，复制的总大小计入已用空间
+     */
+    BatchResultVO batchCopyFiles(Long userId, List<Long> fileIds, Long targetFolderId);
+
+    /**
+     * 按文件名搜索文件
+     *
+     * @param userId 用户ID
+     * @param keyword 关键词
+     * @param category 文件分类，为空时不过滤
+     * @param extension 扩展名，为空时不过滤
+     * @param size 最多返回的数量，为空时使用默认值
+     * @return 匹配的文件，最近上传的在前
+     */
+    List<UserFileVO> searchFiles(Long userId, String keyword, String category, String extension, Integer size);
+}
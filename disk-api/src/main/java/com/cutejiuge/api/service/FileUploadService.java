@@ -0,0 +1,74 @@
+package com.cutejiuge.api.service;
+
+import com.cutejiuge.api.request.file.CdcCheckRequest;
+import com.cutejiuge.api.request.file.CdcCommitRequest;
+import com.cutejiuge.api.request.file.DeltaUploadRequest;
+import com.cutejiuge.api.request.file.InitUploadRequest;
+import com.cutejiuge.api.request.file.InstantUploadProofRequest;
+import com.cutejiuge.api.response.file.CdcCheckResponse;
+import com.cutejiuge.api.response.file.InitUploadResponse;
+import com.cutejiuge.api.response.file.MergeUploadResponse;
+import com.cutejiuge.api.response.file.UploadChunkResponse;
+import com.cutejiuge.api.response.file.UploadProgressResponse;
+
+import java.io.InputStream;
+
+/**
+ * 文件分片上传服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 上午9:38
+ */
+public interface FileUploadService {
+    /**
+     * 初始化分片上传，同一用户同一文件重复初始化时返回已有的上传任务，物理文件已存在时同时返回秒传的持有证明挑战
+     */
+    InitUploadResponse initUpload(Long userId, InitUploadRequest request);
+
+    /**
+     * 上传单个分片，分片可以乱序到达，已上传或正在上传的分片不能重复上传，返回CHUNK_ALREADY_UPLOADED
+     */
+    UploadChunkResponse uploadChunk(Long userId, String uploadId, Integer chunkIndex, InputStream inputStream);
+
+    /**
+     * 查询上传进度
+     */
+    UploadProgressResponse getUploadProgress(Long userId, String uploadId);
+
+    /**
+     * 提交秒传的持有证明，校验通过后引用已有的物理文件并结束上传任务，校验不通过时返回INSTANT_UPLOAD_PROOF_FAILED，客户端继续上传分片
+     */
+    MergeUploadResponse proveInstantUpload(Long userId, String uploadId, InstantUploadProofRequest request);
+
+    /**
+     * 合并分片
+     */
+    MergeUploadResponse mergeChunks(Long userId, String uploadId);
+
+    /**
+     * 取消上传，清理已上传的分片
+     */
+    void abortUpload(Long userId, String uploadId);
+
+    /**
+     * 查询客户端本地分块得到的块中哪些需要上传
+     */
+    CdcCheckResponse checkCdcChunks(Long userId, CdcCheckRequest request);
+
+    /**
+     * 上传单个CDC块
+     */
+    void uploadCdcChunk(Long userId, String chunkSha256, InputStream inputStream);
+
+    /**
+     * 提交CDC块清单完成上传，块必须都是该用户上传过的
+     */
+    MergeUploadResponse commitCdcUpload(Long userId, CdcCommitRequest request);
+
+    /**
+     * 按增量指令以文件当前版本为基准重建新版本，替换文件的内容，文件ID、名称和位置不变
+     *
+     * @param deltaSize 增量指令的字节数，即请求体长度，未知时传-1
+     */
+    MergeUploadResponse uploadDelta(Long userId, Long fileId, DeltaUploadRequest request, InputStream inputStream, long deltaSize);
+}
@@ -0,0 +1,62 @@
+package com.cutejiuge.api.service;
+
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.FolderVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+
+import java.util.List;
+
+/**
+ * 文件夹网关层接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午11:40
+ */
+public interface FolderGatewayService {
+    /**
+     * 创建文件夹
+     */
+    FolderVO createFolder(Long userId, Long parentId, String folderName);
+
+    /**
+     * 重命名文件夹
+     */
+    FolderVO renameFolder(Long userId, Long folderId, String folderName);
+
+    /**
+     * 移动文件夹及其整棵子树
+     */
+    FolderVO moveFolder(Long userId, Long folderId, Long targetParentId);
+
+    /**
+     * 移动文件到指定文件夹
+     */
+    UserFileVO moveFile(Long userId, Long fileId, Long targetFolderId);
+
+    /**
+     * 批量移动文件到指定文件夹
+     */
+    BatchResultVO batchMoveFiles(Long userId, List<Long> fileIds, Long targetFolderId);
+
+    /**
+     * 复制文件夹及其整棵子树，文件较多时在后台复制
+     */
+    CopyJobVO copyFolder(Long userId, Long folderId, Long targetParentId);
+
+    /**
+     * 查询复制任务的进度
+     */
+    CopyJobVO getCopyJob(Long userId, String jobId);
+
+    /**
+     * 列出文件夹的直接子文件夹和文件
+     */
+    FolderContentVO listFolder(Long userId, Long folderId);
+
+    /**
+     * 查询文件夹的整棵子树
+     */
+    FolderContentVO getFolderTree(Long userId, Long folderId);
+}
@@ -0,0 +1,19 @@
+package com.cutejiuge.api.service;
+
+/**
+ * 存储完整性校验服务接口，后台逐个读取物理文件重新计算sha256，与登记的值比对
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午9:55
+ */
+public interface IntegrityScrubService {
+    /**
+     * 记录一次前台请求读取存储的耗时，前台延迟升高时校验自动降速
+     */
+    void recordForegroundLatency(long nanos);
+
+    /**
+     * 执行一轮校验，从上次停止的位置继续，不超过时间预算
+     */
+    void scrub();
+}
@@ -0,0 +1,49 @@
+package com.cutejiuge.api.service;
+
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.RecycleItemVO;
+
+import java.util.List;
+
+/**
+ * 回收站网关层接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午4:00
+ */
+public interface RecycleBinGatewayService {
+    /**
+     * 删除文件，放入回收站
+     */
+    RecycleItemVO deleteFile(Long userId, Long fileId);
+
+    /**
+     * 删除文件夹，整棵子树放入回收站
+     */
+    RecycleItemVO deleteFolder(Long userId, Long folderId);
+
+    /**
+     * 批量删除文件，每个文件单独放入回收站
+     */
+    BatchResultVO batchDeleteFiles(Long userId, List<Long> fileIds);
+
+    /**
+     * 按删除时间倒序查询回收站
+     */
+    List<RecycleItemVO> listRecycleBin(Long userId, Long beforeId, Integer size);
+
+    /**
+     * 还原回收站项目
+     */
+    RecycleItemVO restore(Long userId, Long recycleId);
+
+    /**
+     * 彻底删除回收站项目
+     */
+    void purge(Long userId, Long recycleId);
+
+    /**
+     * 清空回收站，返回清空的项目数
+     */
+    Integer emptyRecycleBin(Long userId);
+}
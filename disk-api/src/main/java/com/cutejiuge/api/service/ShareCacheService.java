@@ -0,0 +1,21 @@
+package com.cutejiuge.api.service;
+
+import com.cutejiuge.iface.vo.file.ShareVO;
+
+/**
+ * 分享信息缓存服务接口，本地缓存和redis两级缓存，不存在的分享码也会缓存
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午8:20
+ */
+public interface ShareCacheService {
+    /**
+     * 按分享码查询分享，依次查询本地缓存、redis和文件服务，分享不存在时返回null
+     */
+    ShareVO resolve(String shareCode);
+
+    /**
+     * 删除分享的缓存，其他网关实例的本地缓存在有效期后失效
+     */
+    void evict(String shareCode);
+}
@@ -0,0 +1,51 @@
+package com.cutejiuge.api.service;
+
+import com.cutejiuge.api.request.share.CreateShareRequest;
+import com.cutejiuge.api.request.share.SaveShareRequest;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.ShareVO;
+
+import java.util.List;
+
+/**
+ * 分享网关层接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午9:00
+ */
+public interface ShareGatewayService {
+    /**
+     * 创建分享
+     */
+    ShareVO createShare(Long userId, CreateShareRequest request);
+
+    /**
+     * 按创建时间倒序查询用户的分享，包含独立访客数
+     */
+    List<ShareVO> listShares(Long userId, Long beforeId, Integer size);
+
+    /**
+     * 取消分享
+     */
+    void cancelShare(Long userId, Long shareId);
+
+    /**
+     * 查看分享并记录一次访问，返回的分享信息不包含提取码
+     *
+     * @param viewerId  当前登录用户ID，未登录为null，分享者本人不需要提取码
+     * @param visitorId 访客标识，用于统计独立访客
+     * @param clientIp  客户端IP，用于限制提取码的错误次数
+     */
+    ShareVO viewShare(String shareCode, String extractCode, Long viewerId, String visitorId, String clientIp);
+
+    /**
+     * 查询分享的内容，folderId为空表示分享的文件夹本身
+     */
+    FolderContentVO listShareContent(String shareCode, String extractCode, Long viewerId, Long folderId, String clientIp);
+
+    /**
+     * 转存分享到自己的网盘，转存文件夹时返回复制任务
+     */
+    CopyJobVO saveShare(Long userId, String shareCode, SaveShareRequest request, String clientIp);
+}
@@ -0,0 +1,29 @@
+package com.cutejiuge.api.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 分享访问统计服务接口，访问次数和独立访客先在本地聚合，定时批量写入redis
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午8:40
+ */
+public interface ShareStatsService {
+    /**
+     * 记录一次访问
+     *
+     * @param visitorId 访客标识，登录用户为用户ID，未登录为IP和User-Agent的摘要
+     */
+    void recordView(Long shareId, String visitorId);
+
+    /**
+     * 批量查询独立访客数，HyperLogLog估算值
+     */
+    Map<Long, Long> countVisitors(Collection<Long> shareIds);
+
+    /**
+     * 删除分享的访客统计
+     */
+    void deleteStats(Long shareId);
+}
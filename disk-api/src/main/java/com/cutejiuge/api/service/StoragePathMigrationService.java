@@ -0,0 +1,14 @@
+package com.cutejiuge.api.service;
+
+/**
+ * 存储路径迁移服务接口，把按用户和年月分目录的物理文件在线迁移到按摘要前缀打散的目录
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午10:40
+ */
+public interface StoragePathMigrationService {
+    /**
+     * 执行一轮迁移，从上次停止的位置继续，不超过时间预算
+     */
+    void migrate();
+}
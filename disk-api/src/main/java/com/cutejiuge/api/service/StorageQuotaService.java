@@ -0,0 +1,14 @@
+package com.cutejiuge.api.service;
+
+/**
+ * 存储配额服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午5:10
+ */
+public interface StorageQuotaService {
+    /**
+     * 确保用户的存储配额已加载到redis，文件服务预占配额时不能自行加载，复制和转存前调用
+     */
+    void ensureLoaded(Long userId);
+}
@@ -0,0 +1,49 @@
+package com.cutejiuge.api.service;
+
+import com.cutejiuge.api.pojo.dto.ThumbnailTaskDTO;
+import com.cutejiuge.storage.ObjectMetadata;
+
+/**
+ * 缩略图服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午2:08
+ */
+public interface ThumbnailService {
+    /**
+     * 提交缩略图生成任务，同一个物理文件排队中或已生成时直接返回
+     *
+     * @return 队列已满被拒绝时返回false
+     */
+    boolean submit(ThumbnailTaskDTO task);
+
+    /**
+     * 选择不小于请求尺寸的最小缩略图规格，请求尺寸超过所有规格时返回最大规格，未指定时返回最小规格
+     */
+    int resolveSize(Integer requestedSize);
+
+    /**
+     * 获取已生成的缩略图对象，尚未生成时返回null
+     */
+    ObjectMetadata getThumbnail(String fileSha256, int size);
+
+    /**
+     * 物理文件最近生成缩略图失败（格式不支持、图片损坏或像素数超限），失败标记过期前不再重新生成
+     */
+    boolean isFailed(String fileSha256);
+
+    /**
+     * 获取指定规格的占位图JPEG，用于无法生成缩略图的文件
+     */
+    byte[] getPlaceholder(int size);
+
+    /**
+     * 失败标记的有效期 单位s，占位图的缓存时间不超过它
+     */
+    long getFailedExpireSeconds();
+
+    /**
+     * 当前排队等待生成的任务数
+     */
+    int getQueueDepth();
+}
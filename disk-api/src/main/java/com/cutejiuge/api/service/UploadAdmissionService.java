@@ -0,0 +1,32 @@
+package com.cutejiuge.api.service;
+
+/**
+ * 分片上传准入控制服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午9:15
+ */
+public interface UploadAdmissionService {
+    /**
+     * 根据客户端期望的并发数、分片大小和当前节点负载，协商客户端并发上传的分片数
+     *
+     * @param requestedParallelism 客户端期望的并发数，为空时使用默认值
+     */
+    int negotiateParallelism(Long userId, Integer requestedParallelism, long chunkSize);
+
+    /**
+     * 申请接收一个分片的许可，用户超出份额时直接拒绝，节点繁忙时短暂排队，排队超时后拒绝
+     *
+     * @param bytes 分片大小(字节)
+     * @throws com.cutejiuge.common.exception.ThrottledException 被拒绝时抛出，携带建议的重试间隔
+     */
+    Permit acquire(Long userId, long bytes);
+
+    /**
+     * 分片接收许可，分片接收结束后必须关闭
+     */
+    interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
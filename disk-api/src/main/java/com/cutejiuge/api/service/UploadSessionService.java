@@ -0,0 +1,79 @@
+package com.cutejiuge.api.service;
+
+import com.cutejiuge.api.pojo.dto.InstantUploadChallengeDTO;
+import com.cutejiuge.api.pojo.dto.UploadProgressDTO;
+import com.cutejiuge.api.pojo.dto.UploadSessionDTO;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 分片上传任务状态服务接口，上传任务和分片进度都保存在redis中
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午6:25
+ */
+public interface UploadSessionService {
+    /**
+     * 保存新的上传任务，同时记录用户和文件到上传任务的映射
+     */
+    void createSession(UploadSessionDTO session, Duration expire);
+
+    /**
+     * 查询上传任务，不存在或已过期时返回null
+     */
+    UploadSessionDTO getSession(String uploadId);
+
+    /**
+     * 按用户和文件sha256查询未完成的上传任务ID，不存在时返回null
+     */
+    String findUploadId(Long userId, String fileSha256);
+
+    /**
+     * 一次往返查询上传任务和已上传分片，上传任务不存在时返回null
+     */
+    UploadProgressDTO getProgress(String uploadId);
+
+    /**
+     * 标记分片已上传并延长上传任务的有效期，用户+文件摘要到上传任务ID的映射一起续期
+     *
+     * @return 已上传的分片数量，上传任务已过期时返回-1
+     */
+    int markChunkUploaded(UploadSessionDTO session, int chunkIndex, Duration expire);
+
+    /**
+     * 已上传的分片数量
+     */
+    int countUploadedChunks(String uploadId);
+
+    /**
+     * 保存增量摘要的进度
+     */
+    void updateDigest(String uploadId, int hashedChunkCount, String hashState, Duration expire);
+
+    /**
+     * 保存秒传的持有证明挑战，覆盖之前未作答的挑战，上传任务不存在时不保存
+     */
+    void saveChallenge(String uploadId, InstantUploadChallengeDTO challenge);
+
+    /**
+     * 取出并删除秒传的持有证明挑战，每个挑战只能作答一次，不存在时返回null
+     */
+    InstantUploadChallengeDTO takeChallenge(String uploadId);
+
+    /**
+     * 记录用户上传过的CDC块并延长有效期
+     */
+    void markCdcChunkOwned(Long userId, String chunkSha256, Duration expire);
+
+    /**
+     * 返回用户没有上传过或已过期的CDC块，保持请求中的顺序并去重
+     */
+    List<String> findUnownedCdcChunks(Long userId, Collection<String> chunkSha256s);
+
+    /**
+     * 删除上传任务和分片进度
+     */
+    void deleteSession(UploadSessionDTO session);
+}
@@ -0,0 +1,435 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.util.HexUtil;
+import com.cutejiuge.api.pojo.dto.ChunkManifestDTO;
+import com.cutejiuge.api.service.ChunkStoreService;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.FastCdcChunker;
+import com.cutejiuge.common.util.FileUtil;
+import com.cutejiuge.common.util.IncrementalSha256;
+import com.cutejiuge.iface.dto.file.ChunkRefDTO;
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.ObjectStorage;
+import com.cutejiuge.storage.compress.CompressionCodec;
+import com.cutejiuge.storage.exception.ObjectNotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CDC块存储服务实现类
+ * <p>
+ * 块对象的key为 cdc-chunks/ab/cd/{sha256}，key本身就是按摘要的索引，判断块是否存在只需要一次stat。
+ * 对象存储的写入是原子的，并发写入同一个块时内容相同，谁覆盖谁都不影响正确性。
+ * 块清单是紧凑的二进制格式：魔数、版本、文件大小、块数，之后每个块32字节摘要加4字节长度，1GB的文件约600KB。
+ * <p>
+ * 每个块独立压缩，压缩后变小时保存为1字节算法编号加压缩数据，否则保存原始数据。块清单中记录了块的原始长度，
+ * 对象长度等于原始长度的就是未压缩的块，不需要额外的标记，压缩前写入的块也不需要迁移。
+ * 区间读取只解压覆盖区间的块，未压缩的块仍然由transferTo直接发送。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 上午10:20
+ */
+@Slf4j
+@Service
+public class ChunkStoreServiceImpl implements ChunkStoreService {
+    // 块清单文件魔数 "EDCM"
+    private static final int MANIFEST_MAGIC = 0x4544434D;
+    private static final byte MANIFEST_VERSION = 1;
+    private static final int DIGEST_LENGTH = 32;
+    // 压缩块的头部：1字节算法编号
+    private static final int CHUNK_CODEC_HEADER_SIZE = 1;
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    @Value("${file.cdc.enabled:true}")
+    private Boolean cdcEnabled;
+
+    @Value("${file.cdc.categories:document,other}")
+    private Set<String> cdcCategories;
+
+    @Value("${file.cdc.min-file-size:1048576}")
+    private Long cdcMinFileSize;
+
+    @Value("${file.cdc.max-file-size:2147483648}")
+    private Long cdcMaxFileSize;
+
+    @Value("${file.cdc.min-chunk-size:16384}")
+    private Integer minChunkSize;
+
+    @Value("${file.cdc.avg-chunk-size:65536}")
+    private Integer avgChunkSize;
+
+    @Value("${file.cdc.max-chunk-size:262144}")
+    private Integer maxChunkSize;
+
+    @Value("${file.storage.compression.chunk-codec:lz4}")
+    private String chunkCodecName;
+
+    private FastCdcChunker chunker;
+    private CompressionCodec chunkCodec;
+
+    @PostConstruct
+    public void init() {
+        chunker = new FastCdcChunker(minChunkSize, avgChunkSize, maxChunkSize);
+        chunkCodec = CompressionCodec.of(chunkCodecName);
+    }
+
+    /**
+     * 文件是否按CDC块清单存储，图片音视频和压缩包本身已压缩，局部修改会改变整个文件，不做内容分块
+     */
+    @Override
+    public boolean isCdcApplicable(String fileName, long fileSize) {
+        return Boolean.TRUE.equals(cdcEnabled) && fileSize >= cdcMinFileSize && fileSize <= cdcMaxFileSize
+                && cdcCategories.contains(FileUtil.getFileCategory(fileName));
+    }
+
+    /**
+     * 当前使用的分块器
+     */
+    @Override
+    public FastCdcChunker getChunker() {
+        return chunker;
+    }
+
+    /**
+     * 把按顺序排列的多个对象视为一个整体做内容分块，只写入块存储中不存在的块
+     */
+    @Override
+    public ChunkManifestDTO storeChunks(List<String> sourceKeys) throws IOException {
+        List<ChannelOpener> openers = sourceKeys.stream()
+                .<ChannelOpener>map(key -> () -> Channels.newChannel(objectStorage.get(key)))
+                .toList();
+        try (SequentialObjectChannel source = new SequentialObjectChannel(openers)) {
+            return storeChunks(source);
+        }
+    }
+
+    /**
+     * 对通道中的全部数据做内容分块，只写入块存储中不存在的块
+     */
+    @Override
+    public ChunkManifestDTO storeChunks(ReadableByteChannel source) throws IOException {
+        MessageDigest digest = newSha256Digest();
+        List<ChunkRefDTO> chunks = new ArrayList<>();
+        long[] newChunkStats = new long[2];
+        long fileSize = chunker.split(source, (offset, chunk) -> {
+            int size = chunk.remaining();
+            digest.update(chunk.duplicate());
+            String chunkSha256 = HexUtil.encodeHexStr(digest.digest());
+            if (writeChunkIfAbsent(chunkSha256, chunk)) {
+                newChunkStats[0]++;
+                newChunkStats[1] += size;
+            }
+            chunks.add(new ChunkRefDTO(chunkSha256, size));
+        });
+        return buildManifest(fileSize, chunks)
+                .setNewChunkCount((int) newChunkStats[0])
+                .setNewChunkBytes(newChunkStats[1]);
+    }
+
+    /**
+     * 保存客户端上传的单个块，块不超过最大块大小，直接在内存中校验摘要
+     */
+    @Override
+    public boolean saveChunk(String chunkSha256, InputStream inputStream) throws IOException {
+        byte[] data = inputStream.readNBytes(chunker.getMaxSize() + 1);
+        if (data.length == 0 || data.length > chunker.getMaxSize()) {
+            throw new BusinessException(ResultCode.CHUNK_VALIDATION_FAILED,
+                    String.format("块大小必须在1到%d字节之间", chunker.getMaxSize()));
+        }
+        if (!chunkSha256.equalsIgnoreCase(HexUtil.encodeHexStr(newSha256Digest().digest(data)))) {
+            throw new BusinessException(ResultCode.CHUNK_VALIDATION_FAILED, "块sha256校验失败");
+        }
+        return writeChunkIfAbsent(chunkSha256.toLowerCase(), ByteBuffer.wrap(data));
+    }
+
+    /**
+     * 返回块存储中不存在的块，保持请求中的顺序并去重
+     */
+    @Override
+    public List<String> findMissingChunks(Collection<String> chunkSha256s) throws IOException {
+        List<String> missing = new ArrayList<>();
+        for (String chunkSha256 : new LinkedHashSet<>(chunkSha256s)) {
+            if (!objectStorage.exists(getChunkKey(chunkSha256.toLowerCase()))) {
+                missing.add(chunkSha256);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * 按块清单顺序计算整个文件的sha256
+     */
+    @Override
+    public String calculateSha256(ChunkManifestDTO manifest) throws IOException {
+        IncrementalSha256 hasher = new IncrementalSha256();
+        for (ChunkRefDTO chunk : manifest.getChunks()) {
+            hasher.update(readChunk(chunk, objectStorage));
+        }
+        return hasher.digestHex();
+    }
+
+    /**
+     * 写入块清单对象，先在内存中序列化，1GB的文件约600KB
+     */
+    @Override
+    public void writeManifest(ChunkManifestDTO manifest, String manifestKey) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(17 + manifest.getChunks().size() * (DIGEST_LENGTH + 4));
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(MANIFEST_MAGIC);
+            output.writeByte(MANIFEST_VERSION);
+            output.writeLong(manifest.getFileSize());
+            output.writeInt(manifest.getChunks().size());
+            for (ChunkRefDTO chunk : manifest.getChunks()) {
+                output.write(HexUtil.decodeHex(chunk.getSha256()));
+                output.writeInt(chunk.getSize());
+            }
+        }
+        objectStorage.put(manifestKey, ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * 读取块清单对象
+     */
+    @Override
+    public ChunkManifestDTO readManifest(String manifestKey) throws IOException {
+        return readManifest(manifestKey, objectStorage);
+    }
+
+    /**
+     * 从指定的存储读取块清单对象
+     */
+    @Override
+    public ChunkManifestDTO readManifest(String manifestKey, ObjectStorage source) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(source.get(manifestKey)))) {
+            if (input.readInt() != MANIFEST_MAGIC || input.readByte() != MANIFEST_VERSION) {
+                throw new IOException("块清单格式不正确: " + manifestKey);
+            }
+            long fileSize = input.readLong();
+            int chunkCount = input.readInt();
+            List<ChunkRefDTO> chunks = new ArrayList<>(chunkCount);
+            byte[] digest = new byte[DIGEST_LENGTH];
+            for (int i = 0; i < chunkCount; i++) {
+                input.readFully(digest);
+                chunks.add(new ChunkRefDTO(HexUtil.encodeHexStr(digest), input.readInt()));
+            }
+            ChunkManifestDTO manifest = buildManifest(fileSize, chunks);
+            long[] offsets = manifest.getChunkOffsets();
+            if (chunkCount > 0 && offsets[chunkCount - 1] + chunks.get(chunkCount - 1).getSize() != fileSize) {
+                throw new IOException("块清单与文件大小不一致: " + manifestKey);
+            }
+            return manifest;
+        }
+    }
+
+    /**
+     * 按块清单顺序打开整个文件的输入流，同一时间只在内存中保留一个块
+     */
+    @Override
+    public InputStream openInputStream(ChunkManifestDTO manifest) {
+        return openInputStream(manifest, objectStorage);
+    }
+
+    /**
+     * 从指定的存储按块清单顺序打开整个文件的输入流
+     */
+    @Override
+    public InputStream openInputStream(ChunkManifestDTO manifest, ObjectStorage source) {
+        List<ChannelOpener> openers = manifest.getChunks().stream()
+                .<ChannelOpener>map(chunk -> () -> Channels.newChannel(new ByteArrayInputStream(readChunk(chunk, source))))
+                .toList();
+        return Channels.newInputStream(new SequentialObjectChannel(openers));
+    }
+
+    /**
+     * 把块清单表示的文件中的一个区间写到目标通道，二分定位起始块后依次写出，未压缩的块直接transferTo
+     */
+    @Override
+    public void transferTo(ChunkManifestDTO manifest, long position, long count, WritableByteChannel target) throws IOException {
+        long[] offsets = manifest.getChunkOffsets();
+        int index = Arrays.binarySearch(offsets, position);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        long end = position + count;
+        while (position < end) {
+            ChunkRefDTO chunk = manifest.getChunks().get(index);
+            long chunkPosition = position - offsets[index];
+            long chunkCount = Math.min(chunk.getSize() - chunkPosition, end - position);
+            transferChunk(chunk, (int) chunkPosition, (int) chunkCount, target);
+            position += chunkCount;
+            index++;
+        }
+    }
+
+    // ======================== 私有方法 ========================
+    // 块不存在时写入，压缩后变小才保存压缩结果
+    private boolean writeChunkIfAbsent(String chunkSha256, ByteBuffer chunk) throws IOException {
+        String chunkKey = getChunkKey(chunkSha256);
+        if (objectStorage.exists(chunkKey)) {
+            return false;
+        }
+        objectStorage.put(chunkKey, encodeChunk(chunk));
+        return true;
+    }
+
+    // 压缩块，压缩后不小于原始长度时原样返回
+    private ByteBuffer encodeChunk(ByteBuffer chunk) {
+        if (chunkCodec == CompressionCodec.NONE) {
+            return chunk;
+        }
+        int length = chunk.remaining();
+        byte[] raw = new byte[length];
+        chunk.duplicate().get(raw);
+        byte[] encoded = new byte[CHUNK_CODEC_HEADER_SIZE + chunkCodec.maxCompressedLength(length)];
+        encoded[0] = chunkCodec.getId();
+        int compressedLength = chunkCodec.compress(raw, 0, length, encoded, CHUNK_CODEC_HEADER_SIZE);
+        if (CHUNK_CODEC_HEADER_SIZE + compressedLength >= length) {
+            return chunk;
+        }
+        return ByteBuffer.wrap(encoded, 0, CHUNK_CODEC_HEADER_SIZE + compressedLength);
+    }
+
+    // 读取块的原始数据，对象长度小于块长度的是压缩块
+    private byte[] readChunk(ChunkRefDTO chunk, ObjectStorage source) throws IOException {
+        byte[] stored;
+        try (InputStream input = source.get(getChunkKey(chunk.getSha256()))) {
+            stored = input.readNBytes(chunk.getSize() + 1);
+        }
+        if (stored.length == chunk.getSize()) {
+            return stored;
+        }
+        if (stored.length > chunk.getSize() || stored.length <= CHUNK_CODEC_HEADER_SIZE) {
+            throw new IOException("块大小与清单不一致: " + chunk.getSha256());
+        }
+        byte[] raw = new byte[chunk.getSize()];
+        CompressionCodec.of(stored[0]).decompress(stored, CHUNK_CODEC_HEADER_SIZE, stored.length - CHUNK_CODEC_HEADER_SIZE,
+                raw, 0, chunk.getSize());
+        return raw;
+    }
+
+    // 写出块的一个区间，未压缩的块由对象存储直接transferTo，压缩块解压后写出
+    private void transferChunk(ChunkRefDTO chunk, int position, int count, WritableByteChannel target) throws IOException {
+        String chunkKey = getChunkKey(chunk.getSha256());
+        ObjectMetadata metadata = objectStorage.stat(chunkKey);
+        if (metadata == null) {
+            throw new ObjectNotFoundException(chunkKey);
+        }
+        if (metadata.getSize() == chunk.getSize()) {
+            if (objectStorage.transferTo(chunkKey, position, count, target) != count) {
+                throw new IOException("块在传输过程中被截断: " + chunk.getSha256());
+            }
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(readChunk(chunk, objectStorage), position, count);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    // 构建块清单并计算每个块的起始偏移
+    private ChunkManifestDTO buildManifest(long fileSize, List<ChunkRefDTO> chunks) {
+        long[] offsets = new long[chunks.size()];
+        long offset = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            offsets[i] = offset;
+            offset += chunks.get(i).getSize();
+        }
+        return ChunkManifestDTO.builder()
+                .fileSize(fileSize)
+                .chunks(chunks)
+                .chunkOffsets(offsets)
+                .build();
+    }
+
+    // 获取块对象的key
+    private String getChunkKey(String chunkSha256) {
+        return FileUtil.generateCdcChunkPath(chunkSha256);
+    }
+
+    private MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持的摘要算法: SHA-256", e);
+        }
+    }
+
+    /**
+     * 打开一个只读通道
+     */
+    @FunctionalInterface
+    private interface ChannelOpener {
+        ReadableByteChannel open() throws IOException;
+    }
+
+    /**
+     * 把多个通道按顺序串成一个只读通道，同一时间只打开一个通道
+     */
+    private static class SequentialObjectChannel implements ReadableByteChannel {
+        private final Iterator<ChannelOpener> openers;
+        private ReadableByteChannel current;
+        private boolean open = true;
+
+        SequentialObjectChannel(List<ChannelOpener> openers) {
+            this.openers = openers.iterator();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            while (true) {
+                if (current == null) {
+                    if (!openers.hasNext()) {
+                        return -1;
+                    }
+                    current = openers.next().open();
+                }
+                int read = current.read(dst);
+                if (read >= 0) {
+                    return read;
+                }
+                current.close();
+                current = null;
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            if (current != null) {
+                current.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.cutejiuge.api.service.impl;
+
+import com.cutejiuge.api.service.CompressionService;
+import com.cutejiuge.common.util.FileUtil;
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.ObjectStorage;
+import com.cutejiuge.storage.compress.BlockCompressedObject;
+import com.cutejiuge.storage.compress.CompressionCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 存储压缩服务实现类
+ * <p>
+ * 按文件分类选择压缩算法：文档和其他文件使用LZ4，图片音视频和压缩包本身已压缩，不压缩，读取时也没有解压开销。
+ * 压缩以块为单位独立进行，区间读取只解压覆盖区间的块。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午10:45
+ */
+@Slf4j
+@Service
+public class CompressionServiceImpl implements CompressionService {
+    @Resource
+    private ObjectStorage objectStorage;
+
+    @Value("${file.storage.compression.enabled:true}")
+    private Boolean compressionEnabled;
+
+    @Value("${file.storage.compression.codecs:document:lz4,other:lz4}")
+    private List<String> categoryCodecs;
+
+    @Value("${file.storage.compression.block-size:262144}")
+    private Integer blockSize;
+
+    // 文件分类到压缩算法的映射
+    private final Map<String, CompressionCodec> codecByCategory = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (String categoryCodec : categoryCodecs) {
+            String[] parts = categoryCodec.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("压缩算法配置格式应为 分类:算法 : " + categoryCodec);
+            }
+            codecByCategory.put(parts[0].trim(), CompressionCodec.of(parts[1]));
+        }
+        log.info("存储压缩配置完成: enabled={}, codecs={}, blockSize={}", compressionEnabled, codecByCategory, blockSize);
+    }
+
+    /**
+     * 按文件分类选择压缩算法，图片音视频和压缩包本身已压缩，返回不压缩
+     */
+    @Override
+    public CompressionCodec selectCodec(String fileName) {
+        if (!Boolean.TRUE.equals(compressionEnabled)) {
+            return CompressionCodec.NONE;
+        }
+        return codecByCategory.getOrDefault(FileUtil.getFileCategory(fileName), CompressionCodec.NONE);
+    }
+
+    /**
+     * 把按顺序排列的多个对象拼接后分块压缩写入目标对象，同一时间只打开一个源对象
+     */
+    @Override
+    public ObjectMetadata composeCompressed(String key, List<String> sourceKeys, long rawSize, CompressionCodec codec) throws IOException {
+        Iterator<String> keys = sourceKeys.iterator();
+        try (InputStream input = new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return objectStorage.get(keys.next());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        })) {
+            return writeCompressed(key, input, rawSize, codec);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 把输入流中的数据分块压缩写入目标对象
+     */
+    @Override
+    public ObjectMetadata writeCompressed(String key, InputStream input, long rawSize, CompressionCodec codec) throws IOException {
+        return BlockCompressedObject.write(objectStorage, key, input, rawSize, codec, blockSize);
+    }
+}
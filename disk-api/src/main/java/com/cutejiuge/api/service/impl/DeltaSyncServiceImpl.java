@@ -0,0 +1,272 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.util.HexUtil;
+import com.cutejiuge.api.pojo.dto.ChunkManifestDTO;
+import com.cutejiuge.api.service.ChunkStoreService;
+import com.cutejiuge.api.service.DeltaSyncService;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.FileUtil;
+import com.cutejiuge.common.util.RollingChecksum;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+import com.cutejiuge.storage.ObjectStorage;
+import com.cutejiuge.storage.compress.BlockCompressedObject;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 增量同步服务实现类
+ * <p>
+ * 物理文件按sha256内容寻址、不会被修改，签名生成一次后按sha256和块大小缓存在对象存储中，同一版本的文件不会重复读取。
+ * 块大小取2的幂，默认约为文件大小的平方根，2GB的文件为32KB，签名约1.3MB。
+ * <p>
+ * 重建时新版本写入本地临时文件：COPY指令由当前版本的存储直接transferTo到临时文件的FileChannel，
+ * 完整文件在本地文件系统上时由内核完成文件间拷贝，数据不经过堆内存，连续的块合并成一条指令一次拷贝；
+ * LITERAL指令边读请求体边写出，内存中只有一个固定大小的缓冲区。写出的位置超过声明的新文件大小时立即停止。
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午4:50
+ */
+@Slf4j
+@Service
+public class DeltaSyncServiceImpl implements DeltaSyncService {
+    // 签名文件魔数 "EDSG"
+    private static final int SIGNATURE_MAGIC = 0x45445347;
+    private static final byte SIGNATURE_VERSION = 1;
+    // 签名头部：魔数、版本、块大小、文件大小、文件sha256、块数
+    private static final int SIGNATURE_HEADER_SIZE = 4 + 1 + 4 + 8 + 32 + 4;
+    // 每个块的签名：弱校验和加MD5
+    private static final int BLOCK_SIGNATURE_SIZE = 4 + 16;
+
+    private static final int OP_END = 0;
+    private static final int OP_COPY = 1;
+    private static final int OP_LITERAL = 2;
+    // 读取增量数据的缓冲区大小
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    @Resource
+    private ChunkStoreService chunkStoreService;
+
+    @Value("${file.delta.min-block-size:2048}")
+    private Integer minBlockSize;
+
+    @Value("${file.delta.max-block-size:131072}")
+    private Integer maxBlockSize;
+
+    // 重建新版本的本地临时目录
+    @Value("${file.delta.temp-dir:${java.io.tmpdir}}")
+    private String tempDir;
+
+    /**
+     * 确定签名的块大小，块大小取2的幂，签名的缓存不会因为客户端传入的任意值而膨胀
+     */
+    @Override
+    public int resolveBlockSize(long fileSize, Integer requestedBlockSize) {
+        long blockSize = requestedBlockSize != null ? requestedBlockSize : (long) Math.sqrt(fileSize);
+        blockSize = Math.max(minBlockSize, Math.min(maxBlockSize, blockSize));
+        return Integer.highestOneBit((int) blockSize);
+    }
+
+    /**
+     * 块大小是否是签名使用的块大小
+     */
+    @Override
+    public boolean isValidBlockSize(int blockSize) {
+        return blockSize >= Integer.highestOneBit(minBlockSize) && blockSize <= maxBlockSize && Integer.bitCount(blockSize) == 1;
+    }
+
+    /**
+     * 获取文件当前版本的签名对象key，并发生成同一个签名时内容相同，谁覆盖谁都不影响正确性
+     */
+    @Override
+    public String prepareSignature(UserFileVO file, int blockSize) throws IOException {
+        String signatureKey = FileUtil.generateDeltaSignaturePath(file.getFileSha256(), blockSize);
+        if (objectStorage.exists(signatureKey)) {
+            return signatureKey;
+        }
+        long startNanos = System.nanoTime();
+        long fileSize = file.getFileSize();
+        int blockCount = Math.toIntExact((fileSize + blockSize - 1) / blockSize);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(SIGNATURE_HEADER_SIZE + blockCount * BLOCK_SIGNATURE_SIZE);
+        MessageDigest md5 = newMd5Digest();
+        byte[] block = new byte[blockSize];
+        try (DataOutputStream output = new DataOutputStream(bytes); InputStream input = openInputStream(file)) {
+            output.writeInt(SIGNATURE_MAGIC);
+            output.writeByte(SIGNATURE_VERSION);
+            output.writeInt(blockSize);
+            output.writeLong(fileSize);
+            output.write(HexUtil.decodeHex(file.getFileSha256()));
+            output.writeInt(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                int length = (int) Math.min(blockSize, fileSize - (long) i * blockSize);
+                if (input.readNBytes(block, 0, length) != length) {
+                    throw new IOException("文件长度与登记的大小不一致: " + file.getStoragePath());
+                }
+                output.writeInt(RollingChecksum.compute(block, 0, length));
+                md5.update(block, 0, length);
+                output.write(md5.digest());
+            }
+        }
+        objectStorage.put(signatureKey, ByteBuffer.wrap(bytes.toByteArray()));
+        log.info("生成增量同步签名: sha256={}, blockSize={}, blockCount={}, cost={}ms", file.getFileSha256(), blockSize,
+                blockCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return signatureKey;
+    }
+
+    /**
+     * 以文件当前版本为基准执行增量指令，把新版本写入本地临时文件，失败时删除临时文件
+     */
+    @Override
+    public Path applyDelta(UserFileVO base, int blockSize, InputStream delta, long fileSize) throws IOException {
+        RegionTransfer source = openRegionTransfer(base);
+        Path target = Files.createTempFile(Path.of(tempDir), "delta-", FileConstants.WRITING_FILE_SUFFIX);
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(delta, BUFFER_SIZE));
+            long[] stats = writeDelta(base.getFileSize(), blockSize, source, input, channel, fileSize);
+            log.info("增量重建完成: fileId={}, baseSize={}, fileSize={}, copiedBytes={}, literalBytes={}",
+                    base.getFileId(), base.getFileSize(), fileSize, stats[0], stats[1]);
+            return target;
+        } catch (EOFException e) {
+            Files.deleteIfExists(target);
+            throw new BusinessException(ResultCode.DELTA_VALIDATION_FAILED, "增量数据不完整");
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    // ======================== 私有方法 ========================
+    // 按顺序执行增量指令，返回拷贝的字节数和上传的字节数
+    private long[] writeDelta(long baseSize, int blockSize, RegionTransfer source, DataInputStream input, FileChannel target,
+                              long fileSize) throws IOException {
+        long baseBlockCount = (baseSize + blockSize - 1) / blockSize;
+        long copiedBytes = 0;
+        long literalBytes = 0;
+        long position = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int op;
+        while ((op = input.readUnsignedByte()) != OP_END) {
+            if (op == OP_COPY) {
+                long blockIndex = Integer.toUnsignedLong(input.readInt());
+                long blockCount = Integer.toUnsignedLong(input.readInt());
+                if (blockCount == 0 || blockIndex + blockCount > baseBlockCount) {
+                    throw new BusinessException(ResultCode.DELTA_VALIDATION_FAILED, "引用的块超出原文件范围");
+                }
+                long offset = blockIndex * blockSize;
+                long count = Math.min(blockCount * blockSize, baseSize - offset);
+                checkTargetSize(position + count, fileSize);
+                source.transferTo(offset, count, target);
+                position += count;
+                if (target.position() != position) {
+                    throw new IOException(String.format("原文件区间拷贝不完整: offset=%d, count=%d", offset, count));
+                }
+                copiedBytes += count;
+            } else if (op == OP_LITERAL) {
+                int length = input.readInt();
+                if (length <= 0) {
+                    throw new BusinessException(ResultCode.DELTA_VALIDATION_FAILED, "数据长度不正确: " + length);
+                }
+                checkTargetSize(position + length, fileSize);
+                for (int remaining = length; remaining > 0; ) {
+                    int read = input.read(buffer, 0, Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new EOFException();
+                    }
+                    ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+                    while (data.hasRemaining()) {
+                        target.write(data);
+                    }
+                    remaining -= read;
+                }
+                position += length;
+                literalBytes += length;
+            } else {
+                throw new BusinessException(ResultCode.DELTA_VALIDATION_FAILED, "未知的增量指令: " + op);
+            }
+        }
+        if (input.read() >= 0) {
+            throw new BusinessException(ResultCode.DELTA_VALIDATION_FAILED, "结束指令之后还有数据");
+        }
+        if (position != fileSize) {
+            throw new BusinessException(ResultCode.DELTA_VALIDATION_FAILED,
+                    String.format("重建后的文件大小不正确: %d/%d", position, fileSize));
+        }
+        return new long[]{copiedBytes, literalBytes};
+    }
+
+    // 写出的位置不能超过声明的新文件大小
+    private void checkTargetSize(long end, long fileSize) {
+        if (end > fileSize) {
+            throw new BusinessException(ResultCode.DELTA_VALIDATION_FAILED, "重建后的文件超出声明的大小: " + fileSize);
+        }
+    }
+
+    // 当前版本的区间读取方式，完整文件直接由对象存储transferTo，CDC块清单按块拼接，分块压缩文件只解压覆盖区间的块
+    private RegionTransfer openRegionTransfer(UserFileVO file) throws IOException {
+        String storageKey = file.getStoragePath();
+        if (Objects.equals(file.getStorageType(), FileConstants.STORAGE_TYPE_CDC_MANIFEST)) {
+            ChunkManifestDTO manifest = chunkStoreService.readManifest(storageKey);
+            return (position, count, target) -> chunkStoreService.transferTo(manifest, position, count, target);
+        }
+        if (Objects.equals(file.getStorageType(), FileConstants.STORAGE_TYPE_COMPRESSED)) {
+            BlockCompressedObject compressed = BlockCompressedObject.open(objectStorage, storageKey);
+            return compressed::transferTo;
+        }
+        return (position, count, target) -> {
+            if (objectStorage.transferTo(storageKey, position, count, target) != count) {
+                throw new IOException("原文件在拷贝过程中被截断: " + storageKey);
+            }
+        };
+    }
+
+    // 打开文件的原始内容
+    private InputStream openInputStream(UserFileVO file) throws IOException {
+        if (Objects.equals(file.getStorageType(), FileConstants.STORAGE_TYPE_CDC_MANIFEST)) {
+            return chunkStoreService.openInputStream(chunkStoreService.readManifest(file.getStoragePath()));
+        }
+        if (Objects.equals(file.getStorageType(), FileConstants.STORAGE_TYPE_COMPRESSED)) {
+            return BlockCompressedObject.open(objectStorage, file.getStoragePath()).openInputStream();
+        }
+        return objectStorage.get(file.getStoragePath());
+    }
+
+    private MessageDigest newMd5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持的摘要算法: MD5", e);
+        }
+    }
+
+    /**
+     * 当前版本的一个区间写到目标通道
+     */
+    @FunctionalInterface
+    private interface RegionTransfer {
+        void transferTo(long position, long count, WritableByteChannel target) throws IOException;
+    }
+}
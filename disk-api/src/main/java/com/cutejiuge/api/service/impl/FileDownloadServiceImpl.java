@@ -0,0 +1,863 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import com.cutejiuge.api.pojo.dto.ChunkManifestDTO;
+import com.cutejiuge.api.pojo.dto.ThumbnailTaskDTO;
+import com.cutejiuge.api.service.ChunkStoreService;
+import com.cutejiuge.api.service.DeltaSyncService;
+import com.cutejiuge.api.service.FileDownloadService;
+import com.cutejiuge.api.service.FolderGatewayService;
+import com.cutejiuge.api.service.IntegrityScrubService;
+import com.cutejiuge.api.service.ThumbnailService;
+import com.cutejiuge.common.annotation.BusinessLog;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.FileUtil;
+import com.cutejiuge.common.util.ZipStreamWriter;
+import com.cutejiuge.iface.service.file.FileService;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.FolderVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.ObjectStorage;
+import com.cutejiuge.storage.cache.CachingObjectStorage;
+import com.cutejiuge.storage.compress.BlockCompressedObject;
+import com.cutejiuge.storage.exception.ObjectNotFoundException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件下载服务实现类
+ * <p>
+ * 文件内容从不经过堆内存：本地文件系统存储下，单区间和整文件下载优先交给Tomcat的sendfile，由内核直接把文件页发到socket；
+ * 连接器不支持sendfile、多区间请求或其他存储后端时使用ObjectStorage.transferTo写到响应输出流。
+ * 客户端在大视频里拖动进度条时只会读取请求的区间。按CDC块清单存储的文件按块依次transferTo，同样不经过堆内存。
+ * 启用存储块缓存时不使用sendfile，热点文件的区间直接从堆外缓存写出，缓存命中率等指标在启动时注册。
+ * 多个文件打包下载时边读边写ZIP，不生成临时文件。
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午4:35
+ */
+@Slf4j
+@Service
+public class FileDownloadServiceImpl implements FileDownloadService {
+    // Tomcat sendfile相关的请求属性
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+    // 单次请求允许的最大区间数，超出时按整文件返回
+    private static final int MAX_RANGE_COUNT = 16;
+    private static final String CRLF = "\r\n";
+    // 打包下载时列出读取失败文件的说明文件名
+    private static final String ARCHIVE_FAILURE_MANIFEST_NAME = "下载失败的文件.txt";
+
+    @Resource
+    private ChunkStoreService chunkStoreService;
+
+    @Resource
+    private ThumbnailService thumbnailService;
+
+    @Resource
+    private DeltaSyncService deltaSyncService;
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    @Resource
+    private FolderGatewayService folderGatewayService;
+
+    @Resource
+    private IntegrityScrubService integrityScrubService;
+
+    @DubboReference(version = "1.0.0", group = "easy-disk")
+    private FileService fileService;
+
+    @Value("${file.download.sendfile-min-size:49152}")
+    private Long sendfileMinSize;
+
+    @Value("${file.archive.max-files:1000}")
+    private Integer archiveMaxFiles;
+
+    @Value("${file.archive.deflate-level:1}")
+    private Integer archiveDeflateLevel;
+
+    @Value("${file.archive.prefetch-threads:16}")
+    private Integer prefetchThreads;
+
+    @Value("${file.archive.prefetch-buffers:8}")
+    private Integer prefetchBuffers;
+
+    @Value("${file.archive.prefetch-buffer-size:131072}")
+    private Integer prefetchBufferSize;
+
+    // 打包下载的预读线程池，线程都在使用时不排队，由请求线程自己顺序读取
+    private ThreadPoolExecutor prefetchExecutor;
+
+    @PostConstruct
+    public void init() {
+        prefetchExecutor = new ThreadPoolExecutor(prefetchThreads, prefetchThreads, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new NamedThreadFactory("archive-prefetch-", true),
+                new ThreadPoolExecutor.AbortPolicy());
+        prefetchExecutor.allowCoreThreadTimeOut(true);
+        if (objectStorage instanceof CachingObjectStorage cachingStorage) {
+            Gauge.builder("easydisk.storage.cache.hit.ratio", cachingStorage, storage -> storage.getStats().getHitRatio())
+                    .description("存储块缓存命中率")
+                    .register(Metrics.globalRegistry);
+            Gauge.builder("easydisk.storage.cache.blocks", cachingStorage, storage -> storage.getStats().getBlockCount())
+                    .description("已缓存的块数")
+                    .register(Metrics.globalRegistry);
+            FunctionCounter.builder("easydisk.storage.cache.bytes.saved", cachingStorage, storage -> storage.getStats().getBytesSaved())
+                    .description("直接从缓存写出、少从存储读取的字节数")
+                    .register(Metrics.globalRegistry);
+            FunctionCounter.builder("easydisk.storage.cache.bytes.loaded", cachingStorage, storage -> storage.getStats().getBytesLoaded())
+                    .description("缓存未命中时从存储读取的字节数")
+                    .register(Metrics.globalRegistry);
+            FunctionCounter.builder("easydisk.storage.cache.rejected", cachingStorage, storage -> storage.getStats().getRejectedCount())
+                    .description("访问频率不够被拒绝进入缓存的块数")
+                    .register(Metrics.globalRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    /**
+     * 下载文件，支持Range和If-Range断点续传及多区间请求
+     */
+    @Override
+    @BusinessLog(operation = "下载文件", logParams = false)
+    public void download(Long userId, Long fileId, boolean inline, HttpServletRequest request, HttpServletResponse response) {
+        UserFileVO file = getUserFile(userId, fileId);
+        String storageKey = file.getStoragePath();
+        RegionTransfer transfer = null;
+        long length;
+        long lastModified;
+        long storageStartNanos = System.nanoTime();
+        try {
+            ObjectMetadata metadata = objectStorage.stat(storageKey);
+            if (metadata == null) {
+                throw new ObjectNotFoundException(storageKey);
+            }
+            // 按CDC块清单存储的文件从块清单还原长度，读取时按块拼接；分块压缩的文件读取时只解压覆盖区间的块
+            if (Objects.equals(file.getStorageType(), FileConstants.STORAGE_TYPE_CDC_MANIFEST)) {
+                ChunkManifestDTO manifest = chunkStoreService.readManifest(storageKey);
+                length = manifest.getFileSize();
+                transfer = (position, count, target) -> chunkStoreService.transferTo(manifest, position, count, target);
+            } else if (Objects.equals(file.getStorageType(), FileConstants.STORAGE_TYPE_COMPRESSED)) {
+                BlockCompressedObject compressed = BlockCompressedObject.open(objectStorage, storageKey);
+                length = compressed.getRawSize();
+                transfer = compressed::transferTo;
+            } else {
+                length = metadata.getSize();
+            }
+            // 增量上传替换内容时更新修改时间，用创建时间会让替换后的文件仍匹配旧的If-Range日期，拼出新旧混合的内容
+            lastModified = ObjectUtil.defaultIfNull(file.getUpdateTime(),
+                    ObjectUtil.defaultIfNull(file.getCreateTime(), metadata.getLastModified()));
+            // 打开文件时读取元数据、块清单或压缩索引的耗时作为前台存储延迟，后台校验据此让路
+            integrityScrubService.recordForegroundLatency(System.nanoTime() - storageStartNanos);
+        } catch (IOException e) {
+            log.error("物理文件不存在: fileId={}, storageKey={}", fileId, storageKey, e);
+            throw new BusinessException(ResultCode.FILE_NOT_FOUND);
+        }
+        // 内容寻址存储下sha256就是强ETag
+        String etag = "\"" + file.getFileSha256() + "\"";
+        String contentType = FileUtil.getMimeType(file.getFileName());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                (inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+                        .filename(file.getFileName(), StandardCharsets.UTF_8).build().toString());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (isNotModified(request, etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        List<long[]> ranges = resolveRanges(request, etag, lastModified, length);
+        boolean headOnly = "HEAD".equalsIgnoreCase(request.getMethod());
+        try {
+            if (ranges == null) {
+                // 整文件
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setContentType(contentType);
+                response.setContentLengthLong(length);
+                if (!headOnly) {
+                    writeRegion(request, response, storageKey, transfer, 0, length);
+                }
+            } else if (ranges.isEmpty()) {
+                // 区间都不可满足
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            } else if (ranges.size() == 1) {
+                long[] range = ranges.get(0);
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setContentType(contentType);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(range, length));
+                response.setContentLengthLong(range[1] - range[0] + 1);
+                if (!headOnly) {
+                    writeRegion(request, response, storageKey, transfer, range[0], range[1] - range[0] + 1);
+                }
+            } else {
+                writeMultipartRanges(response, storageKey, transfer, ranges, contentType, length, headOnly);
+            }
+        } catch (IOException e) {
+            // 响应已经开始写出，客户端断开（拖动进度条、暂停）属于正常情况
+            log.debug("下载连接中断: fileId={}, reason={}", fileId, e.getMessage());
+        }
+    }
+
+    /**
+     * 把多个文件和文件夹打包成ZIP边读边写到响应
+     * <p>
+     * 文件夹通过一次子树查询取得全部子孙文件夹和文件，按父文件夹ID拼出相对路径作为条目名，空文件夹不写入。
+     * 压缩包大小无法预先知道，响应使用分块传输。图片音视频和压缩包已经压缩过，按STORED原样写入，
+     * 其他文件使用低级别DEFLATE，速度优先。文件内容由预读线程提前读入固定数量的缓冲区，
+     * 读取存储和压缩写出并行进行；缓冲区在两个线程之间循环使用，内存占用与文件数量和大小无关。
+     */
+    @Override
+    @BusinessLog(operation = "打包下载文件", logParams = false)
+    public void downloadArchive(Long userId, List<Long> fileIds, List<Long> folderIds, String archiveName,
+                                HttpServletRequest request, HttpServletResponse response) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ObjectUtil.defaultIfNull(fileIds, List.of())));
+        List<Long> distinctFolderIds = new ArrayList<>(new LinkedHashSet<>(ObjectUtil.defaultIfNull(folderIds, List.of())));
+        if (distinctFolderIds.contains(FileConstants.ROOT_FOLDER_ID)) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "不能打包整个根目录");
+        }
+        if (distinctIds.size() + distinctFolderIds.size() == 0 || distinctIds.size() > archiveMaxFiles) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "打包下载的文件数量必须在1到" + archiveMaxFiles + "之间");
+        }
+        List<UserFileVO> files = distinctIds.isEmpty() ? new ArrayList<>() : new ArrayList<>(listUserFiles(userId, distinctIds));
+        if (files.size() != distinctIds.size()) {
+            throw new BusinessException(ResultCode.FILE_NOT_FOUND, "部分文件不存在或已被删除");
+        }
+        // 选中的文件放在压缩包根目录，选中的文件夹按子树中的相对路径放入
+        Set<String> usedNames = new HashSet<>();
+        List<String> entryNames = resolveEntryNames(files, "", usedNames);
+        String firstFolderName = null;
+        for (Long folderId : distinctFolderIds) {
+            FolderContentVO tree = folderGatewayService.getFolderTree(userId, folderId);
+            if (files.size() + tree.getFiles().size() > archiveMaxFiles) {
+                throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "打包下载的文件数量不能超过" + archiveMaxFiles);
+            }
+            String folderName = uniqueName(sanitizeEntryName(tree.getFolder().getFolderName(), folderId), usedNames);
+            firstFolderName = ObjectUtil.defaultIfNull(firstFolderName, folderName);
+            Map<Long, String> directories = resolveDirectories(tree, folderName + "/");
+            for (UserFileVO file : tree.getFiles()) {
+                String directory = directories.getOrDefault(file.getFolderId(), folderName + "/");
+                entryNames.add(uniqueName(directory + sanitizeEntryName(file.getFileName(), file.getFileId()), usedNames));
+                files.add(file);
+            }
+        }
+        if (files.isEmpty()) {
+            throw new BusinessException(ResultCode.FILE_NOT_FOUND, "选中的文件夹中没有文件");
+        }
+        String defaultName = firstFolderName != null && distinctIds.isEmpty() && distinctFolderIds.size() == 1
+                ? firstFolderName : FileUtil.getBaseName(files.get(0).getFileName());
+        int selectedCount = distinctIds.size() + distinctFolderIds.size();
+        String fileName = StrUtil.isBlank(archiveName)
+                ? defaultName + (selectedCount > 1 ? "等" + selectedCount + "项" : "")
+                : archiveName.trim();
+        if (!StrUtil.endWithIgnoreCase(fileName, ".zip")) {
+            fileName += ".zip";
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if ("HEAD".equalsIgnoreCase(request.getMethod())) {
+            return;
+        }
+        long startMillis = System.currentTimeMillis();
+        try (ZipStreamWriter writer = new ZipStreamWriter(response.getOutputStream(), archiveDeflateLevel)) {
+            ArchivePrefetcher prefetcher = new ArchivePrefetcher(files);
+            try {
+                prefetchExecutor.execute(prefetcher);
+            } catch (RejectedExecutionException e) {
+                log.debug("预读线程已满，在请求线程中顺序读取: userId={}, fileCount={}", userId, files.size());
+                prefetcher = null;
+            }
+            List<String> failedEntries = prefetcher == null
+                    ? writeArchiveEntries(writer, files, entryNames)
+                    : writeArchiveEntries(writer, files, entryNames, prefetcher);
+            if (!failedEntries.isEmpty()) {
+                writeFailureManifest(writer, failedEntries, usedNames);
+            }
+            writer.finish();
+            log.info("打包下载完成: userId={}, fileCount={}, failedCount={}, archiveSize={}, costMs={}", userId, files.size(),
+                    failedEntries.size(), writer.getWrittenBytes(), System.currentTimeMillis() - startMillis);
+        } catch (IOException e) {
+            // 响应已经开始写出，只能中断连接，客户端会看到下载失败而不是一个内容不完整的压缩包
+            log.warn("打包下载中断: userId={}, fileCount={}, reason={}", userId, files.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 获取图片缩略图，缩略图按物理文件内容生成且不会变化，允许客户端长期缓存
+     */
+    @Override
+    public void thumbnail(Long userId, Long fileId, Integer size, HttpServletRequest request, HttpServletResponse response) {
+        UserFileVO file = getUserFile(userId, fileId);
+        if (!FileUtil.isImageFile(file.getFileName())) {
+            throw new BusinessException(ResultCode.FILE_PREVIEW_FAILED, "该文件不支持缩略图");
+        }
+        int thumbnailSize = thumbnailService.resolveSize(size);
+        ObjectMetadata thumbnail = thumbnailService.getThumbnail(file.getFileSha256(), thumbnailSize);
+        if (thumbnail == null && thumbnailService.isFailed(file.getFileSha256())) {
+            // 最近生成失败过，直接返回占位图，失败标记过期后再重新生成
+            writePlaceholder(request, response, thumbnailSize);
+            return;
+        }
+        if (thumbnail == null) {
+            // 上传时队列已满或生成失败，重新提交，客户端稍后重试
+            boolean accepted = thumbnailService.submit(ThumbnailTaskDTO.builder()
+                    .fileSha256(file.getFileSha256())
+                    .fileName(file.getFileName())
+                    .storagePath(file.getStoragePath())
+                    .storageType(file.getStorageType())
+                    .build());
+            response.setStatus(HttpServletResponse.SC_ACCEPTED);
+            response.setHeader(HttpHeaders.RETRY_AFTER, accepted ? "1" : "5");
+            return;
+        }
+        String etag = "\"" + file.getFileSha256() + "-" + thumbnailSize + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (isNotModified(request, etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        try {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType("image/jpeg");
+            response.setContentLengthLong(thumbnail.getSize());
+            if (!"HEAD".equalsIgnoreCase(request.getMethod())) {
+                writeRegion(request, response, thumbnail.getKey(), null, 0, thumbnail.getSize());
+            }
+        } catch (IOException e) {
+            log.debug("缩略图连接中断: fileId={}, reason={}", fileId, e.getMessage());
+        }
+    }
+
+    /**
+     * 下载增量同步签名，签名以文件sha256和块大小为ETag，文件未修改时返回304
+     */
+    @Override
+    @BusinessLog(operation = "下载增量同步签名", logParams = false)
+    public void downloadSignature(Long userId, Long fileId, Integer blockSize, HttpServletRequest request,
+                                  HttpServletResponse response) {
+        UserFileVO file = getUserFile(userId, fileId);
+        int signatureBlockSize = deltaSyncService.resolveBlockSize(file.getFileSize(), blockSize);
+        String etag = "\"" + file.getFileSha256() + "-" + signatureBlockSize + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (isNotModified(request, etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        ObjectMetadata signature;
+        try {
+            String signatureKey = deltaSyncService.prepareSignature(file, signatureBlockSize);
+            signature = objectStorage.stat(signatureKey);
+            if (signature == null) {
+                throw new ObjectNotFoundException(signatureKey);
+            }
+        } catch (IOException e) {
+            log.error("生成增量同步签名失败: fileId={}, storageKey={}", fileId, file.getStoragePath(), e);
+            throw new BusinessException(ResultCode.FILE_DOWNLOAD_FAILED.getCode(), "生成签名失败", e);
+        }
+        try {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setContentLengthLong(signature.getSize());
+            if (!"HEAD".equalsIgnoreCase(request.getMethod())) {
+                writeRegion(request, response, signature.getKey(), null, 0, signature.getSize());
+            }
+        } catch (IOException e) {
+            log.debug("签名下载连接中断: fileId={}, reason={}", fileId, e.getMessage());
+        }
+    }
+
+    // ======================== 私有方法 ========================
+    // 写出缩略图占位图，缓存时间不超过失败标记的有效期
+    private void writePlaceholder(HttpServletRequest request, HttpServletResponse response, int size) {
+        byte[] placeholder = thumbnailService.getPlaceholder(size);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("image/jpeg");
+        response.setContentLength(placeholder.length);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=" + thumbnailService.getFailedExpireSeconds());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if ("HEAD".equalsIgnoreCase(request.getMethod())) {
+            return;
+        }
+        try {
+            response.getOutputStream().write(placeholder);
+        } catch (IOException e) {
+            log.debug("缩略图连接中断: reason={}", e.getMessage());
+        }
+    }
+
+    // 通过文件服务查询用户文件
+    private UserFileVO getUserFile(Long userId, Long fileId) {
+        Result<UserFileVO> result;
+        try {
+            result = fileService.getUserFile(userId, fileId);
+        } catch (Exception e) {
+            log.error("查询文件信息失败: userId={}, fileId={}", userId, fileId, e);
+            throw new BusinessException(ResultCode.RPC_ERROR);
+        }
+        if (!result.isSuccess() || ObjectUtil.isNull(result.getData())) {
+            throw new BusinessException(ResultCode.FILE_NOT_FOUND);
+        }
+        return result.getData();
+    }
+
+    // 通过文件服务批量查询用户文件
+    private List<UserFileVO> listUserFiles(Long userId, List<Long> fileIds) {
+        Result<List<UserFileVO>> result;
+        try {
+            result = fileService.listUserFiles(userId, fileIds);
+        } catch (Exception e) {
+            log.error("批量查询文件信息失败: userId={}, fileCount={}", userId, fileIds.size(), e);
+            throw new BusinessException(ResultCode.RPC_ERROR);
+        }
+        if (!result.isSuccess() || ObjectUtil.isNull(result.getData())) {
+            throw new BusinessException(result.getCode(), result.getMessage());
+        }
+        return result.getData();
+    }
+
+    // 打开文件的原始内容，CDC块清单按块顺序读取，分块压缩文件边读边解压
+    private InputStream openInputStream(UserFileVO file) throws IOException {
+        if (Objects.equals(file.getStorageType(), FileConstants.STORAGE_TYPE_CDC_MANIFEST)) {
+            return chunkStoreService.openInputStream(chunkStoreService.readManifest(file.getStoragePath()));
+        }
+        if (Objects.equals(file.getStorageType(), FileConstants.STORAGE_TYPE_COMPRESSED)) {
+            return BlockCompressedObject.open(objectStorage, file.getStoragePath()).openInputStream();
+        }
+        return objectStorage.get(file.getStoragePath());
+    }
+
+    // 生成压缩包内的条目名称，去掉路径分隔符，重名的文件按"名称 (n).扩展名"区分
+    private List<String> resolveEntryNames(List<UserFileVO> files, String directory, Set<String> usedNames) {
+        List<String> entryNames = new ArrayList<>(files.size());
+        for (UserFileVO file : files) {
+            entryNames.add(uniqueName(directory + sanitizeEntryName(file.getFileName(), file.getFileId()), usedNames));
+        }
+        return entryNames;
+    }
+
+    // 按父文件夹ID逐级拼出子树中每个文件夹在压缩包中的目录，子树按路径排序，父文件夹总在子文件夹之前
+    private Map<Long, String> resolveDirectories(FolderContentVO tree, String rootDirectory) {
+        Map<Long, String> directories = new HashMap<>();
+        directories.put(tree.getFolder().getFolderId(), rootDirectory);
+        for (FolderVO folder : tree.getFolders()) {
+            String parent = directories.getOrDefault(folder.getParentId(), rootDirectory);
+            directories.put(folder.getFolderId(), parent + sanitizeEntryName(folder.getFolderName(), folder.getFolderId()) + "/");
+        }
+        return directories;
+    }
+
+    // 名称中的路径分隔符替换掉，避免在压缩包中产生额外的目录层级
+    private String sanitizeEntryName(String name, Long id) {
+        return StrUtil.blankToDefault(name, String.valueOf(id)).replace('/', '_').replace('\\', '_');
+    }
+
+    // 同一目录下重名时加上序号，比较时忽略大小写
+    private String uniqueName(String name, Set<String> usedNames) {
+        int slash = name.lastIndexOf('/') + 1;
+        int dot = name.lastIndexOf('.');
+        String baseName = dot > slash ? name.substring(0, dot) : name;
+        String extension = dot > slash ? name.substring(dot) : "";
+        String entryName = name;
+        for (int i = 1; !usedNames.add(entryName.toLowerCase()); i++) {
+            entryName = baseName + " (" + i + ")" + extension;
+        }
+        return entryName;
+    }
+
+    // 图片音视频和压缩包已经压缩过，再压缩只浪费CPU
+    private boolean isStoredEntry(String fileName) {
+        return FileUtil.isArchiveFile(fileName) || FileUtil.isVideoFile(fileName) || FileUtil.isImageFile(fileName);
+    }
+
+    // 预读线程已满时在请求线程中逐个读取文件写入压缩包，返回无法读取而未写入的条目名称
+    private List<String> writeArchiveEntries(ZipStreamWriter writer, List<UserFileVO> files, List<String> entryNames) throws IOException {
+        List<String> failedEntries = new ArrayList<>();
+        byte[] buffer = new byte[prefetchBufferSize];
+        for (int i = 0; i < files.size(); i++) {
+            UserFileVO file = files.get(i);
+            InputStream input;
+            try {
+                input = openInputStream(file);
+            } catch (IOException e) {
+                log.error("打包下载跳过无法读取的文件: fileId={}, storageKey={}", file.getFileId(), file.getStoragePath(), e);
+                failedEntries.add(entryNames.get(i));
+                continue;
+            }
+            try (input) {
+                writer.putNextEntry(entryNames.get(i), file.getFileSize(), ObjectUtil.defaultIfNull(file.getCreateTime(), 0L),
+                        isStoredEntry(file.getFileName()));
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    writer.write(buffer, 0, read);
+                }
+                writer.closeEntry();
+            }
+        }
+        return failedEntries;
+    }
+
+    // 从预读队列取出数据写入压缩包，写出失败时通知预读线程停止，返回无法读取而未写入的条目名称
+    private List<String> writeArchiveEntries(ZipStreamWriter writer, List<UserFileVO> files, List<String> entryNames,
+                                             ArchivePrefetcher prefetcher) throws IOException {
+        List<String> failedEntries = new ArrayList<>();
+        try {
+            int current = -1;
+            while (true) {
+                PrefetchedBlock block = prefetcher.take();
+                if (block.fileIndex < 0) {
+                    return failedEntries;
+                }
+                UserFileVO file = files.get(block.fileIndex);
+                if (block.error != null) {
+                    if (current != block.fileIndex) {
+                        // 文件打开失败，还没有写出任何内容，跳过该文件
+                        log.error("打包下载跳过无法读取的文件: fileId={}, storageKey={}", file.getFileId(), file.getStoragePath(), block.error);
+                        failedEntries.add(entryNames.get(block.fileIndex));
+                        continue;
+                    }
+                    throw block.error;
+                }
+                if (current != block.fileIndex) {
+                    writer.putNextEntry(entryNames.get(block.fileIndex), file.getFileSize(),
+                            ObjectUtil.defaultIfNull(file.getCreateTime(), 0L), isStoredEntry(file.getFileName()));
+                    current = block.fileIndex;
+                }
+                if (block.buffer != null) {
+                    writer.write(block.buffer, 0, block.length);
+                    prefetcher.recycle(block.buffer);
+                } else {
+                    writer.closeEntry();
+                }
+            }
+        } finally {
+            prefetcher.cancel();
+        }
+    }
+
+    // 有文件无法读取时在压缩包末尾追加一个说明文件，列出缺失的条目，避免用户拿到不完整的压缩包却不知情
+    private void writeFailureManifest(ZipStreamWriter writer, List<String> failedEntries, Set<String> usedNames) throws IOException {
+        StringBuilder content = new StringBuilder("以下文件读取失败，未包含在压缩包中，请稍后单独下载：").append(CRLF);
+        for (String entryName : failedEntries) {
+            content.append(entryName).append(CRLF);
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        writer.putNextEntry(uniqueName(ARCHIVE_FAILURE_MANIFEST_NAME, usedNames), bytes.length, System.currentTimeMillis(), false);
+        writer.write(bytes, 0, bytes.length);
+        writer.closeEntry();
+    }
+
+    // If-None-Match命中时返回304
+    private boolean isNotModified(HttpServletRequest request, String etag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (StrUtil.isBlank(ifNoneMatch)) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = StrUtil.removePrefix(candidate.trim(), "W/");
+            if ("*".equals(value) || etag.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 解析Range请求，返回null表示按整文件返回，返回空列表表示区间不可满足
+    private List<long[]> resolveRanges(HttpServletRequest request, String etag, long lastModified, long length) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (StrUtil.isBlank(rangeHeader) || !isIfRangeMatched(request, etag, lastModified)) {
+            return null;
+        }
+        List<HttpRange> httpRanges;
+        try {
+            httpRanges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            // 格式错误的Range按规范忽略
+            log.debug("忽略无法解析的Range: {}", rangeHeader);
+            return null;
+        }
+        if (httpRanges.size() > MAX_RANGE_COUNT) {
+            return null;
+        }
+        List<long[]> ranges = new ArrayList<>();
+        for (HttpRange httpRange : httpRanges) {
+            try {
+                long start = httpRange.getRangeStart(length);
+                long end = httpRange.getRangeEnd(length);
+                if (start <= end) {
+                    ranges.add(new long[]{start, end});
+                }
+            } catch (IllegalArgumentException e) {
+                // 起始位置超出文件长度的区间不可满足，跳过
+            }
+        }
+        // 合并重叠和相邻的区间，避免同一段数据被重复发送
+        ranges.sort(Comparator.comparingLong(range -> range[0]));
+        List<long[]> merged = new ArrayList<>();
+        for (long[] range : ranges) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    // If-Range与当前文件一致时才按区间返回，否则返回整文件
+    private boolean isIfRangeMatched(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (StrUtil.isBlank(ifRange)) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range只能使用强校验，弱ETag永远不匹配
+            return etag.equals(ifRange);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // 写出文件的一个区间，完整文件在本地文件系统上且连接器支持时交给Tomcat sendfile，否则transferTo到输出流
+    private void writeRegion(HttpServletRequest request, HttpServletResponse response, String storageKey, RegionTransfer transfer,
+                             long start, long count) throws IOException {
+        if (transfer != null) {
+            transfer.transferTo(start, count, Channels.newChannel(response.getOutputStream()));
+            return;
+        }
+        if (count >= sendfileMinSize && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            Path localPath = objectStorage.getLocalPath(storageKey);
+            if (localPath != null) {
+                request.setAttribute(SENDFILE_FILENAME_ATTR, localPath.toString());
+                request.setAttribute(SENDFILE_START_ATTR, start);
+                request.setAttribute(SENDFILE_END_ATTR, start + count);
+                return;
+            }
+        }
+        transfer(storageKey, start, count, Channels.newChannel(response.getOutputStream()));
+    }
+
+    // 以multipart/byteranges写出多个区间，Content-Length预先算好
+    private void writeMultipartRanges(HttpServletResponse response, String storageKey, RegionTransfer transfer, List<long[]> ranges,
+                                      String contentType, long length, boolean headOnly) throws IOException {
+        String boundary = IdUtil.fastSimpleUUID();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (long[] range : ranges) {
+            byte[] partHeader = (CRLF + "--" + boundary + CRLF
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + CRLF
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range, length) + CRLF + CRLF)
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + range[1] - range[0] + 1;
+        }
+        byte[] closeDelimiter = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+        contentLength += closeDelimiter.length;
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (headOnly) {
+            return;
+        }
+        WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+        for (int i = 0; i < ranges.size(); i++) {
+            long[] range = ranges.get(i);
+            writeFully(target, partHeaders.get(i));
+            if (transfer != null) {
+                transfer.transferTo(range[0], range[1] - range[0] + 1, target);
+            } else {
+                transfer(storageKey, range[0], range[1] - range[0] + 1, target);
+            }
+        }
+        writeFully(target, closeDelimiter);
+    }
+
+    // 把对象的一个区间写到目标通道，写出的长度不足说明文件在传输过程中被截断
+    private void transfer(String storageKey, long position, long count, WritableByteChannel target) throws IOException {
+        if (objectStorage.transferTo(storageKey, position, count, target) != count) {
+            throw new IOException("文件在传输过程中被截断");
+        }
+    }
+
+    private void writeFully(WritableByteChannel target, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private String contentRange(long[] range, long length) {
+        return "bytes " + range[0] + "-" + range[1] + "/" + length;
+    }
+
+    /**
+     * 预读的一段文件数据，buffer为null表示文件结束，fileIndex为-1表示全部文件读取完成
+     */
+    private static class PrefetchedBlock {
+        private final int fileIndex;
+        private final byte[] buffer;
+        private final int length;
+        private final IOException error;
+
+        private PrefetchedBlock(int fileIndex, byte[] buffer, int length, IOException error) {
+            this.fileIndex = fileIndex;
+            this.buffer = buffer;
+            this.length = length;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 打包下载的预读任务，按顺序读取全部文件放入就绪队列
+     * <p>
+     * 缓冲区数量固定，在空闲队列和就绪队列之间循环：请求线程写出慢时空闲缓冲区耗尽，预读线程随之等待，
+     * 不会把文件读进内存堆积。请求线程放弃时设置取消标记，预读线程在下一次等待缓冲区时退出。
+     */
+    private class ArchivePrefetcher implements Runnable {
+        private static final long POLL_TIMEOUT_MILLIS = 500;
+
+        private final List<UserFileVO> files;
+        private final BlockingQueue<byte[]> freeBuffers;
+        private final BlockingQueue<PrefetchedBlock> readyBlocks;
+        private volatile boolean cancelled;
+
+        private ArchivePrefetcher(List<UserFileVO> files) {
+            this.files = files;
+            this.freeBuffers = new ArrayBlockingQueue<>(prefetchBuffers);
+            // 就绪队列还要容纳文件结束和出错标记，容量不会成为瓶颈
+            this.readyBlocks = new LinkedBlockingQueue<>();
+            for (int i = 0; i < prefetchBuffers; i++) {
+                freeBuffers.add(new byte[prefetchBufferSize]);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < files.size() && !cancelled; i++) {
+                    prefetch(i, files.get(i));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                readyBlocks.add(new PrefetchedBlock(-1, null, 0, null));
+            }
+        }
+
+        private void prefetch(int fileIndex, UserFileVO file) throws InterruptedException {
+            try (InputStream input = openInputStream(file)) {
+                while (true) {
+                    byte[] buffer = null;
+                    while (buffer == null) {
+                        if (cancelled) {
+                            return;
+                        }
+                        buffer = freeBuffers.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                    int length = input.readNBytes(buffer, 0, buffer.length);
+                    if (length == 0) {
+                        freeBuffers.add(buffer);
+                        break;
+                    }
+                    readyBlocks.add(new PrefetchedBlock(fileIndex, buffer, length, null));
+                }
+                readyBlocks.add(new PrefetchedBlock(fileIndex, null, 0, null));
+            } catch (IOException e) {
+                readyBlocks.add(new PrefetchedBlock(fileIndex, null, 0, e));
+            } catch (RuntimeException e) {
+                readyBlocks.add(new PrefetchedBlock(fileIndex, null, 0, new IOException("预读文件失败", e)));
+            }
+        }
+
+        private PrefetchedBlock take() throws IOException {
+            try {
+                return readyBlocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待预读数据时被中断");
+            }
+        }
+
+        private void recycle(byte[] buffer) {
+            freeBuffers.add(buffer);
+        }
+
+        private void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * 不能直接按对象区间发送的文件（CDC块清单、分块压缩文件）的区间写出方式
+     */
+    @FunctionalInterface
+    private interface RegionTransfer {
+        void transferTo(long position, long count, WritableByteChannel target) throws IOException;
+    }
+}
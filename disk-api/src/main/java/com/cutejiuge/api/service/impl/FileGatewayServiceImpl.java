@@ -0,0 +1,83 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.api.service.FileGatewayService;
+import com.cutejiuge.api.service.StorageQuotaService;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.iface.dto.file.FileSearchDTO;
+import com.cutejiuge.iface.service.file.FileService;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 文件网关层实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 上午10:45
+ */
+@Slf4j
+@Service
+public class FileGatewayServiceImpl implements FileGatewayService {
+    @DubboReference(version = "1.0.0", group = "easy-disk")
+    private FileService fileService;
+
+    @Resource
+    private StorageQuotaService storageQuotaService;
+
+    /**
+     * 重命名文件
+     */
+    @Override
+    public UserFileVO renameFile(Long userId, Long fileId, String fileName) {
+        return call("重命名文件", userId, () -> fileService.renameFile(userId, fileId, fileName));
+    }
+
+    /**
+     * 批量复制文件，文件服务预占配额时不能加载配额，先在这里确保已加载
+     */
+    @Override
+    public BatchResultVO batchCopyFiles(Long userId, List<Long> fileIds, Long targetFolderId) {
+        storageQuotaService.ensureLoaded(userId);
+        return call("批量复制文件", userId, () -> fileService.batchCopyFiles(userId, fileIds, targetFolderId));
+    }
+
+    /**
+     * 按文件名搜索文件
+     */
+    @Override
+    public List<UserFileVO> searchFiles(Long userId, String keyword, String category, String extension, Integer size) {
+        FileSearchDTO dto = FileSearchDTO.builder()
+                .userId(userId)
+                .keyword(keyword)
+                .category(category)
+                .extension(extension)
+                .size(size)
+                .build();
+        return call("搜索文件", userId, () -> fileService.searchFiles(dto));
+    }
+
+    // ======================== 私有方法 ========================
+    // 调用文件服务，调用失败转换为RPC错误，业务失败按返回的错误码抛出
+    private <T> T call(String action, Long userId, Supplier<Result<T>> invoker) {
+        Result<T> result;
+        try {
+            result = invoker.get();
+        } catch (Exception e) {
+            log.error("{}失败: userId={}", action, userId, e);
+            throw new BusinessException(ResultCode.RPC_ERROR);
+        }
+        if (!result.isSuccess() || ObjectUtil.isNull(result.getData())) {
+            throw new BusinessException(result.getCode(), result.getMessage());
+        }
+        return result.getData();
+    }
+}
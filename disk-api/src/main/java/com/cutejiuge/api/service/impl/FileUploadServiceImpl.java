@@ -0,0 +1,1046 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import com.cutejiuge.api.pojo.dto.ChunkManifestDTO;
+import com.cutejiuge.api.pojo.dto.InstantUploadChallengeDTO;
+import com.cutejiuge.api.pojo.dto.ThumbnailTaskDTO;
+import com.cutejiuge.api.pojo.dto.UploadProgressDTO;
+import com.cutejiuge.api.pojo.dto.UploadSessionDTO;
+import com.cutejiuge.api.request.file.CdcCheckRequest;
+import com.cutejiuge.api.request.file.CdcCommitRequest;
+import com.cutejiuge.api.request.file.DeltaUploadRequest;
+import com.cutejiuge.api.request.file.InitUploadRequest;
+import com.cutejiuge.api.request.file.InstantUploadProofRequest;
+import com.cutejiuge.api.response.file.CdcCheckResponse;
+import com.cutejiuge.api.response.file.InitUploadResponse;
+import com.cutejiuge.api.response.file.MergeUploadResponse;
+import com.cutejiuge.api.response.file.UploadChunkResponse;
+import com.cutejiuge.api.response.file.UploadProgressResponse;
+import com.cutejiuge.api.service.ChunkStoreService;
+import com.cutejiuge.api.service.CompressionService;
+import com.cutejiuge.api.service.DeltaSyncService;
+import com.cutejiuge.api.service.FileUploadService;
+import com.cutejiuge.api.service.ThumbnailService;
+import com.cutejiuge.api.service.UploadAdmissionService;
+import com.cutejiuge.api.service.UploadSessionService;
+import com.cutejiuge.common.annotation.BusinessLog;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.FastCdcChunker;
+import com.cutejiuge.common.util.FileTypeDetector;
+import com.cutejiuge.common.util.FileUtil;
+import com.cutejiuge.common.util.IncrementalSha256;
+import com.cutejiuge.common.util.RedisLockUtil;
+import com.cutejiuge.common.util.StorageQuotaUtil;
+import com.cutejiuge.iface.dto.file.ChunkRefDTO;
+import com.cutejiuge.iface.dto.file.InstantUploadDTO;
+import com.cutejiuge.iface.dto.file.SaveUploadedFileDTO;
+import com.cutejiuge.iface.dto.file.UpdateFileContentDTO;
+import com.cutejiuge.iface.service.file.FileService;
+import com.cutejiuge.iface.service.user.UserService;
+import com.cutejiuge.iface.vo.file.FileBlobVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.ObjectStorage;
+import com.cutejiuge.storage.compress.BlockCompressedObject;
+import com.cutejiuge.storage.compress.CompressionCodec;
+import com.cutejiuge.storage.exception.ObjectSizeMismatchException;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.redisson.api.RLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 文件分片上传服务实现类
+ * <p>
+ * 分片和合并后的文件都通过ObjectStorage读写，分片写入时校验大小并原子提交，
+ * 合并使用对象拼接，本地文件系统存储下由内核完成文件间拷贝，数据不经过堆内存，适合GB级别的大文件。
+ * 文件摘要随分片到达增量计算，中间状态保存在上传任务中，最后一个分片落盘时摘要即已就绪，合并时不再整文件读一遍。
+ * 初始化时先按sha256查找已存在的物理文件，命中时下发持有证明挑战：客户端返回随机数加文件中随机区间的sha256，
+ * 校验通过后直接引用完成秒传，只传输几十KB的证明；只知道文件sha256的客户端无法借秒传拿到别人的文件。
+ * 文档类文件合并时按内容分块（FastCDC）只保存块清单，小幅修改后重新上传的文件只新增变化附近的块；
+ * 客户端也可以在本地分块，只上传自己没有上传过的块后提交块清单，块清单只能引用自己上传过的块，
+ * 其他用户上传过的块需要重新上传并校验摘要，只是不再重复存储。
+ * 不分块的文档类文件按块独立压缩后保存，图片音视频和压缩包仍然直接拼接。
+ * 分片接收前先经过准入控制，按用户和节点限制在途的分片数和字节数，初始化时按当前负载给客户端建议的并发数。
+ * 上传任务和已上传分片保存在redis中，分片进度是一个位图，断点续传时一次往返取出，以位图返回给客户端。
+ * 存储配额在redis中原子预占：初始化上传时按文件大小预占，完成时转为已用空间，取消或过期时释放，请求链路上不更新tb_user。
+ * 修改已有文件时可以增量上传：客户端按当前版本的签名只上传变化的数据，服务端重建新版本后按普通上传的方式存储并替换文件内容，
+ * 配额只按新旧版本的大小差计算。
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 上午9:42
+ */
+@Slf4j
+@Service
+public class FileUploadServiceImpl implements FileUploadService {
+    private static final Pattern SHA256_HEX_PATTERN = Pattern.compile("^[0-9a-fA-F]{64}$");
+    // 秒传持有证明的区间长度
+    private static final int PROOF_REGION_SIZE = 64 * 1024;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    @Resource
+    private RedisLockUtil redisLockUtil;
+
+    @Resource
+    private ChunkStoreService chunkStoreService;
+
+    @Resource
+    private CompressionService compressionService;
+
+    @Resource
+    private DeltaSyncService deltaSyncService;
+
+    @Resource
+    private ThumbnailService thumbnailService;
+
+    @Resource
+    private StorageQuotaUtil storageQuotaUtil;
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    @Resource
+    private UploadAdmissionService uploadAdmissionService;
+
+    @Resource
+    private UploadSessionService uploadSessionService;
+
+    @DubboReference(version = "1.0.0", group = "easy-disk")
+    private FileService fileService;
+
+    @DubboReference(version = "1.0.0", group = "easy-disk")
+    private UserService userService;
+
+    @Value("${file.upload.default-chunk-size:5242880}")
+    private Long defaultChunkSize;
+
+    @Value("${file.upload.min-chunk-size:1048576}")
+    private Long minChunkSize;
+
+    @Value("${file.upload.max-chunk-size:104857600}")
+    private Long maxChunkSize;
+
+    @Value("${file.upload.max-file-size:107374182400}")
+    private Long maxFileSize;
+
+    @Value("${file.upload.session-expire-hours:24}")
+    private Integer sessionExpireHours;
+
+    @Value("${file.storage.path-layout:date}")
+    private String pathLayout;
+
+    /**
+     * 初始化分片上传，同一用户同一文件重复初始化时返回已有的上传任务，物理文件已存在时同时返回秒传的持有证明挑战
+     */
+    @Override
+    @BusinessLog(operation = "初始化分片上传")
+    public InitUploadResponse initUpload(Long userId, InitUploadRequest request) {
+        // 校验文件参数
+        checkInitUploadParams(request);
+        long chunkSize = ObjectUtil.defaultIfNull(request.getChunkSize(), defaultChunkSize);
+        String fileSha256 = request.getFileSha256().toLowerCase();
+        // 物理文件已存在时随上传任务下发持有证明挑战，客户端证明持有文件内容后才能秒传
+        boolean blobExists = ObjectUtil.isNotNull(findBlob(fileSha256, request.getFileSize()));
+        // 同一文件已存在未完成的上传任务时直接续传，已有的上传任务已经预占过配额，不再重复预占
+        String existUploadId = uploadSessionService.findUploadId(userId, fileSha256);
+        if (StrUtil.isNotBlank(existUploadId)) {
+            UploadProgressDTO existProgress = uploadSessionService.getProgress(existUploadId);
+            if (ObjectUtil.isNotNull(existProgress)
+                    && Objects.equals(existProgress.getSession().getFileSize(), request.getFileSize())
+                    && Objects.equals(existProgress.getSession().getChunkSize(), chunkSize)) {
+                log.info("命中未完成的上传任务，断点续传: uploadId={}, userId={}, uploadedCount={}",
+                        existUploadId, userId, existProgress.getUploadedCount());
+                return issueChallenge(buildInitUploadResponse(existProgress, request.getParallelism()), blobExists,
+                        request.getFileSize());
+            }
+        }
+        // 创建新的上传任务，先按文件大小预占配额，预占ID即新上传任务的ID
+        String uploadId = IdUtil.fastSimpleUUID();
+        reserveQuota(userId, uploadId, request.getFileSize());
+        UploadSessionDTO session = UploadSessionDTO.builder()
+                .uploadId(uploadId)
+                .userId(userId)
+                .folderId(ObjectUtil.defaultIfNull(request.getFolderId(), FileConstants.ROOT_FOLDER_ID))
+                .fileName(FileUtil.generateSafeFileName(request.getFileName()))
+                .fileSize(request.getFileSize())
+                .chunkSize(chunkSize)
+                .chunkCount(FileUtil.calculateChunkCount(request.getFileSize(), chunkSize))
+                .fileSha256(fileSha256)
+                .hashedChunkCount(0)
+                .hashState(new IncrementalSha256().exportState())
+                .createTime(System.currentTimeMillis())
+                .build();
+        uploadSessionService.createSession(session, Duration.ofHours(sessionExpireHours));
+        log.info("创建上传任务成功: uploadId={}, userId={}, fileSize={}, chunkCount={}",
+                session.getUploadId(), userId, session.getFileSize(), session.getChunkCount());
+        UploadProgressDTO progress = UploadProgressDTO.builder()
+                .session(session)
+                .uploadedBitmap(new byte[0])
+                .uploadedCount(0)
+                .nextChunkIndex(0)
+                .build();
+        return issueChallenge(buildInitUploadResponse(progress, request.getParallelism()), blobExists, request.getFileSize());
+    }
+
+    /**
+     * 上传单个分片，分片可以乱序到达，已上传或正在上传的分片不能重复上传
+     */
+    @Override
+    public UploadChunkResponse uploadChunk(Long userId, String uploadId, Integer chunkIndex, InputStream inputStream) {
+        UploadSessionDTO session = getSession(userId, uploadId);
+        if (ObjectUtil.isNull(chunkIndex) || chunkIndex < 0 || chunkIndex >= session.getChunkCount()) {
+            throw new BusinessException(ResultCode.CHUNK_VALIDATION_FAILED, "分片序号超出范围: " + chunkIndex);
+        }
+        // 对象存储保证大小不符或中断的写入不会留下不完整的分片
+        long expectedSize = calculateChunkSize(session, chunkIndex);
+        String chunkKey = getChunkKey(uploadId, chunkIndex);
+        // 分片计入增量摘要后合并时不再校验，所以同一分片同时只允许一个请求写入，写入后不能覆盖
+        RLock chunkLock = redisLockUtil.tryLock("upload_chunk:" + uploadId + ":" + chunkIndex);
+        if (ObjectUtil.isNull(chunkLock)) {
+            throw new BusinessException(ResultCode.CHUNK_ALREADY_UPLOADED, "分片正在上传: " + chunkIndex);
+        }
+        UploadAdmissionService.Permit permit = null;
+        try {
+            permit = uploadAdmissionService.acquire(userId, expectedSize);
+            if (objectStorage.exists(chunkKey)) {
+                throw new BusinessException(ResultCode.CHUNK_ALREADY_UPLOADED, "分片已上传: " + chunkIndex);
+            }
+            InputStream chunkInput = inputStream;
+            // 第一个分片包含文件头，写入前先读出文件头按魔数校验文件内容与扩展名是否相符，不符的分片不落盘
+            if (chunkIndex == 0) {
+                byte[] header = inputStream.readNBytes((int) Math.min(FileTypeDetector.HEADER_SIZE, expectedSize));
+                if (!FileUtil.isFileTypeMatched(header, session.getFileName())) {
+                    throw new BusinessException(ResultCode.FILE_TYPE_NOT_SUPPORTED, "文件内容与扩展名不符");
+                }
+                chunkInput = new SequenceInputStream(new ByteArrayInputStream(header), inputStream);
+            }
+            objectStorage.put(chunkKey, chunkInput, expectedSize);
+        } catch (ObjectSizeMismatchException e) {
+            throw new BusinessException(ResultCode.CHUNK_VALIDATION_FAILED, String.format("分片大小不正确，期望%d字节", expectedSize));
+        } catch (IOException e) {
+            log.error("写入分片失败: uploadId={}, chunkIndex={}", uploadId, chunkIndex, e);
+            throw new BusinessException(ResultCode.FILE_UPLOAD_FAILED.getCode(), "分片写入失败", e);
+        } finally {
+            if (ObjectUtil.isNotNull(permit)) {
+                permit.close();
+            }
+            redisLockUtil.unlock(chunkLock);
+        }
+        // 在位图中标记分片已上传，上传任务和配额预占一起续期，长时间的上传不会在进行中被当作过期清理
+        Duration sessionExpire = Duration.ofHours(sessionExpireHours);
+        int uploadedCount = uploadSessionService.markChunkUploaded(session, chunkIndex, sessionExpire);
+        if (uploadedCount < 0) {
+            throw new BusinessException(ResultCode.UPLOAD_TASK_NOT_FOUND);
+        }
+        storageQuotaUtil.extend(userId, uploadId, System.currentTimeMillis() + sessionExpire.toMillis());
+        // 当前分片可能补齐了摘要的连续前缀，推进增量摘要
+        if (chunkIndex >= session.getHashedChunkCount()) {
+            advanceSessionDigest(uploadId);
+        }
+        log.debug("分片上传成功: uploadId={}, chunkIndex={}, size={}", uploadId, chunkIndex, expectedSize);
+        return UploadChunkResponse.builder()
+                .chunkIndex(chunkIndex)
+                .uploadedCount(uploadedCount)
+                .chunkCount(session.getChunkCount())
+                .build();
+    }
+
+    /**
+     * 查询上传进度
+     */
+    @Override
+    public UploadProgressResponse getUploadProgress(Long userId, String uploadId) {
+        UploadProgressDTO progress = StrUtil.isBlank(uploadId) ? null : uploadSessionService.getProgress(uploadId);
+        if (ObjectUtil.isNull(progress) || !Objects.equals(progress.getSession().getUserId(), userId)) {
+            throw new BusinessException(ResultCode.UPLOAD_TASK_NOT_FOUND);
+        }
+        UploadSessionDTO session = progress.getSession();
+        return UploadProgressResponse.builder()
+                .uploadId(uploadId)
+                .fileName(session.getFileName())
+                .fileSize(session.getFileSize())
+                .chunkSize(session.getChunkSize())
+                .chunkCount(session.getChunkCount())
+                .uploadedCount(progress.getUploadedCount())
+                .nextChunkIndex(progress.getNextChunkIndex())
+                .uploadedBitmap(Base64.getEncoder().encodeToString(progress.getUploadedBitmap()))
+                .build();
+    }
+
+    /**
+     * 提交秒传的持有证明，校验通过后引用已有的物理文件并结束上传任务，每个挑战只能作答一次，
+     * 校验不通过时客户端继续上传分片
+     */
+    @Override
+    @BusinessLog(operation = "秒传")
+    public MergeUploadResponse proveInstantUpload(Long userId, String uploadId, InstantUploadProofRequest request) {
+        return redisLockUtil.executeWithChunkMergeLock(uploadId, () -> {
+            UploadSessionDTO session = getSession(userId, uploadId);
+            InstantUploadChallengeDTO challenge = uploadSessionService.takeChallenge(uploadId);
+            if (ObjectUtil.isNull(challenge)) {
+                throw new BusinessException(ResultCode.INSTANT_UPLOAD_PROOF_FAILED, "没有待校验的秒传挑战，请上传文件");
+            }
+            FileBlobVO blob = findBlob(session.getFileSha256(), session.getFileSize());
+            if (ObjectUtil.isNull(blob) || !isProofMatched(blob, challenge, request.getProofHash())) {
+                log.warn("秒传持有证明校验失败: uploadId={}, userId={}, blobExists={}", uploadId, userId, ObjectUtil.isNotNull(blob));
+                throw new BusinessException(ResultCode.INSTANT_UPLOAD_PROOF_FAILED);
+            }
+            UserFileVO instantFile = tryInstantUpload(userId, session.getFolderId(), session.getFileName(), session.getFileSize(),
+                    session.getFileSha256());
+            if (ObjectUtil.isNull(instantFile)) {
+                throw new BusinessException(ResultCode.INSTANT_UPLOAD_PROOF_FAILED, "文件已不存在，请上传文件");
+            }
+            // 秒传完成，预占转为已用空间，清理已上传的分片和上传任务
+            storageQuotaUtil.commit(userId, uploadId, session.getFileSize());
+            clearUploadSession(session);
+            log.info("秒传成功: uploadId={}, userId={}, fileId={}, fileSize={}",
+                    uploadId, userId, instantFile.getFileId(), instantFile.getFileSize());
+            return buildMergeUploadResponse(instantFile, session.getFileName(), session.getFileSize(), session.getFileSha256());
+        });
+    }
+
+    /**
+     * 合并分片
+     */
+    @Override
+    @BusinessLog(operation = "合并文件分片")
+    public MergeUploadResponse mergeChunks(Long userId, String uploadId) {
+        return redisLockUtil.executeWithChunkMergeLock(uploadId, () -> {
+            UploadSessionDTO session = getSession(userId, uploadId);
+            int uploadedCount = uploadSessionService.countUploadedChunks(uploadId);
+            if (uploadedCount < session.getChunkCount()) {
+                throw new BusinessException(ResultCode.CHUNK_MERGE_FAILED,
+                        String.format("分片未全部上传: %d/%d", uploadedCount, session.getChunkCount()));
+            }
+            // 合并前校验增量摘要，校验不通过时不做任何拷贝
+            checkSessionDigest(advanceSessionDigest(uploadId));
+            // 文档类文件按内容分块后只保存块清单，相同的块只存一份；不分块的文档类文件分块压缩；其余文件拼接成完整文件
+            CompressionCodec codec = compressionService.selectCodec(session.getFileName());
+            int storageType = selectStorageType(session.getFileName(), session.getFileSize(), codec);
+            String filePath = FileUtil.generateFilePath(userId, session.getFileName(), pathLayout) + getStorageSuffix(storageType);
+            List<String> chunkKeys = listChunkKeys(session);
+            ChunkManifestDTO manifest = null;
+            try {
+                if (storageType == FileConstants.STORAGE_TYPE_CDC_MANIFEST) {
+                    manifest = storeChunkManifest(session, chunkKeys, filePath);
+                } else if (storageType == FileConstants.STORAGE_TYPE_COMPRESSED) {
+                    compressChunks(session, chunkKeys, filePath, codec);
+                } else {
+                    composeChunks(session, chunkKeys, filePath);
+                }
+            } catch (IOException e) {
+                log.error("合并分片失败: uploadId={}", uploadId, e);
+                throw new BusinessException(ResultCode.CHUNK_MERGE_FAILED.getCode(), "分片合并失败", e);
+            }
+            // 登记物理文件，同一文件被并发上传时以先登记的为准，删除自己合并的副本
+            UserFileVO userFile = saveUploadedFile(buildSaveUploadedFileDTO(userId, session.getFolderId(), session.getFileName(),
+                    session.getFileSize(), session.getFileSha256(), filePath, storageType, manifest));
+            if (!StrUtil.equals(userFile.getStoragePath(), filePath)) {
+                deleteQuietly(filePath);
+            }
+            // 合并完成，预占转为已用空间，清理分片和上传任务
+            storageQuotaUtil.commit(userId, uploadId, session.getFileSize());
+            clearUploadSession(session);
+            submitThumbnail(userFile);
+            log.info("分片合并成功: uploadId={}, fileId={}, filePath={}, fileSize={}",
+                    uploadId, userFile.getFileId(), userFile.getStoragePath(), session.getFileSize());
+            return buildMergeUploadResponse(userFile, session.getFileName(), session.getFileSize(), session.getFileSha256());
+        });
+    }
+
+    /**
+     * 取消上传，清理已上传的分片
+     */
+    @Override
+    @BusinessLog(operation = "取消分片上传")
+    public void abortUpload(Long userId, String uploadId) {
+        redisLockUtil.executeWithChunkMergeLock(uploadId, () -> {
+            UploadSessionDTO session = getSession(userId, uploadId);
+            clearUploadSession(session);
+            storageQuotaUtil.release(userId, uploadId);
+            log.info("取消上传任务成功: uploadId={}, userId={}", uploadId, userId);
+        });
+    }
+
+    /**
+     * 查询客户端本地分块得到的块中哪些需要上传，同时返回服务端的分块参数
+     */
+    @Override
+    public CdcCheckResponse checkCdcChunks(Long userId, CdcCheckRequest request) {
+        // 块存储中已有但不是该用户上传过的块也需要上传，上传时校验摘要，不会重复存储
+        List<String> missingChunks;
+        try {
+            Set<String> missing = new HashSet<>(chunkStoreService.findMissingChunks(request.getChunkSha256s()));
+            missing.addAll(uploadSessionService.findUnownedCdcChunks(userId, request.getChunkSha256s()));
+            missingChunks = new LinkedHashSet<>(request.getChunkSha256s()).stream().filter(missing::contains).toList();
+        } catch (IOException e) {
+            log.error("查询CDC块失败: userId={}", userId, e);
+            throw new BusinessException(ResultCode.FILE_UPLOAD_FAILED.getCode(), "查询块失败", e);
+        }
+        log.debug("查询CDC块: userId={}, chunkCount={}, missingCount={}",
+                userId, request.getChunkSha256s().size(), missingChunks.size());
+        FastCdcChunker chunker = chunkStoreService.getChunker();
+        return CdcCheckResponse.builder()
+                .missingChunks(missingChunks)
+                .minChunkSize(chunker.getMinSize())
+                .avgChunkSize(chunker.getAvgSize())
+                .maxChunkSize(chunker.getMaxSize())
+                .build();
+    }
+
+    /**
+     * 上传单个CDC块，块按内容寻址，重复上传已存在的块直接忽略
+     */
+    @Override
+    public void uploadCdcChunk(Long userId, String chunkSha256, InputStream inputStream) {
+        if (!isSha256Hex(chunkSha256)) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "块sha256格式不正确");
+        }
+        // 块大小事先未知，按分块上限申请许可
+        UploadAdmissionService.Permit permit = uploadAdmissionService.acquire(userId, chunkStoreService.getChunker().getMaxSize());
+        try {
+            boolean saved = chunkStoreService.saveChunk(chunkSha256, inputStream);
+            // 摘要校验通过，客户端持有块的内容，块已存在时也记为该用户上传过
+            uploadSessionService.markCdcChunkOwned(userId, chunkSha256, Duration.ofHours(sessionExpireHours));
+            log.debug("CDC块上传成功: userId={}, chunkSha256={}, saved={}", userId, chunkSha256, saved);
+        } catch (IOException e) {
+            log.error("写入CDC块失败: userId={}, chunkSha256={}", userId, chunkSha256, e);
+            throw new BusinessException(ResultCode.FILE_UPLOAD_FAILED.getCode(), "块写入失败", e);
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * 提交CDC块清单完成上传，按清单重新计算整文件sha256，与声明的一致才登记
+     */
+    @Override
+    @BusinessLog(operation = "提交CDC块清单", logParams = false)
+    public MergeUploadResponse commitCdcUpload(Long userId, CdcCommitRequest request) {
+        checkFileParams(request.getFileName(), request.getFileSize());
+        String fileName = FileUtil.generateSafeFileName(request.getFileName());
+        String fileSha256 = request.getFileSha256().toLowerCase();
+        String reservationId = IdUtil.fastSimpleUUID();
+        reserveQuota(userId, reservationId, request.getFileSize());
+        try {
+            MergeUploadResponse response = doCommitCdcUpload(userId, request, fileName, fileSha256);
+            storageQuotaUtil.commit(userId, reservationId, request.getFileSize());
+            return response;
+        } catch (RuntimeException e) {
+            storageQuotaUtil.release(userId, reservationId);
+            throw e;
+        }
+    }
+
+    /**
+     * 按增量指令重建新版本并替换文件内容，新版本变大时按增加的大小预占配额，变小时直接减少已用空间
+     */
+    @Override
+    @BusinessLog(operation = "增量上传", logParams = false)
+    public MergeUploadResponse uploadDelta(Long userId, Long fileId, DeltaUploadRequest request, InputStream inputStream,
+                                           long deltaSize) {
+        UserFileVO base = getUserFile(userId, fileId);
+        String baseSha256 = request.getBaseSha256().toLowerCase();
+        if (!baseSha256.equals(base.getFileSha256())) {
+            throw new BusinessException(ResultCode.FILE_VERSION_CONFLICT);
+        }
+        if (!deltaSyncService.isValidBlockSize(request.getBlockSize())) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "块大小与签名不一致: " + request.getBlockSize());
+        }
+        checkFileParams(base.getFileName(), request.getFileSize());
+        long growth = request.getFileSize() - base.getFileSize();
+        String reservationId = IdUtil.fastSimpleUUID();
+        if (growth > 0) {
+            reserveQuota(userId, reservationId, growth);
+        }
+        try {
+            MergeUploadResponse response = doUploadDelta(userId, base, request, inputStream, deltaSize);
+            if (growth > 0) {
+                storageQuotaUtil.commit(userId, reservationId, growth);
+            } else if (growth < 0) {
+                storageQuotaUtil.adjustUsed(userId, growth);
+            }
+            return response;
+        } catch (RuntimeException e) {
+            if (growth > 0) {
+                storageQuotaUtil.release(userId, reservationId);
+            }
+            throw e;
+        }
+    }
+
+    // ======================== 私有方法 ========================
+    // 重建新版本，校验sha256后按存储方式写入并替换文件内容，配额已由调用方处理
+    private MergeUploadResponse doUploadDelta(Long userId, UserFileVO base, DeltaUploadRequest request, InputStream inputStream,
+                                              long deltaSize) {
+        long fileSize = request.getFileSize();
+        String fileSha256 = request.getFileSha256().toLowerCase();
+        Path tempFile;
+        // 按实际要接收的增量数据申请许可，请求体长度未知时以新文件大小为上限，在途为0时总会放行，不会因为许可过大永远被拒绝
+        long permitBytes = deltaSize > 0 ? deltaSize : fileSize;
+        UploadAdmissionService.Permit permit = uploadAdmissionService.acquire(userId, permitBytes);
+        try {
+            tempFile = deltaSyncService.applyDelta(base, request.getBlockSize(), inputStream, fileSize);
+        } catch (IOException e) {
+            log.error("增量重建失败: userId={}, fileId={}", userId, base.getFileId(), e);
+            throw new BusinessException(ResultCode.FILE_UPLOAD_FAILED.getCode(), "增量数据写入失败", e);
+        } finally {
+            permit.close();
+        }
+        try {
+            if (!fileSha256.equals(calculateSha256(tempFile, fileSize))) {
+                throw new BusinessException(ResultCode.DELTA_VALIDATION_FAILED, "文件sha256校验失败");
+            }
+            CompressionCodec codec = compressionService.selectCodec(base.getFileName());
+            int storageType = selectStorageType(base.getFileName(), fileSize, codec);
+            String filePath = FileUtil.generateFilePath(userId, base.getFileName(), pathLayout) + getStorageSuffix(storageType);
+            ChunkManifestDTO manifest = storeLocalFile(tempFile, fileSize, filePath, storageType, codec);
+            UserFileVO userFile = updateFileContent(UpdateFileContentDTO.builder()
+                    .userId(userId)
+                    .fileId(base.getFileId())
+                    .baseSha256(base.getFileSha256())
+                    .fileSize(fileSize)
+                    .fileSha256(fileSha256)
+                    .storagePath(filePath)
+                    .storageType(storageType)
+                    .chunkRefs(ObjectUtil.isNull(manifest) ? null : manifest.getChunks())
+                    .build());
+            if (!StrUtil.equals(userFile.getStoragePath(), filePath)) {
+                deleteQuietly(filePath);
+            }
+            submitThumbnail(userFile);
+            log.info("增量上传成功: userId={}, fileId={}, filePath={}, fileSize={}",
+                    userId, userFile.getFileId(), userFile.getStoragePath(), fileSize);
+            return buildMergeUploadResponse(userFile, base.getFileName(), fileSize, fileSha256);
+        } catch (IOException e) {
+            log.error("保存增量重建的文件失败: userId={}, fileId={}", userId, base.getFileId(), e);
+            throw new BusinessException(ResultCode.FILE_UPLOAD_FAILED.getCode(), "文件写入失败", e);
+        } finally {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                log.warn("删除增量重建的临时文件失败: path={}", tempFile, e);
+            }
+        }
+    }
+
+    // 提交CDC块清单，配额已由调用方预占
+    private MergeUploadResponse doCommitCdcUpload(Long userId, CdcCommitRequest request, String fileName, String fileSha256) {
+        List<ChunkRefDTO> chunks = checkCdcChunkRefs(request.getChunks(), request.getFileSize());
+        // 只能引用自己上传过的块，否则知道块的sha256就能拼出别人的文件
+        List<String> unownedChunks = uploadSessionService.findUnownedCdcChunks(userId, chunks.stream().map(ChunkRefDTO::getSha256).toList());
+        if (!unownedChunks.isEmpty()) {
+            throw new BusinessException(ResultCode.CHUNK_VALIDATION_FAILED, String.format("有%d个块未上传", unownedChunks.size()));
+        }
+        // 客户端上传过全部的块，持有文件内容，物理文件已存在时秒传
+        UserFileVO instantFile = tryInstantUpload(userId, request.getFolderId(), fileName, request.getFileSize(), fileSha256);
+        if (ObjectUtil.isNotNull(instantFile)) {
+            log.info("秒传成功: userId={}, fileId={}, fileSize={}", userId, instantFile.getFileId(), instantFile.getFileSize());
+            return buildMergeUploadResponse(instantFile, fileName, request.getFileSize(), fileSha256);
+        }
+        String filePath = FileUtil.generateFilePath(userId, fileName, pathLayout) + FileConstants.CDC_MANIFEST_SUFFIX;
+        ChunkManifestDTO manifest = ChunkManifestDTO.builder().fileSize(request.getFileSize()).chunks(chunks).build();
+        try {
+            List<String> missingChunks = chunkStoreService.findMissingChunks(chunks.stream().map(ChunkRefDTO::getSha256).toList());
+            if (!missingChunks.isEmpty()) {
+                throw new BusinessException(ResultCode.CHUNK_VALIDATION_FAILED, String.format("有%d个块未上传", missingChunks.size()));
+            }
+            if (!fileSha256.equals(chunkStoreService.calculateSha256(manifest))) {
+                throw new BusinessException(ResultCode.CHUNK_VALIDATION_FAILED, "文件sha256校验失败");
+            }
+            chunkStoreService.writeManifest(manifest, filePath);
+        } catch (IOException e) {
+            log.error("写入CDC块清单失败: userId={}, sha256={}", userId, fileSha256, e);
+            throw new BusinessException(ResultCode.FILE_UPLOAD_FAILED.getCode(), "块清单写入失败", e);
+        }
+        UserFileVO userFile = saveUploadedFile(buildSaveUploadedFileDTO(userId, request.getFolderId(), fileName, request.getFileSize(),
+                fileSha256, filePath, FileConstants.STORAGE_TYPE_CDC_MANIFEST, manifest));
+        if (!StrUtil.equals(userFile.getStoragePath(), filePath)) {
+            deleteQuietly(filePath);
+        }
+        submitThumbnail(userFile);
+        log.info("CDC上传成功: userId={}, fileId={}, filePath={}, chunkCount={}",
+                userId, userFile.getFileId(), userFile.getStoragePath(), chunks.size());
+        return buildMergeUploadResponse(userFile, fileName, request.getFileSize(), fileSha256);
+    }
+
+    // 校验初始化上传参数
+    private void checkInitUploadParams(InitUploadRequest request) {
+        checkFileParams(request.getFileName(), request.getFileSize());
+        Long chunkSize = request.getChunkSize();
+        if (ObjectUtil.isNotNull(chunkSize) && (chunkSize < minChunkSize || chunkSize > maxChunkSize)) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, String.format("分片大小必须在%s到%s之间",
+                    FileUtil.formatFileSize(minChunkSize), FileUtil.formatFileSize(maxChunkSize)));
+        }
+    }
+
+    // 校验文件类型和大小
+    private void checkFileParams(String fileName, Long fileSize) {
+        if (!FileUtil.isAllowedFileType(fileName)) {
+            throw new BusinessException(ResultCode.FILE_TYPE_NOT_SUPPORTED);
+        }
+        if (fileSize > maxFileSize) {
+            throw new BusinessException(ResultCode.FILE_SIZE_EXCEEDED, "文件大小不能超过" + FileUtil.formatFileSize(maxFileSize));
+        }
+    }
+
+    // 校验客户端提交的块清单，块大小之和必须等于文件大小
+    private List<ChunkRefDTO> checkCdcChunkRefs(List<ChunkRefDTO> chunks, long fileSize) {
+        int maxSize = chunkStoreService.getChunker().getMaxSize();
+        long totalSize = 0;
+        List<ChunkRefDTO> checked = new ArrayList<>(chunks.size());
+        for (ChunkRefDTO chunk : chunks) {
+            if (ObjectUtil.isNull(chunk) || !isSha256Hex(chunk.getSha256()) || ObjectUtil.isNull(chunk.getSize())
+                    || chunk.getSize() <= 0 || chunk.getSize() > maxSize) {
+                throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "块清单格式不正确");
+            }
+            checked.add(new ChunkRefDTO(chunk.getSha256().toLowerCase(), chunk.getSize()));
+            totalSize += chunk.getSize();
+        }
+        if (totalSize != fileSize) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "块清单与文件大小不一致");
+        }
+        return checked;
+    }
+
+    // 预占存储配额，配额未加载到redis时先从用户服务加载
+    private void reserveQuota(Long userId, String reservationId, long fileSize) {
+        long expireAtMillis = System.currentTimeMillis() + Duration.ofHours(sessionExpireHours).toMillis();
+        StorageQuotaUtil.ReserveResult reserveResult = storageQuotaUtil.reserve(userId, reservationId, fileSize, expireAtMillis);
+        if (reserveResult == StorageQuotaUtil.ReserveResult.NOT_LOADED) {
+            loadStorageQuota(userId);
+            reserveResult = storageQuotaUtil.reserve(userId, reservationId, fileSize, expireAtMillis);
+        }
+        if (reserveResult == StorageQuotaUtil.ReserveResult.NOT_LOADED) {
+            throw new BusinessException(ResultCode.RPC_ERROR.getCode(), "加载存储配额失败，请稍后重试");
+        }
+        if (reserveResult == StorageQuotaUtil.ReserveResult.INSUFFICIENT) {
+            StorageQuotaUtil.Quota quota = storageQuotaUtil.getQuota(userId);
+            throw new BusinessException(ResultCode.STORAGE_SPACE_INSUFFICIENT, "存储空间不足，剩余"
+                    + FileUtil.formatFileSize(ObjectUtil.isNull(quota) ? 0 : quota.getAvailable()));
+        }
+    }
+
+    // 从用户服务加载存储配额
+    private void loadStorageQuota(Long userId) {
+        Result<Void> result;
+        try {
+            result = userService.loadStorageQuota(userId);
+        } catch (Exception e) {
+            log.error("加载存储配额失败: userId={}", userId, e);
+            throw new BusinessException(ResultCode.RPC_ERROR.getCode(), "加载存储配额失败，请稍后重试", e);
+        }
+        if (!result.isSuccess()) {
+            throw new BusinessException(result.getCode(), result.getMessage());
+        }
+    }
+
+    // 块摘要会用于拼接存储路径，必须是64位十六进制
+    private boolean isSha256Hex(String value) {
+        return StrUtil.isNotBlank(value) && SHA256_HEX_PATTERN.matcher(value).matches();
+    }
+
+    // 查询已登记的物理文件，查询失败时按不存在处理，客户端正常上传
+    private FileBlobVO findBlob(String fileSha256, Long fileSize) {
+        try {
+            Result<FileBlobVO> result = fileService.findBlob(fileSha256, fileSize);
+            return result.isSuccess() ? result.getData() : null;
+        } catch (Exception e) {
+            log.warn("查询物理文件失败，按普通上传处理: sha256={}", fileSha256, e);
+            return null;
+        }
+    }
+
+    // 物理文件已存在时生成持有证明挑战保存到上传任务中，并随响应下发
+    private InitUploadResponse issueChallenge(InitUploadResponse response, boolean blobExists, long fileSize) {
+        if (!blobExists) {
+            return response;
+        }
+        int length = (int) Math.min(PROOF_REGION_SIZE, fileSize);
+        byte[] nonce = new byte[16];
+        SECURE_RANDOM.nextBytes(nonce);
+        InstantUploadChallengeDTO challenge = InstantUploadChallengeDTO.builder()
+                .nonce(HexUtil.encodeHexStr(nonce))
+                .offset(SECURE_RANDOM.nextLong(fileSize - length + 1))
+                .length(length)
+                .build();
+        uploadSessionService.saveChallenge(response.getUploadId(), challenge);
+        return response.setProofNonce(challenge.getNonce())
+                .setProofOffset(challenge.getOffset())
+                .setProofLength(challenge.getLength());
+    }
+
+    // 读取物理文件中挑战的区间，与随机数一起计算sha256后和客户端的证明比较
+    private boolean isProofMatched(FileBlobVO blob, InstantUploadChallengeDTO challenge, String proofHash) {
+        ByteArrayOutputStream region = new ByteArrayOutputStream(challenge.getLength());
+        try {
+            String storageKey = blob.getStoragePath();
+            long position = challenge.getOffset();
+            int count = challenge.getLength();
+            WritableByteChannel target = Channels.newChannel(region);
+            if (Objects.equals(blob.getStorageType(), FileConstants.STORAGE_TYPE_CDC_MANIFEST)) {
+                chunkStoreService.transferTo(chunkStoreService.readManifest(storageKey), position, count, target);
+            } else if (Objects.equals(blob.getStorageType(), FileConstants.STORAGE_TYPE_COMPRESSED)) {
+                BlockCompressedObject.open(objectStorage, storageKey).transferTo(position, count, target);
+            } else if (objectStorage.transferTo(storageKey, position, count, target) != count) {
+                throw new IOException("物理文件长度不足: " + storageKey);
+            }
+        } catch (IOException e) {
+            log.error("读取秒传校验区间失败: blobId={}, storagePath={}", blob.getBlobId(), blob.getStoragePath(), e);
+            return false;
+        }
+        String expected = new IncrementalSha256()
+                .update(challenge.getNonce().getBytes(StandardCharsets.UTF_8))
+                .update(region.toByteArray())
+                .digestHex();
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                proofHash.toLowerCase().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // 按sha256尝试秒传，文件服务不可用时降级为普通上传
+    private UserFileVO tryInstantUpload(Long userId, Long folderId, String fileName, Long fileSize, String fileSha256) {
+        InstantUploadDTO dto = InstantUploadDTO.builder()
+                .userId(userId)
+                .folderId(folderId)
+                .fileName(fileName)
+                .fileSize(fileSize)
+                .fileSha256(fileSha256)
+                .build();
+        try {
+            Result<UserFileVO> result = fileService.instantUpload(dto);
+            return result.isSuccess() ? result.getData() : null;
+        } catch (Exception e) {
+            log.warn("秒传检查失败，按普通上传处理: userId={}, sha256={}", userId, fileSha256, e);
+            return null;
+        }
+    }
+
+    // 构建登记上传文件的参数，按CDC块清单登记时同时登记引用的块
+    private SaveUploadedFileDTO buildSaveUploadedFileDTO(Long userId, Long folderId, String fileName, Long fileSize, String fileSha256,
+                                                         String filePath, int storageType, ChunkManifestDTO manifest) {
+        return SaveUploadedFileDTO.builder()
+                .userId(userId)
+                .folderId(folderId)
+                .fileName(fileName)
+                .fileSize(fileSize)
+                .fileSha256(fileSha256)
+                .storagePath(filePath)
+                .storageType(storageType)
+                .chunkRefs(ObjectUtil.isNull(manifest) ? null : manifest.getChunks())
+                .build();
+    }
+
+    // 登记上传完成的文件，登记失败时删除合并好的文件，上传任务保留以便重试
+    private UserFileVO saveUploadedFile(SaveUploadedFileDTO dto) {
+        Result<UserFileVO> result;
+        try {
+            result = fileService.saveUploadedFile(dto);
+        } catch (Exception e) {
+            deleteQuietly(dto.getStoragePath());
+            log.error("登记上传文件失败: userId={}, filePath={}", dto.getUserId(), dto.getStoragePath(), e);
+            throw new BusinessException(ResultCode.RPC_ERROR.getCode(), "保存文件失败，请重试合并", e);
+        }
+        if (!result.isSuccess() || ObjectUtil.isNull(result.getData())) {
+            deleteQuietly(dto.getStoragePath());
+            throw new BusinessException(ResultCode.FILE_UPLOAD_FAILED, result.getMessage());
+        }
+        return result.getData();
+    }
+
+    // 替换文件内容，失败时删除写入的新版本，版本冲突等错误码原样返回给客户端
+    private UserFileVO updateFileContent(UpdateFileContentDTO dto) {
+        Result<UserFileVO> result;
+        try {
+            result = fileService.updateFileContent(dto);
+        } catch (Exception e) {
+            deleteQuietly(dto.getStoragePath());
+            log.error("替换文件内容失败: userId={}, fileId={}, filePath={}", dto.getUserId(), dto.getFileId(), dto.getStoragePath(), e);
+            throw new BusinessException(ResultCode.RPC_ERROR.getCode(), "保存文件失败，请重新上传", e);
+        }
+        if (!result.isSuccess() || ObjectUtil.isNull(result.getData())) {
+            deleteQuietly(dto.getStoragePath());
+            throw new BusinessException(result.getCode(), result.getMessage());
+        }
+        return result.getData();
+    }
+
+    // 通过文件服务查询用户文件
+    private UserFileVO getUserFile(Long userId, Long fileId) {
+        Result<UserFileVO> result;
+        try {
+            result = fileService.getUserFile(userId, fileId);
+        } catch (Exception e) {
+            log.error("查询文件信息失败: userId={}, fileId={}", userId, fileId, e);
+            throw new BusinessException(ResultCode.RPC_ERROR);
+        }
+        if (!result.isSuccess() || ObjectUtil.isNull(result.getData())) {
+            throw new BusinessException(ResultCode.FILE_NOT_FOUND);
+        }
+        return result.getData();
+    }
+
+    // 图片上传完成后提交缩略图生成任务，队列满时在第一次请求缩略图时重新提交
+    private void submitThumbnail(UserFileVO userFile) {
+        if (FileUtil.isImageFile(userFile.getFileName())) {
+            thumbnailService.submit(ThumbnailTaskDTO.builder()
+                    .fileSha256(userFile.getFileSha256())
+                    .fileName(userFile.getFileName())
+                    .storagePath(userFile.getStoragePath())
+                    .storageType(userFile.getStorageType())
+                    .build());
+        }
+    }
+
+    // 构建上传完成响应
+    private MergeUploadResponse buildMergeUploadResponse(UserFileVO userFile, String fileName, Long fileSize, String fileSha256) {
+        return MergeUploadResponse.builder()
+                .fileId(userFile.getFileId())
+                .fileName(fileName)
+                .filePath(userFile.getStoragePath())
+                .fileSize(fileSize)
+                .fileSha256(fileSha256)
+                .build();
+    }
+
+    // 获取上传任务并校验归属
+    private UploadSessionDTO getSession(Long userId, String uploadId) {
+        UploadSessionDTO session = getSessionFromCache(uploadId);
+        if (ObjectUtil.isNull(session) || !Objects.equals(session.getUserId(), userId)) {
+            throw new BusinessException(ResultCode.UPLOAD_TASK_NOT_FOUND);
+        }
+        return session;
+    }
+
+    // 从缓存中获取上传任务
+    private UploadSessionDTO getSessionFromCache(String uploadId) {
+        if (StrUtil.isBlank(uploadId)) {
+            return null;
+        }
+        return uploadSessionService.getSession(uploadId);
+    }
+
+    // 构建初始化上传响应，已上传分片以位图返回，并发数不超过待上传的分片数
+    private InitUploadResponse buildInitUploadResponse(UploadProgressDTO progress, Integer requestedParallelism) {
+        UploadSessionDTO session = progress.getSession();
+        int parallelism = uploadAdmissionService.negotiateParallelism(session.getUserId(), requestedParallelism,
+                session.getChunkSize());
+        return InitUploadResponse.builder()
+                .instantUpload(false)
+                .uploadId(session.getUploadId())
+                .chunkSize(session.getChunkSize())
+                .chunkCount(session.getChunkCount())
+                .uploadedCount(progress.getUploadedCount())
+                .nextChunkIndex(progress.getNextChunkIndex())
+                .uploadedBitmap(Base64.getEncoder().encodeToString(progress.getUploadedBitmap()))
+                .parallelism(Math.max(1, Math.min(parallelism, session.getChunkCount() - progress.getUploadedCount())))
+                .build();
+    }
+
+    // 计算指定分片的期望大小，最后一个分片可能不满
+    private long calculateChunkSize(UploadSessionDTO session, int chunkIndex) {
+        long offset = (long) chunkIndex * session.getChunkSize();
+        return Math.min(session.getChunkSize(), session.getFileSize() - offset);
+    }
+
+    // 从已计入摘要的位置开始，把连续到达的分片追加到增量摘要中，并保存中间状态
+    private UploadSessionDTO advanceSessionDigest(String uploadId) {
+        return redisLockUtil.executeWithWatchdogLock("upload_digest:" + uploadId, 30, () -> {
+            UploadSessionDTO session = getSessionFromCache(uploadId);
+            if (ObjectUtil.isNull(session)) {
+                throw new BusinessException(ResultCode.UPLOAD_TASK_NOT_FOUND);
+            }
+            int hashedChunkCount = session.getHashedChunkCount();
+            IncrementalSha256 hasher = null;
+            try {
+                while (hashedChunkCount < session.getChunkCount()) {
+                    String chunkKey = getChunkKey(uploadId, hashedChunkCount);
+                    if (!objectStorage.exists(chunkKey)) {
+                        break;
+                    }
+                    if (hasher == null) {
+                        hasher = IncrementalSha256.restore(session.getHashState());
+                    }
+                    try (InputStream chunk = objectStorage.get(chunkKey)) {
+                        hasher.update(chunk);
+                    }
+                    hashedChunkCount++;
+                }
+            } catch (IOException e) {
+                log.error("计算分片摘要失败: uploadId={}, chunkIndex={}", uploadId, hashedChunkCount, e);
+                throw new BusinessException(ResultCode.FILE_UPLOAD_FAILED.getCode(), "计算分片摘要失败", e);
+            }
+            if (hasher == null) {
+                return session;
+            }
+            session.setHashedChunkCount(hashedChunkCount).setHashState(hasher.exportState());
+            uploadSessionService.updateDigest(uploadId, hashedChunkCount, session.getHashState(), Duration.ofHours(sessionExpireHours));
+            return session;
+        });
+    }
+
+    // 校验增量摘要是否完整且与上传时声明的sha256一致
+    private void checkSessionDigest(UploadSessionDTO session) {
+        if (session.getHashedChunkCount() < session.getChunkCount()) {
+            throw new BusinessException(ResultCode.CHUNK_MERGE_FAILED,
+                    String.format("分片摘要未完成: %d/%d", session.getHashedChunkCount(), session.getChunkCount()));
+        }
+        IncrementalSha256 hasher = IncrementalSha256.restore(session.getHashState());
+        if (hasher.getProcessedBytes() != session.getFileSize()
+                || !session.getFileSha256().equalsIgnoreCase(hasher.digestHex())) {
+            throw new BusinessException(ResultCode.CHUNK_MERGE_FAILED, "文件sha256校验失败");
+        }
+    }
+
+    // 对所有分片按内容分块，块写入块存储后生成块清单
+    private ChunkManifestDTO storeChunkManifest(UploadSessionDTO session, List<String> chunkKeys, String manifestKey) throws IOException {
+        ChunkManifestDTO manifest = chunkStoreService.storeChunks(chunkKeys);
+        if (manifest.getFileSize() != session.getFileSize().longValue()) {
+            throw new BusinessException(ResultCode.CHUNK_MERGE_FAILED,
+                    String.format("合并后文件大小不正确: %d/%d", manifest.getFileSize(), session.getFileSize()));
+        }
+        chunkStoreService.writeManifest(manifest, manifestKey);
+        log.info("按内容分块完成: uploadId={}, chunkCount={}, newChunkCount={}, newChunkBytes={}",
+                session.getUploadId(), manifest.getChunks().size(), manifest.getNewChunkCount(), manifest.getNewChunkBytes());
+        return manifest;
+    }
+
+    // 按序号把所有分片拼接到目标对象，大小不符时删除拼接结果
+    private void composeChunks(UploadSessionDTO session, List<String> chunkKeys, String filePath) throws IOException {
+        ObjectMetadata metadata = objectStorage.compose(filePath, chunkKeys);
+        if (metadata.getSize() != session.getFileSize()) {
+            deleteQuietly(filePath);
+            throw new BusinessException(ResultCode.CHUNK_MERGE_FAILED,
+                    String.format("合并后文件大小不正确: %d/%d", metadata.getSize(), session.getFileSize()));
+        }
+    }
+
+    // 按序号把所有分片拼接后分块压缩到目标对象
+    private void compressChunks(UploadSessionDTO session, List<String> chunkKeys, String filePath, CompressionCodec codec) throws IOException {
+        ObjectMetadata metadata;
+        try {
+            metadata = compressionService.composeCompressed(filePath, chunkKeys, session.getFileSize(), codec);
+        } catch (ObjectSizeMismatchException e) {
+            throw new BusinessException(ResultCode.CHUNK_MERGE_FAILED, "合并后文件大小不正确");
+        }
+        log.info("分块压缩完成: uploadId={}, codec={}, fileSize={}, storedSize={}",
+                session.getUploadId(), codec.getCodecName(), session.getFileSize(), metadata.getSize());
+    }
+
+    // 文档类文件按内容分块，不分块的文档类文件分块压缩，其余文件保存完整文件
+    private int selectStorageType(String fileName, long fileSize, CompressionCodec codec) {
+        if (chunkStoreService.isCdcApplicable(fileName, fileSize)) {
+            return FileConstants.STORAGE_TYPE_CDC_MANIFEST;
+        }
+        return codec != CompressionCodec.NONE ? FileConstants.STORAGE_TYPE_COMPRESSED : FileConstants.STORAGE_TYPE_FILE;
+    }
+
+    // 按存储方式把本地文件写入目标对象，按CDC块清单存储时返回块清单
+    private ChunkManifestDTO storeLocalFile(Path source, long fileSize, String filePath, int storageType, CompressionCodec codec)
+            throws IOException {
+        if (storageType == FileConstants.STORAGE_TYPE_CDC_MANIFEST) {
+            ChunkManifestDTO manifest;
+            try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+                manifest = chunkStoreService.storeChunks(channel);
+            }
+            chunkStoreService.writeManifest(manifest, filePath);
+            return manifest;
+        }
+        try (InputStream input = Files.newInputStream(source)) {
+            if (storageType == FileConstants.STORAGE_TYPE_COMPRESSED) {
+                compressionService.writeCompressed(filePath, input, fileSize, codec);
+            } else {
+                objectStorage.put(filePath, input, fileSize);
+            }
+        }
+        return null;
+    }
+
+    // 计算本地文件的sha256，大小与声明的不一致时返回null
+    private String calculateSha256(Path file, long fileSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != fileSize) {
+                return null;
+            }
+            return new IncrementalSha256().update(channel, 0, fileSize).digestHex();
+        }
+    }
+
+    // 存储方式对应的存储路径后缀
+    private String getStorageSuffix(int storageType) {
+        return switch (storageType) {
+            case FileConstants.STORAGE_TYPE_CDC_MANIFEST -> FileConstants.CDC_MANIFEST_SUFFIX;
+            case FileConstants.STORAGE_TYPE_COMPRESSED -> FileConstants.COMPRESSED_FILE_SUFFIX;
+            default -> "";
+        };
+    }
+
+    // 清理上传任务，分片在后台异步删除
+    private void clearUploadSession(UploadSessionDTO session) {
+        objectStorage.deleteByPrefixAsync(getChunkDirPrefix(session.getUploadId())).whenComplete((deleted, e) -> {
+            if (e != null) {
+                log.warn("清理分片失败: uploadId={}", session.getUploadId(), e);
+            }
+        });
+        uploadSessionService.deleteSession(session);
+    }
+
+    // 删除对象，失败只记录日志
+    private void deleteQuietly(String key) {
+        try {
+            objectStorage.delete(key);
+        } catch (IOException e) {
+            log.warn("删除对象失败: key={}", key, e);
+        }
+    }
+
+    // 按序号列出上传任务的所有分片key
+    private List<String> listChunkKeys(UploadSessionDTO session) {
+        List<String> chunkKeys = new ArrayList<>(session.getChunkCount());
+        for (int chunkIndex = 0; chunkIndex < session.getChunkCount(); chunkIndex++) {
+            chunkKeys.add(getChunkKey(session.getUploadId(), chunkIndex));
+        }
+        return chunkKeys;
+    }
+
+    // 获取分片临时目录前缀
+    private String getChunkDirPrefix(String uploadId) {
+        return FileConstants.CHUNK_TEMP_DIR + "/" + uploadId + "/";
+    }
+
+    // 获取分片key
+    private String getChunkKey(String uploadId, int chunkIndex) {
+        return getChunkDirPrefix(uploadId) + chunkIndex + FileConstants.CHUNK_FILE_SUFFIX;
+    }
+}
@@ -0,0 +1,126 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.api.service.FolderGatewayService;
+import com.cutejiuge.api.service.StorageQuotaService;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.iface.service.file.FolderService;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.FolderVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 文件夹网关层实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午11:45
+ */
+@Slf4j
+@Service
+public class FolderGatewayServiceImpl implements FolderGatewayService {
+    @DubboReference(version = "1.0.0", group = "easy-disk")
+    private FolderService folderService;
+
+    @Resource
+    private StorageQuotaService storageQuotaService;
+
+    /**
+     * 创建文件夹
+     */
+    @Override
+    public FolderVO createFolder(Long userId, Long parentId, String folderName) {
+        return call("创建文件夹", userId, () -> folderService.createFolder(userId, parentId, folderName));
+    }
+
+    /**
+     * 重命名文件夹
+     */
+    @Override
+    public FolderVO renameFolder(Long userId, Long folderId, String folderName) {
+        return call("重命名文件夹", userId, () -> folderService.renameFolder(userId, folderId, folderName));
+    }
+
+    /**
+     * 移动文件夹及其整棵子树
+     */
+    @Override
+    public FolderVO moveFolder(Long userId, Long folderId, Long targetParentId) {
+        return call("移动文件夹", userId, () -> folderService.moveFolder(userId, folderId, targetParentId));
+    }
+
+    /**
+     * 移动文件到指定文件夹
+     */
+    @Override
+    public UserFileVO moveFile(Long userId, Long fileId, Long targetFolderId) {
+        return call("移动文件", userId, () -> folderService.moveFile(userId, fileId, targetFolderId));
+    }
+
+    /**
+     * 批量移动文件到指定文件夹
+     */
+    @Override
+    public BatchResultVO batchMoveFiles(Long userId, List<Long> fileIds, Long targetFolderId) {
+        return call("批量移动文件", userId, () -> folderService.batchMoveFiles(userId, fileIds, targetFolderId));
+    }
+
+    /**
+     * 复制文件夹，文件服务预占配额时不能加载配额，先在这里确保已加载
+     */
+    @Override
+    public CopyJobVO copyFolder(Long userId, Long folderId, Long targetParentId) {
+        storageQuotaService.ensureLoaded(userId);
+        return call("复制文件夹", userId, () -> folderService.copyFolder(userId, folderId, targetParentId));
+    }
+
+    /**
+     * 查询复制任务的进度
+     */
+    @Override
+    public CopyJobVO getCopyJob(Long userId, String jobId) {
+        return call("查询复制任务", userId, () -> folderService.getCopyJob(userId, jobId));
+    }
+
+    /**
+     * 列出文件夹的直接子文件夹和文件
+     */
+    @Override
+    public FolderContentVO listFolder(Long userId, Long folderId) {
+        return call("查询文件夹", userId, () -> folderService.listFolder(userId, folderId));
+    }
+
+    /**
+     * 查询文件夹的整棵子树
+     */
+    @Override
+    public FolderContentVO getFolderTree(Long userId, Long folderId) {
+        return call("查询文件夹子树", userId, () -> folderService.getFolderTree(userId, folderId));
+    }
+
+    // ======================== 私有方法 ========================
+    // 调用文件夹服务，调用失败转换为RPC错误，业务失败按返回的错误码抛出
+    private <T> T call(String action, Long userId, Supplier<Result<T>> invoker) {
+        Result<T> result;
+        try {
+            result = invoker.get();
+        } catch (Exception e) {
+            log.error("{}失败: userId={}", action, userId, e);
+            throw new BusinessException(ResultCode.RPC_ERROR);
+        }
+        if (!result.isSuccess() || ObjectUtil.isNull(result.getData())) {
+            throw new BusinessException(result.getCode(), result.getMessage());
+        }
+        return result.getData();
+    }
+}
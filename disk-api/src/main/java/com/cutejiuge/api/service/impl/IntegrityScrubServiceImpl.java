@@ -0,0 +1,406 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.json.JSONUtil;
+import com.cutejiuge.api.pojo.dto.ScrubRepairTaskDTO;
+import com.cutejiuge.api.service.ChunkStoreService;
+import com.cutejiuge.api.service.IntegrityScrubService;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.util.EncryptUtil;
+import com.cutejiuge.common.util.RedisLockUtil;
+import com.cutejiuge.iface.service.file.FileService;
+import com.cutejiuge.iface.vo.file.FileBlobVO;
+import com.cutejiuge.storage.ObjectStorage;
+import com.cutejiuge.storage.cache.CachingObjectStorage;
+import com.cutejiuge.storage.compress.BlockCompressedObject;
+import com.cutejiuge.storage.exception.ObjectNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.redisson.api.RLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 存储完整性校验服务实现类
+ * <p>
+ * 按物理文件ID顺序逐个读取存储中的对象，用EncryptUtil的流式摘要重新计算sha256，与登记的sha256和大小比对；
+ * 块清单和分块压缩的文件按下载时的方式还原出原始内容再计算。读取直接访问缓存下面的底层存储，
+ * 缓存中的副本不会掩盖磁盘上的损坏，也不会被一次性的扫描挤出热点数据。
+ * <p>
+ * 读取限制在每秒字节数和每秒读取次数的预算内，每次读取后按两者中更严格的一个补足间隔。
+ * 下载链路上报读取存储的耗时，每秒检查一次前台平均延迟：超过阈值时速率减半，恢复后每秒增加最大速率的1/10，
+ * 磁盘繁忙时校验迅速让路，空闲时逐步恢复。
+ * <p>
+ * 进度保存在redis中，每校验完一个物理文件记录一次ID，重启或换实例后从该ID之后继续；一轮扫描完成后间隔一段时间再开始下一轮。
+ * 发现问题的物理文件计入指标并写入待修复任务，之后校验通过时自动移除。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午10:00
+ */
+@Slf4j
+@Service
+public class IntegrityScrubServiceImpl implements IntegrityScrubService {
+    private static final String SCRUB_LOCK_KEY = "scrub:lock";
+    private static final String REASON_CORRUPTED = "CORRUPTED";
+    private static final String REASON_MISSING = "MISSING";
+    private static final String REASON_UNREADABLE = "UNREADABLE";
+    // 按前台延迟调整速率的间隔
+    private static final long ADJUST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // 短暂空闲后允许补回的读取时间
+    private static final long MAX_BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // 单个大文件可能超出时间预算，锁的持有时间额外放宽
+    private static final long LOCK_EXTRA_SECONDS = 3600;
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    @Resource
+    private ChunkStoreService chunkStoreService;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisLockUtil redisLockUtil;
+
+    @DubboReference(version = "1.0.0", group = "easy-disk")
+    private FileService fileService;
+
+    @Value("${file.scrub.enabled:true}")
+    private Boolean enabled;
+
+    @Value("${file.scrub.interval-ms:60000}")
+    private Long intervalMs;
+
+    @Value("${file.scrub.time-budget-ms:600000}")
+    private Long timeBudgetMs;
+
+    @Value("${file.scrub.batch-size:100}")
+    private Integer batchSize;
+
+    @Value("${file.scrub.max-bytes-per-second:20971520}")
+    private Long maxBytesPerSecond;
+
+    @Value("${file.scrub.min-bytes-per-second:1048576}")
+    private Long minBytesPerSecond;
+
+    @Value("${file.scrub.max-iops:200}")
+    private Integer maxIops;
+
+    @Value("${file.scrub.latency-threshold-ms:50}")
+    private Long latencyThresholdMs;
+
+    @Value("${file.scrub.pass-interval-hours:168}")
+    private Long passIntervalHours;
+
+    // 上次调整速率以来前台读取存储的总耗时和次数
+    private final LongAdder foregroundLatencyNanos = new LongAdder();
+    private final LongAdder foregroundSamples = new LongAdder();
+    // 当前允许的读取速率，按前台延迟在最小和最大速率之间调整
+    private volatile long currentBytesPerSecond;
+    // 缓存下面的底层存储
+    private ObjectStorage sourceStorage;
+    private ScheduledExecutorService scrubExecutor;
+    private Counter bytesCounter;
+    private Counter backoffCounter;
+    private Map<String, Counter> resultCounters;
+
+    @PostConstruct
+    public void init() {
+        sourceStorage = objectStorage instanceof CachingObjectStorage cachingStorage ? cachingStorage.getDelegate() : objectStorage;
+        currentBytesPerSecond = maxBytesPerSecond;
+        Gauge.builder("easydisk.scrub.rate.bytes", this, service -> service.currentBytesPerSecond)
+                .description("完整性校验当前允许的每秒读取字节数")
+                .register(Metrics.globalRegistry);
+        bytesCounter = Counter.builder("easydisk.scrub.bytes").register(Metrics.globalRegistry);
+        backoffCounter = Counter.builder("easydisk.scrub.backoff").register(Metrics.globalRegistry);
+        resultCounters = new HashMap<>();
+        for (String result : List.of("ok", REASON_CORRUPTED, REASON_MISSING, REASON_UNREADABLE)) {
+            resultCounters.put(result, Counter.builder("easydisk.scrub.blobs").tag("result", result.toLowerCase())
+                    .register(Metrics.globalRegistry));
+        }
+        if (enabled) {
+            scrubExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("integrity-scrub-", true));
+            scrubExecutor.scheduleWithFixedDelay(this::scrubQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scrubExecutor != null) {
+            scrubExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 记录一次前台请求读取存储的耗时
+     */
+    @Override
+    public void recordForegroundLatency(long nanos) {
+        foregroundLatencyNanos.add(nanos);
+        foregroundSamples.increment();
+    }
+
+    /**
+     * 执行一轮校验，同一时间只有一个实例在校验
+     */
+    @Override
+    public void scrub() {
+        RLock lock = redisLockUtil.tryLock(SCRUB_LOCK_KEY, timeBudgetMs / 1000 + LOCK_EXTRA_SECONDS);
+        if (ObjectUtil.isNull(lock)) {
+            return;
+        }
+        try {
+            Map<Object, Object> progress = stringRedisTemplate.opsForHash().entries(FileConstants.SCRUB_PROGRESS_KEY);
+            long afterId = parseLong(progress.get("afterId"));
+            if (afterId == 0) {
+                long lastPassEndTime = parseLong(progress.get("lastPassEndTime"));
+                if (System.currentTimeMillis() - lastPassEndTime < TimeUnit.HOURS.toMillis(passIntervalHours)) {
+                    return;
+                }
+                startPass();
+            }
+            long deadline = System.currentTimeMillis() + timeBudgetMs;
+            IoThrottle throttle = new IoThrottle();
+            while (System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()) {
+                List<FileBlobVO> blobs = listBlobs(afterId);
+                if (blobs.isEmpty()) {
+                    finishPass();
+                    return;
+                }
+                for (FileBlobVO blob : blobs) {
+                    if (System.currentTimeMillis() >= deadline) {
+                        return;
+                    }
+                    long startBytes = throttle.totalBytes;
+                    ScrubRepairTaskDTO task = scrubBlob(blob, throttle);
+                    saveResult(blob, task, throttle.totalBytes - startBytes);
+                    afterId = blob.getBlobId();
+                }
+            }
+        } catch (InterruptedIOException e) {
+            log.info("完整性校验被中断，下次从上次保存的位置继续");
+        } finally {
+            redisLockUtil.unlock(lock);
+        }
+    }
+
+    // ======================== 私有方法 ========================
+    private void scrubQuietly() {
+        try {
+            scrub();
+        } catch (Exception e) {
+            log.error("完整性校验异常", e);
+        }
+    }
+
+    // 查询下一批物理文件
+    private List<FileBlobVO> listBlobs(long afterId) {
+        Result<List<FileBlobVO>> result = fileService.listBlobs(afterId, batchSize);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("查询物理文件失败: " + result.getMessage());
+        }
+        return result.getData();
+    }
+
+    // 校验一个物理文件，没有问题时返回null
+    private ScrubRepairTaskDTO scrubBlob(FileBlobVO blob, IoThrottle throttle) throws InterruptedIOException {
+        ScrubRepairTaskDTO task = ScrubRepairTaskDTO.builder()
+                .blobId(blob.getBlobId())
+                .sha256(blob.getSha256())
+                .fileSize(blob.getFileSize())
+                .storagePath(blob.getStoragePath())
+                .storageType(blob.getStorageType())
+                .refCount(blob.getRefCount())
+                .detectTime(System.currentTimeMillis())
+                .build();
+        try {
+            throttle.acquire(0);
+            if (sourceStorage.stat(blob.getStoragePath()) == null) {
+                return task.setReason(REASON_MISSING);
+            }
+            try (ThrottledInputStream input = new ThrottledInputStream(openInputStream(blob), throttle)) {
+                String actualSha256 = EncryptUtil.calculateSha256(input);
+                if (actualSha256.equalsIgnoreCase(blob.getSha256()) && input.count == blob.getFileSize()) {
+                    return null;
+                }
+                return task.setReason(REASON_CORRUPTED).setActualSha256(actualSha256).setActualSize(input.count);
+            }
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (ObjectNotFoundException e) {
+            return task.setReason(REASON_MISSING).setMessage(e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            return task.setReason(REASON_UNREADABLE).setMessage(e.getMessage());
+        }
+    }
+
+    // 按存储方式打开原始内容的输入流，全部从底层存储读取
+    private InputStream openInputStream(FileBlobVO blob) throws IOException {
+        if (Objects.equals(blob.getStorageType(), FileConstants.STORAGE_TYPE_CDC_MANIFEST)) {
+            return chunkStoreService.openInputStream(chunkStoreService.readManifest(blob.getStoragePath(), sourceStorage), sourceStorage);
+        }
+        if (Objects.equals(blob.getStorageType(), FileConstants.STORAGE_TYPE_COMPRESSED)) {
+            return BlockCompressedObject.open(sourceStorage, blob.getStoragePath()).openInputStream();
+        }
+        return sourceStorage.get(blob.getStoragePath());
+    }
+
+    // 记录校验结果和进度，一次pipeline写入
+    private void saveResult(FileBlobVO blob, ScrubRepairTaskDTO task, long bytes) {
+        bytesCounter.increment(bytes);
+        resultCounters.get(task == null ? "ok" : task.getReason()).increment();
+        if (task != null) {
+            log.warn("完整性校验发现问题: blobId={}, storagePath={}, reason={}, message={}",
+                    blob.getBlobId(), blob.getStoragePath(), task.getReason(), task.getMessage());
+        }
+        byte[] progressKey = bytes(FileConstants.SCRUB_PROGRESS_KEY);
+        byte[] repairKey = bytes(FileConstants.SCRUB_REPAIR_TASK_KEY);
+        byte[] blobId = bytes(String.valueOf(blob.getBlobId()));
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            if (task == null) {
+                connection.hashCommands().hDel(repairKey, blobId);
+            } else {
+                connection.hashCommands().hSet(repairKey, blobId, bytes(JSONUtil.toJsonStr(task)));
+                connection.hashCommands().hIncrBy(progressKey, bytes("problemBlobs"), 1);
+            }
+            connection.hashCommands().hIncrBy(progressKey, bytes("scannedBlobs"), 1);
+            connection.hashCommands().hIncrBy(progressKey, bytes("scannedBytes"), bytes);
+            connection.hashCommands().hSet(progressKey, bytes("afterId"), blobId);
+            return null;
+        });
+    }
+
+    // 开始新一轮扫描，清零本轮统计
+    private void startPass() {
+        Map<String, String> fields = new HashMap<>(8);
+        fields.put("afterId", "0");
+        fields.put("passStartTime", String.valueOf(System.currentTimeMillis()));
+        fields.put("scannedBlobs", "0");
+        fields.put("scannedBytes", "0");
+        fields.put("problemBlobs", "0");
+        stringRedisTemplate.opsForHash().putAll(FileConstants.SCRUB_PROGRESS_KEY, fields);
+        log.info("完整性校验开始新一轮扫描");
+    }
+
+    // 一轮扫描完成，下一轮从头开始
+    private void finishPass() {
+        Map<String, String> fields = new HashMap<>(4);
+        fields.put("afterId", "0");
+        fields.put("lastPassEndTime", String.valueOf(System.currentTimeMillis()));
+        stringRedisTemplate.opsForHash().putAll(FileConstants.SCRUB_PROGRESS_KEY, fields);
+        Map<Object, Object> progress = stringRedisTemplate.opsForHash().entries(FileConstants.SCRUB_PROGRESS_KEY);
+        log.info("完整性校验完成一轮扫描: scannedBlobs={}, scannedBytes={}, problemBlobs={}",
+                progress.get("scannedBlobs"), progress.get("scannedBytes"), progress.get("problemBlobs"));
+    }
+
+    private static long parseLong(Object value) {
+        return value == null ? 0L : Long.parseLong(value.toString());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取预算：每次读取后按字节数和次数中更严格的一个推迟下一次读取，每秒按前台延迟调整一次速率
+     */
+    private class IoThrottle {
+        // 下一次读取最早可以开始的时间
+        private long nextFreeNanos = System.nanoTime();
+        private long lastAdjustNanos = System.nanoTime();
+        private long totalBytes;
+
+        void acquire(long bytes) throws InterruptedIOException {
+            long now = System.nanoTime();
+            if (now - lastAdjustNanos >= ADJUST_INTERVAL_NANOS) {
+                adjustRate();
+                lastAdjustNanos = now;
+            }
+            long rate = currentBytesPerSecond;
+            long iops = Math.max(1, maxIops * rate / maxBytesPerSecond);
+            long cost = Math.max(bytes * TimeUnit.SECONDS.toNanos(1) / rate, TimeUnit.SECONDS.toNanos(1) / iops);
+            nextFreeNanos = Math.max(nextFreeNanos, now - MAX_BURST_NANOS) + cost;
+            totalBytes += bytes;
+            long waitNanos = nextFreeNanos - now;
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("完整性校验被中断");
+                }
+            }
+        }
+
+        // 前台平均延迟超过阈值时速率减半，否则按最大速率的1/10逐步恢复
+        private void adjustRate() {
+            long samples = foregroundSamples.sumThenReset();
+            long latencyNanos = foregroundLatencyNanos.sumThenReset();
+            if (samples > 0 && latencyNanos / samples > TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs)) {
+                currentBytesPerSecond = Math.max(minBytesPerSecond, currentBytesPerSecond / 2);
+                backoffCounter.increment();
+            } else {
+                currentBytesPerSecond = Math.min(maxBytesPerSecond, currentBytesPerSecond + maxBytesPerSecond / 10);
+            }
+        }
+    }
+
+    /**
+     * 每次读取都计入读取预算的输入流
+     */
+    private static class ThrottledInputStream extends FilterInputStream {
+        private final IoThrottle throttle;
+        private long count;
+
+        ThrottledInputStream(InputStream input, IoThrottle throttle) {
+            super(input);
+            this.throttle = throttle;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+                throttle.acquire(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            throw new IOException("校验时不允许跳过数据");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.cutejiuge.api.service.impl;
+
+import com.cutejiuge.api.service.RecycleBinGatewayService;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.iface.service.file.RecycleBinService;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.RecycleItemVO;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 回收站网关层实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午4:05
+ */
+@Slf4j
+@Service
+public class RecycleBinGatewayServiceImpl implements RecycleBinGatewayService {
+    @DubboReference(version = "1.0.0", group = "easy-disk")
+    private RecycleBinService recycleBinService;
+
+    /**
+     * 删除文件，放入回收站
+     */
+    @Override
+    public RecycleItemVO deleteFile(Long userId, Long fileId) {
+        return call("删除文件", userId, () -> recycleBinService.deleteFile(userId, fileId));
+    }
+
+    /**
+     * 删除文件夹，整棵子树放入回收站
+     */
+    @Override
+    public RecycleItemVO deleteFolder(Long userId, Long folderId) {
+        return call("删除文件夹", userId, () -> recycleBinService.deleteFolder(userId, folderId));
+    }
+
+    /**
+     * 批量删除文件
+     */
+    @Override
+    public BatchResultVO batchDeleteFiles(Long userId, List<Long> fileIds) {
+        return call("批量删除文件", userId, () -> recycleBinService.batchDeleteFiles(userId, fileIds));
+    }
+
+    /**
+     * 按删除时间倒序查询回收站
+     */
+    @Override
+    public List<RecycleItemVO> listRecycleBin(Long userId, Long beforeId, Integer size) {
+        return call("查询回收站", userId, () -> recycleBinService.listRecycleBin(userId, beforeId, size));
+    }
+
+    /**
+     * 还原回收站项目
+     */
+    @Override
+    public RecycleItemVO restore(Long userId, Long recycleId) {
+        return call("还原回收站项目", userId, () -> recycleBinService.restore(userId, recycleId));
+    }
+
+    /**
+     * 彻底删除回收站项目
+     */
+    @Override
+    public void purge(Long userId, Long recycleId) {
+        call("彻底删除回收站项目", userId, () -> recycleBinService.purge(userId, recycleId));
+    }
+
+    /**
+     * 清空回收站
+     */
+    @Override
+    public Integer emptyRecycleBin(Long userId) {
+        return call("清空回收站", userId, () -> recycleBinService.emptyRecycleBin(userId));
+    }
+
+    // ======================== 私有方法 ========================
+    // 调用回收站服务，调用失败转换为RPC错误，业务失败按返回的错误码抛出
+    private <T> T call(String action, Long userId, Supplier<Result<T>> invoker) {
+        Result<T> result;
+        try {
+            result = invoker.get();
+        } catch (Exception e) {
+            log.error("{}失败: userId={}", action, userId, e);
+            throw new BusinessException(ResultCode.RPC_ERROR);
+        }
+        if (!result.isSuccess()) {
+            throw new BusinessException(result.getCode(), result.getMessage());
+        }
+        return result.getData();
+    }
+}
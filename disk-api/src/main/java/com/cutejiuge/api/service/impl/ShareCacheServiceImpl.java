@@ -0,0 +1,186 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.json.JSONUtil;
+import com.cutejiuge.api.service.ShareCacheService;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.ShareCodeUtil;
+import com.cutejiuge.iface.service.file.ShareService;
+import com.cutejiuge.iface.vo.file.ShareVO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分享信息缓存服务实现类
+ * <p>
+ * 第一级是本地缓存，有效期只有几秒，热门分享的绝大多数访问在这里命中，不产生任何网络请求；
+ * 第二级是redis，本地缓存未命中时查询，所有网关实例共享；两级都未命中时才调用文件服务查库。
+ * 同一实例上同一分享码同时只有一个请求回源，其余请求等待它的结果，本地缓存过期的瞬间不会有大量请求同时打到redis和数据库，
+ * 这里只用本地的Future合并请求，不需要分布式锁。
+ * <p>
+ * 不存在的分享码在两级缓存中都保存一个空标记，有效期较短，随机猜测的分享码不会每次都查库；格式不对的分享码直接返回，不查询任何缓存。
+ * 取消分享时删除redis和本机的缓存，其他实例的本地缓存最多在有效期内仍返回旧数据，查看分享时再按状态和过期时间判断。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午8:25
+ */
+@Slf4j
+@Service
+public class ShareCacheServiceImpl implements ShareCacheService {
+    // 不存在的分享码在redis中保存的空标记
+    private static final String MISSING_VALUE = "";
+    // 不存在的分享码在本地缓存中保存的空标记
+    private static final ShareVO MISSING = new ShareVO();
+
+    @DubboReference(version = "1.0.0", group = "easy-disk")
+    private ShareService shareService;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${share.cache.local-capacity:10000}")
+    private Integer localCapacity;
+
+    @Value("${share.cache.local-ttl-ms:5000}")
+    private Long localTtlMs;
+
+    @Value("${share.cache.redis-ttl-seconds:600}")
+    private Long redisTtlSeconds;
+
+    @Value("${share.cache.negative-ttl-seconds:60}")
+    private Long negativeTtlSeconds;
+
+    // 本地缓存，读取不加锁
+    private final Map<String, LocalEntry> localCache = new ConcurrentHashMap<>();
+    // 正在回源的分享码
+    private final Map<String, CompletableFuture<ShareVO>> loading = new ConcurrentHashMap<>();
+    private Counter localHitCounter;
+    private Counter redisHitCounter;
+    private Counter originCounter;
+
+    @PostConstruct
+    public void init() {
+        localHitCounter = Counter.builder("easydisk.share.cache").tag("level", "local").register(Metrics.globalRegistry);
+        redisHitCounter = Counter.builder("easydisk.share.cache").tag("level", "redis").register(Metrics.globalRegistry);
+        originCounter = Counter.builder("easydisk.share.cache").tag("level", "origin").register(Metrics.globalRegistry);
+    }
+
+    /**
+     * 按分享码查询分享，分享不存在时返回null
+     */
+    @Override
+    public ShareVO resolve(String shareCode) {
+        if (!ShareCodeUtil.isValid(shareCode)) {
+            return null;
+        }
+        LocalEntry entry = localCache.get(shareCode);
+        if (entry != null && entry.expireAtMillis > System.currentTimeMillis()) {
+            localHitCounter.increment();
+            return entry.share == MISSING ? null : entry.share;
+        }
+        CompletableFuture<ShareVO> future = new CompletableFuture<>();
+        CompletableFuture<ShareVO> existing = loading.putIfAbsent(shareCode, future);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            ShareVO share = load(shareCode);
+            putLocal(shareCode, share);
+            future.complete(share);
+            return share;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(shareCode, future);
+        }
+    }
+
+    /**
+     * 删除分享的redis缓存和本地缓存
+     */
+    @Override
+    public void evict(String shareCode) {
+        stringRedisTemplate.delete(FileConstants.SHARE_INFO_KEY_PREFIX + shareCode);
+        localCache.remove(shareCode);
+    }
+
+    // ======================== 私有方法 ========================
+    // 查询redis，未命中时调用文件服务并写入redis
+    private ShareVO load(String shareCode) {
+        String key = FileConstants.SHARE_INFO_KEY_PREFIX + shareCode;
+        String cached = stringRedisTemplate.opsForValue().get(key);
+        if (cached != null) {
+            redisHitCounter.increment();
+            return MISSING_VALUE.equals(cached) ? null : JSONUtil.toBean(cached, ShareVO.class);
+        }
+        originCounter.increment();
+        Result<ShareVO> result;
+        try {
+            result = shareService.getShare(shareCode);
+        } catch (Exception e) {
+            log.error("查询分享失败: shareCode={}", shareCode, e);
+            throw new BusinessException(ResultCode.RPC_ERROR);
+        }
+        if (!result.isSuccess()) {
+            if (ObjectUtil.equals(result.getCode(), ResultCode.SHARE_NOT_FOUND.getCode())) {
+                stringRedisTemplate.opsForValue().set(key, MISSING_VALUE, Duration.ofSeconds(negativeTtlSeconds));
+                return null;
+            }
+            throw new BusinessException(result.getCode(), result.getMessage());
+        }
+        ShareVO share = result.getData();
+        stringRedisTemplate.opsForValue().set(key, JSONUtil.toJsonStr(share), Duration.ofSeconds(redisTtlSeconds));
+        return share;
+    }
+
+    // 写入本地缓存，超过容量时先清理过期的条目，仍然超过时随意淘汰一部分
+    private void putLocal(String shareCode, ShareVO share) {
+        if (localCache.size() >= localCapacity) {
+            long now = System.currentTimeMillis();
+            localCache.values().removeIf(entry -> entry.expireAtMillis <= now);
+            Iterator<LocalEntry> iterator = localCache.values().iterator();
+            while (localCache.size() >= localCapacity && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        localCache.put(shareCode, new LocalEntry(share == null ? MISSING : share, System.currentTimeMillis() + localTtlMs));
+    }
+
+    // 等待其他请求回源的结果
+    private ShareVO await(CompletableFuture<ShareVO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BusinessException businessException) {
+                throw businessException;
+            }
+            throw new BusinessException(ResultCode.RPC_ERROR);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class LocalEntry {
+        private final ShareVO share;
+        private final long expireAtMillis;
+    }
+}
@@ -0,0 +1,225 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import com.cutejiuge.api.request.share.CreateShareRequest;
+import com.cutejiuge.api.request.share.SaveShareRequest;
+import com.cutejiuge.api.service.ShareCacheService;
+import com.cutejiuge.api.service.ShareGatewayService;
+import com.cutejiuge.api.service.ShareStatsService;
+import com.cutejiuge.api.service.StorageQuotaService;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.iface.dto.file.CreateShareDTO;
+import com.cutejiuge.iface.dto.file.SaveShareDTO;
+import com.cutejiuge.iface.service.file.ShareService;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.ShareVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 分享网关层实现类
+ * <p>
+ * 查看分享只读两级缓存、只写本地统计缓冲区，不加分布式锁，也不写数据库；分享的状态、过期时间和提取码在网关校验。
+ * 提取码只有4位，错误次数按分享+IP计一个固定窗口，单个IP错误过多时在窗口内只锁这个IP对这个分享的尝试。
+ * 不按分享整体加锁，否则任何人换着IP猜错几十次就能让所有正常的接收者在窗口内都打不开分享。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午9:05
+ */
+@Slf4j
+@Service
+public class ShareGatewayServiceImpl implements ShareGatewayService {
+    // 记录一次提取码错误，窗口从第一次错误开始计时
+    private static final RedisScript<Long> RECORD_FAILURE_SCRIPT = new DefaultRedisScript<>("""
+            local failures = redis.call('INCR', KEYS[1])
+            if failures == 1 then
+                redis.call('EXPIRE', KEYS[1], ARGV[1])
+            end
+            return failures
+            """, Long.class);
+
+    @DubboReference(version = "1.0.0", group = "easy-disk")
+    private ShareService shareService;
+
+    @Resource
+    private ShareCacheService shareCacheService;
+
+    @Resource
+    private ShareStatsService shareStatsService;
+
+    @Resource
+    private StorageQuotaService storageQuotaService;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${share.extract-code.max-failures-per-ip:5}")
+    private Integer maxFailuresPerIp;
+
+    @Value("${share.extract-code.lock-seconds:600}")
+    private Long lockSeconds;
+
+    /**
+     * 创建分享
+     */
+    @Override
+    public ShareVO createShare(Long userId, CreateShareRequest request) {
+        CreateShareDTO dto = CreateShareDTO.builder()
+                .userId(userId)
+                .itemType(request.getItemType())
+                .itemId(request.getItemId())
+                .extractCode(request.getExtractCode())
+                .expireDays(request.getExpireDays())
+                .build();
+        return call("创建分享", userId, () -> shareService.createShare(dto));
+    }
+
+    /**
+     * 查询用户的分享，独立访客数一次pipeline批量查询
+     */
+    @Override
+    public List<ShareVO> listShares(Long userId, Long beforeId, Integer size) {
+        List<ShareVO> shares = call("查询分享", userId, () -> shareService.listShares(userId, beforeId, size));
+        Map<Long, Long> visitorCounts = shareStatsService.countVisitors(shares.stream().map(ShareVO::getShareId).toList());
+        shares.forEach(share -> share.setVisitorCount(visitorCounts.getOrDefault(share.getShareId(), 0L)));
+        return shares;
+    }
+
+    /**
+     * 取消分享，删除缓存和访客统计
+     */
+    @Override
+    public void cancelShare(Long userId, Long shareId) {
+        ShareVO share = call("取消分享", userId, () -> shareService.cancelShare(userId, shareId));
+        shareCacheService.evict(share.getShareCode());
+        shareStatsService.deleteStats(share.getShareId());
+    }
+
+    /**
+     * 查看分享并记录一次访问
+     */
+    @Override
+    public ShareVO viewShare(String shareCode, String extractCode, Long viewerId, String visitorId, String clientIp) {
+        ShareVO share = checkAccess(shareCode, extractCode, viewerId, clientIp);
+        shareStatsService.recordView(share.getShareId(), visitorId);
+        return toPublicShare(share);
+    }
+
+    /**
+     * 查询分享的内容，不返回文件的存储路径
+     */
+    @Override
+    public FolderContentVO listShareContent(String shareCode, String extractCode, Long viewerId, Long folderId, String clientIp) {
+        ShareVO share = checkAccess(shareCode, extractCode, viewerId, clientIp);
+        FolderContentVO content = call("查询分享内容", share.getUserId(),
+                () -> shareService.listShareContent(share.getUserId(), share.getItemType(), share.getItemId(), folderId));
+        if (ObjectUtil.isNotNull(content.getFiles())) {
+            content.getFiles().forEach(file -> file.setStoragePath(null));
+        }
+        return content;
+    }
+
+    /**
+     * 转存分享，访问校验与查看分享相同，复制的大小计入转存者的已用空间
+     */
+    @Override
+    public CopyJobVO saveShare(Long userId, String shareCode, SaveShareRequest request, String clientIp) {
+        ShareVO share = checkAccess(shareCode, request.getExtractCode(), userId, clientIp);
+        storageQuotaService.ensureLoaded(userId);
+        SaveShareDTO dto = SaveShareDTO.builder()
+                .userId(userId)
+                .shareUserId(share.getUserId())
+                .itemType(share.getItemType())
+                .itemId(share.getItemId())
+                .folderId(request.getFolderId())
+                .fileIds(request.getFileIds())
+                .targetFolderId(request.getTargetFolderId())
+                .build();
+        return call("转存分享", userId, () -> shareService.saveShare(dto));
+    }
+
+    // ======================== 私有方法 ========================
+    // 从缓存中查询分享并校验状态、有效期和提取码
+    private ShareVO checkAccess(String shareCode, String extractCode, Long viewerId, String clientIp) {
+        ShareVO share = shareCacheService.resolve(shareCode);
+        if (ObjectUtil.isNull(share)) {
+            throw new BusinessException(ResultCode.SHARE_NOT_FOUND);
+        }
+        if (ObjectUtil.notEqual(share.getStatus(), FileConstants.SHARE_STATUS_ACTIVE)) {
+            throw new BusinessException(ResultCode.SHARE_CANCELLED);
+        }
+        if (ObjectUtil.isNotNull(share.getExpireTime()) && share.getExpireTime() <= System.currentTimeMillis()) {
+            throw new BusinessException(ResultCode.SHARE_EXPIRED);
+        }
+        if (ObjectUtil.isNotNull(share.getExtractCode()) && !share.getUserId().equals(viewerId)) {
+            checkExtractCode(share, extractCode, clientIp);
+        }
+        return share;
+    }
+
+    // 校验提取码，错误次数达到上限时在窗口内直接拒绝，不再比较；没有传提取码的请求只是打开页面，不计入错误次数
+    private void checkExtractCode(ShareVO share, String extractCode, String clientIp) {
+        String ipKey = FileConstants.SHARE_EXTRACT_FAIL_KEY_PREFIX + share.getShareId() + ":" + clientIp;
+        String failures = stringRedisTemplate.opsForValue().get(ipKey);
+        if (ObjectUtil.isNotNull(failures) && Long.parseLong(failures) >= maxFailuresPerIp) {
+            throw new BusinessException(ResultCode.SHARE_EXTRACT_CODE_LOCKED);
+        }
+        if (StrUtil.isBlank(extractCode)) {
+            throw new BusinessException(ResultCode.SHARE_PASSWORD_ERROR);
+        }
+        if (!MessageDigest.isEqual(share.getExtractCode().getBytes(StandardCharsets.UTF_8), extractCode.getBytes(StandardCharsets.UTF_8))) {
+            stringRedisTemplate.execute(RECORD_FAILURE_SCRIPT, List.of(ipKey), String.valueOf(lockSeconds));
+            log.info("提取码错误: shareId={}, clientIp={}", share.getShareId(), clientIp);
+            throw new BusinessException(ResultCode.SHARE_PASSWORD_ERROR);
+        }
+    }
+
+    // 缓存中的分享对象是共享的，返回副本并去掉提取码
+    private ShareVO toPublicShare(ShareVO share) {
+        return new ShareVO()
+                .setShareId(share.getShareId())
+                .setShareCode(share.getShareCode())
+                .setUserId(share.getUserId())
+                .setItemType(share.getItemType())
+                .setItemId(share.getItemId())
+                .setItemName(share.getItemName())
+                .setItemSize(share.getItemSize())
+                .setNeedExtractCode(share.getNeedExtractCode())
+                .setExpireTime(share.getExpireTime())
+                .setStatus(share.getStatus())
+                .setViewCount(share.getViewCount())
+                .setCreateTime(share.getCreateTime());
+    }
+
+    // 调用分享服务，调用失败转换为RPC错误，业务失败按返回的错误码抛出
+    private <T> T call(String action, Long userId, Supplier<Result<T>> invoker) {
+        Result<T> result;
+        try {
+            result = invoker.get();
+        } catch (Exception e) {
+            log.error("{}失败: userId={}", action, userId, e);
+            throw new BusinessException(ResultCode.RPC_ERROR);
+        }
+        if (!result.isSuccess()) {
+            throw new BusinessException(result.getCode(), result.getMessage());
+        }
+        return result.getData();
+    }
+}
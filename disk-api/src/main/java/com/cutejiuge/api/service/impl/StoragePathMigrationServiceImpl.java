@@ -0,0 +1,327 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.api.service.StoragePathMigrationService;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.util.FileUtil;
+import com.cutejiuge.common.util.RedisLockUtil;
+import com.cutejiuge.iface.service.file.FileService;
+import com.cutejiuge.iface.vo.file.FileBlobVO;
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.ObjectStorage;
+import com.cutejiuge.storage.cache.CachingObjectStorage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.redisson.api.RLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 存储路径迁移服务实现类
+ * <p>
+ * 按物理文件ID顺序找出 user-files/{userId}/{year}/{month}/ 下的物理文件，复制到按摘要前缀打散的新路径，
+ * 再以旧路径为条件更新登记的路径；更新失败说明物理文件已被删除或改动，删除新路径上的副本。
+ * 下载、缩略图等请求可能已经拿到了旧路径，旧路径不立即删除，延迟一段时间后再删，迁移过程中不需要停服。
+ * <p>
+ * 新路径由旧路径确定，中途失败后重新复制会覆盖同一个对象。更新路径前把物理文件ID和旧路径记入进度，
+ * 重启后先检查这条记录：路径已经更新的补登旧路径的延迟删除，没有更新的从该物理文件重新迁移。
+ * 复制限制在每秒字节数预算内，同一时间只有一个实例在迁移；一轮完成后间隔一段时间再扫描一次，
+ * 处理滚动发布期间旧配置的实例按年月目录写入的文件。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午10:45
+ */
+@Slf4j
+@Service
+public class StoragePathMigrationServiceImpl implements StoragePathMigrationService {
+    private static final String MIGRATION_LOCK_KEY = "path_migration:lock";
+    // 单个大文件可能超出时间预算，锁的持有时间额外放宽
+    private static final long LOCK_EXTRA_SECONDS = 3600;
+    // 每次删除的到期旧路径数量
+    private static final int DELETE_BATCH_SIZE = 100;
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisLockUtil redisLockUtil;
+
+    @DubboReference(version = "1.0.0", group = "easy-disk")
+    private FileService fileService;
+
+    @Value("${file.storage.path-layout:date}")
+    private String pathLayout;
+
+    @Value("${file.path-migration.enabled:false}")
+    private Boolean enabled;
+
+    @Value("${file.path-migration.interval-ms:60000}")
+    private Long intervalMs;
+
+    @Value("${file.path-migration.time-budget-ms:600000}")
+    private Long timeBudgetMs;
+
+    @Value("${file.path-migration.batch-size:100}")
+    private Integer batchSize;
+
+    @Value("${file.path-migration.max-bytes-per-second:52428800}")
+    private Long maxBytesPerSecond;
+
+    @Value("${file.path-migration.delete-delay-minutes:60}")
+    private Long deleteDelayMinutes;
+
+    @Value("${file.path-migration.pass-interval-hours:24}")
+    private Long passIntervalHours;
+
+    // 缓存下面的底层存储，迁移读取的数据不进入块缓存
+    private ObjectStorage sourceStorage;
+    private ScheduledExecutorService migrationExecutor;
+
+    @PostConstruct
+    public void init() {
+        sourceStorage = objectStorage instanceof CachingObjectStorage cachingStorage ? cachingStorage.getDelegate() : objectStorage;
+        if (enabled) {
+            if (!FileConstants.STORAGE_PATH_LAYOUT_HASH.equals(pathLayout)) {
+                log.warn("存储路径迁移已开启，但新上传的文件仍按{}布局保存", pathLayout);
+            }
+            migrationExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("path-migration-", true));
+            migrationExecutor.scheduleWithFixedDelay(this::migrateQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (migrationExecutor != null) {
+            migrationExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 执行一轮迁移，同一时间只有一个实例在迁移
+     */
+    @Override
+    public void migrate() {
+        RLock lock = redisLockUtil.tryLock(MIGRATION_LOCK_KEY, timeBudgetMs / 1000 + LOCK_EXTRA_SECONDS);
+        if (ObjectUtil.isNull(lock)) {
+            return;
+        }
+        try {
+            deleteExpiredPaths();
+            Map<Object, Object> progress = stringRedisTemplate.opsForHash().entries(FileConstants.PATH_MIGRATION_PROGRESS_KEY);
+            recoverInflight(progress);
+            long afterId = parseLong(progress.get("afterId"));
+            if (afterId == 0) {
+                long lastPassEndTime = parseLong(progress.get("lastPassEndTime"));
+                if (System.currentTimeMillis() - lastPassEndTime < TimeUnit.HOURS.toMillis(passIntervalHours)) {
+                    return;
+                }
+                startPass();
+            }
+            long deadline = System.currentTimeMillis() + timeBudgetMs;
+            while (System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()) {
+                List<FileBlobVO> blobs = listBlobs(afterId, batchSize);
+                if (blobs.isEmpty()) {
+                    finishPass();
+                    return;
+                }
+                for (FileBlobVO blob : blobs) {
+                    if (System.currentTimeMillis() >= deadline) {
+                        return;
+                    }
+                    migrateBlob(blob);
+                    afterId = blob.getBlobId();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("存储路径迁移被中断，下次从上次保存的位置继续");
+        } finally {
+            redisLockUtil.unlock(lock);
+        }
+    }
+
+    // ======================== 私有方法 ========================
+    private void migrateQuietly() {
+        try {
+            migrate();
+        } catch (Exception e) {
+            log.error("存储路径迁移异常", e);
+        }
+    }
+
+    // 迁移一个物理文件，不需要迁移或复制失败时只记录进度
+    private void migrateBlob(FileBlobVO blob) throws InterruptedException {
+        String oldPath = blob.getStoragePath();
+        String newPath = FileUtil.toHashedFilePath(oldPath);
+        if (newPath == null) {
+            saveProgress(blob.getBlobId(), null, 0);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        long size;
+        try {
+            ObjectMetadata metadata = sourceStorage.stat(oldPath);
+            if (metadata == null) {
+                log.warn("物理文件不存在，跳过迁移: blobId={}, storagePath={}", blob.getBlobId(), oldPath);
+                saveProgress(blob.getBlobId(), null, 0);
+                return;
+            }
+            size = metadata.getSize();
+            try (InputStream input = sourceStorage.get(oldPath)) {
+                objectStorage.put(newPath, input, size);
+            }
+        } catch (IOException e) {
+            log.error("复制物理文件失败，跳过迁移: blobId={}, oldPath={}, newPath={}", blob.getBlobId(), oldPath, newPath, e);
+            saveProgress(blob.getBlobId(), null, 0);
+            return;
+        }
+        // 先记下正在更新的物理文件，更新路径后进程退出时重启能找回旧路径
+        Map<String, String> inflight = new HashMap<>(4);
+        inflight.put("inflightBlobId", String.valueOf(blob.getBlobId()));
+        inflight.put("inflightOldPath", oldPath);
+        stringRedisTemplate.opsForHash().putAll(FileConstants.PATH_MIGRATION_PROGRESS_KEY, inflight);
+        Result<Boolean> result = fileService.updateBlobStoragePath(blob.getBlobId(), oldPath, newPath);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("更新物理文件存储路径失败: " + result.getMessage());
+        }
+        if (Boolean.TRUE.equals(result.getData())) {
+            saveProgress(blob.getBlobId(), oldPath, size);
+        } else {
+            // 物理文件已被删除或路径已被改动，新路径上的副本没有引用
+            log.info("物理文件路径已变化，放弃迁移: blobId={}, oldPath={}", blob.getBlobId(), oldPath);
+            deleteQuietly(newPath);
+            saveProgress(blob.getBlobId(), null, 0);
+        }
+        pace(size, startNanos);
+    }
+
+    // 上次迁移在更新路径后中断时，路径已经更新的补登旧路径的延迟删除
+    private void recoverInflight(Map<Object, Object> progress) {
+        long inflightBlobId = parseLong(progress.get("inflightBlobId"));
+        if (inflightBlobId == 0) {
+            return;
+        }
+        String oldPath = (String) progress.get("inflightOldPath");
+        List<FileBlobVO> blobs = listBlobs(inflightBlobId - 1, 1);
+        boolean updated = !blobs.isEmpty() && blobs.get(0).getBlobId() == inflightBlobId
+                && !Objects.equals(blobs.get(0).getStoragePath(), oldPath);
+        if (updated) {
+            saveProgress(inflightBlobId, oldPath, 0);
+            progress.put("afterId", String.valueOf(inflightBlobId));
+        } else {
+            stringRedisTemplate.opsForHash().delete(FileConstants.PATH_MIGRATION_PROGRESS_KEY, "inflightBlobId", "inflightOldPath");
+        }
+        log.info("恢复中断的存储路径迁移: blobId={}, oldPath={}, updated={}", inflightBlobId, oldPath, updated);
+    }
+
+    // 记录迁移进度，迁移成功时旧路径进入延迟删除，一次pipeline写入
+    private void saveProgress(long blobId, String oldPath, long bytes) {
+        byte[] progressKey = bytes(FileConstants.PATH_MIGRATION_PROGRESS_KEY);
+        byte[] pendingDeleteKey = bytes(FileConstants.PATH_MIGRATION_PENDING_DELETE_KEY);
+        long deleteTime = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(deleteDelayMinutes);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            if (oldPath != null) {
+                connection.zSetCommands().zAdd(pendingDeleteKey, deleteTime, bytes(oldPath));
+                connection.hashCommands().hIncrBy(progressKey, bytes("migratedBlobs"), 1);
+                connection.hashCommands().hIncrBy(progressKey, bytes("migratedBytes"), bytes);
+            }
+            connection.hashCommands().hIncrBy(progressKey, bytes("scannedBlobs"), 1);
+            connection.hashCommands().hSet(progressKey, bytes("afterId"), bytes(String.valueOf(blobId)));
+            connection.hashCommands().hDel(progressKey, bytes("inflightBlobId"), bytes("inflightOldPath"));
+            return null;
+        });
+    }
+
+    // 删除已过延迟期的旧路径
+    private void deleteExpiredPaths() {
+        Set<String> paths = stringRedisTemplate.opsForZSet().rangeByScore(FileConstants.PATH_MIGRATION_PENDING_DELETE_KEY,
+                0, System.currentTimeMillis(), 0, DELETE_BATCH_SIZE);
+        if (paths == null || paths.isEmpty()) {
+            return;
+        }
+        for (String path : paths) {
+            deleteQuietly(path);
+        }
+        stringRedisTemplate.opsForZSet().remove(FileConstants.PATH_MIGRATION_PENDING_DELETE_KEY, paths.toArray());
+        log.info("删除迁移后的旧路径: count={}", paths.size());
+    }
+
+    // 查询下一批物理文件
+    private List<FileBlobVO> listBlobs(long afterId, int size) {
+        Result<List<FileBlobVO>> result = fileService.listBlobs(afterId, size);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("查询物理文件失败: " + result.getMessage());
+        }
+        return result.getData();
+    }
+
+    // 复制速度超过预算时补足间隔
+    private void pace(long bytes, long startNanos) throws InterruptedException {
+        long costNanos = bytes * TimeUnit.SECONDS.toNanos(1) / maxBytesPerSecond;
+        long waitNanos = costNanos - (System.nanoTime() - startNanos);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void deleteQuietly(String path) {
+        try {
+            objectStorage.delete(path);
+        } catch (IOException e) {
+            log.warn("删除对象失败: path={}", path, e);
+        }
+    }
+
+    // 开始新一轮迁移，清零本轮统计
+    private void startPass() {
+        Map<String, String> fields = new HashMap<>(8);
+        fields.put("afterId", "0");
+        fields.put("passStartTime", String.valueOf(System.currentTimeMillis()));
+        fields.put("scannedBlobs", "0");
+        fields.put("migratedBlobs", "0");
+        fields.put("migratedBytes", "0");
+        stringRedisTemplate.opsForHash().putAll(FileConstants.PATH_MIGRATION_PROGRESS_KEY, fields);
+        log.info("存储路径迁移开始新一轮扫描");
+    }
+
+    // 一轮迁移完成，下一轮从头开始
+    private void finishPass() {
+        Map<String, String> fields = new HashMap<>(4);
+        fields.put("afterId", "0");
+        fields.put("lastPassEndTime", String.valueOf(System.currentTimeMillis()));
+        stringRedisTemplate.opsForHash().putAll(FileConstants.PATH_MIGRATION_PROGRESS_KEY, fields);
+        Map<Object, Object> progress = stringRedisTemplate.opsForHash().entries(FileConstants.PATH_MIGRATION_PROGRESS_KEY);
+        log.info("存储路径迁移完成一轮扫描: scannedBlobs={}, migratedBlobs={}, migratedBytes={}",
+                progress.get("scannedBlobs"), progress.get("migratedBlobs"), progress.get("migratedBytes"));
+    }
+
+    private static long parseLong(Object value) {
+        return value == null ? 0L : Long.parseLong(value.toString());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,49 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.api.service.StorageQuotaService;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.StorageQuotaUtil;
+import com.cutejiuge.iface.service.user.UserService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.springframework.stereotype.Service;
+
+/**
+ * 存储配额服务实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午5:12
+ */
+@Slf4j
+@Service
+public class StorageQuotaServiceImpl implements StorageQuotaService {
+    @DubboReference(version = "1.0.0", group = "easy-disk")
+    private UserService userService;
+
+    @Resource
+    private StorageQuotaUtil storageQuotaUtil;
+
+    /**
+     * 未加载时从用户服务加载
+     */
+    @Override
+    public void ensureLoaded(Long userId) {
+        if (ObjectUtil.isNotNull(storageQuotaUtil.getQuota(userId))) {
+            return;
+        }
+        Result<Void> result;
+        try {
+            result = userService.loadStorageQuota(userId);
+        } catch (Exception e) {
+            log.error("加载存储配额失败: userId={}", userId, e);
+            throw new BusinessException(ResultCode.RPC_ERROR.getCode(), "加载存储配额失败，请稍后重试", e);
+        }
+        if (!result.isSuccess()) {
+            throw new BusinessException(result.getCode(), result.getMessage());
+        }
+    }
+}
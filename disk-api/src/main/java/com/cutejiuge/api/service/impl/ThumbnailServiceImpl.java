@@ -0,0 +1,358 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.api.pojo.dto.ChunkManifestDTO;
+import com.cutejiuge.api.pojo.dto.ThumbnailTaskDTO;
+import com.cutejiuge.api.service.ChunkStoreService;
+import com.cutejiuge.api.service.ThumbnailService;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.util.FileUtil;
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.ObjectStorage;
+import com.cutejiuge.storage.compress.BlockCompressedObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缩略图服务实现类
+ * <p>
+ * 缩略图在固定大小的后台线程池中生成，等待队列有界，队列满时直接拒绝而不是在请求线程中执行，
+ * 被拒绝的任务在第一次请求缩略图时重新提交。同一个物理文件排队期间只会有一个任务。
+ * 格式不支持、图片损坏或像素数超限的文件生成失败后在redis中按sha256记一个短期的失败标记，
+ * 标记过期前请求缩略图直接返回占位图，不会每次都把原图完整读一遍再解码失败。
+ * <p>
+ * 解码时按最大规格计算ImageReadParam的源图抽样步长，5000万像素的照片只解码出略大于最大规格的图像，
+ * 不会把整张原图展开到堆内存里；所有规格在一次解码中从大到小逐级缩放生成。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午2:15
+ */
+@Slf4j
+@Service
+public class ThumbnailServiceImpl implements ThumbnailService {
+    @Resource
+    private ChunkStoreService chunkStoreService;
+
+    @Resource
+    private ObjectStorage objectStorage;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${file.thumbnail.sizes:128,256,1024}")
+    private List<Integer> thumbnailSizes;
+
+    @Value("${file.thumbnail.workers:2}")
+    private Integer workers;
+
+    @Value("${file.thumbnail.queue-capacity:1000}")
+    private Integer queueCapacity;
+
+    @Value("${file.thumbnail.max-source-pixels:200000000}")
+    private Long maxSourcePixels;
+
+    @Value("${file.thumbnail.quality:0.85}")
+    private Float quality;
+
+    @Value("${file.thumbnail.failed-expire-seconds:600}")
+    private Long failedExpireSeconds;
+
+    // 排队或生成中的物理文件
+    private final Set<String> pendingFiles = ConcurrentHashMap.newKeySet();
+    // 按规格缓存的占位图
+    private final Map<Integer, byte[]> placeholders = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    // 从大到小排列的缩略图规格
+    private List<Integer> sizesDesc;
+    private Counter generatedCounter;
+    private Counter failedCounter;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        sizesDesc = thumbnailSizes.stream().distinct().sorted((a, b) -> b - a).toList();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new NamedThreadFactory("thumbnail-", true),
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("easydisk.thumbnail.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("排队等待生成的缩略图任务数")
+                .register(Metrics.globalRegistry);
+        generatedCounter = Counter.builder("easydisk.thumbnail.tasks").tag("result", "generated").register(Metrics.globalRegistry);
+        failedCounter = Counter.builder("easydisk.thumbnail.tasks").tag("result", "failed").register(Metrics.globalRegistry);
+        rejectedCounter = Counter.builder("easydisk.thumbnail.tasks").tag("result", "rejected").register(Metrics.globalRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交缩略图生成任务，同一个物理文件排队中或已生成时直接返回
+     */
+    @Override
+    public boolean submit(ThumbnailTaskDTO task) {
+        if (!FileUtil.isImageFile(task.getFileName()) || isFailed(task.getFileSha256()) || isGenerated(task.getFileSha256())) {
+            return true;
+        }
+        if (!pendingFiles.add(task.getFileSha256())) {
+            return true;
+        }
+        try {
+            executor.execute(() -> generate(task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            pendingFiles.remove(task.getFileSha256());
+            rejectedCounter.increment();
+            log.warn("缩略图队列已满，稍后重试: sha256={}, queueDepth={}", task.getFileSha256(), getQueueDepth());
+            return false;
+        }
+    }
+
+    /**
+     * 选择不小于请求尺寸的最小缩略图规格，请求尺寸超过所有规格时返回最大规格
+     */
+    @Override
+    public int resolveSize(Integer requestedSize) {
+        int resolved = sizesDesc.get(0);
+        if (ObjectUtil.isNull(requestedSize)) {
+            return sizesDesc.get(sizesDesc.size() - 1);
+        }
+        for (int size : sizesDesc) {
+            if (size >= requestedSize) {
+                resolved = size;
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * 获取已生成的缩略图对象，尚未生成时返回null
+     */
+    @Override
+    public ObjectMetadata getThumbnail(String fileSha256, int size) {
+        try {
+            return objectStorage.stat(FileUtil.generateThumbnailPath(fileSha256, size));
+        } catch (IOException e) {
+            log.warn("查询缩略图失败: sha256={}, size={}", fileSha256, size, e);
+            return null;
+        }
+    }
+
+    /**
+     * 物理文件最近生成缩略图失败，失败标记过期前不再重新生成
+     */
+    @Override
+    public boolean isFailed(String fileSha256) {
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(FileConstants.THUMBNAIL_FAILED_KEY_PREFIX + fileSha256));
+    }
+
+    /**
+     * 获取指定规格的占位图JPEG，浅灰色的正方形，首次使用时生成
+     */
+    @Override
+    public byte[] getPlaceholder(int size) {
+        return placeholders.computeIfAbsent(size, key -> {
+            BufferedImage image = new BufferedImage(key, key, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            try {
+                graphics.setColor(new Color(0xEE, 0xEE, 0xEE));
+                graphics.fillRect(0, 0, key, key);
+            } finally {
+                graphics.dispose();
+            }
+            try {
+                return encodeJpeg(image);
+            } catch (IOException e) {
+                throw new IllegalStateException("生成缩略图占位图失败", e);
+            }
+        });
+    }
+
+    /**
+     * 失败标记的有效期 单位s
+     */
+    @Override
+    public long getFailedExpireSeconds() {
+        return failedExpireSeconds;
+    }
+
+    /**
+     * 当前排队等待生成的任务数
+     */
+    @Override
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    // ======================== 私有方法 ========================
+    // 生成所有规格的缩略图
+    private void generate(ThumbnailTaskDTO task) {
+        long startTime = System.currentTimeMillis();
+        try {
+            BufferedImage image = decodeSubsampled(task);
+            if (ObjectUtil.isNull(image)) {
+                failedCounter.increment();
+                markFailed(task.getFileSha256());
+                return;
+            }
+            // 从大到小逐级缩放，每一级都以上一级的结果作为源图
+            BufferedImage source = image;
+            for (int size : sizesDesc) {
+                source = scaleToFit(source, size);
+                writeJpeg(source, FileUtil.generateThumbnailPath(task.getFileSha256(), size));
+            }
+            generatedCounter.increment();
+            log.debug("缩略图生成完成: sha256={}, cost={}ms", task.getFileSha256(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            failedCounter.increment();
+            markFailed(task.getFileSha256());
+            log.warn("缩略图生成失败: sha256={}, fileName={}", task.getFileSha256(), task.getFileName(), e);
+        } finally {
+            pendingFiles.remove(task.getFileSha256());
+        }
+    }
+
+    // 按最大规格计算抽样步长后解码，不支持的格式或像素数超限时返回null
+    private BufferedImage decodeSubsampled(ThumbnailTaskDTO task) throws IOException {
+        try (InputStream input = openSource(task); ImageInputStream imageInput = ImageIO.createImageInputStream(input)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                log.info("不支持生成缩略图的图片格式: sha256={}, fileName={}", task.getFileSha256(), task.getFileName());
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    log.warn("图片像素数超限，跳过缩略图: sha256={}, width={}, height={}", task.getFileSha256(), width, height);
+                    return null;
+                }
+                // 抽样后最长边仍不小于最大规格，保证缩放质量
+                int step = Math.max(1, Math.max(width, height) / sizesDesc.get(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // 打开物理文件，CDC块清单按块顺序读取，分块压缩文件边读边解压
+    private InputStream openSource(ThumbnailTaskDTO task) throws IOException {
+        if (Objects.equals(task.getStorageType(), FileConstants.STORAGE_TYPE_CDC_MANIFEST)) {
+            ChunkManifestDTO manifest = chunkStoreService.readManifest(task.getStoragePath());
+            return chunkStoreService.openInputStream(manifest);
+        }
+        if (Objects.equals(task.getStorageType(), FileConstants.STORAGE_TYPE_COMPRESSED)) {
+            return BlockCompressedObject.open(objectStorage, task.getStoragePath()).openInputStream();
+        }
+        return objectStorage.get(task.getStoragePath());
+    }
+
+    // 等比缩放到最长边不超过指定尺寸，每次最多缩小一半，避免一步缩放产生锯齿；小图不放大，统一转为RGB
+    private BufferedImage scaleToFit(BufferedImage source, int size) {
+        int targetWidth = source.getWidth();
+        int targetHeight = source.getHeight();
+        double ratio = (double) size / Math.max(targetWidth, targetHeight);
+        if (ratio < 1) {
+            targetWidth = Math.max(1, (int) Math.round(targetWidth * ratio));
+            targetHeight = Math.max(1, (int) Math.round(targetHeight * ratio));
+        }
+        BufferedImage current = source;
+        do {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                // 透明背景按白色处理
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = scaled;
+        } while (current.getWidth() > targetWidth || current.getHeight() > targetHeight);
+        return current;
+    }
+
+    // 在内存中编码JPEG后整体写入，缩略图只有几十KB，对象存储的写入是原子的
+    private void writeJpeg(BufferedImage image, String thumbnailKey) throws IOException {
+        objectStorage.put(thumbnailKey, ByteBuffer.wrap(encodeJpeg(image)));
+    }
+
+    // 按配置的质量编码JPEG
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    // 记录生成失败，标记写入失败时只影响是否重试，不影响本次结果
+    private void markFailed(String fileSha256) {
+        try {
+            stringRedisTemplate.opsForValue().set(FileConstants.THUMBNAIL_FAILED_KEY_PREFIX + fileSha256, "1",
+                    Duration.ofSeconds(failedExpireSeconds));
+        } catch (Exception e) {
+            log.warn("记录缩略图失败标记失败: sha256={}", fileSha256, e);
+        }
+    }
+
+    // 所有规格都已生成
+    private boolean isGenerated(String fileSha256) {
+        return sizesDesc.stream().allMatch(size -> getThumbnail(fileSha256, size) != null);
+    }
+}
@@ -0,0 +1,252 @@
+package com.cutejiuge.api.service.impl;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.api.service.UploadAdmissionService;
+import com.cutejiuge.common.exception.ThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分片上传准入控制服务实现类
+ * <p>
+ * 按用户和节点两级限制在途的分片数和字节数，防止单个客户端开大量并发把节点的请求线程和带宽占满。
+ * 用户超出自己的份额时直接拒绝，排队只会让同一用户占住更多请求线程；节点整体繁忙时短暂排队，
+ * 等待的请求数和等待时间都有上限，超出后拒绝。拒绝时按最近的分片接收速率估算Retry-After，
+ * 客户端按提示退避即可，不需要自己猜测重试间隔。
+ * <p>
+ * 在途分片数为0时总是放行一个分片，保证分片大小超过字节上限时上传也能进行。
+ * 限制只在当前节点内生效，多节点部署时每个节点各自计算。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午9:20
+ */
+@Slf4j
+@Service
+public class UploadAdmissionServiceImpl implements UploadAdmissionService {
+    // 接收速率指数加权平均的新样本权重
+    private static final double RATE_SMOOTHING = 0.2;
+    private static final long MAX_RETRY_AFTER_SECONDS = 30;
+
+    @Value("${file.upload.admission.user-max-chunks:8}")
+    private Integer userMaxChunks;
+
+    @Value("${file.upload.admission.user-max-bytes:67108864}")
+    private Long userMaxBytes;
+
+    @Value("${file.upload.admission.node-max-chunks:64}")
+    private Integer nodeMaxChunks;
+
+    @Value("${file.upload.admission.node-max-bytes:536870912}")
+    private Long nodeMaxBytes;
+
+    @Value("${file.upload.admission.max-waiters:128}")
+    private Integer maxWaiters;
+
+    @Value("${file.upload.admission.max-wait-ms:3000}")
+    private Long maxWaitMillis;
+
+    @Value("${file.upload.admission.default-parallelism:4}")
+    private Integer defaultParallelism;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    // 以下状态只在持有lock时读写
+    private final Map<Long, InFlight> userInFlight = new HashMap<>();
+    private final InFlight nodeInFlight = new InFlight();
+    private int waiters;
+    // 单个分片接收速率的指数加权平均(字节/秒)，用于估算Retry-After
+    private double chunkReceiveRate;
+
+    private Counter userRejectedCounter;
+    private Counter nodeRejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("easydisk.upload.inflight.chunks", this, service -> service.readNodeInFlight(false))
+                .description("当前节点正在接收的分片数")
+                .register(Metrics.globalRegistry);
+        Gauge.builder("easydisk.upload.inflight.bytes", this, service -> service.readNodeInFlight(true))
+                .description("当前节点正在接收的分片字节数")
+                .register(Metrics.globalRegistry);
+        userRejectedCounter = Counter.builder("easydisk.upload.admission.rejected").tag("scope", "user").register(Metrics.globalRegistry);
+        nodeRejectedCounter = Counter.builder("easydisk.upload.admission.rejected").tag("scope", "node").register(Metrics.globalRegistry);
+    }
+
+    /**
+     * 根据客户端期望的并发数、分片大小和当前节点负载，协商客户端并发上传的分片数
+     */
+    @Override
+    public int negotiateParallelism(Long userId, Integer requestedParallelism, long chunkSize) {
+        int parallelism = Math.min(ObjectUtil.defaultIfNull(requestedParallelism, defaultParallelism), userMaxChunks);
+        // 用户在途字节上限内能容纳的分片数
+        parallelism = (int) Math.min(parallelism, userMaxBytes / chunkSize);
+        // 节点按当前活跃用户加上自己平分容量
+        lock.lock();
+        try {
+            int activeUsers = userInFlight.containsKey(userId) ? userInFlight.size() : userInFlight.size() + 1;
+            parallelism = Math.min(parallelism, nodeMaxChunks / activeUsers);
+            parallelism = (int) Math.min(parallelism, nodeMaxBytes / chunkSize / activeUsers);
+        } finally {
+            lock.unlock();
+        }
+        return Math.max(1, parallelism);
+    }
+
+    /**
+     * 申请接收一个分片的许可，用户超出份额时直接拒绝，节点繁忙时短暂排队，排队超时后拒绝
+     */
+    @Override
+    public Permit acquire(Long userId, long bytes) {
+        lock.lock();
+        try {
+            InFlight user = userInFlight.computeIfAbsent(userId, id -> new InFlight());
+            if (!user.canAdmit(bytes, userMaxChunks, userMaxBytes)) {
+                userRejectedCounter.increment();
+                throw new ThrottledException("同时上传的分片过多，请降低并发后重试", estimateRetryAfter(bytes, 0));
+            }
+            if (!nodeInFlight.canAdmit(bytes, nodeMaxChunks, nodeMaxBytes)) {
+                awaitNodeCapacity(userId, user, bytes);
+            }
+            user.add(bytes);
+            nodeInFlight.add(bytes);
+            return new UploadPermit(userId, bytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ======================== 私有方法 ========================
+    // 排队等待节点容量，等待期间同一用户的其他分片可能已被放行，醒来后重新校验用户份额
+    private void awaitNodeCapacity(Long userId, InFlight user, long bytes) {
+        if (waiters >= maxWaiters) {
+            rejectByNode(userId, user, bytes);
+        }
+        waiters++;
+        try {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            while (!nodeInFlight.canAdmit(bytes, nodeMaxChunks, nodeMaxBytes)) {
+                if (remainingNanos <= 0) {
+                    rejectByNode(userId, user, bytes);
+                }
+                remainingNanos = released.awaitNanos(remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejectByNode(userId, user, bytes);
+        } finally {
+            waiters--;
+        }
+        if (!user.canAdmit(bytes, userMaxChunks, userMaxBytes)) {
+            userRejectedCounter.increment();
+            throw new ThrottledException("同时上传的分片过多，请降低并发后重试", estimateRetryAfter(bytes, 0));
+        }
+    }
+
+    // 节点繁忙拒绝，没有在途分片的用户不再保留状态
+    private void rejectByNode(Long userId, InFlight user, long bytes) {
+        if (user.chunks == 0) {
+            userInFlight.remove(userId);
+        }
+        nodeRejectedCounter.increment();
+        log.warn("节点上传繁忙，拒绝分片: userId={}, inFlightChunks={}, inFlightBytes={}, waiters={}",
+                userId, nodeInFlight.chunks, nodeInFlight.bytes, waiters);
+        throw new ThrottledException("服务器上传繁忙，请稍后重试", estimateRetryAfter(bytes, waiters));
+    }
+
+    // 释放许可，唤醒排队的请求，并用本次接收耗时更新接收速率
+    private void release(Long userId, long bytes, long elapsedNanos) {
+        lock.lock();
+        try {
+            InFlight user = userInFlight.get(userId);
+            if (user != null) {
+                user.remove(bytes);
+                if (user.chunks == 0) {
+                    userInFlight.remove(userId);
+                }
+            }
+            nodeInFlight.remove(bytes);
+            if (bytes > 0 && elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(1)) {
+                double sample = bytes * 1e9 / elapsedNanos;
+                chunkReceiveRate = chunkReceiveRate == 0 ? sample : chunkReceiveRate * (1 - RATE_SMOOTHING) + sample * RATE_SMOOTHING;
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 在途的分片接收完一个后才有空位，按同样大小的分片所需时间估算，排队的请求越多等待越久
+    private long estimateRetryAfter(long bytes, int queued) {
+        if (chunkReceiveRate <= 0) {
+            return 1;
+        }
+        double seconds = bytes / chunkReceiveRate * (1 + (double) queued / nodeMaxChunks);
+        return Math.min(MAX_RETRY_AFTER_SECONDS, Math.max(1, (long) Math.ceil(seconds)));
+    }
+
+    private long readNodeInFlight(boolean bytes) {
+        lock.lock();
+        try {
+            return bytes ? nodeInFlight.bytes : nodeInFlight.chunks;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 在途的分片数和字节数
+     */
+    private static class InFlight {
+        private int chunks;
+        private long bytes;
+
+        // 没有在途分片时总是放行
+        private boolean canAdmit(long size, int maxChunks, long maxBytes) {
+            return chunks == 0 || (chunks < maxChunks && bytes + size <= maxBytes);
+        }
+
+        private void add(long size) {
+            chunks++;
+            bytes += size;
+        }
+
+        private void remove(long size) {
+            chunks--;
+            bytes -= size;
+        }
+    }
+
+    /**
+     * 分片接收许可，重复关闭只释放一次
+     */
+    private class UploadPermit implements Permit {
+        private final Long userId;
+        private final long bytes;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private UploadPermit(Long userId, long bytes) {
+            this.userId = userId;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(userId, bytes, System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.cutejiuge.api.service.impl;
+
+import com.cutejiuge.api.pojo.dto.InstantUploadChallengeDTO;
+import com.cutejiuge.api.pojo.dto.UploadProgressDTO;
+import com.cutejiuge.api.pojo.dto.UploadSessionDTO;
+import com.cutejiuge.api.service.UploadSessionService;
+import com.cutejiuge.common.constants.FileConstants;
+import jakarta.annotation.Resource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分片上传任务状态服务实现类
+ * <p>
+ * 上传任务保存为一个hash，已上传的分片保存为位图，第i位对应第i个分片：收到分片时SETBIT，进度用BITCOUNT，
+ * 第一个缺失的分片用BITPOS。10GB文件按5MB分片是2000个分片，位图只有250字节，
+ * 断点续传时一个lua脚本取出上传任务、位图和统计结果，一次往返，返回给客户端的也是这段位图。
+ * 两个key用上传任务ID作为hash tag，集群部署时落在同一个槽，脚本可以同时访问。
+ * 秒传的持有证明挑战保存在上传任务的hash中，作答时一个脚本取出并删除，每个挑战只能作答一次。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午6:30
+ */
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 保存上传任务：清除同ID的旧状态后写入hash并设置有效期
+    private static final RedisScript<Long> CREATE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1], KEYS[2])
+            redis.call('HSET', KEYS[1], unpack(ARGV, 2))
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // 标记分片已上传：上传任务不存在返回-1，否则返回已上传的分片数
+    private static final RedisScript<Long> MARK_CHUNK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end
+            redis.call('SETBIT', KEYS[2], ARGV[1], 1)
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[2])
+            return redis.call('BITCOUNT', KEYS[2])
+            """, Long.class);
+
+    // 保存增量摘要进度，上传任务不存在时返回0
+    private static final RedisScript<Long> UPDATE_DIGEST_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            redis.call('HSET', KEYS[1], 'hashedChunkCount', ARGV[1], 'hashState', ARGV[2])
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    // 保存持有证明挑战，上传任务不存在时返回0
+    private static final RedisScript<Long> SAVE_CHALLENGE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            redis.call('HSET', KEYS[1], 'proofNonce', ARGV[1], 'proofOffset', ARGV[2], 'proofLength', ARGV[3])
+            return 1
+            """, Long.class);
+
+    // 取出并删除持有证明挑战，返回 {nonce, offset, length}，不存在时为空值
+    private static final byte[] TAKE_CHALLENGE_SCRIPT = """
+            local values = redis.call('HMGET', KEYS[1], 'proofNonce', 'proofOffset', 'proofLength')
+            redis.call('HDEL', KEYS[1], 'proofNonce', 'proofOffset', 'proofLength')
+            return values
+            """.getBytes(StandardCharsets.UTF_8);
+
+    // 查询进度：上传任务不存在返回空列表，否则返回 {已上传数, 第一个未上传的序号, 位图, hash的字段和值...}
+    private static final byte[] PROGRESS_SCRIPT = """
+            local fields = redis.call('HGETALL', KEYS[1])
+            if #fields == 0 then return {} end
+            local result = {redis.call('BITCOUNT', KEYS[2]), redis.call('BITPOS', KEYS[2], 0), redis.call('GET', KEYS[2]) or ''}
+            for i = 1, #fields do result[#result + 1] = fields[i] end
+            return result
+            """.getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 保存新的上传任务，同时记录用户和文件到上传任务的映射
+     */
+    @Override
+    public void createSession(UploadSessionDTO session, Duration expire) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(expire.toMillis()));
+        toHash(session).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        stringRedisTemplate.execute(CREATE_SCRIPT, List.of(sessionKey(session.getUploadId()), bitmapKey(session.getUploadId())),
+                args.toArray());
+        stringRedisTemplate.opsForValue().set(userKey(session.getUserId(), session.getFileSha256()), session.getUploadId(), expire);
+    }
+
+    /**
+     * 查询上传任务，不存在或已过期时返回null
+     */
+    @Override
+    public UploadSessionDTO getSession(String uploadId) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(sessionKey(uploadId));
+        if (entries.isEmpty()) {
+            return null;
+        }
+        Map<String, String> fields = new HashMap<>(entries.size() * 2);
+        entries.forEach((field, value) -> fields.put((String) field, (String) value));
+        return fromHash(fields);
+    }
+
+    /**
+     * 按用户和文件sha256查询未完成的上传任务ID，不存在时返回null
+     */
+    @Override
+    public String findUploadId(Long userId, String fileSha256) {
+        return stringRedisTemplate.opsForValue().get(userKey(userId, fileSha256));
+    }
+
+    /**
+     * 一次往返查询上传任务和已上传分片，上传任务不存在时返回null
+     */
+    @Override
+    public UploadProgressDTO getProgress(String uploadId) {
+        List<Object> values = stringRedisTemplate.execute((RedisCallback<List<Object>>) connection -> connection.scriptingCommands()
+                .eval(PROGRESS_SCRIPT, ReturnType.MULTI, 2, bytes(sessionKey(uploadId)), bytes(bitmapKey(uploadId))));
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        Map<String, String> fields = new HashMap<>(values.size());
+        for (int i = 3; i + 1 < values.size(); i += 2) {
+            fields.put(string(values.get(i)), string(values.get(i + 1)));
+        }
+        UploadSessionDTO session = fromHash(fields);
+        int nextChunkIndex = ((Number) values.get(1)).intValue();
+        return UploadProgressDTO.builder()
+                .session(session)
+                .uploadedBitmap((byte[]) values.get(2))
+                .uploadedCount(((Number) values.get(0)).intValue())
+                .nextChunkIndex(nextChunkIndex < session.getChunkCount() ? nextChunkIndex : null)
+                .build();
+    }
+
+    /**
+     * 标记分片已上传并延长上传任务的有效期。
+     * 用户映射的key没有上传任务ID的哈希标签，集群模式下与任务hash不在同一个槽，不能放进同一个脚本，脚本成功后单独续期；
+     * 映射先过期只会让续传找不到任务，不会影响任务本身
+     *
+     * @return 已上传的分片数量，上传任务已过期时返回-1
+     */
+    @Override
+    public int markChunkUploaded(UploadSessionDTO session, int chunkIndex, Duration expire) {
+        String uploadId = session.getUploadId();
+        Long uploadedCount = stringRedisTemplate.execute(MARK_CHUNK_SCRIPT, List.of(sessionKey(uploadId), bitmapKey(uploadId)),
+                String.valueOf(chunkIndex), String.valueOf(expire.toMillis()));
+        if (uploadedCount == null || uploadedCount < 0) {
+            return -1;
+        }
+        stringRedisTemplate.expire(userKey(session.getUserId(), session.getFileSha256()), expire);
+        return uploadedCount.intValue();
+    }
+
+    /**
+     * 已上传的分片数量
+     */
+    @Override
+    public int countUploadedChunks(String uploadId) {
+        Long uploadedCount = stringRedisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.stringCommands().bitCount(bytes(bitmapKey(uploadId))));
+        return uploadedCount == null ? 0 : uploadedCount.intValue();
+    }
+
+    /**
+     * 保存增量摘要的进度
+     */
+    @Override
+    public void updateDigest(String uploadId, int hashedChunkCount, String hashState, Duration expire) {
+        stringRedisTemplate.execute(UPDATE_DIGEST_SCRIPT, List.of(sessionKey(uploadId)),
+                String.valueOf(hashedChunkCount), hashState, String.valueOf(expire.toMillis()));
+    }
+
+    /**
+     * 保存秒传的持有证明挑战，覆盖之前未作答的挑战，上传任务不存在时不保存
+     */
+    @Override
+    public void saveChallenge(String uploadId, InstantUploadChallengeDTO challenge) {
+        stringRedisTemplate.execute(SAVE_CHALLENGE_SCRIPT, List.of(sessionKey(uploadId)),
+                challenge.getNonce(), String.valueOf(challenge.getOffset()), String.valueOf(challenge.getLength()));
+    }
+
+    /**
+     * 取出并删除秒传的持有证明挑战，每个挑战只能作答一次，不存在时返回null
+     */
+    @Override
+    public InstantUploadChallengeDTO takeChallenge(String uploadId) {
+        List<Object> values = stringRedisTemplate.execute((RedisCallback<List<Object>>) connection -> connection.scriptingCommands()
+                .eval(TAKE_CHALLENGE_SCRIPT, ReturnType.MULTI, 1, bytes(sessionKey(uploadId))));
+        if (values == null || values.size() < 3 || values.contains(null)) {
+            return null;
+        }
+        return InstantUploadChallengeDTO.builder()
+                .nonce(string(values.get(0)))
+                .offset(Long.valueOf(string(values.get(1))))
+                .length(Integer.valueOf(string(values.get(2))))
+                .build();
+    }
+
+    /**
+     * 记录用户上传过的CDC块并延长有效期
+     */
+    @Override
+    public void markCdcChunkOwned(Long userId, String chunkSha256, Duration expire) {
+        String key = cdcOwnedKey(userId);
+        stringRedisTemplate.opsForSet().add(key, chunkSha256.toLowerCase());
+        stringRedisTemplate.expire(key, expire);
+    }
+
+    /**
+     * 返回用户没有上传过或已过期的CDC块，保持请求中的顺序并去重
+     */
+    @Override
+    public List<String> findUnownedCdcChunks(Long userId, Collection<String> chunkSha256s) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(chunkSha256s));
+        if (distinct.isEmpty()) {
+            return distinct;
+        }
+        Map<Object, Boolean> owned = stringRedisTemplate.opsForSet().isMember(cdcOwnedKey(userId),
+                distinct.stream().map(String::toLowerCase).toArray());
+        List<String> unowned = new ArrayList<>();
+        for (String chunkSha256 : distinct) {
+            if (owned == null || !Boolean.TRUE.equals(owned.get(chunkSha256.toLowerCase()))) {
+                unowned.add(chunkSha256);
+            }
+        }
+        return unowned;
+    }
+
+    /**
+     * 删除上传任务和分片进度
+     */
+    @Override
+    public void deleteSession(UploadSessionDTO session) {
+        stringRedisTemplate.delete(List.of(sessionKey(session.getUploadId()), bitmapKey(session.getUploadId())));
+        stringRedisTemplate.delete(userKey(session.getUserId(), session.getFileSha256()));
+    }
+
+    // ======================== 私有方法 ========================
+    private String sessionKey(String uploadId) {
+        return FileConstants.UPLOAD_SESSION_KEY_PREFIX + "{" + uploadId + "}";
+    }
+
+    private String bitmapKey(String uploadId) {
+        return FileConstants.UPLOAD_SESSION_BITMAP_KEY_PREFIX + "{" + uploadId + "}";
+    }
+
+    private String userKey(Long userId, String fileSha256) {
+        return FileConstants.UPLOAD_SESSION_USER_KEY_PREFIX + userId + ":" + fileSha256;
+    }
+
+    private String cdcOwnedKey(Long userId) {
+        return FileConstants.UPLOAD_CDC_OWNED_KEY_PREFIX + userId;
+    }
+
+    // 上传任务转为hash字段，空字段不保存
+    private Map<String, String> toHash(UploadSessionDTO session) {
+        Map<String, String> fields = new HashMap<>(32);
+        putIfNotNull(fields, "uploadId", session.getUploadId());
+        putIfNotNull(fields, "userId", session.getUserId());
+        putIfNotNull(fields, "folderId", session.getFolderId());
+        putIfNotNull(fields, "fileName", session.getFileName());
+        putIfNotNull(fields, "fileSize", session.getFileSize());
+        putIfNotNull(fields, "chunkSize", session.getChunkSize());
+        putIfNotNull(fields, "chunkCount", session.getChunkCount());
+        putIfNotNull(fields, "fileSha256", session.getFileSha256());
+        putIfNotNull(fields, "hashedChunkCount", session.getHashedChunkCount());
+        putIfNotNull(fields, "hashState", session.getHashState());
+        putIfNotNull(fields, "createTime", session.getCreateTime());
+        return fields;
+    }
+
+    private UploadSessionDTO fromHash(Map<String, String> fields) {
+        return UploadSessionDTO.builder()
+                .uploadId(fields.get("uploadId"))
+                .userId(parseLong(fields.get("userId")))
+                .folderId(parseLong(fields.get("folderId")))
+                .fileName(fields.get("fileName"))
+                .fileSize(parseLong(fields.get("fileSize")))
+                .chunkSize(parseLong(fields.get("chunkSize")))
+                .chunkCount(parseInt(fields.get("chunkCount")))
+                .fileSha256(fields.get("fileSha256"))
+                .hashedChunkCount(parseInt(fields.get("hashedChunkCount")))
+                .hashState(fields.get("hashState"))
+                .createTime(parseLong(fields.get("createTime")))
+                .build();
+    }
+
+    private static void putIfNotNull(Map<String, String> fields, String field, Object value) {
+        if (value != null) {
+            fields.put(field, String.valueOf(value));
+        }
+    }
+
+    private static Long parseLong(String value) {
+        return value == null ? null : Long.valueOf(value);
+    }
+
+    private static Integer parseInt(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(Object value) {
+        return new String((byte[]) value, StandardCharsets.UTF_8);
+    }
+}
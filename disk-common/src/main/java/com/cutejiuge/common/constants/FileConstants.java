@@ -0,0 +1,103 @@
+package com.cutejiuge.common.constants;
+
+/**
+ * 文件服务常量定义
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 上午9:12
+ */
+public class FileConstants {
+    // 缩略图生成失败标记，有效期内直接返回占位图，不再重复读取和解码原图
+    public static final String THUMBNAIL_FAILED_KEY_PREFIX = "thumbnail:failed:";
+    // 上传任务信息hash
+    public static final String UPLOAD_SESSION_KEY_PREFIX = "upload_session:meta:";
+    // 已上传分片位图，第i位为1表示第i个分片已上传
+    public static final String UPLOAD_SESSION_BITMAP_KEY_PREFIX = "upload_session:bitmap:";
+    public static final String UPLOAD_SESSION_USER_KEY_PREFIX = "upload_session:user:";
+    // 用户上传过的CDC块sha256集合，提交块清单时只能引用自己上传过的块
+    public static final String UPLOAD_CDC_OWNED_KEY_PREFIX = "upload_session:cdc_owned:";
+    public static final String FILE_BLOB_KEY_PREFIX = "file_blob:";
+    public static final String SHARE_INFO_KEY_PREFIX = "share:info:";
+    public static final String SHARE_VISITOR_KEY_PREFIX = "share:uv:";
+    // 提取码错误次数，按分享+IP计数
+    public static final String SHARE_EXTRACT_FAIL_KEY_PREFIX = "share:extract_fail:";
+    // 等待写回数据库的分享访问次数，hash字段为分享ID，值为增量
+    public static final String SHARE_PENDING_VIEWS_KEY = "share:views:pending";
+    // 完整性校验的进度，hash保存当前轮次扫描到的物理文件ID和统计
+    public static final String SCRUB_PROGRESS_KEY = "scrub:progress";
+    // 完整性校验发现的待修复物理文件，hash字段为物理文件ID
+    public static final String SCRUB_REPAIR_TASK_KEY = "scrub:repair_task";
+    // 存储路径迁移的进度，hash保存当前轮次迁移到的物理文件ID和统计
+    public static final String PATH_MIGRATION_PROGRESS_KEY = "path_migration:progress";
+    // 迁移后等待删除的旧路径，zset的score为可以删除的时间
+    public static final String PATH_MIGRATION_PENDING_DELETE_KEY = "path_migration:pending_delete";
+    // 用户文件名索引的版本号，每次变更加1
+    public static final String SEARCH_VERSION_KEY_PREFIX = "search:version:";
+    // 用户文件名索引最近的变更事件，list元素为 版本号+空格+事件json
+    public static final String SEARCH_EVENTS_KEY_PREFIX = "search:events:";
+    // 文件夹复制任务，hash保存任务的归属、状态和进度
+    public static final String COPY_JOB_KEY_PREFIX = "copy_job:";
+
+    // 本地存储下的分片临时目录
+    public static final String CHUNK_TEMP_DIR = "chunks";
+    // 分片文件后缀
+    public static final String CHUNK_FILE_SUFFIX = ".part";
+    // 写入中的临时文件后缀
+    public static final String WRITING_FILE_SUFFIX = ".tmp";
+    // 内容寻址的CDC块存储目录
+    public static final String CDC_CHUNK_DIR = "cdc-chunks";
+    // 按摘要前缀打散的用户文件存储目录
+    public static final String HASHED_FILE_DIR = "user-objects";
+    // CDC块清单文件后缀
+    public static final String CDC_MANIFEST_SUFFIX = ".cdcm";
+    // 分块压缩文件后缀
+    public static final String COMPRESSED_FILE_SUFFIX = ".edz";
+    // 增量同步签名目录，按物理文件的sha256和块大小存放
+    public static final String DELTA_SIGNATURE_DIR = "delta-signatures";
+
+    // 存储路径布局：按用户和年月分目录
+    public static final String STORAGE_PATH_LAYOUT_DATE = "date";
+    // 存储路径布局：按摘要前缀打散到两级各256个目录
+    public static final String STORAGE_PATH_LAYOUT_HASH = "hash";
+
+    // 存储方式：完整文件
+    public static final int STORAGE_TYPE_FILE = 1;
+    // 存储方式：CDC块清单
+    public static final int STORAGE_TYPE_CDC_MANIFEST = 2;
+    // 存储方式：分块压缩文件
+    public static final int STORAGE_TYPE_COMPRESSED = 3;
+
+    // 根目录ID，根目录不是文件夹表中的记录
+    public static final long ROOT_FOLDER_ID = 0L;
+    // 根目录的物化路径，文件夹路径为祖先文件夹ID依次以"/"连接，例如 /12/34/
+    public static final String ROOT_FOLDER_PATH = "/";
+    // 文件夹最大层级
+    public static final int MAX_FOLDER_DEPTH = 32;
+    // 批量移动、复制、删除单次的最大文件数
+    public static final int MAX_BATCH_FILE_COUNT = 2000;
+
+    // 回收站项目类型：文件
+    public static final int RECYCLE_ITEM_TYPE_FILE = 1;
+    // 回收站项目类型：文件夹，包含删除时的整棵子树
+    public static final int RECYCLE_ITEM_TYPE_FOLDER = 2;
+    // 回收站项目状态：可还原
+    public static final int RECYCLE_STATUS_RECYCLED = 1;
+    // 回收站项目状态：正在清理，不能再还原
+    public static final int RECYCLE_STATUS_PURGING = 2;
+
+    // 复制任务状态：进行中
+    public static final int COPY_JOB_STATUS_RUNNING = 1;
+    // 复制任务状态：已完成
+    public static final int COPY_JOB_STATUS_SUCCESS = 2;
+    // 复制任务状态：失败或中断，已复制的部分保留
+    public static final int COPY_JOB_STATUS_FAILED = 3;
+
+    // 分享项目类型：文件
+    public static final int SHARE_ITEM_TYPE_FILE = 1;
+    // 分享项目类型：文件夹
+    public static final int SHARE_ITEM_TYPE_FOLDER = 2;
+    // 分享状态：有效
+    public static final int SHARE_STATUS_ACTIVE = 1;
+    // 分享状态：已取消
+    public static final int SHARE_STATUS_CANCELLED = 2;
+}
@@ -3,9 +3,11 @@ package com.cutejiuge.common.exception;
 import com.cutejiuge.common.response.Result;
 import com.cutejiuge.common.response.ResultCode;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.BindException;
@@ -37,6 +39,17 @@ import static com.cutejiuge.common.interceptor.TraceIdInterceptor.getCurrentTrac
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    /**
+     * 处理限流异常，返回429并通过Retry-After告知客户端重试间隔
+     */
+    @ExceptionHandler(ThrottledException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public Result<Object> handleThrottledException(ThrottledException e, HttpServletRequest request, HttpServletResponse response) {
+        log.warn("请求被限流: {} - {}", request.getRequestURI(), e.getMessage());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        return Result.error(e.getCode(), e.getMessage()).traceId(getTraceId(request));
+    }
+
     /**
      * 处理业务异常
      */
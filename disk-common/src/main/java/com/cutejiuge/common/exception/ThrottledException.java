@@ -0,0 +1,35 @@
+package com.cutejiuge.common.exception;
+
+import com.cutejiuge.common.response.ResultCode;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.Serial;
+
+/**
+ * 请求被限流异常，携带建议的重试间隔，由全局异常处理转换为429和Retry-After响应头
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午9:10
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ThrottledException extends BusinessException {
+    @Serial
+    private static final long serialVersionUID = -4410263598723301986L;
+
+    /**
+     * 建议的重试间隔(秒)
+     */
+    private long retryAfterSeconds;
+
+    /**
+     * 构造方法，传入自定义消息和重试间隔
+     * @param message 自定义消息
+     * @param retryAfterSeconds 建议的重试间隔(秒)
+     */
+    public ThrottledException(String message, long retryAfterSeconds) {
+        super(ResultCode.RATE_LIMIT_EXCEEDED, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
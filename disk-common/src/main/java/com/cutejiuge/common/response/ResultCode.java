@@ -58,6 +58,15 @@ public enum ResultCode {
     FILE_RENAME_FAILED(30013, "文件重命名失败"),
     FILE_PREVIEW_FAILED(30014, "文件预览失败"),
     CHUNK_MERGE_FAILED(30015, "分片合并失败"),
+    FOLDER_NOT_FOUND(30016, "文件夹不存在"),
+    FOLDER_NAME_DUPLICATE(30017, "同一目录下已存在同名文件夹"),
+    RECYCLE_ITEM_NOT_FOUND(30018, "回收站中不存在该项目或已被清理"),
+    FILE_COPY_FAILED(30019, "文件复制失败"),
+    COPY_JOB_NOT_FOUND(30020, "复制任务不存在或已过期"),
+    FILE_VERSION_CONFLICT(30021, "文件已被修改，请重新获取签名"),
+    DELTA_VALIDATION_FAILED(30022, "增量数据校验失败"),
+    CHUNK_ALREADY_UPLOADED(30023, "分片已上传，不能重复上传"),
+    INSTANT_UPLOAD_PROOF_FAILED(30024, "秒传校验失败，请上传文件"),
 
     // ========== 分享服务错误码 (40000-49999) ==========
     SHARE_NOT_FOUND(40001, "分享不存在"),
@@ -68,6 +77,7 @@ public enum ResultCode {
     SHARE_CREATE_FAILED(40006, "分享创建失败"),
     FILE_SAVE_FAILED(40007, "文件转存失败"),
     CANNOT_SHARE_TO_SELF(40008, "不能分享自己的文件给自己"),
+    SHARE_EXTRACT_CODE_LOCKED(40009, "提取码错误次数过多，请稍后再试"),
 
     // ========== 通知服务错误码 (50000-59999) ==========
     EMAIL_SEND_FAILED(50001, "邮件发送失败"),
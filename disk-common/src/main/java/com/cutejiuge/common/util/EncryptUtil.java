@@ -1,5 +1,6 @@
 package com.cutejiuge.common.util;
 
+import cn.hutool.core.util.HexUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.crypto.digest.DigestUtil;
 import cn.hutool.crypto.symmetric.AES;
@@ -8,7 +9,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
 
@@ -29,6 +40,17 @@ public class EncryptUtil {
     @Value("${encrypt.password-salt:easy-disk-system-salt-2025}")
     private String passwordSalt;
 
+    // 流式摘要读缓冲大小 256KB
+    private static final int DIGEST_BUFFER_SIZE = 256 * 1024;
+    // 单次内存映射的最大长度 64MB
+    private static final long DIGEST_MAP_WINDOW_SIZE = 64L * 1024 * 1024;
+    // 每个线程复用的直接内存缓冲区，用于通道读取
+    private static final ThreadLocal<ByteBuffer> DIRECT_DIGEST_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(DIGEST_BUFFER_SIZE));
+    // 每个线程复用的堆缓冲区，用于InputStream读取
+    private static final ThreadLocal<byte[]> HEAP_DIGEST_BUFFER =
+            ThreadLocal.withInitial(() -> new byte[DIGEST_BUFFER_SIZE]);
+
     // AES加密器
     private AES aes;
     @PostConstruct
@@ -276,4 +298,161 @@ public class EncryptUtil {
         String actualSha256 = calculateFileSha256(fileBytes);
         return expectedSha256.equalsIgnoreCase(actualSha256);
     }
+
+    /**
+     * 流式计算输入流的sha256，输入流由调用方关闭
+     *
+     * @param inputStream 输入流
+     * @return sha256值
+     */
+    public static String calculateSha256(InputStream inputStream) throws IOException {
+        return digestHex("SHA-256", inputStream);
+    }
+
+    /**
+     * 流式计算输入流的MD5，输入流由调用方关闭
+     *
+     * @param inputStream 输入流
+     * @return MD5值
+     */
+    public static String calculateMd5(InputStream inputStream) throws IOException {
+        return digestHex("MD5", inputStream);
+    }
+
+    /**
+     * 流式计算通道的sha256，通道由调用方关闭
+     *
+     * @param channel 可读通道
+     * @return sha256值
+     */
+    public static String calculateSha256(ReadableByteChannel channel) throws IOException {
+        MessageDigest digest = getMessageDigest("SHA-256");
+        updateDigest(digest, channel);
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    /**
+     * 计算文件指定区域的sha256，按窗口内存映射读取
+     *
+     * @param channel 文件通道
+     * @param position 起始位置
+     * @param length 长度
+     * @return sha256值
+     */
+    public static String calculateSha256(FileChannel channel, long position, long length) throws IOException {
+        MessageDigest digest = getMessageDigest("SHA-256");
+        updateDigest(digest, channel, position, length);
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    /**
+     * 计算文件sha256，不会把文件整体读入内存
+     *
+     * @param file 文件路径
+     * @return 文件sha256值
+     */
+    public static String calculateFileSha256(Path file) throws IOException {
+        return digestFileHex("SHA-256", file);
+    }
+
+    /**
+     * 计算文件MD5，不会把文件整体读入内存
+     *
+     * @param file 文件路径
+     * @return 文件MD5值
+     */
+    public static String calculateFileMd5(Path file) throws IOException {
+        return digestFileHex("MD5", file);
+    }
+
+    /**
+     * 验证文件sha256
+     *
+     * @param file 文件路径
+     * @param expectedSha256 期望的sha256值
+     * @return 是否匹配
+     */
+    public static boolean verifyFileSha256(Path file, String expectedSha256) throws IOException {
+        if (file == null || StrUtil.isBlank(expectedSha256)) {
+            return false;
+        }
+        return expectedSha256.equalsIgnoreCase(calculateFileSha256(file));
+    }
+
+    /**
+     * 验证文件MD5
+     *
+     * @param file 文件路径
+     * @param expectedMd5 期望的MD5值
+     * @return 是否匹配
+     */
+    public static boolean verifyFileMd5(Path file, String expectedMd5) throws IOException {
+        if (file == null || StrUtil.isBlank(expectedMd5)) {
+            return false;
+        }
+        return expectedMd5.equalsIgnoreCase(calculateFileMd5(file));
+    }
+
+    /**
+     * 使用线程复用的直接内存缓冲区，把通道中的数据追加到摘要中
+     *
+     * @param digest 摘要
+     * @param channel 可读通道
+     */
+    public static void updateDigest(MessageDigest digest, ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = DIRECT_DIGEST_BUFFER.get();
+        buffer.clear();
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * 把文件指定区域的数据追加到摘要中，按窗口内存映射读取
+     *
+     * @param digest 摘要
+     * @param channel 文件通道
+     * @param position 起始位置
+     * @param length 长度
+     */
+    public static void updateDigest(MessageDigest digest, FileChannel channel, long position, long length) throws IOException {
+        long end = position + length;
+        while (position < end) {
+            long windowSize = Math.min(DIGEST_MAP_WINDOW_SIZE, end - position);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            digest.update(mapped);
+            position += windowSize;
+        }
+    }
+
+    // 计算输入流的摘要
+    private static String digestHex(String algorithm, InputStream inputStream) throws IOException {
+        MessageDigest digest = getMessageDigest(algorithm);
+        byte[] buffer = HEAP_DIGEST_BUFFER.get();
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    // 计算文件的摘要
+    private static String digestFileHex(String algorithm, Path file) throws IOException {
+        MessageDigest digest = getMessageDigest(algorithm);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            updateDigest(digest, channel, 0, channel.size());
+        }
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    // 获取摘要算法实例
+    private static MessageDigest getMessageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持的摘要算法: " + algorithm, e);
+        }
+    }
 }
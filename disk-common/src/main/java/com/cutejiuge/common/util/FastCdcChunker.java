@@ -0,0 +1,179 @@
+package com.cutejiuge.common.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * 基于内容的变长分块（FastCDC）
+ * <p>
+ * 固定大小分片在文件中间插入或删除几个字节后，之后所有分片的边界都会错位，整文件去重和分片去重都会失效。
+ * 这里用gear滚动哈希按内容决定切分点：指纹只取决于最近64个字节，修改只影响附近的一两个块，其余块的摘要不变。
+ * <p>
+ * 实现采用FastCDC的归一化分块：小于平均大小时使用更严格的掩码、超过后使用更宽松的掩码，块大小集中在平均值附近；
+ * 同时跳过最小块大小以内的字节不计算指纹。gear表由固定种子生成，不同节点、不同版本对同一内容的切分结果完全一致。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 上午9:20
+ */
+public class FastCdcChunker {
+    /**
+     * 默认最小块大小 16KB
+     */
+    public static final int DEFAULT_MIN_SIZE = 16 * 1024;
+
+    /**
+     * 默认平均块大小 64KB
+     */
+    public static final int DEFAULT_AVG_SIZE = 64 * 1024;
+
+    /**
+     * 默认最大块大小 256KB
+     */
+    public static final int DEFAULT_MAX_SIZE = 256 * 1024;
+
+    // gear表的生成种子，修改后已存储的块将无法与新上传的内容去重
+    private static final long GEAR_SEED = 0x6561737964697363L;
+    private static final long[] GEAR = new long[256];
+
+    static {
+        long state = GEAR_SEED;
+        for (int i = 0; i < GEAR.length; i++) {
+            // splitmix64
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    // 未达到平均大小时使用的严格掩码
+    private final long maskSmall;
+    // 超过平均大小后使用的宽松掩码
+    private final long maskLarge;
+
+    /**
+     * 使用默认的 16KB/64KB/256KB 分块参数
+     */
+    public FastCdcChunker() {
+        this(DEFAULT_MIN_SIZE, DEFAULT_AVG_SIZE, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param minSize 最小块大小
+     * @param avgSize 平均块大小，必须是2的幂
+     * @param maxSize 最大块大小
+     */
+    public FastCdcChunker(int minSize, int avgSize, int maxSize) {
+        if (Integer.bitCount(avgSize) != 1 || minSize <= 0 || minSize >= avgSize || maxSize <= avgSize) {
+            throw new IllegalArgumentException(String.format("分块参数不合法: min=%d, avg=%d, max=%d", minSize, avgSize, maxSize));
+        }
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+        int bits = Integer.numberOfTrailingZeros(avgSize);
+        // 掩码放在高位：gear指纹每次左移一位，高位才覆盖完整的64字节窗口
+        this.maskSmall = highBits(bits + 2);
+        this.maskLarge = highBits(bits - 2);
+    }
+
+    /**
+     * 块处理回调
+     */
+    @FunctionalInterface
+    public interface ChunkHandler {
+        /**
+         * 处理一个块
+         *
+         * @param offset 块在源数据中的偏移
+         * @param chunk 块数据，只在回调期间有效，position到limit为块内容
+         */
+        void onChunk(long offset, ByteBuffer chunk) throws IOException;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getAvgSize() {
+        return avgSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 从通道中流式读取数据并切分，内存占用固定为两个最大块大小
+     *
+     * @param source 数据源
+     * @param handler 块处理回调
+     * @return 数据总长度
+     */
+    public long split(ReadableByteChannel source, ChunkHandler handler) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(maxSize * 2);
+        long offset = 0;
+        boolean eof = false;
+        while (true) {
+            // 缓冲区不足一个最大块时继续读取
+            while (!eof && buffer.position() < maxSize) {
+                if (source.read(buffer) < 0) {
+                    eof = true;
+                }
+            }
+            buffer.flip();
+            if (!buffer.hasRemaining()) {
+                return offset;
+            }
+            while (buffer.remaining() >= maxSize || (eof && buffer.hasRemaining())) {
+                int start = buffer.position();
+                int length = cut(buffer, start, buffer.remaining());
+                ByteBuffer chunk = buffer.duplicate();
+                chunk.position(start).limit(start + length);
+                handler.onChunk(offset, chunk);
+                offset += length;
+                buffer.position(start + length);
+            }
+            buffer.compact();
+        }
+    }
+
+    /**
+     * 计算从指定位置开始的下一个块的长度
+     *
+     * @param data 数据
+     * @param start 起始位置（绝对位置）
+     * @param length 可用的数据长度
+     * @return 块长度
+     */
+    public int cut(ByteBuffer data, int start, int length) {
+        if (length <= minSize) {
+            return length;
+        }
+        int limit = Math.min(length, maxSize);
+        int normal = Math.min(limit, avgSize);
+        long fingerprint = 0;
+        int i = minSize;
+        for (; i < normal; i++) {
+            fingerprint = (fingerprint << 1) + GEAR[data.get(start + i) & 0xFF];
+            if ((fingerprint & maskSmall) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < limit; i++) {
+            fingerprint = (fingerprint << 1) + GEAR[data.get(start + i) & 0xFF];
+            if ((fingerprint & maskLarge) == 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    private static long highBits(int count) {
+        return count >= 64 ? -1L : ((1L << count) - 1) << (64 - count);
+    }
+}
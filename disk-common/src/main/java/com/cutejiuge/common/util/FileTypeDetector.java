@@ -0,0 +1,432 @@
+package com.cutejiuge.common.util;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于文件头魔数的文件类型识别
+ * <p>
+ * 只读取文件开头的 {@link #HEADER_SIZE} 字节，所有魔数编译成一棵前缀树，文件头沿树走一遍即可得到结果，
+ * 与文件大小无关。魔数中不固定的字节用通配符表示（如RIFF格式第4-7字节是长度，mp4的ftyp在第4字节之后），
+ * 同时命中多条时取确定字节最多的一条，例如 RIFF....WEBP 优先于 RIFF。
+ * <p>
+ * zip、OLE2等容器格式只能识别到容器本身，每条魔数登记了可以合法使用它的扩展名，
+ * docx声明为docx、文件头是zip时视为匹配。
+ * <p>
+ * 文本没有魔数，开头可能恰好是"BM"、"ID3"、"FLV"等短魔数，声明为文本类型的文件只要内容是文本就视为匹配。
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午3:30
+ */
+public final class FileTypeDetector {
+    /**
+     * 识别需要读取的文件头长度，tar的魔数在第257字节，这里留足余量
+     */
+    public static final int HEADER_SIZE = 4096;
+
+    // 通配符
+    private static final int ANY = -1;
+    // 判定为文本时允许的控制字符比例
+    private static final double TEXT_CONTROL_CHAR_RATIO = 0.05;
+
+    private static final String OCTET_STREAM = "application/octet-stream";
+
+    // 魔数前缀树的根节点
+    private static final Node ROOT = new Node();
+    // 扩展名到MIME类型的映射
+    private static final Map<String, String> MIME_TYPES = new HashMap<>();
+    // 没有魔数、只能按文本内容判断的类型
+    private static final Set<String> TEXT_TYPES = Set.of("txt", "csv", "svg");
+
+    static {
+        // 图片
+        register("jpg", "image/jpeg", bytes(0xFF, 0xD8, 0xFF), "jpg", "jpeg");
+        register("png", "image/png", bytes(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A), "png");
+        register("gif", "image/gif", ascii("GIF87a"), "gif");
+        register("gif", "image/gif", ascii("GIF89a"), "gif");
+        register("bmp", "image/bmp", ascii("BM"), "bmp");
+        register("webp", "image/webp", concat(ascii("RIFF"), any(4), ascii("WEBP")), "webp");
+        register("svg", "image/svg+xml", ascii("<svg"), "svg", "txt");
+        register("svg", "image/svg+xml", ascii("<?xml"), "svg", "txt");
+
+        // 文档
+        register("pdf", "application/pdf", ascii("%PDF-"), "pdf");
+        register("doc", "application/x-ole-storage",
+                bytes(0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1), "doc", "xls", "ppt");
+        register("rtf", "application/rtf", ascii("{\\rtf"), "rtf");
+
+        // 音频
+        register("mp3", "audio/mpeg", ascii("ID3"), "mp3");
+        register("mp3", "audio/mpeg", bytes(0xFF, 0xFB), "mp3");
+        register("mp3", "audio/mpeg", bytes(0xFF, 0xFA), "mp3");
+        register("mp3", "audio/mpeg", bytes(0xFF, 0xF3), "mp3");
+        register("mp3", "audio/mpeg", bytes(0xFF, 0xF2), "mp3");
+        register("aac", "audio/aac", bytes(0xFF, 0xF1), "aac");
+        register("aac", "audio/aac", bytes(0xFF, 0xF9), "aac");
+        register("aac", "audio/aac", ascii("ADIF"), "aac");
+        register("wav", "audio/wav", concat(ascii("RIFF"), any(4), ascii("WAVE")), "wav");
+        register("flac", "audio/flac", ascii("fLaC"), "flac");
+        register("ogg", "audio/ogg", ascii("OggS"), "ogg");
+        register("m4a", "audio/mp4", concat(any(4), ascii("ftypM4A ")), "m4a", "mp4");
+
+        // 视频
+        register("mp4", "video/mp4", concat(any(4), ascii("ftyp")), "mp4", "m4v", "m4a", "mov", "3gp");
+        register("m4v", "video/x-m4v", concat(any(4), ascii("ftypM4V ")), "m4v", "mp4");
+        register("mov", "video/quicktime", concat(any(4), ascii("ftypqt  ")), "mov", "mp4");
+        register("3gp", "video/3gpp", concat(any(4), ascii("ftyp3g")), "3gp", "mp4");
+        // QuickTime文件的第一个atom不一定是ftyp，旧的mov和部分录制软件生成的mp4以moov、mdat或占位atom开头
+        for (String atom : List.of("moov", "mdat", "wide", "free", "skip", "pnot")) {
+            register("mov", "video/quicktime", concat(any(4), ascii(atom)), "mov", "mp4", "m4v");
+        }
+        register("avi", "video/x-msvideo", concat(ascii("RIFF"), any(4), ascii("AVI ")), "avi");
+        register("mkv", "video/x-matroska", bytes(0x1A, 0x45, 0xDF, 0xA3), "mkv", "webm");
+        register("wmv", "video/x-ms-wmv",
+                bytes(0x30, 0x26, 0xB2, 0x75, 0x8E, 0x66, 0xCF, 0x11), "wmv", "wma");
+        register("flv", "video/x-flv", ascii("FLV"), "flv");
+
+        // 压缩文件，office open xml和open document都是zip容器
+        register("zip", "application/zip", bytes(0x50, 0x4B, 0x03, 0x04),
+                "zip", "docx", "xlsx", "pptx", "odt", "ods", "odp");
+        register("zip", "application/zip", bytes(0x50, 0x4B, 0x05, 0x06),
+                "zip", "docx", "xlsx", "pptx", "odt", "ods", "odp");
+        register("rar", "application/vnd.rar", concat(ascii("Rar!"), bytes(0x1A, 0x07)), "rar");
+        register("7z", "application/x-7z-compressed", bytes(0x37, 0x7A, 0xBC, 0xAF, 0x27, 0x1C), "7z");
+        register("gz", "application/gzip", bytes(0x1F, 0x8B), "gz");
+        register("bz2", "application/x-bzip2", ascii("BZh"), "bz2");
+        register("xz", "application/x-xz", bytes(0xFD, '7', 'z', 'X', 'Z', 0x00), "xz");
+        register("tar", "application/x-tar", concat(any(257), ascii("ustar")), "tar");
+
+        // 只有扩展名、识别时借用容器魔数的类型
+        MIME_TYPES.put("jpeg", "image/jpeg");
+        MIME_TYPES.put("doc", "application/msword");
+        MIME_TYPES.put("xls", "application/vnd.ms-excel");
+        MIME_TYPES.put("ppt", "application/vnd.ms-powerpoint");
+        MIME_TYPES.put("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+        MIME_TYPES.put("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        MIME_TYPES.put("pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation");
+        MIME_TYPES.put("odt", "application/vnd.oasis.opendocument.text");
+        MIME_TYPES.put("ods", "application/vnd.oasis.opendocument.spreadsheet");
+        MIME_TYPES.put("odp", "application/vnd.oasis.opendocument.presentation");
+        MIME_TYPES.put("wma", "audio/x-ms-wma");
+        MIME_TYPES.put("webm", "video/webm");
+        MIME_TYPES.put("txt", "text/plain");
+        MIME_TYPES.put("csv", "text/csv");
+    }
+
+    private FileTypeDetector() {
+    }
+
+    /**
+     * 识别结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class FileType {
+        /**
+         * 识别出的扩展名
+         */
+        private final String extension;
+
+        /**
+         * MIME类型
+         */
+        private final String mimeType;
+
+        /**
+         * 文件类型分类，与FileUtil.getFileCategory一致
+         */
+        private final String category;
+
+        /**
+         * 可以合法使用该文件头的扩展名
+         */
+        private final Set<String> compatibleExtensions;
+
+        /**
+         * 判断声明的扩展名是否与文件内容相符
+         */
+        public boolean isCompatibleWith(String extension) {
+            return compatibleExtensions.contains(StrUtil.nullToEmpty(extension).toLowerCase());
+        }
+    }
+
+    /**
+     * 识别本地文件的类型，只读取文件头
+     *
+     * @param file 文件路径
+     * @return 识别结果，无法识别时返回null
+     */
+    public static FileType detect(Path file) throws IOException {
+        byte[] header = readHeader(file);
+        return detect(header, header.length);
+    }
+
+    /**
+     * 从通道当前位置读取文件头并识别，会消费通道中的数据
+     *
+     * @param channel 通道
+     * @return 识别结果，无法识别时返回null
+     */
+    public static FileType detect(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header) > 0) {
+            // 读满文件头为止
+        }
+        return detect(header.array(), header.position());
+    }
+
+    /**
+     * 从输入流读取文件头并识别，会消费输入流中的数据
+     *
+     * @param inputStream 输入流
+     * @return 识别结果，无法识别时返回null
+     */
+    public static FileType detect(InputStream inputStream) throws IOException {
+        byte[] header = inputStream.readNBytes(HEADER_SIZE);
+        return detect(header, header.length);
+    }
+
+    /**
+     * 识别文件头
+     *
+     * @param header 文件头
+     * @param length 有效长度
+     * @return 识别结果，无法识别时返回null
+     */
+    public static FileType detect(byte[] header, int length) {
+        Signature signature = match(header, Math.min(length, header.length));
+        if (signature != null) {
+            return signature.fileType;
+        }
+        if (length > 0 && isText(header, Math.min(length, header.length))) {
+            return new FileType("txt", "text/plain", "document", TEXT_TYPES);
+        }
+        return null;
+    }
+
+    /**
+     * 判断文件头是否与声明的文件名相符，结果的MIME类型和分类以声明的扩展名为准
+     *
+     * @param header 文件头
+     * @param length 有效长度
+     * @param fileName 声明的文件名
+     * @return 相符时返回按声明扩展名修正后的识别结果，不相符时返回null
+     */
+    public static FileType resolve(byte[] header, int length, String fileName) {
+        int validLength = Math.min(length, header.length);
+        FileType resolved = resolve(detect(header, validLength), fileName);
+        String extension = FileUtil.getExtension(fileName);
+        if (resolved == null && TEXT_TYPES.contains(extension) && validLength > 0 && isText(header, validLength)) {
+            return new FileType(extension, getMimeType(extension), FileUtil.getFileCategory(fileName), TEXT_TYPES);
+        }
+        return resolved;
+    }
+
+    /**
+     * 读取本地文件的文件头，判断是否与声明的文件名相符
+     *
+     * @param file 文件路径
+     * @param fileName 声明的文件名
+     * @return 相符时返回按声明扩展名修正后的识别结果，不相符时返回null
+     */
+    public static FileType resolve(Path file, String fileName) throws IOException {
+        byte[] header = readHeader(file);
+        return resolve(header, header.length, fileName);
+    }
+
+    /**
+     * 从输入流读取文件头，判断是否与声明的文件名相符，会消费输入流中的数据
+     *
+     * @param inputStream 输入流
+     * @param fileName 声明的文件名
+     * @return 相符时返回按声明扩展名修正后的识别结果，不相符时返回null
+     */
+    public static FileType resolve(InputStream inputStream, String fileName) throws IOException {
+        byte[] header = inputStream.readNBytes(HEADER_SIZE);
+        return resolve(header, header.length, fileName);
+    }
+
+    /**
+     * 判断识别结果是否与声明的文件名相符，结果的MIME类型和分类以声明的扩展名为准
+     *
+     * @param detected 识别结果
+     * @param fileName 声明的文件名
+     * @return 相符时返回按声明扩展名修正后的识别结果，不相符时返回null
+     */
+    public static FileType resolve(FileType detected, String fileName) {
+        String extension = FileUtil.getExtension(fileName);
+        if (detected == null || !detected.isCompatibleWith(extension)) {
+            return null;
+        }
+        return new FileType(extension, getMimeType(extension), FileUtil.getFileCategory(fileName),
+                detected.getCompatibleExtensions());
+    }
+
+    /**
+     * 根据扩展名获取MIME类型
+     *
+     * @param extension 扩展名（不包含点）
+     * @return MIME类型，未知扩展名返回application/octet-stream
+     */
+    public static String getMimeType(String extension) {
+        return MIME_TYPES.getOrDefault(StrUtil.nullToEmpty(extension).toLowerCase(), OCTET_STREAM);
+    }
+
+    // ======================== 私有方法 ========================
+    // 读取本地文件的文件头，文件不足HEADER_SIZE时返回整个文件
+    private static byte[] readHeader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate((int) Math.min(HEADER_SIZE, channel.size()));
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // 读满文件头为止
+            }
+            return Arrays.copyOf(header.array(), header.position());
+        }
+    }
+
+    // 沿前缀树匹配文件头，返回确定字节最多的魔数
+    private static Signature match(byte[] header, int length) {
+        Signature best = null;
+        List<Node> current = new ArrayList<>();
+        List<Node> next = new ArrayList<>();
+        current.add(ROOT);
+        for (int i = 0; i < length && !current.isEmpty(); i++) {
+            int value = header[i] & 0xFF;
+            next.clear();
+            for (Node node : current) {
+                if (node.children != null && node.children[value] != null) {
+                    next.add(node.children[value]);
+                }
+                if (node.wildcard != null) {
+                    next.add(node.wildcard);
+                }
+            }
+            for (Node node : next) {
+                if (node.signature != null && (best == null || node.signature.literalCount > best.literalCount)) {
+                    best = node.signature;
+                }
+            }
+            List<Node> swap = current;
+            current = next;
+            next = swap;
+        }
+        return best;
+    }
+
+    // 文件头中没有NUL且控制字符很少时视为文本，兼容UTF-8和GBK等编码
+    private static boolean isText(byte[] header, int length) {
+        int controlChars = 0;
+        for (int i = 0; i < length; i++) {
+            int value = header[i] & 0xFF;
+            if (value == 0) {
+                return false;
+            }
+            if (value < 0x20 && value != '\n' && value != '\r' && value != '\t' && value != 0x0C && value != 0x1B) {
+                controlChars++;
+            }
+        }
+        return controlChars <= length * TEXT_CONTROL_CHAR_RATIO;
+    }
+
+    // 把魔数登记到前缀树
+    private static void register(String extension, String mimeType, int[] pattern, String... compatibleExtensions) {
+        Set<String> extensions = Collections.unmodifiableSet(new LinkedHashSet<>(List.of(compatibleExtensions)));
+        String category = FileUtil.getFileCategory("detect." + extension);
+        Signature signature = new Signature(new FileType(extension, mimeType, category, extensions), pattern);
+        Node node = ROOT;
+        for (int value : pattern) {
+            if (value == ANY) {
+                if (node.wildcard == null) {
+                    node.wildcard = new Node();
+                }
+                node = node.wildcard;
+            } else {
+                if (node.children == null) {
+                    node.children = new Node[256];
+                }
+                if (node.children[value] == null) {
+                    node.children[value] = new Node();
+                }
+                node = node.children[value];
+            }
+        }
+        node.signature = signature;
+        MIME_TYPES.putIfAbsent(extension, mimeType);
+    }
+
+    private static int[] bytes(int... values) {
+        return values;
+    }
+
+    private static int[] ascii(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        int[] pattern = new int[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            pattern[i] = bytes[i] & 0xFF;
+        }
+        return pattern;
+    }
+
+    private static int[] any(int count) {
+        int[] pattern = new int[count];
+        Arrays.fill(pattern, ANY);
+        return pattern;
+    }
+
+    private static int[] concat(int[]... parts) {
+        int total = 0;
+        for (int[] part : parts) {
+            total += part.length;
+        }
+        int[] pattern = new int[total];
+        int offset = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, pattern, offset, part.length);
+            offset += part.length;
+        }
+        return pattern;
+    }
+
+    // 前缀树节点
+    private static final class Node {
+        private Node[] children;
+        private Node wildcard;
+        private Signature signature;
+    }
+
+    // 魔数
+    private static final class Signature {
+        private final FileType fileType;
+        // 确定字节数，用于多条命中时取最具体的一条
+        private final int literalCount;
+
+        private Signature(FileType fileType, int[] pattern) {
+            this.fileType = fileType;
+            int count = 0;
+            for (int value : pattern) {
+                if (value != ANY) {
+                    count++;
+                }
+            }
+            this.literalCount = count;
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package com.cutejiuge.common.util;
 
-import cn.hutool.core.io.FileTypeUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.cutejiuge.common.constants.FileConstants;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ByteArrayInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * 文件工具类
@@ -57,6 +65,11 @@ public class FileUtil {
             "zip", "rar", "7z", "tar", "gz", "bz2", "xz"
     ));
 
+    /**
+     * 按用户和年月分目录的存储路径，分组为用户ID和文件名
+     */
+    private static final Pattern DATE_LAYOUT_PATH_PATTERN = Pattern.compile("^user-files/(\\d+)/\\d{4}/\\d{2}/([^/]+)$");
+
     /**
      * 所有允许的文件类型
      */
@@ -106,49 +119,7 @@ public class FileUtil {
         if (StrUtil.isBlank(fileName)) {
             return "application/octet-stream";
         }
-
-        String extension = getExtension(fileName);
-        return switch (extension) {
-            // 图片类型
-            case "jpg", "jpeg" -> "image/jpeg";
-            case "png" -> "image/png";
-            case "gif" -> "image/gif";
-            case "bmp" -> "image/bmp";
-            case "webp" -> "image/webp";
-            case "svg" -> "image/svg+xml";
-
-            // 文档类型
-            case "pdf" -> "application/pdf";
-            case "doc" -> "application/msword";
-            case "docx" -> "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
-            case "xls" -> "application/vnd.ms-excel";
-            case "xlsx" -> "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-            case "ppt" -> "application/vnd.ms-powerpoint";
-            case "pptx" -> "application/vnd.openxmlformats-officedocument.presentationml.presentation";
-            case "txt" -> "text/plain";
-
-            // 音频类型
-            case "mp3" -> "audio/mpeg";
-            case "wav" -> "audio/wav";
-            case "flac" -> "audio/flac";
-            case "aac" -> "audio/aac";
-            case "ogg" -> "audio/ogg";
-
-            // 视频类型
-            case "mp4" -> "video/mp4";
-            case "avi" -> "video/x-msvideo";
-            case "mkv" -> "video/x-matroska";
-            case "mov" -> "video/quicktime";
-            case "wmv" -> "video/x-ms-wmv";
-
-            // 压缩文件类型
-            case "zip" -> "application/zip";
-            case "rar" -> "application/vnd.rar";
-            case "7z" -> "application/x-7z-compressed";
-            case "tar" -> "application/x-tar";
-            case "gz" -> "application/gzip";
-            default -> "application/octet-stream";
-        };
+        return FileTypeDetector.getMimeType(getExtension(fileName));
     }
 
     /**
@@ -311,14 +282,14 @@ public class FileUtil {
     }
 
     /**
-     * 生成唯一文件名
+     * 生成唯一文件名，文件名主体为雪花ID
      *
      * @param originalFileName 原始文件名
      * @return 唯一文件名
      */
     public static String generateUniqueFileName(String originalFileName) {
         String extension = getExtension(originalFileName);
-        String uniqueId = System.currentTimeMillis() + "_" + (int) (Math.random() * 10000);
+        String uniqueId = IdWorker.getIdStr();
         return StrUtil.isBlank(extension) ? uniqueId : uniqueId + "." + extension;
     }
 
@@ -369,9 +340,9 @@ public class FileUtil {
     }
 
     /**
-     * 检测文件真实类型
+     * 检测文件真实类型，只使用文件头的前几KB
      *
-     * @param fileBytes 文件字节数组
+     * @param fileBytes 文件字节数组（可以只包含文件头）
      * @param fileName 文件名
      * @return 是否匹配
      */
@@ -379,22 +350,58 @@ public class FileUtil {
         if (fileBytes == null || fileBytes.length == 0 || StrUtil.isBlank(fileName)) {
             return false;
         }
-        try (InputStream inputStream = new ByteArrayInputStream(fileBytes)) {
-            String detectedType = FileTypeUtil.getType(inputStream);
-            String expectedType = getExtension(fileName);
+        return FileTypeDetector.resolve(fileBytes, fileBytes.length, fileName) != null;
+    }
 
-            // 特殊处理一些类型
-            if ("jpg".equals(expectedType) && "jpeg".equals(detectedType)) {
-                return true;
-            }
+    /**
+     * 检测本地文件真实类型，只读取文件头，与文件大小无关
+     *
+     * @param file 文件路径
+     * @param fileName 声明的文件名
+     * @return 是否匹配
+     */
+    public static boolean isFileTypeMatched(Path file, String fileName) {
+        return detectFileType(file, fileName) != null;
+    }
 
-            return expectedType.equals(detectedType);
+    /**
+     * 从输入流读取文件头检测真实类型，会消费输入流中的数据
+     *
+     * @param inputStream 输入流，调用方负责关闭
+     * @param fileName 声明的文件名
+     * @return 是否匹配
+     */
+    public static boolean isFileTypeMatched(InputStream inputStream, String fileName) {
+        if (inputStream == null || StrUtil.isBlank(fileName)) {
+            return false;
+        }
+        try {
+            return FileTypeDetector.resolve(inputStream, fileName) != null;
         } catch (IOException e) {
             log.warn("检测文件类型失败: {}", e.getMessage());
             return false;
         }
     }
 
+    /**
+     * 检测本地文件真实类型，返回按声明文件名修正后的MIME类型和分类
+     *
+     * @param file 文件路径
+     * @param fileName 声明的文件名
+     * @return 文件内容与文件名相符时返回识别结果，否则返回null
+     */
+    public static FileTypeDetector.FileType detectFileType(Path file, String fileName) {
+        if (file == null || StrUtil.isBlank(fileName)) {
+            return null;
+        }
+        try {
+            return FileTypeDetector.resolve(file, fileName);
+        } catch (IOException e) {
+            log.warn("检测文件类型失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 生成文件存储路径
      *
@@ -410,6 +417,51 @@ public class FileUtil {
         return String.format("user-files/%d/%s/%s/%s", userId, year, month, uniqueFileName);
     }
 
+    /**
+     * 按指定的目录布局生成文件存储路径
+     *
+     * @param userId 用户ID
+     * @param fileName 文件名
+     * @param layout 目录布局，date按用户和年月分目录，hash按摘要前缀打散到两级各256个目录
+     * @return 文件存储路径
+     */
+    public static String generateFilePath(Long userId, String fileName, String layout) {
+        if (FileConstants.STORAGE_PATH_LAYOUT_HASH.equals(layout)) {
+            return generateHashedFilePath(userId, generateUniqueFileName(fileName));
+        }
+        return generateFilePath(userId, fileName);
+    }
+
+    /**
+     * 生成按摘要前缀打散的文件存储路径，文件名前加用户ID，不同用户的同名文件不会冲突
+     *
+     * @param userId 用户ID
+     * @param uniqueFileName 唯一文件名
+     * @return 文件存储路径，如 user-objects/3f/a2/1001_1979403538843844608.mp4
+     */
+    public static String generateHashedFilePath(Long userId, String uniqueFileName) {
+        String objectName = userId + "_" + uniqueFileName;
+        String digest = DigestUtil.md5Hex(objectName);
+        return String.format("%s/%s/%s/%s", FileConstants.HASHED_FILE_DIR, digest.substring(0, 2), digest.substring(2, 4), objectName);
+    }
+
+    /**
+     * 把按用户和年月分目录的存储路径转为按摘要前缀打散的路径，迁移已有文件时使用，文件名和后缀保持不变
+     *
+     * @param filePath 原存储路径
+     * @return 新存储路径，原路径不是按年月分目录的格式时返回null
+     */
+    public static String toHashedFilePath(String filePath) {
+        if (StrUtil.isBlank(filePath)) {
+            return null;
+        }
+        Matcher matcher = DATE_LAYOUT_PATH_PATTERN.matcher(filePath);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return generateHashedFilePath(Long.valueOf(matcher.group(1)), matcher.group(2));
+    }
+
     /**
      * 计算分片数量
      *
@@ -425,13 +477,50 @@ public class FileUtil {
     }
 
     /**
-     * 生成缩略图路径
+     * 按内容切分文件（FastCDC），与固定大小分片不同，插入或删除少量字节只影响附近的块
      *
-     * @param fileId 文件ID
-     * @param size 缩略图尺寸
+     * @param file 文件
+     * @param chunker 分块器
+     * @return 每个块的长度
+     */
+    public static List<Integer> calculateContentDefinedChunks(Path file, FastCdcChunker chunker) throws IOException {
+        List<Integer> chunkSizes = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            chunker.split(channel, (offset, chunk) -> chunkSizes.add(chunk.remaining()));
+        }
+        return chunkSizes;
+    }
+
+    /**
+     * 生成内容寻址的块存储路径，按摘要前两级目录打散
+     *
+     * @param chunkSha256 块的sha256
+     * @return 块存储路径
+     */
+    public static String generateCdcChunkPath(String chunkSha256) {
+        return String.format("%s/%s/%s/%s", FileConstants.CDC_CHUNK_DIR,
+                chunkSha256.substring(0, 2), chunkSha256.substring(2, 4), chunkSha256);
+    }
+
+    /**
+     * 生成缩略图路径，按物理文件的sha256存放，秒传和重复上传的文件共用同一份缩略图
+     *
+     * @param fileSha256 文件sha256
+     * @param size 缩略图最长边的像素数
      * @return 缩略图路径
      */
-    public static String generateThumbnailPath(Long fileId, String size) {
-        return String.format("thumbnails/%d/%s.jpg", fileId, size);
+    public static String generateThumbnailPath(String fileSha256, int size) {
+        return String.format("thumbnails/%s/%s/%d.jpg", fileSha256.substring(0, 2), fileSha256, size);
+    }
+
+    /**
+     * 生成增量同步签名路径，物理文件内容不变，同一个sha256和块大小的签名只需要生成一次
+     *
+     * @param fileSha256 文件sha256
+     * @param blockSize 块大小
+     * @return 签名路径
+     */
+    public static String generateDeltaSignaturePath(String fileSha256, int blockSize) {
+        return String.format("%s/%s/%s/%d.sig", FileConstants.DELTA_SIGNATURE_DIR, fileSha256.substring(0, 2), fileSha256, blockSize);
     }
 }
@@ -0,0 +1,311 @@
+package com.cutejiuge.common.util;
+
+import cn.hutool.core.util.HexUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Base64;
+
+/**
+ * 可保存/恢复中间状态的增量sha256计算器
+ * <p>
+ * JDK的MessageDigest无法导出中间状态，分片上传时每个分片到达后需要把摘要状态保存到上传任务中，
+ * 下一个分片（可能在另一个节点、另一个请求中）再从保存的状态继续计算，因此这里实现了标准的sha256，
+ * 中间状态只有8个int、已处理字节数以及不足一个块的缓冲数据，序列化后不超过150个字符。
+ * <p>
+ * 非线程安全，同一个实例不要并发调用。
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 上午11:02
+ */
+public class IncrementalSha256 {
+    // 块大小
+    private static final int BLOCK_SIZE = 64;
+    // 状态序列化格式版本
+    private static final byte STATE_VERSION = 1;
+    // 单次内存映射的最大长度 64MB
+    private static final long MAP_WINDOW_SIZE = 64L * 1024 * 1024;
+    // 读取输入流时的缓冲区大小
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private static final int[] INITIAL_HASH = {
+            0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+    };
+
+    private static final int[] K = {
+            0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+            0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+            0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+            0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+            0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+            0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+            0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+            0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+    };
+
+    // 当前哈希值
+    private final int[] hash = new int[8];
+    // 消息调度数组，复用避免每个块分配
+    private final int[] words = new int[64];
+    // 不足一个块的缓冲数据
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    // 已处理的字节数
+    private long processedBytes;
+
+    public IncrementalSha256() {
+        System.arraycopy(INITIAL_HASH, 0, hash, 0, hash.length);
+    }
+
+    /**
+     * 从导出的状态恢复计算器
+     *
+     * @param state exportState导出的状态
+     * @return 计算器
+     */
+    public static IncrementalSha256 restore(String state) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(state);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("sha256状态格式不正确", e);
+        }
+        if (bytes.length < 41 || bytes[0] != STATE_VERSION) {
+            throw new IllegalArgumentException("sha256状态格式不正确");
+        }
+        ByteBuffer input = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        IncrementalSha256 hasher = new IncrementalSha256();
+        for (int i = 0; i < hasher.hash.length; i++) {
+            hasher.hash[i] = input.getInt();
+        }
+        hasher.processedBytes = input.getLong();
+        int buffered = (int) (hasher.processedBytes & (BLOCK_SIZE - 1));
+        if (hasher.processedBytes < 0 || input.remaining() != buffered) {
+            throw new IllegalArgumentException("sha256状态格式不正确");
+        }
+        input.get(hasher.buffer, 0, buffered);
+        return hasher;
+    }
+
+    /**
+     * 导出当前的中间状态
+     *
+     * @return base64编码的状态
+     */
+    public String exportState() {
+        int buffered = (int) (processedBytes & (BLOCK_SIZE - 1));
+        ByteBuffer output = ByteBuffer.allocate(1 + hash.length * 4 + 8 + buffered);
+        output.put(STATE_VERSION);
+        for (int value : hash) {
+            output.putInt(value);
+        }
+        output.putLong(processedBytes);
+        output.put(buffer, 0, buffered);
+        return Base64.getEncoder().encodeToString(output.array());
+    }
+
+    /**
+     * 已处理的字节数
+     */
+    public long getProcessedBytes() {
+        return processedBytes;
+    }
+
+    /**
+     * 追加字节数组
+     */
+    public IncrementalSha256 update(byte[] input, int offset, int length) {
+        int buffered = (int) (processedBytes & (BLOCK_SIZE - 1));
+        processedBytes += length;
+        if (buffered > 0) {
+            int fill = Math.min(BLOCK_SIZE - buffered, length);
+            System.arraycopy(input, offset, buffer, buffered, fill);
+            offset += fill;
+            length -= fill;
+            if (buffered + fill < BLOCK_SIZE) {
+                return this;
+            }
+            compress(hash, buffer, 0);
+        }
+        while (length >= BLOCK_SIZE) {
+            compress(hash, input, offset);
+            offset += BLOCK_SIZE;
+            length -= BLOCK_SIZE;
+        }
+        if (length > 0) {
+            System.arraycopy(input, offset, buffer, 0, length);
+        }
+        return this;
+    }
+
+    /**
+     * 追加字节数组
+     */
+    public IncrementalSha256 update(byte[] input) {
+        return update(input, 0, input.length);
+    }
+
+    /**
+     * 追加ByteBuffer中剩余的数据，直接内存和内存映射的缓冲区按块读取，不拷贝到堆
+     */
+    public IncrementalSha256 update(ByteBuffer input) {
+        if (input.hasArray()) {
+            int length = input.remaining();
+            update(input.array(), input.arrayOffset() + input.position(), length);
+            input.position(input.position() + length);
+            return this;
+        }
+        ByteBuffer source = input.duplicate().order(ByteOrder.BIG_ENDIAN);
+        int length = source.remaining();
+        int buffered = (int) (processedBytes & (BLOCK_SIZE - 1));
+        processedBytes += length;
+        if (buffered > 0) {
+            int fill = Math.min(BLOCK_SIZE - buffered, length);
+            source.get(buffer, buffered, fill);
+            length -= fill;
+            if (buffered + fill < BLOCK_SIZE) {
+                input.position(source.position());
+                return this;
+            }
+            compress(hash, buffer, 0);
+        }
+        while (length >= BLOCK_SIZE) {
+            int position = source.position();
+            for (int i = 0; i < 16; i++) {
+                words[i] = source.getInt(position + (i << 2));
+            }
+            compressWords(hash);
+            source.position(position + BLOCK_SIZE);
+            length -= BLOCK_SIZE;
+        }
+        if (length > 0) {
+            source.get(buffer, 0, length);
+        }
+        input.position(source.position());
+        return this;
+    }
+
+    /**
+     * 追加文件指定区域的数据，按窗口做内存映射后计算
+     *
+     * @param channel 文件通道
+     * @param position 起始位置
+     * @param length 长度
+     */
+    public IncrementalSha256 update(FileChannel channel, long position, long length) throws IOException {
+        long end = position + length;
+        while (position < end) {
+            long windowSize = Math.min(MAP_WINDOW_SIZE, end - position);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            update(mapped);
+            position += windowSize;
+        }
+        return this;
+    }
+
+    /**
+     * 追加输入流中剩余的全部数据，用于无法做内存映射的数据源（如对象存储）
+     *
+     * @param input 输入流，调用方负责关闭
+     * @return 追加的字节数
+     */
+    public long update(InputStream input) throws IOException {
+        byte[] chunk = new byte[STREAM_BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = input.read(chunk)) >= 0) {
+            update(chunk, 0, read);
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 计算最终摘要，不会改变当前状态，之后仍可以继续追加数据
+     *
+     * @return 32字节摘要
+     */
+    public byte[] digest() {
+        int[] finalHash = hash.clone();
+        int buffered = (int) (processedBytes & (BLOCK_SIZE - 1));
+        byte[] tail = new byte[buffered < 56 ? BLOCK_SIZE : BLOCK_SIZE * 2];
+        System.arraycopy(buffer, 0, tail, 0, buffered);
+        tail[buffered] = (byte) 0x80;
+        long bitLength = processedBytes << 3;
+        for (int i = 0; i < 8; i++) {
+            tail[tail.length - 1 - i] = (byte) (bitLength >>> (i << 3));
+        }
+        for (int offset = 0; offset < tail.length; offset += BLOCK_SIZE) {
+            compress(finalHash, tail, offset);
+        }
+        ByteBuffer output = ByteBuffer.allocate(32);
+        for (int value : finalHash) {
+            output.putInt(value);
+        }
+        return output.array();
+    }
+
+    /**
+     * 计算最终摘要的十六进制小写字符串
+     */
+    public String digestHex() {
+        return HexUtil.encodeHexStr(digest());
+    }
+
+    // 压缩一个块
+    private void compress(int[] state, byte[] block, int offset) {
+        for (int i = 0; i < 16; i++) {
+            int index = offset + (i << 2);
+            words[i] = (block[index] << 24) | ((block[index + 1] & 0xff) << 16)
+                    | ((block[index + 2] & 0xff) << 8) | (block[index + 3] & 0xff);
+        }
+        compressWords(state);
+    }
+
+    // 使用words中前16个字压缩一个块
+    private void compressWords(int[] state) {
+        int[] w = words;
+        for (int i = 16; i < 64; i++) {
+            int w15 = w[i - 15];
+            int w2 = w[i - 2];
+            int s0 = Integer.rotateRight(w15, 7) ^ Integer.rotateRight(w15, 18) ^ (w15 >>> 3);
+            int s1 = Integer.rotateRight(w2, 17) ^ Integer.rotateRight(w2, 19) ^ (w2 >>> 10);
+            w[i] = w[i - 16] + s0 + w[i - 7] + s1;
+        }
+        int a = state[0];
+        int b = state[1];
+        int c = state[2];
+        int d = state[3];
+        int e = state[4];
+        int f = state[5];
+        int g = state[6];
+        int h = state[7];
+        for (int i = 0; i < 64; i++) {
+            int s1 = Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25);
+            int ch = (e & f) ^ (~e & g);
+            int temp1 = h + s1 + ch + K[i] + w[i];
+            int s0 = Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22);
+            int maj = (a & b) ^ (a & c) ^ (b & c);
+            int temp2 = s0 + maj;
+            h = g;
+            g = f;
+            f = e;
+            e = d + temp1;
+            d = c;
+            c = b;
+            b = a;
+            a = temp1 + temp2;
+        }
+        state[0] += a;
+        state[1] += b;
+        state[2] += c;
+        state[3] += d;
+        state[4] += e;
+        state[5] += f;
+        state[6] += g;
+        state[7] += h;
+    }
+}
@@ -2,10 +2,15 @@ package com.cutejiuge.common.util;
 
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RFuture;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
@@ -27,6 +32,9 @@ public class RedisLockUtil {
     private static final long DEFAULT_WAIT_TIME = 10L;
     // 默认锁持有时间 单位s
     private static final long DEFAULT_LEASE_TIME = 30L;
+    // 批量加锁失败后重试的随机间隔 单位ms
+    private static final long MULTI_LOCK_RETRY_MIN_MS = 20L;
+    private static final long MULTI_LOCK_RETRY_MAX_MS = 100L;
 
     /**
      * 执行加锁的操作，无返回值
@@ -113,6 +121,85 @@ public class RedisLockUtil {
         return executeWithLock(lockKey, DEFAULT_WAIT_TIME, DEFAULT_LEASE_TIME, supplier);
     }
 
+    /**
+     * 执行加锁的操作，带返回值，不指定持有时间，由redisson看门狗在持有期间自动续期，
+     * 用于大文件合并、摘要计算等耗时不确定的操作，执行时间再长锁也不会提前过期；进程退出后续期停止，锁在看门狗超时后释放
+     *
+     * @param lockKey 锁的key
+     * @param waitTime 加锁等待时间 单位s
+     * @param supplier 待执行的操作
+     * @return 执行操作的返回值
+     * @param <T> 返回值类型
+     */
+    public <T> T executeWithWatchdogLock(String lockKey, long waitTime, Supplier<T> supplier) {
+        String fullLockKey = LOCK_KEY_PREFIX + lockKey;
+        RLock lock = redissonClient.getLock(fullLockKey);
+        try {
+            boolean acquired = lock.tryLock(waitTime, TimeUnit.SECONDS);
+            if (acquired) {
+                log.debug("成功获取锁: {}", fullLockKey);
+                return supplier.get();
+            } else {
+                log.warn("获取锁失败: {}", fullLockKey);
+                throw new RuntimeException("获取锁失败，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("获取锁被中断: {}", fullLockKey, e);
+            throw new RuntimeException("获取锁被中断", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+                log.debug("释放锁: {}", fullLockKey);
+            }
+        }
+    }
+
+    /**
+     * 一次获取多个锁后执行操作，带返回值
+     * <p>
+     * 每一轮把全部加锁命令以异步方式同时发出，不等待，redisson在同一连接上流水线发送，一轮只需要一次往返；
+     * 有任何一个锁被占用时释放本轮获得的锁，随机退避后重试，直到超过等待时间。
+     * 不会持有一部分锁去等待另一部分，两个批量操作之间不会死锁，也就不需要按顺序逐个加锁。
+     * 锁的key与单个加锁的方法相同，批量操作和单个操作互斥。
+     *
+     * @param lockKeys 锁的key，重复的key只加一次
+     * @param waitTime 加锁等待时间 单位s
+     * @param leaseTime 锁的持有时间 单位s
+     * @param supplier 待执行的操作
+     * @return 执行操作的返回值
+     * @param <T> 返回值类型
+     */
+    public <T> T executeWithMultiLock(Collection<String> lockKeys, long waitTime, long leaseTime, Supplier<T> supplier) {
+        List<RLock> locks = lockKeys.stream().distinct()
+                .map(lockKey -> redissonClient.getLock(LOCK_KEY_PREFIX + lockKey))
+                .toList();
+        // 异步加锁和解锁都以当前线程ID作为持有者，与同步方法的语义一致
+        long threadId = Thread.currentThread().getId();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(waitTime);
+        try {
+            int attempts = 1;
+            while (!tryLockAll(locks, leaseTime, threadId)) {
+                if (System.currentTimeMillis() >= deadline) {
+                    log.warn("批量获取锁失败: lockCount={}, attempts={}", locks.size(), attempts);
+                    throw new RuntimeException("获取锁失败，请稍后重试");
+                }
+                Thread.sleep(ThreadLocalRandom.current().nextLong(MULTI_LOCK_RETRY_MIN_MS, MULTI_LOCK_RETRY_MAX_MS));
+                attempts++;
+            }
+            log.debug("批量获取锁成功: lockCount={}, attempts={}", locks.size(), attempts);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("批量获取锁被中断: lockCount={}", locks.size(), e);
+            throw new RuntimeException("获取锁被中断", e);
+        }
+        try {
+            return supplier.get();
+        } finally {
+            unlockAll(locks, threadId);
+        }
+    }
+
     /**
      * 尝试获取锁（不等待）
      *
@@ -140,6 +227,23 @@ public class RedisLockUtil {
         }
     }
 
+    /**
+     * 尝试获取锁（不等待），不指定持有时间，由看门狗在持有期间自动续期
+     *
+     * @param lockKey 锁键
+     * @return 锁对象，如果获取失败返回null
+     */
+    public RLock tryLock(String lockKey) {
+        String fullLockKey = LOCK_KEY_PREFIX + lockKey;
+        RLock lock = redissonClient.getLock(fullLockKey);
+        if (lock.tryLock()) {
+            log.debug("成功获取锁: {}", fullLockKey);
+            return lock;
+        }
+        log.debug("获取锁失败: {}", fullLockKey);
+        return null;
+    }
+
     /**
      * 释放锁
      *
@@ -164,14 +268,42 @@ public class RedisLockUtil {
     }
 
     /**
-     * 文件分片合并锁
+     * 文件上传锁（有返回值），登记和替换物理文件的耗时与文件大小有关，由看门狗续期
+     *
+     * @param fileSha256 文件Sha256
+     * @param supplier 要执行的任务
+     * @param <T> 返回值类型
+     * @return 任务执行结果
+     */
+    public <T> T executeWithUploadLock(String fileSha256, Supplier<T> supplier) {
+        String lockKey = "upload:" + fileSha256;
+        return executeWithWatchdogLock(lockKey, 10, supplier);
+    }
+
+    /**
+     * 文件分片合并锁，由看门狗续期
      *
      * @param uploadId 上传任务ID
      * @param task 要执行的任务
      */
     public void executeWithChunkMergeLock(String uploadId, Runnable task) {
+        executeWithChunkMergeLock(uploadId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 文件分片合并锁（有返回值），大文件合并的耗时没有上限，不指定持有时间，由看门狗续期
+     *
+     * @param uploadId 上传任务ID
+     * @param supplier 要执行的任务
+     * @param <T> 返回值类型
+     * @return 任务执行结果
+     */
+    public <T> T executeWithChunkMergeLock(String uploadId, Supplier<T> supplier) {
         String lockKey = "chunk_merge:" + uploadId;
-        executeWithLock(lockKey, 10, 60, task);
+        return executeWithWatchdogLock(lockKey, 10, supplier);
     }
 
     /**
@@ -185,6 +317,19 @@ public class RedisLockUtil {
         executeWithLock(lockKey, 5, 30, task);
     }
 
+    /**
+     * 文件删除锁（有返回值），只在修改删除标记时持有，不在后台清理的整个过程中持有
+     *
+     * @param fileId 文件、文件夹或回收站记录ID
+     * @param supplier 要执行的任务
+     * @param <T> 返回值类型
+     * @return 任务执行结果
+     */
+    public <T> T executeWithFileDeleteLock(Long fileId, Supplier<T> supplier) {
+        String lockKey = "file_delete:" + fileId;
+        return executeWithLock(lockKey, 5, 30, supplier);
+    }
+
     /**
      * 文件移动锁
      *
@@ -196,6 +341,60 @@ public class RedisLockUtil {
         executeWithLock(lockKey, 5, 30, task);
     }
 
+    /**
+     * 文件移动锁（有返回值），移动文件夹时以文件夹ID加锁，锁住的是整棵子树
+     *
+     * @param fileId 文件或文件夹ID
+     * @param supplier 要执行的任务
+     * @param <T> 返回值类型
+     * @return 任务执行结果
+     */
+    public <T> T executeWithFileMoveLock(Long fileId, Supplier<T> supplier) {
+        String lockKey = "file_move:" + fileId;
+        return executeWithLock(lockKey, 5, 30, supplier);
+    }
+
+    /**
+     * 批量文件移动锁（有返回值），一次获取全部文件的移动锁
+     *
+     * @param fileIds 文件ID
+     * @param supplier 要执行的任务
+     * @param <T> 返回值类型
+     * @return 任务执行结果
+     */
+    public <T> T executeWithFileMoveLocks(Collection<Long> fileIds, Supplier<T> supplier) {
+        List<String> lockKeys = fileIds.stream().map(fileId -> "file_move:" + fileId).toList();
+        return executeWithMultiLock(lockKeys, 5, 60, supplier);
+    }
+
+    /**
+     * 文件夹树锁（有返回值），同一用户的文件夹移动串行执行，改写子树路径的耗时与子树大小有关，由看门狗续期
+     * <p>
+     * 只锁被移动的文件夹和目标文件夹不够：把A移到B下的同时把B的祖先移到A的子树中，两个移动锁住的行互不相交，会形成环。
+     *
+     * @param userId 用户ID
+     * @param supplier 要执行的任务
+     * @param <T> 返回值类型
+     * @return 任务执行结果
+     */
+    public <T> T executeWithFolderTreeLock(Long userId, Supplier<T> supplier) {
+        String lockKey = "folder_tree:" + userId;
+        return executeWithWatchdogLock(lockKey, 10, supplier);
+    }
+
+    /**
+     * 批量文件删除锁（有返回值），一次获取全部文件的删除锁
+     *
+     * @param fileIds 文件ID
+     * @param supplier 要执行的任务
+     * @param <T> 返回值类型
+     * @return 任务执行结果
+     */
+    public <T> T executeWithFileDeleteLocks(Collection<Long> fileIds, Supplier<T> supplier) {
+        List<String> lockKeys = fileIds.stream().map(fileId -> "file_delete:" + fileId).toList();
+        return executeWithMultiLock(lockKeys, 5, 60, supplier);
+    }
+
     /**
      * 验证码发送锁
      *
@@ -228,4 +427,46 @@ public class RedisLockUtil {
         String lockKey = "login:" + username;
         executeWithLock(lockKey, 3, 10, task);
     }
+
+    // ======================== 私有方法 ========================
+    // 同时发出全部加锁命令，有一个失败时释放已获得的锁并返回false
+    private boolean tryLockAll(List<RLock> locks, long leaseTime, long threadId) {
+        List<RFuture<Boolean>> futures = new ArrayList<>(locks.size());
+        for (RLock lock : locks) {
+            futures.add(lock.tryLockAsync(0, leaseTime, TimeUnit.SECONDS, threadId));
+        }
+        List<RLock> acquired = new ArrayList<>(locks.size());
+        boolean allAcquired = true;
+        for (int i = 0; i < locks.size(); i++) {
+            try {
+                if (Boolean.TRUE.equals(futures.get(i).toCompletableFuture().join())) {
+                    acquired.add(locks.get(i));
+                } else {
+                    allAcquired = false;
+                }
+            } catch (Exception e) {
+                log.warn("获取锁异常: {}", locks.get(i).getName(), e);
+                allAcquired = false;
+            }
+        }
+        if (!allAcquired) {
+            unlockAll(acquired, threadId);
+        }
+        return allAcquired;
+    }
+
+    // 同时发出全部解锁命令，已过期的锁解锁失败时忽略
+    private void unlockAll(List<RLock> locks, long threadId) {
+        List<RFuture<Void>> futures = new ArrayList<>(locks.size());
+        for (RLock lock : locks) {
+            futures.add(lock.unlockAsync(threadId));
+        }
+        for (int i = 0; i < locks.size(); i++) {
+            try {
+                futures.get(i).toCompletableFuture().join();
+            } catch (Exception e) {
+                log.warn("释放锁失败: {}", locks.get(i).getName(), e);
+            }
+        }
+    }
 }
@@ -0,0 +1,67 @@
+package com.cutejiuge.common.util;
+
+/**
+ * rsync风格的滚动校验和（类Adler-32），用于增量同步时在新文件中逐字节查找与旧版本相同的块
+ * <p>
+ * 窗口内的字节按无符号数计算：a = Σx(i)，b = Σ(n - i)·x(i)，均对2^16取模，校验和为 (b << 16) | a。
+ * 窗口向后滑动一个字节时只需要移出的和移入的两个字节即可O(1)更新，不必重新计算整个窗口。
+ * 弱校验和只用来快速筛选候选块，命中后还要比较强校验和。客户端必须使用完全相同的算法。
+ * <p>
+ * 非线程安全，同一个实例不要并发调用。
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午4:10
+ */
+public class RollingChecksum {
+    private static final int MASK = 0xFFFF;
+
+    private int a;
+    private int b;
+    // 窗口长度
+    private int length;
+
+    /**
+     * 计算一段数据的校验和
+     */
+    public static int compute(byte[] data, int offset, int length) {
+        RollingChecksum checksum = new RollingChecksum();
+        checksum.reset(data, offset, length);
+        return checksum.getValue();
+    }
+
+    /**
+     * 以一段数据作为新的窗口重新计算
+     */
+    public RollingChecksum reset(byte[] data, int offset, int length) {
+        int sumA = 0;
+        int sumB = 0;
+        for (int i = 0; i < length; i++) {
+            sumA += data[offset + i] & 0xFF;
+            sumB += sumA;
+        }
+        this.a = sumA & MASK;
+        this.b = sumB & MASK;
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * 窗口向后滑动一个字节
+     *
+     * @param out 移出窗口的字节
+     * @param in 移入窗口的字节
+     */
+    public RollingChecksum roll(byte out, byte in) {
+        int outValue = out & 0xFF;
+        a = (a - outValue + (in & 0xFF)) & MASK;
+        b = (b - length * outValue + a) & MASK;
+        return this;
+    }
+
+    /**
+     * 当前窗口的校验和
+     */
+    public int getValue() {
+        return (b << 16) | a;
+    }
+}
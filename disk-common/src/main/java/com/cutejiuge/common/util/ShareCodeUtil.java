@@ -0,0 +1,103 @@
+package com.cutejiuge.common.util;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 分享码工具类
+ * <p>
+ * 分享码由分享记录的雪花ID经过带密钥的4轮Feistel置换后做base62编码得到，固定11位。
+ * Feistel网络对64位整数是一一映射，不同的ID一定得到不同的分享码，生成时不需要查库判重或重试；
+ * 置换打乱了ID中的时间戳和序列号，相邻创建的分享码看不出规律，无法据此枚举他人的分享。
+ * <p>
+ * 密钥share.code-secret必须在配置中心配置，没有默认值：公开的默认密钥等于没有密钥，分享码可以反推出ID。
+ * 延迟初始化，只在使用分享码的服务中创建，这些服务缺少密钥时启动失败，其他服务不需要配置。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午7:10
+ */
+@Lazy
+@Component
+public class ShareCodeUtil {
+    // 分享码长度，62^11 > 2^64，能容纳任意64位整数
+    public static final int SHARE_CODE_LENGTH = 11;
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int ROUNDS = 4;
+
+    // 置换密钥，更换后新生成的分享码会变化，已生成的分享码保存在数据库中不受影响
+    @Value("${share.code-secret}")
+    private String codeSecret;
+
+    // 每轮的子密钥
+    private int[] roundKeys;
+
+    @PostConstruct
+    public void init() {
+        if (StrUtil.isBlank(codeSecret)) {
+            throw new IllegalStateException("未配置分享码密钥share.code-secret");
+        }
+        ByteBuffer digest = ByteBuffer.wrap(DigestUtil.sha256(codeSecret.getBytes(StandardCharsets.UTF_8)));
+        roundKeys = new int[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            roundKeys[i] = digest.getInt();
+        }
+    }
+
+    /**
+     * 由分享记录ID生成分享码
+     */
+    public String generate(long shareId) {
+        int left = (int) (shareId >>> 32);
+        int right = (int) shareId;
+        for (int roundKey : roundKeys) {
+            int next = left ^ round(right, roundKey);
+            left = right;
+            right = next;
+        }
+        return encode(((long) left << 32) | (right & 0xFFFFFFFFL));
+    }
+
+    /**
+     * 分享码格式校验，格式不对的分享码不需要查询缓存和数据库
+     */
+    public static boolean isValid(String shareCode) {
+        if (shareCode == null || shareCode.length() != SHARE_CODE_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < shareCode.length(); i++) {
+            if (ALPHABET.indexOf(shareCode.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ======================== 私有方法 ========================
+    // 轮函数，murmur3的32位混合函数
+    private static int round(int value, int roundKey) {
+        int h = value ^ roundKey;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // 无符号64位整数转为定长base62，高位补0
+    private static String encode(long value) {
+        char[] chars = new char[SHARE_CODE_LENGTH];
+        for (int i = SHARE_CODE_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) Long.remainderUnsigned(value, ALPHABET.length()));
+            value = Long.divideUnsigned(value, ALPHABET.length());
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,253 @@
+package com.cutejiuge.common.util;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.IdUtil;
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 雪花算法ID生成器
+ * <p>
+ * ID由41位时间戳、10位机器号和12位序号组成，纪元和位布局与mybatis-plus默认的生成器相同，新旧ID按时间有序，不会冲突。
+ * 最近一次发出的ID就是全部状态，保存在一个AtomicLong中，发号只做一次CAS，没有锁，也不经过共享的Random。
+ * 同一毫秒内序号用完或时钟回拨时沿用上次的时间戳继续发号，逻辑时钟领先系统时钟超过上限时拒绝发号，不会发出重复的ID。
+ * <p>
+ * 机器号从redis租用：租约保存在一个hash中，过期的机器号可以被其他实例接手，续约时一并记录该机器号发出的最大时间戳，
+ * 接手的实例从这个时间戳之后开始发号，机器重启后时钟回拨也不会重复。本地认为租约有效的时间比redis中短一个续约周期，
+ * 续约失败时先停止发号，再换一个机器号。
+ * <p>
+ * 启动时注册到IdWorker，mybatis-plus的ASSIGN_ID、IdWorker.getId()和文件名都由它生成。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午11:30
+ */
+@Slf4j
+@Component
+public class SnowflakeIdGenerator implements IdentifierGenerator {
+    // 与mybatis-plus默认生成器相同的纪元，2010-11-04
+    private static final long EPOCH = 1288834974657L;
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_WORKERS = 1 << WORKER_BITS;
+    private static final int TIMESTAMP_SHIFT = WORKER_BITS + SEQUENCE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long WORKER_MASK = ((1L << WORKER_BITS) - 1) << SEQUENCE_BITS;
+    // 每毫秒可以发出的ID数量
+    private static final int SEQUENCE_LIMIT = 1 << SEQUENCE_BITS;
+
+    // 机器号租约，hash字段为机器号，值为 租约token:到期时间
+    private static final String LEASE_KEY = "id_worker:lease";
+    // 每个机器号发出的最大时间戳，hash字段为机器号
+    private static final String LAST_TIMESTAMP_KEY = "id_worker:last_timestamp";
+
+    // 从指定位置开始找一个未被租用或租约已过期的机器号，返回 {机器号, 该机器号发出的最大时间戳}，全部被占用时返回空列表
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local maxWorkers = tonumber(ARGV[3])
+            for i = 0, maxWorkers - 1 do
+                local workerId = (tonumber(ARGV[4]) + i) % maxWorkers
+                local lease = redis.call('HGET', KEYS[1], workerId)
+                if not lease or tonumber(string.match(lease, ':(%d+)$')) < now then
+                    redis.call('HSET', KEYS[1], workerId, ARGV[1] .. ':' .. (now + tonumber(ARGV[2])))
+                    return {workerId, tonumber(redis.call('HGET', KEYS[2], workerId) or '0')}
+                end
+            end
+            return {}
+            """, List.class);
+
+    // 续约并记录发出的最大时间戳，租约已被其他实例接手时返回0
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            local lease = redis.call('HGET', KEYS[1], ARGV[1])
+            if not lease or string.match(lease, '^(.*):%d+$') ~= ARGV[2] then return 0 end
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[2] .. ':' .. (now + tonumber(ARGV[3])))
+            redis.call('HSET', KEYS[2], ARGV[1], ARGV[4])
+            return 1
+            """, Long.class);
+
+    // 释放租约并记录发出的最大时间戳
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            local lease = redis.call('HGET', KEYS[1], ARGV[1])
+            if not lease or string.match(lease, '^(.*):%d+$') ~= ARGV[2] then return 0 end
+            redis.call('HDEL', KEYS[1], ARGV[1])
+            redis.call('HSET', KEYS[2], ARGV[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${id.worker.lease-seconds:30}")
+    private Long leaseSeconds;
+
+    // 逻辑时钟允许领先系统时钟的最大毫秒数，覆盖时钟回拨和短时间的发号高峰
+    @Value("${id.max-clock-lead-ms:5000}")
+    private Long maxClockLeadMs;
+
+    // 最近一次发出的ID，包含时间戳、机器号和序号
+    private final AtomicLong lastId = new AtomicLong();
+    // 本地认为租约有效的截止时间，超过后拒绝发号
+    private volatile long leaseValidUntil;
+    private final String leaseToken = IdUtil.fastSimpleUUID();
+    private ScheduledExecutorService renewExecutor;
+
+    @PostConstruct
+    public void init() {
+        acquireWorker();
+        renewExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("id-worker-renew-", true));
+        long renewIntervalMs = TimeUnit.SECONDS.toMillis(leaseSeconds) / 3;
+        renewExecutor.scheduleWithFixedDelay(this::renewQuietly, renewIntervalMs, renewIntervalMs, TimeUnit.MILLISECONDS);
+        IdWorker.setIdentifierGenerator(this);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        renewExecutor.shutdownNow();
+        // 先停止发号再释放，释放后机器号可能立即被其他实例接手
+        leaseValidUntil = 0;
+        long id = lastId.get();
+        stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(LEASE_KEY, LAST_TIMESTAMP_KEY),
+                String.valueOf(workerId(id)), leaseToken, String.valueOf(timestamp(id)));
+    }
+
+    /**
+     * mybatis-plus的主键生成
+     */
+    @Override
+    public Long nextId(Object entity) {
+        return nextId();
+    }
+
+    /**
+     * 生成一个ID
+     */
+    public long nextId() {
+        while (true) {
+            long current = lastId.get();
+            long next = advance(current, 1);
+            if (lastId.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * 批量生成ID，每次CAS预留当前毫秒剩余的序号，大批量时CAS次数远少于ID数量
+     *
+     * @param count 数量
+     * @return 递增的ID
+     */
+    public long[] nextIds(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("ID数量必须大于0");
+        }
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            long current = lastId.get();
+            long next = advance(current, count - filled);
+            if (!lastId.compareAndSet(current, next)) {
+                continue;
+            }
+            long first = timestamp(next) == timestamp(current) ? current + 1 : next & ~SEQUENCE_MASK;
+            for (long id = first; id <= next; id++) {
+                ids[filled++] = id;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 当前租用的机器号
+     */
+    public int getWorkerId() {
+        return workerId(lastId.get());
+    }
+
+    // ======================== 私有方法 ========================
+    // 由上次发出的ID计算预留count个ID后的最后一个ID，一次最多预留到当前毫秒的序号用完
+    private long advance(long current, int count) {
+        long now = System.currentTimeMillis();
+        if (now > leaseValidUntil) {
+            throw new IllegalStateException("机器号租约已失效，暂停生成ID");
+        }
+        long nowTimestamp = now - EPOCH;
+        long timestamp = timestamp(current);
+        long worker = current & WORKER_MASK;
+        if (nowTimestamp > timestamp) {
+            return (nowTimestamp << TIMESTAMP_SHIFT) | worker | (Math.min(count, SEQUENCE_LIMIT) - 1);
+        }
+        long sequence = current & SEQUENCE_MASK;
+        if (sequence < SEQUENCE_MASK) {
+            return current + Math.min(count, SEQUENCE_MASK - sequence);
+        }
+        // 当前毫秒的序号已用完或时钟回拨，借用下一毫秒
+        if (timestamp + 1 - nowTimestamp > maxClockLeadMs) {
+            throw new IllegalStateException("时钟回拨或发号过快，逻辑时钟领先超过" + maxClockLeadMs + "ms");
+        }
+        return ((timestamp + 1) << TIMESTAMP_SHIFT) | worker | (Math.min(count, SEQUENCE_LIMIT) - 1);
+    }
+
+    // 租用一个机器号，从该机器号发出的最大时间戳之后开始发号
+    private void acquireWorker() {
+        List<?> result = stringRedisTemplate.execute(ACQUIRE_SCRIPT, List.of(LEASE_KEY, LAST_TIMESTAMP_KEY), leaseToken,
+                String.valueOf(TimeUnit.SECONDS.toMillis(leaseSeconds)), String.valueOf(MAX_WORKERS),
+                String.valueOf(ThreadLocalRandom.current().nextInt(MAX_WORKERS)));
+        if (result == null || result.isEmpty()) {
+            throw new IllegalStateException("没有可用的机器号");
+        }
+        long worker = ((Number) result.get(0)).longValue();
+        long minTimestamp = Math.max(System.currentTimeMillis() - EPOCH, ((Number) result.get(1)).longValue() + 1);
+        // 切换机器号后序号从1开始，时间戳不回退
+        lastId.updateAndGet(current -> (Math.max(timestamp(current), minTimestamp) << TIMESTAMP_SHIFT) | (worker << SEQUENCE_BITS));
+        leaseValidUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(leaseSeconds) * 2 / 3;
+        log.info("租用机器号成功: workerId={}, startTimestamp={}", worker, minTimestamp + EPOCH);
+    }
+
+    // 续约，租约已被接手时换一个机器号
+    private void renewQuietly() {
+        try {
+            long renewStart = System.currentTimeMillis();
+            long id = lastId.get();
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(LEASE_KEY, LAST_TIMESTAMP_KEY),
+                    String.valueOf(workerId(id)), leaseToken, String.valueOf(TimeUnit.SECONDS.toMillis(leaseSeconds)),
+                    String.valueOf(timestamp(id)));
+            if (renewed != null && renewed == 1) {
+                leaseValidUntil = renewStart + TimeUnit.SECONDS.toMillis(leaseSeconds) * 2 / 3;
+                return;
+            }
+            log.warn("机器号租约已被接手，重新租用: workerId={}", workerId(id));
+            leaseValidUntil = 0;
+            acquireWorker();
+        } catch (Exception e) {
+            log.error("机器号续约失败", e);
+        }
+    }
+
+    private static long timestamp(long id) {
+        return id >>> TIMESTAMP_SHIFT;
+    }
+
+    private static int workerId(long id) {
+        return (int) ((id & WORKER_MASK) >>> SEQUENCE_BITS);
+    }
+}
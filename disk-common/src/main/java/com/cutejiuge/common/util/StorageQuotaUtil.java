@@ -0,0 +1,322 @@
+package com.cutejiuge.common.util;
+
+import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户存储配额工具类
+ * <p>
+ * 配额以redis为准，每个用户一个hash：total总空间、used已用空间、reserved上传中预占的空间，
+ * 以及每个预占记录 r:{reservationId} = size:expireAtMillis。预占、确认、释放都是单key的lua脚本，O(1)且原子，
+ * 请求链路上不访问数据库，也就不会在tb_user的热点行上排队。
+ * 已用空间变化的用户记入脏集合，由用户服务定时批量写回tb_user，并定期与实际文件大小对账修正偏差。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午4:10
+ */
+@Slf4j
+@Component
+public class StorageQuotaUtil {
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 配额key前缀
+    private static final String QUOTA_KEY_PREFIX = "user_quota:";
+    // 已用空间有变化、等待写回数据库的用户集合
+    private static final String DIRTY_USERS_KEY = "user_quota:dirty";
+
+    // 预占：配额未加载返回-1，空间不足返回0，成功或重复预占返回1
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end
+            local field = 'r:' .. ARGV[1]
+            if redis.call('HEXISTS', KEYS[1], field) == 1 then return 1 end
+            local total = tonumber(redis.call('HGET', KEYS[1], 'total') or '0')
+            local used = tonumber(redis.call('HGET', KEYS[1], 'used') or '0')
+            local reserved = tonumber(redis.call('HGET', KEYS[1], 'reserved') or '0')
+            local size = tonumber(ARGV[2])
+            if used + reserved + size > total then return 0 end
+            redis.call('HINCRBY', KEYS[1], 'reserved', size)
+            redis.call('HSET', KEYS[1], field, ARGV[2] .. ':' .. ARGV[3])
+            return 1
+            """, Long.class);
+
+    // 确认：释放预占并增加已用空间，配额未加载返回-1，否则返回新的已用空间
+    private static final RedisScript<Long> COMMIT_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end
+            local field = 'r:' .. ARGV[1]
+            local reservation = redis.call('HGET', KEYS[1], field)
+            if reservation then
+                redis.call('HDEL', KEYS[1], field)
+                redis.call('HINCRBY', KEYS[1], 'reserved', -tonumber(string.match(reservation, '^(%d+)')))
+            end
+            return redis.call('HINCRBY', KEYS[1], 'used', ARGV[2])
+            """, Long.class);
+
+    // 延长预占的过期时间，只会往后延，预占不存在返回0
+    private static final RedisScript<Long> EXTEND_SCRIPT = new DefaultRedisScript<>("""
+            local field = 'r:' .. ARGV[1]
+            local reservation = redis.call('HGET', KEYS[1], field)
+            if not reservation then return 0 end
+            local size, expireAt = string.match(reservation, '^(%d+):(%d+)$')
+            if tonumber(expireAt) < tonumber(ARGV[2]) then
+                redis.call('HSET', KEYS[1], field, size .. ':' .. ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    // 释放预占，预占不存在返回0
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            local field = 'r:' .. ARGV[1]
+            local reservation = redis.call('HGET', KEYS[1], field)
+            if not reservation then return 0 end
+            redis.call('HDEL', KEYS[1], field)
+            redis.call('HINCRBY', KEYS[1], 'reserved', -tonumber(string.match(reservation, '^(%d+)')))
+            return 1
+            """, Long.class);
+
+    // 调整已用空间（删除文件时为负数），不会小于0，配额未加载返回-1
+    private static final RedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end
+            local used = redis.call('HINCRBY', KEYS[1], 'used', ARGV[1])
+            if used < 0 then
+                redis.call('HSET', KEYS[1], 'used', 0)
+                used = 0
+            end
+            return used
+            """, Long.class);
+
+    // 加载配额：不存在时写入全部字段，已存在时只更新总空间
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                redis.call('HSET', KEYS[1], 'total', ARGV[1], 'used', ARGV[2], 'reserved', 0)
+                return 1
+            end
+            redis.call('HSET', KEYS[1], 'total', ARGV[1])
+            return 0
+            """, Long.class);
+
+    // 清理过期的预占并重新计算预占总量，返回清理的数量
+    private static final RedisScript<Long> PRUNE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end
+            local fields = redis.call('HGETALL', KEYS[1])
+            local reserved = 0
+            local pruned = 0
+            for i = 1, #fields, 2 do
+                if string.sub(fields[i], 1, 2) == 'r:' then
+                    local size, expireAt = string.match(fields[i + 1], '^(%d+):(%d+)$')
+                    if tonumber(expireAt) < tonumber(ARGV[1]) then
+                        redis.call('HDEL', KEYS[1], fields[i])
+                        pruned = pruned + 1
+                    else
+                        reserved = reserved + tonumber(size)
+                    end
+                end
+            end
+            redis.call('HSET', KEYS[1], 'reserved', reserved)
+            return pruned
+            """, Long.class);
+
+    // 对账修正：没有上传中的预占且已用空间仍等于对账前读到的值时才覆盖，否则返回0留到下次对账
+    private static final RedisScript<Long> CORRECT_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            if tonumber(redis.call('HGET', KEYS[1], 'reserved') or '0') > 0 then return 0 end
+            if redis.call('HGET', KEYS[1], 'used') ~= ARGV[1] then return 0 end
+            redis.call('HSET', KEYS[1], 'used', ARGV[2])
+            return 1
+            """, Long.class);
+
+    /**
+     * 预占结果
+     */
+    public enum ReserveResult {
+        SUCCESS, INSUFFICIENT, NOT_LOADED
+    }
+
+    /**
+     * 配额快照
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Quota {
+        private final long total;
+        private final long used;
+        private final long reserved;
+
+        public long getAvailable() {
+            return Math.max(0, total - used - reserved);
+        }
+    }
+
+    /**
+     * 预占空间，同一个预占ID重复预占只算一次
+     *
+     * @param userId 用户ID
+     * @param reservationId 预占ID，一般为上传任务ID
+     * @param size 预占字节数
+     * @param expireAtMillis 预占过期时间，过期后由对账任务清理
+     */
+    public ReserveResult reserve(Long userId, String reservationId, long size, long expireAtMillis) {
+        Long result = stringRedisTemplate.execute(RESERVE_SCRIPT, List.of(quotaKey(userId)),
+                reservationId, String.valueOf(size), String.valueOf(expireAtMillis));
+        if (result == null || result < 0) {
+            return ReserveResult.NOT_LOADED;
+        }
+        return result == 1 ? ReserveResult.SUCCESS : ReserveResult.INSUFFICIENT;
+    }
+
+    /**
+     * 上传完成，释放预占并计入已用空间
+     *
+     * @return 配额未加载时返回false
+     */
+    public boolean commit(Long userId, String reservationId, long actualSize) {
+        Long used = stringRedisTemplate.execute(COMMIT_SCRIPT, List.of(quotaKey(userId)),
+                reservationId, String.valueOf(actualSize));
+        if (used == null || used < 0) {
+            return false;
+        }
+        markDirty(List.of(userId));
+        return true;
+    }
+
+    /**
+     * 延长预占的过期时间，上传任务续期时一起调用，避免上传还在进行时预占被对账任务当作过期清理
+     *
+     * @return 预占不存在时返回false
+     */
+    public boolean extend(Long userId, String reservationId, long expireAtMillis) {
+        Long result = stringRedisTemplate.execute(EXTEND_SCRIPT, List.of(quotaKey(userId)),
+                reservationId, String.valueOf(expireAtMillis));
+        return result != null && result == 1;
+    }
+
+    /**
+     * 释放预占，上传取消或失败时调用
+     */
+    public void release(Long userId, String reservationId) {
+        stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(quotaKey(userId)), reservationId);
+    }
+
+    /**
+     * 调整已用空间，删除文件时传负数
+     *
+     * @return 配额未加载时返回false
+     */
+    public boolean adjustUsed(Long userId, long delta) {
+        Long used = stringRedisTemplate.execute(ADJUST_SCRIPT, List.of(quotaKey(userId)), String.valueOf(delta));
+        if (used == null || used < 0) {
+            return false;
+        }
+        markDirty(List.of(userId));
+        return true;
+    }
+
+    /**
+     * 从数据库加载配额，已加载时只更新总空间，已用空间以redis为准
+     */
+    public void load(Long userId, long total, long used) {
+        stringRedisTemplate.execute(LOAD_SCRIPT, List.of(quotaKey(userId)), String.valueOf(total), String.valueOf(used));
+    }
+
+    /**
+     * 查询配额，未加载时返回null
+     */
+    public Quota getQuota(Long userId) {
+        List<Object> values = stringRedisTemplate.opsForHash().multiGet(quotaKey(userId), List.of("total", "used", "reserved"));
+        if (values.get(0) == null) {
+            return null;
+        }
+        return new Quota(parseLong(values.get(0)), parseLong(values.get(1)), parseLong(values.get(2)));
+    }
+
+    /**
+     * 批量查询已用空间，一次pipeline往返，未加载的用户不在结果中
+     */
+    public Map<Long, Long> getUsed(List<Long> userIds) {
+        List<Object> values = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long userId : userIds) {
+                connection.hashCommands().hGet(quotaKey(userId).getBytes(StandardCharsets.UTF_8),
+                        "used".getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        Map<Long, Long> usedMap = new HashMap<>(userIds.size() * 2);
+        for (int i = 0; i < userIds.size(); i++) {
+            if (values.get(i) != null) {
+                usedMap.put(userIds.get(i), parseLong(values.get(i)));
+            }
+        }
+        return usedMap;
+    }
+
+    /**
+     * 取出一批已用空间有变化的用户
+     */
+    public List<Long> popDirtyUsers(int count) {
+        List<String> members = stringRedisTemplate.opsForSet().pop(DIRTY_USERS_KEY, count);
+        List<Long> userIds = new ArrayList<>();
+        if (members != null) {
+            members.forEach(member -> userIds.add(Long.valueOf(member)));
+        }
+        return userIds;
+    }
+
+    /**
+     * 标记用户已用空间有变化，写回数据库失败时重新放回
+     */
+    public void markDirty(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.opsForSet().add(DIRTY_USERS_KEY, userIds.stream().map(String::valueOf).toArray(String[]::new));
+    }
+
+    /**
+     * 清理过期的预占
+     *
+     * @return 清理的数量，配额未加载时返回-1
+     */
+    public long pruneExpiredReservations(Long userId) {
+        Long pruned = stringRedisTemplate.execute(PRUNE_SCRIPT, List.of(quotaKey(userId)),
+                String.valueOf(System.currentTimeMillis()));
+        return pruned == null ? -1 : pruned;
+    }
+
+    /**
+     * 对账修正已用空间，只在对账期间没有任何变化时生效
+     *
+     * @param expectedUsed 对账前读到的已用空间
+     * @param actualUsed 实际的已用空间
+     */
+    public boolean correctUsed(Long userId, long expectedUsed, long actualUsed) {
+        Long result = stringRedisTemplate.execute(CORRECT_SCRIPT, List.of(quotaKey(userId)),
+                String.valueOf(expectedUsed), String.valueOf(actualUsed));
+        if (result == null || result == 0) {
+            return false;
+        }
+        markDirty(List.of(userId));
+        return true;
+    }
+
+    private String quotaKey(Long userId) {
+        return QUOTA_KEY_PREFIX + userId;
+    }
+
+    private long parseLong(Object value) {
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+}
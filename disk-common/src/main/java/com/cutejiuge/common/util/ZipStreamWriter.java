@@ -0,0 +1,327 @@
+package com.cutejiuge.common.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 流式ZIP64写入器
+ * <p>
+ * 边读边写，不需要预先知道压缩后的大小和CRC，也不需要回写已输出的数据，可以直接写到HTTP响应。
+ * 每个条目的本地头部不含大小和CRC（通用标志位3），条目写完后用数据描述符补充；文件名统一按UTF-8编码（通用标志位11）。
+ * 条目原始大小接近4GB时本地头部带ZIP64扩展字段、数据描述符使用8字节大小；条目数超过65535、
+ * 中央目录偏移或大小超过4GB时追加ZIP64结束记录，其余情况与普通ZIP完全一致，兼容旧的解压工具。
+ * <p>
+ * 不压缩的条目同样使用数据描述符，依赖中央目录的解压工具（系统自带解压、7-Zip、unzip）都能正常处理，
+ * 只按本地头部顺序读取的JDK ZipInputStream不支持这种条目。
+ * <p>
+ * 内存占用与数据量无关：压缩缓冲区固定，中央目录每个条目只保留文件名和几个数值。
+ * 非线程安全，同一个实例不要并发调用。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午11:20
+ */
+public class ZipStreamWriter implements Closeable {
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIG = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int ZIP64_END_SIG = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    // 通用标志位：3-使用数据描述符 11-文件名为UTF-8
+    private static final int FLAGS = 0x0808;
+    private static final int VERSION_DEFAULT = 20;
+    private static final int VERSION_ZIP64 = 45;
+    // 创建系统标记为Unix，避免解压工具按DOS代码页转换文件名，文件权限为0644
+    private static final int HOST_UNIX = 3 << 8;
+    private static final int UNIX_FILE_ATTRIBUTES = 0100644 << 16;
+    private static final long UINT32_MAX = 0xFFFFFFFFL;
+    private static final int UINT16_MAX = 0xFFFF;
+    // 原始大小超过该值的条目按ZIP64写入，留出DEFLATE最坏情况下的膨胀余量
+    private static final long ZIP64_ENTRY_THRESHOLD = 0xFF000000L;
+    // DOS时间能表示的最早时间 1980-01-01
+    private static final int DOS_TIME_MIN = (1 << 21) | (1 << 16);
+    private static final int DEFLATE_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream output;
+    private final Deflater deflater;
+    private final byte[] deflateBuffer = new byte[DEFLATE_BUFFER_SIZE];
+    private final ByteBuffer header = ByteBuffer.allocate(128).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+    private final List<Entry> entries = new ArrayList<>();
+    // 已写出的字节数，即下一个记录在压缩包中的偏移
+    private long written;
+    private Entry current;
+    private boolean finished;
+
+    /**
+     * @param output 目标输出流，写入器不做缓冲，调用方应传入带缓冲的输出流
+     * @param deflateLevel DEFLATE压缩级别0-9，下载场景建议使用1，速度优先
+     */
+    public ZipStreamWriter(OutputStream output, int deflateLevel) {
+        this.output = output;
+        this.deflater = new Deflater(deflateLevel, true);
+    }
+
+    /**
+     * 开始写入一个条目，上一个条目未关闭时先关闭
+     *
+     * @param name 条目名称，目录分隔符使用'/'
+     * @param size 条目的原始大小，只用于判断是否需要ZIP64，实际写入的数据量以write为准
+     * @param lastModified 修改时间(毫秒时间戳)
+     * @param stored 是否不压缩直接存储，已压缩的媒体和压缩包使用，避免浪费CPU
+     */
+    public void putNextEntry(String name, long size, long lastModified, boolean stored) throws IOException {
+        ensureOpen();
+        if (current != null) {
+            closeEntry();
+        }
+        Entry entry = new Entry();
+        entry.name = name.getBytes(StandardCharsets.UTF_8);
+        if (entry.name.length > UINT16_MAX) {
+            throw new IOException("条目名称过长: " + name.length());
+        }
+        entry.dosTime = toDosTime(lastModified);
+        entry.stored = stored;
+        entry.zip64 = size >= ZIP64_ENTRY_THRESHOLD;
+        entry.offset = written;
+        header.clear();
+        header.putInt(LOCAL_HEADER_SIG)
+                .putShort((short) (entry.zip64 ? VERSION_ZIP64 : VERSION_DEFAULT))
+                .putShort((short) FLAGS)
+                .putShort((short) (stored ? 0 : 8))
+                .putInt(entry.dosTime)
+                .putInt(0);
+        // 大小和CRC写在数据描述符中，ZIP64条目的本地头部大小固定为0xFFFFFFFF，实际值同样在数据描述符中
+        int placeholder = entry.zip64 ? (int) UINT32_MAX : 0;
+        header.putInt(placeholder).putInt(placeholder)
+                .putShort((short) entry.name.length)
+                .putShort((short) (entry.zip64 ? 20 : 0));
+        writeHeader();
+        writeOut(entry.name, 0, entry.name.length);
+        if (entry.zip64) {
+            header.clear();
+            header.putShort((short) ZIP64_EXTRA_ID).putShort((short) 16).putLong(0).putLong(0);
+            writeHeader();
+        }
+        entry.dataOffset = written;
+        current = entry;
+        crc.reset();
+    }
+
+    /**
+     * 写入当前条目的数据
+     */
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        if (current == null) {
+            throw new IOException("没有正在写入的条目");
+        }
+        if (length == 0) {
+            return;
+        }
+        crc.update(buffer, offset, length);
+        current.size += length;
+        if (current.stored) {
+            writeOut(buffer, offset, length);
+            return;
+        }
+        deflater.setInput(buffer, offset, length);
+        while (!deflater.needsInput()) {
+            deflate();
+        }
+    }
+
+    /**
+     * 结束当前条目，写出数据描述符
+     */
+    public void closeEntry() throws IOException {
+        Entry entry = current;
+        if (entry == null) {
+            return;
+        }
+        if (!entry.stored) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+            deflater.reset();
+        }
+        entry.compressedSize = written - entry.dataOffset;
+        entry.crc = (int) crc.getValue();
+        if (!entry.zip64 && (entry.size > UINT32_MAX || entry.compressedSize > UINT32_MAX)) {
+            throw new IOException("条目实际大小超过声明的大小，无法在不使用ZIP64的条目中表示: " + entry.size);
+        }
+        header.clear();
+        header.putInt(DATA_DESCRIPTOR_SIG).putInt(entry.crc);
+        if (entry.zip64) {
+            header.putLong(entry.compressedSize).putLong(entry.size);
+        } else {
+            header.putInt((int) entry.compressedSize).putInt((int) entry.size);
+        }
+        writeHeader();
+        entries.add(entry);
+        current = null;
+    }
+
+    /**
+     * 写出中央目录和结束记录，不关闭目标输出流
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        closeEntry();
+        long centralOffset = written;
+        for (Entry entry : entries) {
+            writeCentralHeader(entry);
+        }
+        long centralSize = written - centralOffset;
+        if (entries.size() >= UINT16_MAX || centralOffset >= UINT32_MAX || centralSize >= UINT32_MAX) {
+            long zip64EndOffset = written;
+            header.clear();
+            header.putInt(ZIP64_END_SIG)
+                    .putLong(44)
+                    .putShort((short) (HOST_UNIX | VERSION_ZIP64))
+                    .putShort((short) VERSION_ZIP64)
+                    .putInt(0)
+                    .putInt(0)
+                    .putLong(entries.size())
+                    .putLong(entries.size())
+                    .putLong(centralSize)
+                    .putLong(centralOffset);
+            writeHeader();
+            header.clear();
+            header.putInt(ZIP64_LOCATOR_SIG).putInt(0).putLong(zip64EndOffset).putInt(1);
+            writeHeader();
+        }
+        header.clear();
+        header.putInt(END_SIG)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) Math.min(entries.size(), UINT16_MAX))
+                .putShort((short) Math.min(entries.size(), UINT16_MAX))
+                .putInt((int) Math.min(centralSize, UINT32_MAX))
+                .putInt((int) Math.min(centralOffset, UINT32_MAX))
+                .putShort((short) 0);
+        writeHeader();
+        output.flush();
+        finished = true;
+    }
+
+    /**
+     * 已写出的字节数
+     */
+    public long getWrittenBytes() {
+        return written;
+    }
+
+    /**
+     * 释放压缩器，不写出中央目录，也不关闭目标输出流
+     */
+    @Override
+    public void close() {
+        finished = true;
+        deflater.end();
+    }
+
+    // ======================== 私有方法 ========================
+    private void writeCentralHeader(Entry entry) throws IOException {
+        boolean sizeOverflow = entry.size >= UINT32_MAX || entry.compressedSize >= UINT32_MAX;
+        boolean offsetOverflow = entry.offset >= UINT32_MAX;
+        // ZIP64扩展字段只包含溢出的字段，顺序固定为原始大小、压缩后大小、本地头部偏移
+        int extraLength = (sizeOverflow ? 16 : 0) + (offsetOverflow ? 8 : 0);
+        boolean zip64 = extraLength > 0;
+        header.clear();
+        header.putInt(CENTRAL_HEADER_SIG)
+                .putShort((short) (HOST_UNIX | VERSION_ZIP64))
+                .putShort((short) (entry.zip64 || zip64 ? VERSION_ZIP64 : VERSION_DEFAULT))
+                .putShort((short) FLAGS)
+                .putShort((short) (entry.stored ? 0 : 8))
+                .putInt(entry.dosTime)
+                .putInt(entry.crc)
+                .putInt((int) (sizeOverflow ? UINT32_MAX : entry.compressedSize))
+                .putInt((int) (sizeOverflow ? UINT32_MAX : entry.size))
+                .putShort((short) entry.name.length)
+                .putShort((short) (zip64 ? extraLength + 4 : 0))
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(UNIX_FILE_ATTRIBUTES)
+                .putInt((int) (offsetOverflow ? UINT32_MAX : entry.offset));
+        writeHeader();
+        writeOut(entry.name, 0, entry.name.length);
+        if (zip64) {
+            header.clear();
+            header.putShort((short) ZIP64_EXTRA_ID).putShort((short) extraLength);
+            if (sizeOverflow) {
+                header.putLong(entry.size).putLong(entry.compressedSize);
+            }
+            if (offsetOverflow) {
+                header.putLong(entry.offset);
+            }
+            writeHeader();
+        }
+    }
+
+    private void deflate() throws IOException {
+        int length = deflater.deflate(deflateBuffer, 0, deflateBuffer.length, Deflater.NO_FLUSH);
+        if (length > 0) {
+            writeOut(deflateBuffer, 0, length);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        writeOut(header.array(), 0, header.position());
+    }
+
+    private void writeOut(byte[] buffer, int offset, int length) throws IOException {
+        output.write(buffer, offset, length);
+        written += length;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("压缩包已结束写入");
+        }
+    }
+
+    // 毫秒时间戳转为DOS日期时间，早于1980年的按1980-01-01处理
+    private static int toDosTime(long lastModified) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(lastModified), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return DOS_TIME_MIN;
+        }
+        return (Math.min(time.getYear(), 2107) - 1980) << 25
+                | time.getMonthValue() << 21
+                | time.getDayOfMonth() << 16
+                | time.getHour() << 11
+                | time.getMinute() << 5
+                | time.getSecond() >> 1;
+    }
+
+    /**
+     * 中央目录中的条目信息
+     */
+    private static class Entry {
+        private byte[] name;
+        private int dosTime;
+        private boolean stored;
+        private boolean zip64;
+        private long offset;
+        private long dataOffset;
+        private int crc;
+        private long size;
+        private long compressedSize;
+    }
+}
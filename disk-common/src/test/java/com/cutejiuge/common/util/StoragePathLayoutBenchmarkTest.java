@@ -0,0 +1,162 @@
+package com.cutejiuge.common.util;
+
+import com.cutejiuge.common.constants.FileConstants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 存储路径布局基准测试
+ * <p>
+ * 模拟一个重度用户在同一个月上传大量文件：按年月分目录时所有文件落在同一个目录下，按摘要前缀打散时分布在65536个目录中。
+ * 两种布局各创建同样数量的空文件，分别测量创建、随机查找（stat）和列出单个目录的耗时，用真实文件系统的表现决定是否切换布局。
+ * 打散后的路径由FileUtil.toHashedFilePath从按年月的路径换算，与线上迁移使用同一套规则。
+ * <p>
+ * 默认不随构建执行，需要时运行：mvn -pl disk-common test -Dbenchmark=true，
+ * 可以用 -Dbenchmark.path-layout.root=/data/easy-disk-bench 指定被测磁盘上的目录，-Dbenchmark.path-layout.file-count 指定文件数量（缺省100万）。
+ * 查找在创建之后进行，目录项大多在内核缓存中。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午11:10
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StoragePathLayoutBenchmarkTest {
+    // 默认文件数量
+    private static final int DEFAULT_FILE_COUNT = 1_000_000;
+    // 随机查找的次数
+    private static final int LOOKUP_COUNT = 100_000;
+    private static final long USER_ID = 1001L;
+
+    @TempDir
+    Path tempDir;
+
+    private final Random random = new Random(20261019L);
+
+    @Test
+    void compareLayouts(TestReporter reporter) throws IOException {
+        String rootPath = System.getProperty("benchmark.path-layout.root");
+        Path root = rootPath == null ? tempDir : Files.createDirectories(Paths.get(rootPath));
+        int fileCount = Integer.getInteger("benchmark.path-layout.file-count", DEFAULT_FILE_COUNT);
+        String[] datePaths = new String[fileCount];
+        String[] hashedPaths = new String[fileCount];
+        long baseTime = System.currentTimeMillis();
+        for (int i = 0; i < fileCount; i++) {
+            datePaths[i] = String.format("user-files/%d/2026/10/%d_%d.dat", USER_ID, baseTime + i / 1000, i);
+            hashedPaths[i] = FileUtil.toHashedFilePath(datePaths[i]);
+        }
+        reporter.publishEntry("文件数量", String.valueOf(fileCount));
+        LayoutResult date = measure(root, datePaths);
+        LayoutResult hashed = measure(root, hashedPaths);
+        date.publish(reporter, FileConstants.STORAGE_PATH_LAYOUT_DATE);
+        hashed.publish(reporter, FileConstants.STORAGE_PATH_LAYOUT_HASH);
+        // 按年月分目录时同一个月的文件都在一个目录下，打散后单个目录的文件数大幅减少
+        assertEquals(1, date.dirCount(), "按年月分目录的目录数不正确");
+        assertEquals(fileCount, date.largestDirEntries(), "按年月分目录的最大目录文件数不正确");
+        assertTrue(hashed.dirCount() > 1, "打散后的文件没有分布到多个目录");
+        assertTrue(hashed.largestDirEntries() < date.largestDirEntries(), "打散后的最大目录没有变小");
+    }
+
+    // ======================== 私有方法 ========================
+    private LayoutResult measure(Path root, String[] paths) throws IOException {
+        // 创建：父目录只在第一次出现时创建，计入该文件的耗时
+        long[] createNanos = new long[paths.length];
+        Set<Path> createdDirs = new HashSet<>();
+        long createStart = System.nanoTime();
+        for (int i = 0; i < paths.length; i++) {
+            Path file = root.resolve(paths[i]);
+            long start = System.nanoTime();
+            if (createdDirs.add(file.getParent())) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.createFile(file);
+            createNanos[i] = System.nanoTime() - start;
+        }
+        long createTotal = System.nanoTime() - createStart;
+        // 随机查找：一半查存在的文件，一半查不存在的文件，后者对应秒传和迁移时的探测
+        long[] lookupNanos = new long[LOOKUP_COUNT];
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            String path = paths[random.nextInt(paths.length)];
+            boolean expected = i % 2 == 0;
+            Path file = root.resolve(expected ? path : path + ".missing");
+            long start = System.nanoTime();
+            boolean exists = Files.exists(file);
+            if (exists) {
+                Files.readAttributes(file, BasicFileAttributes.class);
+            }
+            lookupNanos[i] = System.nanoTime() - start;
+            assertEquals(expected, exists, "查找结果不正确: " + file);
+        }
+        // 列出最大的目录
+        Path largestDir = createdDirs.stream().max(Comparator.comparingLong(this::countEntries)).orElseThrow();
+        long listStart = System.nanoTime();
+        long listed = countEntries(largestDir);
+        long listNanos = System.nanoTime() - listStart;
+        cleanup(root, paths[0]);
+        return new LayoutResult(createdDirs.size(), listed, TimeUnit.NANOSECONDS.toMillis(createTotal),
+                percentiles(createNanos), percentiles(lookupNanos), TimeUnit.NANOSECONDS.toMillis(listNanos));
+    }
+
+    private long countEntries(Path dir) {
+        long count = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path ignored : stream) {
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("列出目录失败: " + dir, e);
+        }
+        return count;
+    }
+
+    // 删除该布局的顶层目录
+    private void cleanup(Path root, String samplePath) throws IOException {
+        Path topDir = root.resolve(samplePath.substring(0, samplePath.indexOf('/')));
+        try (Stream<Path> walk = Files.walk(topDir)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static String percentiles(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return String.format("p50=%.1fus, p99=%.1fus, p999=%.1fus, max=%.1fus",
+                sorted[sorted.length / 2] / 1000.0, sorted[(int) (sorted.length * 0.99)] / 1000.0,
+                sorted[(int) (sorted.length * 0.999)] / 1000.0, sorted[sorted.length - 1] / 1000.0);
+    }
+
+    /**
+     * 一种布局的测量结果
+     */
+    private record LayoutResult(int dirCount, long largestDirEntries, long createTotalMillis, String createLatency,
+                                String lookupLatency, long listMillis) {
+
+        void publish(TestReporter reporter, String layout) {
+            reporter.publishEntry("[" + layout + "] 目录数", String.valueOf(dirCount));
+            reporter.publishEntry("[" + layout + "] 最大目录文件数", String.valueOf(largestDirEntries));
+            reporter.publishEntry("[" + layout + "] 创建", "总耗时=" + createTotalMillis + "ms, " + createLatency);
+            reporter.publishEntry("[" + layout + "] 查找", lookupLatency);
+            reporter.publishEntry("[" + layout + "] 列出最大目录", listMillis + "ms");
+        }
+    }
+}
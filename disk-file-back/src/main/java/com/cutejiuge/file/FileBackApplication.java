@@ -0,0 +1,30 @@
+package com.cutejiuge.file;
+
+import org.apache.dubbo.config.spring.context.annotation.EnableDubbo;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * 文件服务启动类
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:10
+ */
+@SpringBootApplication(scanBasePackages = {
+        "com.cutejiuge.file",
+        "com.cutejiuge.common"
+})
+@EnableDiscoveryClient
+@EnableDubbo
+@MapperScan("com.cutejiuge.file.mapper")
+@EnableTransactionManagement
+@EnableScheduling
+public class FileBackApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(FileBackApplication.class, args);
+    }
+}
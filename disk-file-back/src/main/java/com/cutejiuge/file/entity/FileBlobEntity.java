@@ -0,0 +1,75 @@
+package com.cutejiuge.file.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * <p>
+ * 物理文件表，按sha256去重，多个用户文件通过引用计数共享同一个物理文件
+ * </p>
+ *
+ * @author cutejiuge
+ * @since 2026-10-17 14:15:32
+ */
+@Getter
+@Setter
+@TableName("tb_file_blob")
+public class FileBlobEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 物理文件ID
+     */
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
+    private Long id;
+
+    /**
+     * 文件sha256(唯一索引)
+     */
+    @TableField("sha256")
+    private String sha256;
+
+    /**
+     * 文件大小(字节)
+     */
+    @TableField("file_size")
+    private Long fileSize;
+
+    /**
+     * 存储路径(相对存储根目录)
+     */
+    @TableField("storage_path")
+    private String storagePath;
+
+    /**
+     * 存储方式，1-完整文件 2-CDC块清单 3-分块压缩文件
+     */
+    @TableField("storage_type")
+    private Integer storageType;
+
+    /**
+     * 引用计数
+     */
+    @TableField("ref_count")
+    private Integer refCount;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,63 @@
+package com.cutejiuge.file.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * <p>
+ * CDC块索引表，按块sha256去重，多个块清单通过引用计数共享同一个块
+ * </p>
+ *
+ * @author cutejiuge
+ * @since 2026-10-18 09:52:10
+ */
+@Getter
+@Setter
+@TableName("tb_file_chunk")
+public class FileChunkEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 块ID
+     */
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
+    private Long id;
+
+    /**
+     * 块sha256(唯一索引)
+     */
+    @TableField("sha256")
+    private String sha256;
+
+    /**
+     * 块大小(字节)
+     */
+    @TableField("chunk_size")
+    private Integer chunkSize;
+
+    /**
+     * 引用计数，一个块清单中重复出现的块按出现次数计
+     */
+    @TableField("ref_count")
+    private Integer refCount;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
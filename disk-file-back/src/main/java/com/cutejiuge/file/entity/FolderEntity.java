@@ -0,0 +1,103 @@
+package com.cutejiuge.file.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableLogic;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * <p>
+ * 文件夹表，path为物化路径，(user_id, path)上有索引，子树查询是一次前缀范围扫描；
+ * (user_id, parent_id, folder_name, name_unique_flag)上有唯一索引，name_unique_flag是未删除时为1、删除后为NULL的生成列，
+ * 只约束未删除的文件夹重名，见 sql/tb_folder_unique_name.sql
+ * </p>
+ *
+ * @author cutejiuge
+ * @since 2026-10-19 09:10:24
+ */
+@Getter
+@Setter
+@TableName("tb_folder")
+public class FolderEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 文件夹ID
+     */
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
+    private Long id;
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 父文件夹ID，0为根目录
+     */
+    @TableField("parent_id")
+    private Long parentId;
+
+    /**
+     * 文件夹名称
+     */
+    @TableField("folder_name")
+    private String folderName;
+
+    /**
+     * 物化路径，祖先和自身的ID依次以"/"连接，例如 /12/34/
+     */
+    @TableField("path")
+    private String path;
+
+    /**
+     * 层级，根目录下的文件夹为1
+     */
+    @TableField("depth")
+    private Integer depth;
+
+    /**
+     * 子树内的文件数
+     */
+    @TableField("file_count")
+    private Long fileCount;
+
+    /**
+     * 子树内的文件总大小(字节)
+     */
+    @TableField("total_size")
+    private Long totalSize;
+
+    /**
+     * 回收站记录ID，删除时与deleted_at一起写入，同一次删除的子树共用一个ID，还原和清理按它批量处理
+     */
+    @TableField("recycle_id")
+    private Long recycleId;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+
+    /**
+     * 删除时间
+     */
+    @TableField("deleted_at")
+    @TableLogic(value = "null", delval = "now()")
+    private LocalDateTime deletedAt;
+}
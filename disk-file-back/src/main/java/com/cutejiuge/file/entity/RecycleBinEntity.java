@@ -0,0 +1,99 @@
+package com.cutejiuge.file.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * <p>
+ * 回收站表，每次删除一条记录，删除文件夹时整棵子树共用一条记录；还原或清理完成后物理删除，不使用逻辑删除
+ * </p>
+ *
+ * @author cutejiuge
+ * @since 2026-10-19 14:05:36
+ */
+@Getter
+@Setter
+@TableName("tb_recycle_bin")
+public class RecycleBinEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 回收站记录ID
+     */
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
+    private Long id;
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 项目类型，1-文件 2-文件夹
+     */
+    @TableField("item_type")
+    private Integer itemType;
+
+    /**
+     * 被删除的文件或文件夹ID
+     */
+    @TableField("item_id")
+    private Long itemId;
+
+    /**
+     * 被删除的文件或文件夹名称
+     */
+    @TableField("item_name")
+    private String itemName;
+
+    /**
+     * 删除前所在的文件夹ID，还原时优先还原到这里
+     */
+    @TableField("parent_id")
+    private Long parentId;
+
+    /**
+     * 包含的文件数
+     */
+    @TableField("file_count")
+    private Long fileCount;
+
+    /**
+     * 包含的文件总大小(字节)
+     */
+    @TableField("total_size")
+    private Long totalSize;
+
+    /**
+     * 状态，1-可还原 2-正在清理
+     */
+    @TableField("status")
+    private Integer status;
+
+    /**
+     * 过期时间，过期后由后台任务清理，(expire_at, id)上有索引
+     */
+    @TableField("expire_at")
+    private LocalDateTime expireAt;
+
+    /**
+     * 删除时间
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,105 @@
+package com.cutejiuge.file.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * <p>
+ * 分享表，share_code上有唯一索引，(user_id, id)上有索引
+ * </p>
+ *
+ * @author cutejiuge
+ * @since 2026-10-19 19:02:14
+ */
+@Getter
+@Setter
+@TableName("tb_share")
+public class ShareEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 分享ID
+     */
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
+    private Long id;
+
+    /**
+     * 分享码，由分享ID置换生成
+     */
+    @TableField("share_code")
+    private String shareCode;
+
+    /**
+     * 分享者用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 分享项目类型，1-文件 2-文件夹
+     */
+    @TableField("item_type")
+    private Integer itemType;
+
+    /**
+     * 分享的文件或文件夹ID
+     */
+    @TableField("item_id")
+    private Long itemId;
+
+    /**
+     * 分享时的文件或文件夹名称
+     */
+    @TableField("item_name")
+    private String itemName;
+
+    /**
+     * 分享时的文件大小或文件夹总大小(字节)
+     */
+    @TableField("item_size")
+    private Long itemSize;
+
+    /**
+     * 提取码，为空表示公开分享
+     */
+    @TableField("extract_code")
+    private String extractCode;
+
+    /**
+     * 过期时间，为空表示永久有效
+     */
+    @TableField("expire_at")
+    private LocalDateTime expireAt;
+
+    /**
+     * 状态，1-有效 2-已取消
+     */
+    @TableField("status")
+    private Integer status;
+
+    /**
+     * 访问次数，由访问计数定时批量写回
+     */
+    @TableField("view_count")
+    private Long viewCount;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
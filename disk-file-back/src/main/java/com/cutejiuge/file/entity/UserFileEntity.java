@@ -0,0 +1,101 @@
+package com.cutejiuge.file.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableLogic;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * <p>
+ * 用户文件表
+ * </p>
+ *
+ * @author cutejiuge
+ * @since 2026-10-17 14:15:32
+ */
+@Getter
+@Setter
+@TableName("tb_user_file")
+public class UserFileEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 文件ID
+     */
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
+    private Long id;
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 所在文件夹ID，0为根目录
+     */
+    @TableField("folder_id")
+    private Long folderId;
+
+    /**
+     * 所在文件夹的物化路径，(user_id, folder_path)上有索引，与文件夹表一起支持子树范围扫描
+     */
+    @TableField("folder_path")
+    private String folderPath;
+
+    /**
+     * 物理文件ID
+     */
+    @TableField("blob_id")
+    private Long blobId;
+
+    /**
+     * 文件名
+     */
+    @TableField("file_name")
+    private String fileName;
+
+    /**
+     * 文件大小(字节)
+     */
+    @TableField("file_size")
+    private Long fileSize;
+
+    /**
+     * 文件sha256
+     */
+    @TableField("file_sha256")
+    private String fileSha256;
+
+    /**
+     * 回收站记录ID，删除时与deleted_at一起写入，同一次删除的子树共用一个ID，还原和清理按它批量处理
+     */
+    @TableField("recycle_id")
+    private Long recycleId;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "created_at", fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+
+    /**
+     * 删除时间
+     */
+    @TableField("deleted_at")
+    @TableLogic(value = "null", delval = "now()")
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,18 @@
+package com.cutejiuge.file.mapper;
+
+import com.cutejiuge.file.entity.FileBlobEntity;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * <p>
+ * 物理文件表 Mapper 接口
+ * </p>
+ *
+ * @author cutejiuge
+ * @since 2026-10-17 14:15:32
+ */
+@Mapper
+public interface FileBlobMapper extends BaseMapper<FileBlobEntity> {
+
+}
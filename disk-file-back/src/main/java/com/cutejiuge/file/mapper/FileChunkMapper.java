@@ -0,0 +1,33 @@
+package com.cutejiuge.file.mapper;
+
+import com.cutejiuge.file.entity.FileChunkEntity;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * <p>
+ * CDC块索引表 Mapper 接口
+ * </p>
+ *
+ * @author cutejiuge
+ * @since 2026-10-18 09:52:10
+ */
+@Mapper
+public interface FileChunkMapper extends BaseMapper<FileChunkEntity> {
+
+    /**
+     * 批量登记块，块已存在时累加引用计数
+     */
+    @Insert("<script>" +
+            "INSERT INTO tb_file_chunk (id, sha256, chunk_size, ref_count, created_at, updated_at) VALUES " +
+            "<foreach collection='chunks' item='item' separator=','>" +
+            "(#{item.id}, #{item.sha256}, #{item.chunkSize}, #{item.refCount}, now(), now())" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + VALUES(ref_count), updated_at = now()" +
+            "</script>")
+    int upsertBatch(@Param("chunks") List<FileChunkEntity> chunks);
+}
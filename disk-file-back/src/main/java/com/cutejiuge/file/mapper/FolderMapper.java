@@ -0,0 +1,42 @@
+package com.cutejiuge.file.mapper;
+
+import com.cutejiuge.file.entity.FolderEntity;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 文件夹表 Mapper 接口
+ * </p>
+ *
+ * @author cutejiuge
+ * @since 2026-10-19 09:10:24
+ */
+@Mapper
+public interface FolderMapper extends BaseMapper<FolderEntity> {
+    /**
+     * 查询已删除的记录，自定义语句不会追加逻辑删除条件
+     */
+    @Select("SELECT * FROM tb_folder ${ew.customSqlSegment}")
+    List<FolderEntity> selectRecycled(@Param(Constants.WRAPPER) Wrapper<FolderEntity> wrapper);
+
+    /**
+     * 修改已删除的记录，用于还原
+     */
+    @Update("UPDATE tb_folder SET ${ew.sqlSet} ${ew.customSqlSegment}")
+    int updateRecycled(@Param(Constants.WRAPPER) Wrapper<FolderEntity> wrapper);
+
+    /**
+     * 物理删除记录，用于清理回收站
+     */
+    @Delete("DELETE FROM tb_folder ${ew.customSqlSegment}")
+    int purge(@Param(Constants.WRAPPER) Wrapper<FolderEntity> wrapper);
+}
@@ -0,0 +1,18 @@
+package com.cutejiuge.file.mapper;
+
+import com.cutejiuge.file.entity.RecycleBinEntity;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * <p>
+ * 回收站表 Mapper 接口
+ * </p>
+ *
+ * @author cutejiuge
+ * @since 2026-10-19 14:05:36
+ */
+@Mapper
+public interface RecycleBinMapper extends BaseMapper<RecycleBinEntity> {
+
+}
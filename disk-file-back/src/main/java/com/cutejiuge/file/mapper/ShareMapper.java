@@ -0,0 +1,18 @@
+package com.cutejiuge.file.mapper;
+
+import com.cutejiuge.file.entity.ShareEntity;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * <p>
+ * 分享表 Mapper 接口
+ * </p>
+ *
+ * @author cutejiuge
+ * @since 2026-10-19 19:02:14
+ */
+@Mapper
+public interface ShareMapper extends BaseMapper<ShareEntity> {
+
+}
@@ -0,0 +1,42 @@
+package com.cutejiuge.file.mapper;
+
+import com.cutejiuge.file.entity.UserFileEntity;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 用户文件表 Mapper 接口
+ * </p>
+ *
+ * @author cutejiuge
+ * @since 2026-10-17 14:15:32
+ */
+@Mapper
+public interface UserFileMapper extends BaseMapper<UserFileEntity> {
+    /**
+     * 查询已删除的记录，自定义语句不会追加逻辑删除条件
+     */
+    @Select("SELECT * FROM tb_user_file ${ew.customSqlSegment}")
+    List<UserFileEntity> selectRecycled(@Param(Constants.WRAPPER) Wrapper<UserFileEntity> wrapper);
+
+    /**
+     * 修改已删除的记录，用于还原
+     */
+    @Update("UPDATE tb_user_file SET ${ew.sqlSet} ${ew.customSqlSegment}")
+    int updateRecycled(@Param(Constants.WRAPPER) Wrapper<UserFileEntity> wrapper);
+
+    /**
+     * 物理删除记录，用于清理回收站
+     */
+    @Delete("DELETE FROM tb_user_file ${ew.customSqlSegment}")
+    int purge(@Param(Constants.WRAPPER) Wrapper<UserFileEntity> wrapper);
+}
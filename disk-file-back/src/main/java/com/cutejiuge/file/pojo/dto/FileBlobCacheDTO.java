@@ -0,0 +1,51 @@
+package com.cutejiuge.file.pojo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * sha256索引缓存，只缓存物理文件不可变的信息，引用计数以数据库为准
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:40
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class FileBlobCacheDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -4823091757612098841L;
+
+    /**
+     * 物理文件ID
+     */
+    private Long blobId;
+
+    /**
+     * 文件sha256
+     */
+    private String sha256;
+
+    /**
+     * 文件大小(字节)
+     */
+    private Long fileSize;
+
+    /**
+     * 存储路径(相对存储根目录)
+     */
+    private String storagePath;
+
+    /**
+     * 存储方式，1-完整文件 2-CDC块清单 3-分块压缩文件
+     */
+    private Integer storageType;
+}
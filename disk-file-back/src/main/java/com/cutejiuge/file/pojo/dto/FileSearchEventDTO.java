@@ -0,0 +1,41 @@
+package com.cutejiuge.file.pojo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 文件名索引的变更事件，按用户追加到redis中，各实例查询前按序号补齐
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 上午9:50
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class FileSearchEventDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 3176041823957116420L;
+
+    /**
+     * 事件类型，UPSERT-加入或改名 REMOVE-删除 RELOAD-批量变化，需要重建
+     */
+    private String op;
+
+    /**
+     * 文件ID
+     */
+    private Long fileId;
+
+    /**
+     * 文件名
+     */
+    private String fileName;
+}
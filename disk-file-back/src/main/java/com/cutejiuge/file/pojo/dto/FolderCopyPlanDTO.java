@@ -0,0 +1,62 @@
+package com.cutejiuge.file.pojo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 文件夹复制计划，文件夹结构复制完成后由复制任务按它分批复制文件
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午4:20
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class FolderCopyPlanDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -5120984376612098342L;
+
+    /**
+     * 源文件所属的用户ID
+     */
+    private Long sourceUserId;
+
+    /**
+     * 复制到的用户ID
+     */
+    private Long targetUserId;
+
+    /**
+     * 复制得到的文件夹ID
+     */
+    private Long folderId;
+
+    /**
+     * 复制得到的文件夹名称
+     */
+    private String folderName;
+
+    /**
+     * 源文件夹ID到复制得到的文件夹ID，父文件夹在前
+     */
+    private Map<Long, Long> folderIdMap;
+
+    /**
+     * 源文件夹子树内的文件数
+     */
+    private Long totalFiles;
+
+    /**
+     * 源文件夹子树内的文件总大小(字节)
+     */
+    private Long totalSize;
+}
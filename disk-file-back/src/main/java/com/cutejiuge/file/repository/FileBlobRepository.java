@@ -0,0 +1,74 @@
+package com.cutejiuge.file.repository;
+
+import com.cutejiuge.file.entity.FileBlobEntity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 物理文件仓储层接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:32
+ */
+public interface FileBlobRepository {
+    /**
+     * 根据ID查询物理文件
+     */
+    FileBlobEntity getById(Long blobId);
+
+    /**
+     * 根据ID批量查询物理文件
+     */
+    List<FileBlobEntity> listByIds(Collection<Long> blobIds);
+
+    /**
+     * 根据sha256查询物理文件
+     */
+    FileBlobEntity getBySha256(String sha256);
+
+    /**
+     * 保存物理文件
+     */
+    void save(FileBlobEntity entity);
+
+    /**
+     * 原子增加引用计数
+     *
+     * @return 物理文件不存在时返回false
+     */
+    boolean increaseRefCount(Long blobId);
+
+    /**
+     * 一条语句增加多个物理文件的引用计数
+     *
+     * @param countsByBlobId 物理文件ID到增加数量的映射
+     * @return 更新的物理文件数
+     */
+    int increaseRefCounts(Map<Long, Integer> countsByBlobId);
+
+    /**
+     * 原子减少引用计数，计数不会小于0
+     *
+     * @return 物理文件不存在或计数已为0时返回false
+     */
+    boolean decreaseRefCount(Long blobId);
+
+    /**
+     * 原子减少多个引用计数，计数不会小于0，清理回收站时按批释放引用
+     *
+     * @return 物理文件不存在时返回false
+     */
+    boolean decreaseRefCount(Long blobId, int count);
+
+    /**
+     * 按ID顺序查询ID大于afterId的一批物理文件，用于后台逐个校验
+     */
+    List<FileBlobEntity> listAfter(Long afterId, int limit);
+
+    /**
+     * 存储路径仍为oldPath时改为newPath，返回是否修改成功
+     */
+    boolean updateStoragePath(Long blobId, String oldPath, String newPath);
+}
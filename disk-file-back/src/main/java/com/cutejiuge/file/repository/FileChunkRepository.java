@@ -0,0 +1,18 @@
+package com.cutejiuge.file.repository;
+
+import com.cutejiuge.iface.dto.file.ChunkRefDTO;
+
+import java.util.List;
+
+/**
+ * CDC块索引仓储层接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 上午9:55
+ */
+public interface FileChunkRepository {
+    /**
+     * 登记块清单引用的块，块已存在时按出现次数累加引用计数
+     */
+    void increaseRefCounts(List<ChunkRefDTO> chunkRefs);
+}
@@ -0,0 +1,122 @@
+package com.cutejiuge.file.repository;
+
+import com.cutejiuge.file.entity.FolderEntity;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 文件夹仓储层接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午9:15
+ */
+public interface FolderRepository {
+    /**
+     * 查询用户的文件夹
+     */
+    FolderEntity getUserFolder(Long userId, Long folderId);
+
+    /**
+     * 查询用户的文件夹并加排他锁，移动文件夹时使用，需要在事务中调用
+     */
+    FolderEntity getUserFolderForUpdate(Long userId, Long folderId);
+
+    /**
+     * 查询用户的文件夹并加共享锁，向文件夹中添加内容时使用，保证路径在事务提交前不被移动改写，需要在事务中调用
+     */
+    FolderEntity getUserFolderForShare(Long userId, Long folderId);
+
+    /**
+     * 批量查询用户的文件夹并加共享锁，按ID顺序加锁，批量向多个文件夹添加内容时使用，需要在事务中调用
+     */
+    List<FolderEntity> listUserFoldersForShare(Long userId, Collection<Long> folderIds);
+
+    /**
+     * 同一父目录下是否已存在同名文件夹
+     */
+    boolean existsFolderName(Long userId, Long parentId, String folderName);
+
+    /**
+     * 保存文件夹
+     */
+    void save(FolderEntity entity);
+
+    /**
+     * 批量保存文件夹
+     */
+    void saveBatch(List<FolderEntity> entities);
+
+    /**
+     * 重命名文件夹
+     */
+    boolean rename(Long folderId, String folderName);
+
+    /**
+     * 修改父文件夹，路径由rewritePathPrefix改写
+     */
+    boolean updateParent(Long folderId, Long parentId);
+
+    /**
+     * 查询直接子文件夹
+     */
+    List<FolderEntity> listChildren(Long userId, Long parentId);
+
+    /**
+     * 查询以path为前缀的整棵子树（包含自身），按路径排序，父文件夹总在子文件夹之前
+     */
+    List<FolderEntity> listSubtree(Long userId, String path);
+
+    /**
+     * 子树内的最大层级
+     */
+    int getMaxDepth(Long userId, String path);
+
+    /**
+     * 把子树内所有文件夹路径的前缀oldPrefix替换为newPrefix，层级同时调整depthDelta
+     *
+     * @return 改写的文件夹数
+     */
+    int rewritePathPrefix(Long userId, String oldPrefix, String newPrefix, int depthDelta);
+
+    /**
+     * 原子调整文件夹的子树计数器
+     */
+    void addCounters(Collection<Long> folderIds, long fileCountDelta, long sizeDelta);
+
+    /**
+     * 把路径以path为前缀的整棵子树放入回收站
+     *
+     * @return 放入回收站的文件夹数
+     */
+    int recycleSubtree(Long userId, String path, Long recycleId);
+
+    /**
+     * 查询回收站中的文件夹
+     */
+    FolderEntity getRecycledFolder(Long userId, Long folderId, Long recycleId);
+
+    /**
+     * 回收站记录下子树的最大层级
+     */
+    int getRecycledMaxDepth(Long recycleId);
+
+    /**
+     * 还原同一回收站记录下的全部文件夹，同时把路径前缀oldPrefix替换为newPrefix
+     *
+     * @return 还原的文件夹数
+     */
+    int restoreRecycledSubtree(Long userId, Long recycleId, String oldPrefix, String newPrefix, int depthDelta);
+
+    /**
+     * 按ID顺序查询回收站记录下ID大于afterId的一批文件夹并加排他锁，需要在事务中调用
+     */
+    List<FolderEntity> listRecycledForUpdate(Long recycleId, Long afterId, int limit);
+
+    /**
+     * 物理删除回收站记录下的文件夹
+     *
+     * @return 删除的文件夹数
+     */
+    int purgeFolders(Long recycleId, Collection<Long> folderIds);
+}
@@ -0,0 +1,62 @@
+package com.cutejiuge.file.repository;
+
+import com.cutejiuge.file.entity.RecycleBinEntity;
+
+import java.util.List;
+
+/**
+ * 回收站仓储层接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午2:15
+ */
+public interface RecycleBinRepository {
+    /**
+     * 保存回收站记录
+     */
+    void save(RecycleBinEntity entity);
+
+    /**
+     * 批量保存回收站记录
+     */
+    void saveBatch(List<RecycleBinEntity> entities);
+
+    /**
+     * 查询用户可还原的回收站记录并加排他锁，需要在事务中调用
+     */
+    RecycleBinEntity getUserItemForUpdate(Long userId, Long recycleId);
+
+    /**
+     * 按删除时间倒序查询用户可还原的回收站记录，beforeId为上一页最后一条记录的ID，第一页传null
+     */
+    List<RecycleBinEntity> listUserItems(Long userId, Long beforeId, int limit);
+
+    /**
+     * 按ID顺序查询ID大于afterId的一批已过期记录，包括上次没有清理完的记录
+     */
+    List<RecycleBinEntity> listExpired(Long afterId, int limit);
+
+    /**
+     * 把记录标记为正在清理，之后不能再还原
+     *
+     * @return 记录不存在或已在清理时返回false
+     */
+    boolean markPurging(Long recycleId);
+
+    /**
+     * 让用户的一条记录立即过期，由后台任务清理
+     */
+    boolean expireUserItem(Long userId, Long recycleId);
+
+    /**
+     * 让用户的全部记录立即过期，由后台任务清理
+     *
+     * @return 过期的记录数
+     */
+    int expireUserItems(Long userId);
+
+    /**
+     * 删除回收站记录
+     */
+    void delete(Long recycleId);
+}
@@ -0,0 +1,48 @@
+package com.cutejiuge.file.repository;
+
+import com.cutejiuge.file.entity.ShareEntity;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分享仓储层接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午7:20
+ */
+public interface ShareRepository {
+    /**
+     * 保存分享记录
+     */
+    void save(ShareEntity entity);
+
+    /**
+     * 按分享码查询分享记录，包括已取消的记录
+     */
+    ShareEntity getByShareCode(String shareCode);
+
+    /**
+     * 查询用户的分享记录
+     */
+    ShareEntity getUserShare(Long userId, Long shareId);
+
+    /**
+     * 按创建时间倒序查询用户有效的分享，beforeId为上一页最后一条记录的ID，第一页传null
+     */
+    List<ShareEntity> listUserShares(Long userId, Long beforeId, int limit);
+
+    /**
+     * 取消分享
+     *
+     * @return 记录不存在或已取消时返回false
+     */
+    boolean cancel(Long userId, Long shareId);
+
+    /**
+     * 批量累加访问次数，key为分享ID，value为增量
+     *
+     * @return 更新的记录数
+     */
+    int batchIncrementViewCount(Map<Long, Long> viewCountDeltaMap);
+}
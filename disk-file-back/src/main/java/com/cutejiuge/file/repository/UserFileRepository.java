@@ -0,0 +1,155 @@
+package com.cutejiuge.file.repository;
+
+import com.cutejiuge.file.entity.UserFileEntity;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 用户文件仓储层接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:36
+ */
+public interface UserFileRepository {
+    /**
+     * 保存用户文件
+     */
+    void save(UserFileEntity entity);
+
+    /**
+     * 查询用户的文件
+     */
+    UserFileEntity getUserFile(Long userId, Long fileId);
+
+    /**
+     * 批量查询用户的文件，不存在或不属于该用户的文件不在结果中
+     */
+    List<UserFileEntity> listUserFiles(Long userId, List<Long> fileIds);
+
+    /**
+     * 查询用户的文件并加排他锁，移动文件时使用，需要在事务中调用
+     */
+    UserFileEntity getUserFileForUpdate(Long userId, Long fileId);
+
+    /**
+     * 批量查询用户的文件并加排他锁，按ID顺序加锁，批量操作时使用，需要在事务中调用
+     */
+    List<UserFileEntity> listUserFilesForUpdate(Long userId, Collection<Long> fileIds);
+
+    /**
+     * 按ID顺序查询文件夹下ID大于afterId的一批文件，复制文件夹时分页读取
+     */
+    List<UserFileEntity> listFolderFilesAfter(Long userId, Long folderId, Long afterId, int limit);
+
+    /**
+     * 查询文件夹下的直接子文件
+     */
+    List<UserFileEntity> listFolderFiles(Long userId, Long folderId);
+
+    /**
+     * 文件夹下是否已存在同名文件
+     */
+    boolean existsFileName(Long userId, Long folderId, String fileName);
+
+    /**
+     * 查询所在文件夹路径以path为前缀的全部文件
+     */
+    List<UserFileEntity> listSubtreeFiles(Long userId, String path);
+
+    /**
+     * 把子树内所有文件的所在文件夹路径前缀oldPrefix替换为newPrefix
+     *
+     * @return 改写的文件数
+     */
+    int rewriteFolderPathPrefix(Long userId, String oldPrefix, String newPrefix);
+
+    /**
+     * 修改文件所在的文件夹
+     */
+    boolean updateFolder(Long fileId, Long folderId, String folderPath);
+
+    /**
+     * 批量修改文件所在的文件夹
+     *
+     * @return 修改的文件数
+     */
+    int updateFolder(Collection<Long> fileIds, Long folderId, String folderPath);
+
+    /**
+     * 批量保存用户文件
+     */
+    void saveBatch(List<UserFileEntity> entities);
+
+    /**
+     * 修改文件名
+     */
+    boolean rename(Long fileId, String fileName);
+
+    /**
+     * 把文件换成新的物理文件，同时更新大小、sha256和修改时间
+     */
+    boolean updateContent(Long fileId, Long blobId, Long fileSize, String fileSha256, LocalDateTime updatedAt);
+
+    /**
+     * 逐行读取用户全部未删除文件的ID和文件名，用于重建文件名索引，不构造完整的结果列表
+     */
+    void scanFileNames(Long userId, Consumer<UserFileEntity> consumer);
+
+    /**
+     * 把文件放入回收站，写入删除时间和回收站记录ID
+     */
+    boolean recycleFile(Long fileId, Long recycleId);
+
+    /**
+     * 把多个文件放入回收站，每个文件写入各自的回收站记录ID
+     *
+     * @param recycleIdsByFileId 文件ID到回收站记录ID的映射
+     * @return 放入回收站的文件数
+     */
+    int recycleFiles(Map<Long, Long> recycleIdsByFileId);
+
+    /**
+     * 把所在文件夹路径以path为前缀的全部文件放入回收站
+     *
+     * @return 放入回收站的文件数
+     */
+    int recycleSubtreeFiles(Long userId, String path, Long recycleId);
+
+    /**
+     * 查询回收站中的文件
+     */
+    UserFileEntity getRecycledFile(Long userId, Long fileId, Long recycleId);
+
+    /**
+     * 还原回收站中的单个文件到指定文件夹，与同名文件冲突时同时改名
+     */
+    boolean restoreRecycledFile(Long fileId, Long recycleId, Long folderId, String folderPath, String fileName);
+
+    /**
+     * 还原同一回收站记录下的全部文件，同时把所在文件夹路径前缀oldPrefix替换为newPrefix
+     *
+     * @return 还原的文件数
+     */
+    int restoreRecycledFiles(Long userId, Long recycleId, String oldPrefix, String newPrefix);
+
+    /**
+     * 按ID顺序查询回收站记录下ID大于afterId的一批文件并加排他锁，需要在事务中调用
+     */
+    List<UserFileEntity> listRecycledFilesForUpdate(Long recycleId, Long afterId, int limit);
+
+    /**
+     * 物理删除回收站记录下的文件
+     *
+     * @return 删除的文件数
+     */
+    int purgeFiles(Long recycleId, Collection<Long> fileIds);
+
+    /**
+     * 按用户统计未删除文件的总大小
+     */
+    Map<Long, Long> sumFileSizeByUserIds(List<Long> userIds);
+}
@@ -0,0 +1,137 @@
+package com.cutejiuge.file.repository.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cutejiuge.file.entity.FileBlobEntity;
+import com.cutejiuge.file.mapper.FileBlobMapper;
+import com.cutejiuge.file.repository.FileBlobRepository;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 物理文件仓储层实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:34
+ */
+@Repository
+public class FileBlobRepositoryImpl implements FileBlobRepository {
+    @Resource
+    private FileBlobMapper fileBlobMapper;
+
+    /**
+     * 根据ID查询物理文件
+     */
+    @Override
+    public FileBlobEntity getById(Long blobId) {
+        return fileBlobMapper.selectById(blobId);
+    }
+
+    /**
+     * 根据ID批量查询物理文件
+     */
+    @Override
+    public List<FileBlobEntity> listByIds(Collection<Long> blobIds) {
+        return fileBlobMapper.selectByIds(blobIds);
+    }
+
+    /**
+     * 根据sha256查询物理文件
+     */
+    @Override
+    public FileBlobEntity getBySha256(String sha256) {
+        LambdaQueryWrapper<FileBlobEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(FileBlobEntity::getSha256, sha256);
+        return fileBlobMapper.selectOne(queryWrapper);
+    }
+
+    /**
+     * 保存物理文件
+     */
+    @Override
+    public void save(FileBlobEntity entity) {
+        fileBlobMapper.insert(entity);
+    }
+
+    /**
+     * 原子增加引用计数，计数在数据库内自增，不需要先查后改
+     */
+    @Override
+    public boolean increaseRefCount(Long blobId) {
+        LambdaUpdateWrapper<FileBlobEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql("ref_count = ref_count + 1")
+                .eq(FileBlobEntity::getId, blobId);
+        return fileBlobMapper.update(updateWrapper) > 0;
+    }
+
+    /**
+     * 一条CASE WHEN语句累加引用计数，按物理文件ID顺序拼接，与其他批量更新的加锁顺序一致
+     */
+    @Override
+    public int increaseRefCounts(Map<Long, Integer> countsByBlobId) {
+        if (countsByBlobId.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Integer> sortedCounts = new TreeMap<>(countsByBlobId);
+        StringBuilder caseSql = new StringBuilder("ref_count = ref_count + CASE id");
+        sortedCounts.forEach((blobId, count) ->
+                caseSql.append(" WHEN ").append(blobId.longValue()).append(" THEN ").append(count.intValue()));
+        caseSql.append(" ELSE 0 END");
+        LambdaUpdateWrapper<FileBlobEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql(caseSql.toString())
+                .in(FileBlobEntity::getId, sortedCounts.keySet());
+        return fileBlobMapper.update(updateWrapper);
+    }
+
+    /**
+     * 原子减少引用计数，计数不会小于0
+     */
+    @Override
+    public boolean decreaseRefCount(Long blobId) {
+        LambdaUpdateWrapper<FileBlobEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql("ref_count = ref_count - 1")
+                .eq(FileBlobEntity::getId, blobId)
+                .gt(FileBlobEntity::getRefCount, 0);
+        return fileBlobMapper.update(updateWrapper) > 0;
+    }
+
+    /**
+     * 原子减少多个引用计数，计数不会小于0
+     */
+    @Override
+    public boolean decreaseRefCount(Long blobId, int count) {
+        LambdaUpdateWrapper<FileBlobEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql("ref_count = GREATEST(ref_count - {0}, 0)", count)
+                .eq(FileBlobEntity::getId, blobId);
+        return fileBlobMapper.update(updateWrapper) > 0;
+    }
+
+    /**
+     * 按主键做键集分页
+     */
+    @Override
+    public List<FileBlobEntity> listAfter(Long afterId, int limit) {
+        LambdaQueryWrapper<FileBlobEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.gt(FileBlobEntity::getId, afterId)
+                .orderByAsc(FileBlobEntity::getId)
+                .last("LIMIT " + limit);
+        return fileBlobMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 以旧路径为条件更新存储路径，物理文件已被删除或路径已被修改时不更新
+     */
+    @Override
+    public boolean updateStoragePath(Long blobId, String oldPath, String newPath) {
+        LambdaUpdateWrapper<FileBlobEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.set(FileBlobEntity::getStoragePath, newPath)
+                .eq(FileBlobEntity::getId, blobId)
+                .eq(FileBlobEntity::getStoragePath, oldPath);
+        return fileBlobMapper.update(updateWrapper) > 0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.cutejiuge.file.repository.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.cutejiuge.file.entity.FileChunkEntity;
+import com.cutejiuge.file.mapper.FileChunkMapper;
+import com.cutejiuge.file.repository.FileChunkRepository;
+import com.cutejiuge.iface.dto.file.ChunkRefDTO;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CDC块索引仓储层实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 上午9:57
+ */
+@Repository
+public class FileChunkRepositoryImpl implements FileChunkRepository {
+    // 单条批量语句的最大行数
+    private static final int BATCH_SIZE = 500;
+
+    @Resource
+    private FileChunkMapper fileChunkMapper;
+
+    /**
+     * 登记块清单引用的块，同一清单内的重复块先合并计数，再按sha256排序分批upsert，
+     * 固定的加锁顺序避免并发登记时唯一索引上的死锁
+     */
+    @Override
+    public void increaseRefCounts(List<ChunkRefDTO> chunkRefs) {
+        if (CollUtil.isEmpty(chunkRefs)) {
+            return;
+        }
+        Map<String, FileChunkEntity> merged = new TreeMap<>();
+        for (ChunkRefDTO ref : chunkRefs) {
+            FileChunkEntity chunk = merged.computeIfAbsent(ref.getSha256(), sha256 -> {
+                FileChunkEntity entity = new FileChunkEntity();
+                entity.setId(IdWorker.getId());
+                entity.setSha256(sha256);
+                entity.setChunkSize(ref.getSize());
+                entity.setRefCount(0);
+                return entity;
+            });
+            chunk.setRefCount(chunk.getRefCount() + 1);
+        }
+        List<FileChunkEntity> chunks = new ArrayList<>(merged.values());
+        for (List<FileChunkEntity> batch : CollUtil.split(chunks, BATCH_SIZE)) {
+            fileChunkMapper.upsertBatch(batch);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.cutejiuge.file.repository.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cutejiuge.file.entity.FolderEntity;
+import com.cutejiuge.file.mapper.FolderMapper;
+import com.cutejiuge.file.repository.FolderRepository;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件夹仓储层实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午9:18
+ */
+@Repository
+public class FolderRepositoryImpl implements FolderRepository {
+    @Resource
+    private FolderMapper folderMapper;
+
+    /**
+     * 查询用户的文件夹
+     */
+    @Override
+    public FolderEntity getUserFolder(Long userId, Long folderId) {
+        return folderMapper.selectOne(userFolderQuery(userId, folderId));
+    }
+
+    /**
+     * 查询用户的文件夹并加排他锁
+     */
+    @Override
+    public FolderEntity getUserFolderForUpdate(Long userId, Long folderId) {
+        return folderMapper.selectOne(userFolderQuery(userId, folderId).last("FOR UPDATE"));
+    }
+
+    /**
+     * 查询用户的文件夹并加共享锁
+     */
+    @Override
+    public FolderEntity getUserFolderForShare(Long userId, Long folderId) {
+        return folderMapper.selectOne(userFolderQuery(userId, folderId).last("LOCK IN SHARE MODE"));
+    }
+
+    /**
+     * 批量查询用户的文件夹并加共享锁，按主键顺序加锁
+     */
+    @Override
+    public List<FolderEntity> listUserFoldersForShare(Long userId, Collection<Long> folderIds) {
+        LambdaQueryWrapper<FolderEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.in(FolderEntity::getId, folderIds)
+                .eq(FolderEntity::getUserId, userId)
+                .orderByAsc(FolderEntity::getId)
+                .last("LOCK IN SHARE MODE");
+        return folderMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 同一父目录下是否已存在同名文件夹
+     */
+    @Override
+    public boolean existsFolderName(Long userId, Long parentId, String folderName) {
+        LambdaQueryWrapper<FolderEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(FolderEntity::getUserId, userId)
+                .eq(FolderEntity::getParentId, parentId)
+                .eq(FolderEntity::getFolderName, folderName);
+        return folderMapper.exists(queryWrapper);
+    }
+
+    /**
+     * 保存文件夹
+     */
+    @Override
+    public void save(FolderEntity entity) {
+        folderMapper.insert(entity);
+    }
+
+    /**
+     * 批量保存文件夹，JDBC批处理一次提交
+     */
+    @Override
+    public void saveBatch(List<FolderEntity> entities) {
+        folderMapper.insert(entities);
+    }
+
+    /**
+     * 重命名文件夹，路径只包含ID，重命名不需要改写子树
+     */
+    @Override
+    public boolean rename(Long folderId, String folderName) {
+        LambdaUpdateWrapper<FolderEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.set(FolderEntity::getFolderName, folderName)
+                .eq(FolderEntity::getId, folderId);
+        return folderMapper.update(updateWrapper) > 0;
+    }
+
+    /**
+     * 修改父文件夹
+     */
+    @Override
+    public boolean updateParent(Long folderId, Long parentId) {
+        LambdaUpdateWrapper<FolderEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.set(FolderEntity::getParentId, parentId)
+                .eq(FolderEntity::getId, folderId);
+        return folderMapper.update(updateWrapper) > 0;
+    }
+
+    /**
+     * 查询直接子文件夹，走(user_id, parent_id)索引
+     */
+    @Override
+    public List<FolderEntity> listChildren(Long userId, Long parentId) {
+        LambdaQueryWrapper<FolderEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(FolderEntity::getUserId, userId)
+                .eq(FolderEntity::getParentId, parentId)
+                .orderByAsc(FolderEntity::getFolderName);
+        return folderMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 查询整棵子树，路径前缀匹配走(user_id, path)索引的范围扫描
+     */
+    @Override
+    public List<FolderEntity> listSubtree(Long userId, String path) {
+        LambdaQueryWrapper<FolderEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(FolderEntity::getUserId, userId)
+                .likeRight(FolderEntity::getPath, path)
+                .orderByAsc(FolderEntity::getPath);
+        return folderMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 子树内的最大层级
+     */
+    @Override
+    public int getMaxDepth(Long userId, String path) {
+        QueryWrapper<FolderEntity> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("MAX(depth) AS max_depth")
+                .eq("user_id", userId)
+                .likeRight("path", path);
+        List<Map<String, Object>> rows = folderMapper.selectMaps(queryWrapper);
+        if (rows.isEmpty() || rows.get(0) == null || rows.get(0).get("max_depth") == null) {
+            return 0;
+        }
+        return ((Number) rows.get(0).get("max_depth")).intValue();
+    }
+
+    /**
+     * 一条UPDATE改写整棵子树的路径前缀，同样走(user_id, path)索引的范围扫描
+     */
+    @Override
+    public int rewritePathPrefix(Long userId, String oldPrefix, String newPrefix, int depthDelta) {
+        LambdaUpdateWrapper<FolderEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql("path = CONCAT({0}, SUBSTRING(path, {1})), depth = depth + {2}",
+                        newPrefix, oldPrefix.length() + 1, depthDelta)
+                .eq(FolderEntity::getUserId, userId)
+                .likeRight(FolderEntity::getPath, oldPrefix);
+        return folderMapper.update(updateWrapper);
+    }
+
+    /**
+     * 原子调整文件夹的子树计数器，计数在数据库内增减，不需要先查后改
+     */
+    @Override
+    public void addCounters(Collection<Long> folderIds, long fileCountDelta, long sizeDelta) {
+        if (folderIds.isEmpty() || (fileCountDelta == 0 && sizeDelta == 0)) {
+            return;
+        }
+        LambdaUpdateWrapper<FolderEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql("file_count = file_count + {0}, total_size = total_size + {1}", fileCountDelta, sizeDelta)
+                .in(FolderEntity::getId, folderIds);
+        folderMapper.update(updateWrapper);
+    }
+
+    /**
+     * 一条UPDATE把整棵子树放入回收站，走(user_id, path)索引的范围扫描
+     */
+    @Override
+    public int recycleSubtree(Long userId, String path, Long recycleId) {
+        LambdaUpdateWrapper<FolderEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql("deleted_at = NOW(), recycle_id = {0}", recycleId)
+                .eq(FolderEntity::getUserId, userId)
+                .likeRight(FolderEntity::getPath, path);
+        return folderMapper.update(updateWrapper);
+    }
+
+    /**
+     * 查询回收站中的文件夹
+     */
+    @Override
+    public FolderEntity getRecycledFolder(Long userId, Long folderId, Long recycleId) {
+        LambdaQueryWrapper<FolderEntity> queryWrapper = userFolderQuery(userId, folderId)
+                .eq(FolderEntity::getRecycleId, recycleId);
+        List<FolderEntity> folders = folderMapper.selectRecycled(queryWrapper);
+        return folders.isEmpty() ? null : folders.get(0);
+    }
+
+    /**
+     * 回收站记录下子树的最大层级
+     */
+    @Override
+    public int getRecycledMaxDepth(Long recycleId) {
+        LambdaQueryWrapper<FolderEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(FolderEntity::getRecycleId, recycleId)
+                .orderByDesc(FolderEntity::getDepth)
+                .last("LIMIT 1");
+        List<FolderEntity> folders = folderMapper.selectRecycled(queryWrapper);
+        return folders.isEmpty() ? 0 : folders.get(0).getDepth();
+    }
+
+    /**
+     * 一条UPDATE还原整棵子树并改写路径前缀，走recycle_id索引
+     */
+    @Override
+    public int restoreRecycledSubtree(Long userId, Long recycleId, String oldPrefix, String newPrefix, int depthDelta) {
+        LambdaUpdateWrapper<FolderEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql("path = CONCAT({0}, SUBSTRING(path, {1})), depth = depth + {2}, deleted_at = NULL, recycle_id = NULL",
+                        newPrefix, oldPrefix.length() + 1, depthDelta)
+                .eq(FolderEntity::getRecycleId, recycleId)
+                .eq(FolderEntity::getUserId, userId);
+        return folderMapper.updateRecycled(updateWrapper);
+    }
+
+    /**
+     * 按主键做键集分页，每批从上一批的最大ID之后开始
+     */
+    @Override
+    public List<FolderEntity> listRecycledForUpdate(Long recycleId, Long afterId, int limit) {
+        LambdaQueryWrapper<FolderEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(FolderEntity::getRecycleId, recycleId)
+                .gt(FolderEntity::getId, afterId)
+                .orderByAsc(FolderEntity::getId)
+                .last("LIMIT " + limit + " FOR UPDATE");
+        return folderMapper.selectRecycled(queryWrapper);
+    }
+
+    /**
+     * 物理删除回收站记录下的文件夹
+     */
+    @Override
+    public int purgeFolders(Long recycleId, Collection<Long> folderIds) {
+        LambdaQueryWrapper<FolderEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.in(FolderEntity::getId, folderIds)
+                .eq(FolderEntity::getRecycleId, recycleId);
+        return folderMapper.purge(queryWrapper);
+    }
+
+    // ======================== 私有方法 ========================
+    private LambdaQueryWrapper<FolderEntity> userFolderQuery(Long userId, Long folderId) {
+        LambdaQueryWrapper<FolderEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(FolderEntity::getId, folderId)
+                .eq(FolderEntity::getUserId, userId);
+        return queryWrapper;
+    }
+}
@@ -0,0 +1,128 @@
+package com.cutejiuge.file.repository.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.file.entity.RecycleBinEntity;
+import com.cutejiuge.file.mapper.RecycleBinMapper;
+import com.cutejiuge.file.repository.RecycleBinRepository;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 回收站仓储层实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午2:18
+ */
+@Repository
+public class RecycleBinRepositoryImpl implements RecycleBinRepository {
+    @Resource
+    private RecycleBinMapper recycleBinMapper;
+
+    /**
+     * 保存回收站记录
+     */
+    @Override
+    public void save(RecycleBinEntity entity) {
+        recycleBinMapper.insert(entity);
+    }
+
+    /**
+     * 批量保存回收站记录，JDBC批处理一次提交
+     */
+    @Override
+    public void saveBatch(List<RecycleBinEntity> entities) {
+        recycleBinMapper.insert(entities);
+    }
+
+    /**
+     * 查询用户可还原的回收站记录并加排他锁，已过期的记录等待清理，不能还原
+     */
+    @Override
+    public RecycleBinEntity getUserItemForUpdate(Long userId, Long recycleId) {
+        LambdaQueryWrapper<RecycleBinEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(RecycleBinEntity::getId, recycleId)
+                .eq(RecycleBinEntity::getUserId, userId)
+                .eq(RecycleBinEntity::getStatus, FileConstants.RECYCLE_STATUS_RECYCLED)
+                .gt(RecycleBinEntity::getExpireAt, LocalDateTime.now())
+                .last("FOR UPDATE");
+        return recycleBinMapper.selectOne(queryWrapper);
+    }
+
+    /**
+     * 按ID倒序做键集分页，ID随时间递增，即按删除时间倒序
+     */
+    @Override
+    public List<RecycleBinEntity> listUserItems(Long userId, Long beforeId, int limit) {
+        LambdaQueryWrapper<RecycleBinEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(RecycleBinEntity::getUserId, userId)
+                .eq(RecycleBinEntity::getStatus, FileConstants.RECYCLE_STATUS_RECYCLED)
+                .gt(RecycleBinEntity::getExpireAt, LocalDateTime.now())
+                .lt(beforeId != null, RecycleBinEntity::getId, beforeId)
+                .orderByDesc(RecycleBinEntity::getId)
+                .last("LIMIT " + limit);
+        return recycleBinMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 查询已过期的记录，走(expire_at, id)索引
+     */
+    @Override
+    public List<RecycleBinEntity> listExpired(Long afterId, int limit) {
+        LambdaQueryWrapper<RecycleBinEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.le(RecycleBinEntity::getExpireAt, LocalDateTime.now())
+                .gt(RecycleBinEntity::getId, afterId)
+                .orderByAsc(RecycleBinEntity::getId)
+                .last("LIMIT " + limit);
+        return recycleBinMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 把记录标记为正在清理
+     */
+    @Override
+    public boolean markPurging(Long recycleId) {
+        LambdaUpdateWrapper<RecycleBinEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.set(RecycleBinEntity::getStatus, FileConstants.RECYCLE_STATUS_PURGING)
+                .eq(RecycleBinEntity::getId, recycleId)
+                .eq(RecycleBinEntity::getStatus, FileConstants.RECYCLE_STATUS_RECYCLED);
+        return recycleBinMapper.update(updateWrapper) > 0;
+    }
+
+    /**
+     * 让用户的一条记录立即过期
+     */
+    @Override
+    public boolean expireUserItem(Long userId, Long recycleId) {
+        LambdaUpdateWrapper<RecycleBinEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.set(RecycleBinEntity::getExpireAt, LocalDateTime.now())
+                .eq(RecycleBinEntity::getId, recycleId)
+                .eq(RecycleBinEntity::getUserId, userId)
+                .eq(RecycleBinEntity::getStatus, FileConstants.RECYCLE_STATUS_RECYCLED);
+        return recycleBinMapper.update(updateWrapper) > 0;
+    }
+
+    /**
+     * 让用户的全部记录立即过期
+     */
+    @Override
+    public int expireUserItems(Long userId) {
+        LambdaUpdateWrapper<RecycleBinEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.set(RecycleBinEntity::getExpireAt, LocalDateTime.now())
+                .eq(RecycleBinEntity::getUserId, userId)
+                .eq(RecycleBinEntity::getStatus, FileConstants.RECYCLE_STATUS_RECYCLED);
+        return recycleBinMapper.update(updateWrapper);
+    }
+
+    /**
+     * 删除回收站记录
+     */
+    @Override
+    public void delete(Long recycleId) {
+        recycleBinMapper.deleteById(recycleId);
+    }
+}
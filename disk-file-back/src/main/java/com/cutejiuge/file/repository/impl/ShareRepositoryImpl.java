@@ -0,0 +1,99 @@
+package com.cutejiuge.file.repository.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.file.entity.ShareEntity;
+import com.cutejiuge.file.mapper.ShareMapper;
+import com.cutejiuge.file.repository.ShareRepository;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分享仓储层实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午7:22
+ */
+@Repository
+public class ShareRepositoryImpl implements ShareRepository {
+    @Resource
+    private ShareMapper shareMapper;
+
+    /**
+     * 保存分享记录
+     */
+    @Override
+    public void save(ShareEntity entity) {
+        shareMapper.insert(entity);
+    }
+
+    /**
+     * 按分享码查询，走share_code唯一索引
+     */
+    @Override
+    public ShareEntity getByShareCode(String shareCode) {
+        LambdaQueryWrapper<ShareEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(ShareEntity::getShareCode, shareCode);
+        return shareMapper.selectOne(queryWrapper);
+    }
+
+    /**
+     * 查询用户的分享记录
+     */
+    @Override
+    public ShareEntity getUserShare(Long userId, Long shareId) {
+        LambdaQueryWrapper<ShareEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(ShareEntity::getId, shareId)
+                .eq(ShareEntity::getUserId, userId);
+        return shareMapper.selectOne(queryWrapper);
+    }
+
+    /**
+     * 按ID倒序做键集分页，ID随时间递增，即按创建时间倒序
+     */
+    @Override
+    public List<ShareEntity> listUserShares(Long userId, Long beforeId, int limit) {
+        LambdaQueryWrapper<ShareEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(ShareEntity::getUserId, userId)
+                .eq(ShareEntity::getStatus, FileConstants.SHARE_STATUS_ACTIVE)
+                .lt(beforeId != null, ShareEntity::getId, beforeId)
+                .orderByDesc(ShareEntity::getId)
+                .last("LIMIT " + limit);
+        return shareMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 取消分享
+     */
+    @Override
+    public boolean cancel(Long userId, Long shareId) {
+        LambdaUpdateWrapper<ShareEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.set(ShareEntity::getStatus, FileConstants.SHARE_STATUS_CANCELLED)
+                .eq(ShareEntity::getId, shareId)
+                .eq(ShareEntity::getUserId, userId)
+                .eq(ShareEntity::getStatus, FileConstants.SHARE_STATUS_ACTIVE);
+        return shareMapper.update(updateWrapper) > 0;
+    }
+
+    /**
+     * 一条CASE WHEN语句累加一批分享的访问次数
+     */
+    @Override
+    public int batchIncrementViewCount(Map<Long, Long> viewCountDeltaMap) {
+        if (viewCountDeltaMap.isEmpty()) {
+            return 0;
+        }
+        StringBuilder caseSql = new StringBuilder("view_count = view_count + CASE id");
+        viewCountDeltaMap.forEach((shareId, delta) ->
+                caseSql.append(" WHEN ").append(shareId.longValue()).append(" THEN ").append(delta.longValue()));
+        caseSql.append(" ELSE 0 END");
+        LambdaUpdateWrapper<ShareEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql(caseSql.toString())
+                .in(ShareEntity::getId, viewCountDeltaMap.keySet());
+        return shareMapper.update(updateWrapper);
+    }
+}
@@ -0,0 +1,338 @@
+package com.cutejiuge.file.repository.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cutejiuge.file.entity.UserFileEntity;
+import com.cutejiuge.file.mapper.UserFileMapper;
+import com.cutejiuge.file.repository.UserFileRepository;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 用户文件仓储层实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:37
+ */
+@Repository
+public class UserFileRepositoryImpl implements UserFileRepository {
+    @Resource
+    private UserFileMapper userFileMapper;
+
+    /**
+     * 保存用户文件
+     */
+    @Override
+    public void save(UserFileEntity entity) {
+        userFileMapper.insert(entity);
+    }
+
+    /**
+     * 查询用户的文件
+     */
+    @Override
+    public UserFileEntity getUserFile(Long userId, Long fileId) {
+        LambdaQueryWrapper<UserFileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(UserFileEntity::getId, fileId)
+                .eq(UserFileEntity::getUserId, userId);
+        return userFileMapper.selectOne(queryWrapper);
+    }
+
+    /**
+     * 批量查询用户的文件
+     */
+    @Override
+    public List<UserFileEntity> listUserFiles(Long userId, List<Long> fileIds) {
+        LambdaQueryWrapper<UserFileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.in(UserFileEntity::getId, fileIds)
+                .eq(UserFileEntity::getUserId, userId);
+        return userFileMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 查询用户的文件并加排他锁
+     */
+    @Override
+    public UserFileEntity getUserFileForUpdate(Long userId, Long fileId) {
+        LambdaQueryWrapper<UserFileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(UserFileEntity::getId, fileId)
+                .eq(UserFileEntity::getUserId, userId)
+                .last("FOR UPDATE");
+        return userFileMapper.selectOne(queryWrapper);
+    }
+
+    /**
+     * 批量查询用户的文件并加排他锁，按主键顺序加锁，并发的批量操作不会互相死锁
+     */
+    @Override
+    public List<UserFileEntity> listUserFilesForUpdate(Long userId, Collection<Long> fileIds) {
+        LambdaQueryWrapper<UserFileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.in(UserFileEntity::getId, fileIds)
+                .eq(UserFileEntity::getUserId, userId)
+                .orderByAsc(UserFileEntity::getId)
+                .last("FOR UPDATE");
+        return userFileMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 键集分页，(user_id, folder_id)索引中同一文件夹的记录按主键有序，不需要额外排序
+     */
+    @Override
+    public List<UserFileEntity> listFolderFilesAfter(Long userId, Long folderId, Long afterId, int limit) {
+        LambdaQueryWrapper<UserFileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(UserFileEntity::getUserId, userId)
+                .eq(UserFileEntity::getFolderId, folderId)
+                .gt(UserFileEntity::getId, afterId)
+                .orderByAsc(UserFileEntity::getId)
+                .last("LIMIT " + limit);
+        return userFileMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 查询文件夹下的直接子文件，走(user_id, folder_id)索引
+     */
+    @Override
+    public List<UserFileEntity> listFolderFiles(Long userId, Long folderId) {
+        LambdaQueryWrapper<UserFileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(UserFileEntity::getUserId, userId)
+                .eq(UserFileEntity::getFolderId, folderId)
+                .orderByAsc(UserFileEntity::getFileName);
+        return userFileMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 文件夹下是否已存在同名文件，走(user_id, folder_id)索引
+     */
+    @Override
+    public boolean existsFileName(Long userId, Long folderId, String fileName) {
+        LambdaQueryWrapper<UserFileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(UserFileEntity::getUserId, userId)
+                .eq(UserFileEntity::getFolderId, folderId)
+                .eq(UserFileEntity::getFileName, fileName);
+        return userFileMapper.exists(queryWrapper);
+    }
+
+    /**
+     * 查询子树内的全部文件，路径前缀匹配走(user_id, folder_path)索引的范围扫描
+     */
+    @Override
+    public List<UserFileEntity> listSubtreeFiles(Long userId, String path) {
+        LambdaQueryWrapper<UserFileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(UserFileEntity::getUserId, userId)
+                .likeRight(UserFileEntity::getFolderPath, path)
+                .orderByAsc(UserFileEntity::getFolderPath);
+        return userFileMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 一条UPDATE改写子树内全部文件的路径前缀
+     */
+    @Override
+    public int rewriteFolderPathPrefix(Long userId, String oldPrefix, String newPrefix) {
+        LambdaUpdateWrapper<UserFileEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql("folder_path = CONCAT({0}, SUBSTRING(folder_path, {1}))", newPrefix, oldPrefix.length() + 1)
+                .eq(UserFileEntity::getUserId, userId)
+                .likeRight(UserFileEntity::getFolderPath, oldPrefix);
+        return userFileMapper.update(updateWrapper);
+    }
+
+    /**
+     * 修改文件所在的文件夹
+     */
+    @Override
+    public boolean updateFolder(Long fileId, Long folderId, String folderPath) {
+        LambdaUpdateWrapper<UserFileEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.set(UserFileEntity::getFolderId, folderId)
+                .set(UserFileEntity::getFolderPath, folderPath)
+                .eq(UserFileEntity::getId, fileId);
+        return userFileMapper.update(updateWrapper) > 0;
+    }
+
+    /**
+     * 一条UPDATE修改多个文件所在的文件夹
+     */
+    @Override
+    public int updateFolder(Collection<Long> fileIds, Long folderId, String folderPath) {
+        LambdaUpdateWrapper<UserFileEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.set(UserFileEntity::getFolderId, folderId)
+                .set(UserFileEntity::getFolderPath, folderPath)
+                .in(UserFileEntity::getId, fileIds);
+        return userFileMapper.update(updateWrapper);
+    }
+
+    /**
+     * 批量保存用户文件，JDBC批处理一次提交
+     */
+    @Override
+    public void saveBatch(List<UserFileEntity> entities) {
+        userFileMapper.insert(entities);
+    }
+
+    /**
+     * 修改文件名
+     */
+    @Override
+    public boolean rename(Long fileId, String fileName) {
+        LambdaUpdateWrapper<UserFileEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.set(UserFileEntity::getFileName, fileName)
+                .eq(UserFileEntity::getId, fileId);
+        return userFileMapper.update(updateWrapper) > 0;
+    }
+
+    /**
+     * 把文件换成新的物理文件
+     */
+    @Override
+    public boolean updateContent(Long fileId, Long blobId, Long fileSize, String fileSha256, LocalDateTime updatedAt) {
+        LambdaUpdateWrapper<UserFileEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        // 只传条件构造器时不会自动填充更新时间，显式写入
+        updateWrapper.set(UserFileEntity::getBlobId, blobId)
+                .set(UserFileEntity::getFileSize, fileSize)
+                .set(UserFileEntity::getFileSha256, fileSha256)
+                .set(UserFileEntity::getUpdatedAt, updatedAt)
+                .eq(UserFileEntity::getId, fileId);
+        return userFileMapper.update(updateWrapper) > 0;
+    }
+
+    /**
+     * 只查询ID和文件名，逐行回调，走user_id索引
+     */
+    @Override
+    public void scanFileNames(Long userId, Consumer<UserFileEntity> consumer) {
+        LambdaQueryWrapper<UserFileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(UserFileEntity::getId, UserFileEntity::getFileName)
+                .eq(UserFileEntity::getUserId, userId)
+                .orderByAsc(UserFileEntity::getId);
+        userFileMapper.selectList(queryWrapper, context -> consumer.accept(context.getResultObject()));
+    }
+
+    /**
+     * 把文件放入回收站，逻辑删除条件保证已在回收站中的文件不会被重复放入
+     */
+    @Override
+    public boolean recycleFile(Long fileId, Long recycleId) {
+        LambdaUpdateWrapper<UserFileEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql("deleted_at = NOW(), recycle_id = {0}", recycleId)
+                .eq(UserFileEntity::getId, fileId);
+        return userFileMapper.update(updateWrapper) > 0;
+    }
+
+    /**
+     * 一条CASE WHEN语句把多个文件放入回收站，逻辑删除条件保证已在回收站中的文件不会被重复放入
+     */
+    @Override
+    public int recycleFiles(Map<Long, Long> recycleIdsByFileId) {
+        if (recycleIdsByFileId.isEmpty()) {
+            return 0;
+        }
+        StringBuilder caseSql = new StringBuilder("deleted_at = NOW(), recycle_id = CASE id");
+        recycleIdsByFileId.forEach((fileId, recycleId) ->
+                caseSql.append(" WHEN ").append(fileId.longValue()).append(" THEN ").append(recycleId.longValue()));
+        caseSql.append(" END");
+        LambdaUpdateWrapper<UserFileEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql(caseSql.toString())
+                .in(UserFileEntity::getId, recycleIdsByFileId.keySet());
+        return userFileMapper.update(updateWrapper);
+    }
+
+    /**
+     * 一条UPDATE把子树内的全部文件放入回收站，走(user_id, folder_path)索引的范围扫描
+     */
+    @Override
+    public int recycleSubtreeFiles(Long userId, String path, Long recycleId) {
+        LambdaUpdateWrapper<UserFileEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql("deleted_at = NOW(), recycle_id = {0}", recycleId)
+                .eq(UserFileEntity::getUserId, userId)
+                .likeRight(UserFileEntity::getFolderPath, path);
+        return userFileMapper.update(updateWrapper);
+    }
+
+    /**
+     * 查询回收站中的文件
+     */
+    @Override
+    public UserFileEntity getRecycledFile(Long userId, Long fileId, Long recycleId) {
+        LambdaQueryWrapper<UserFileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(UserFileEntity::getId, fileId)
+                .eq(UserFileEntity::getUserId, userId)
+                .eq(UserFileEntity::getRecycleId, recycleId);
+        List<UserFileEntity> files = userFileMapper.selectRecycled(queryWrapper);
+        return files.isEmpty() ? null : files.get(0);
+    }
+
+    /**
+     * 还原单个文件，清除删除标记并写入新的所在文件夹
+     */
+    @Override
+    public boolean restoreRecycledFile(Long fileId, Long recycleId, Long folderId, String folderPath, String fileName) {
+        LambdaUpdateWrapper<UserFileEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql("deleted_at = NULL, recycle_id = NULL")
+                .set(UserFileEntity::getFolderId, folderId)
+                .set(UserFileEntity::getFolderPath, folderPath)
+                .set(UserFileEntity::getFileName, fileName)
+                .eq(UserFileEntity::getId, fileId)
+                .eq(UserFileEntity::getRecycleId, recycleId);
+        return userFileMapper.updateRecycled(updateWrapper) > 0;
+    }
+
+    /**
+     * 一条UPDATE还原同一回收站记录下的全部文件，走recycle_id索引
+     */
+    @Override
+    public int restoreRecycledFiles(Long userId, Long recycleId, String oldPrefix, String newPrefix) {
+        LambdaUpdateWrapper<UserFileEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql("folder_path = CONCAT({0}, SUBSTRING(folder_path, {1})), deleted_at = NULL, recycle_id = NULL",
+                        newPrefix, oldPrefix.length() + 1)
+                .eq(UserFileEntity::getRecycleId, recycleId)
+                .eq(UserFileEntity::getUserId, userId);
+        return userFileMapper.updateRecycled(updateWrapper);
+    }
+
+    /**
+     * 按主键做键集分页，每批从上一批的最大ID之后开始，不会重复扫描已清理的范围
+     */
+    @Override
+    public List<UserFileEntity> listRecycledFilesForUpdate(Long recycleId, Long afterId, int limit) {
+        LambdaQueryWrapper<UserFileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(UserFileEntity::getRecycleId, recycleId)
+                .gt(UserFileEntity::getId, afterId)
+                .orderByAsc(UserFileEntity::getId)
+                .last("LIMIT " + limit + " FOR UPDATE");
+        return userFileMapper.selectRecycled(queryWrapper);
+    }
+
+    /**
+     * 物理删除回收站记录下的文件，带上recycle_id条件，不会误删已被还原的文件
+     */
+    @Override
+    public int purgeFiles(Long recycleId, Collection<Long> fileIds) {
+        LambdaQueryWrapper<UserFileEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.in(UserFileEntity::getId, fileIds)
+                .eq(UserFileEntity::getRecycleId, recycleId);
+        return userFileMapper.purge(queryWrapper);
+    }
+
+    /**
+     * 按用户统计未删除文件的总大小，走user_id索引分组聚合
+     */
+    @Override
+    public Map<Long, Long> sumFileSizeByUserIds(List<Long> userIds) {
+        QueryWrapper<UserFileEntity> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("user_id", "SUM(file_size) AS used_storage")
+                .in("user_id", userIds)
+                .groupBy("user_id");
+        Map<Long, Long> usedMap = new HashMap<>(userIds.size() * 2);
+        for (Map<String, Object> row : userFileMapper.selectMaps(queryWrapper)) {
+            usedMap.put(((Number) row.get("user_id")).longValue(), ((Number) row.get("used_storage")).longValue());
+        }
+        return usedMap;
+    }
+}
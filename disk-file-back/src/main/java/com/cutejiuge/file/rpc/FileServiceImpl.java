@@ -0,0 +1,336 @@
+package com.cutejiuge.file.rpc;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import com.cutejiuge.common.annotation.BusinessLog;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.RedisLockUtil;
+import com.cutejiuge.file.pojo.dto.FileBlobCacheDTO;
+import com.cutejiuge.file.service.FileBlobService;
+import com.cutejiuge.file.service.FileCopyService;
+import com.cutejiuge.file.service.FileSearchService;
+import com.cutejiuge.file.service.UserFileService;
+import com.cutejiuge.iface.dto.file.ChunkRefDTO;
+import com.cutejiuge.iface.dto.file.FileSearchDTO;
+import com.cutejiuge.iface.dto.file.InstantUploadDTO;
+import com.cutejiuge.iface.dto.file.SaveUploadedFileDTO;
+import com.cutejiuge.iface.dto.file.UpdateFileContentDTO;
+import com.cutejiuge.iface.service.file.FileService;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.FileBlobVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboService;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * 文件服务RPC实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:55
+ */
+@Slf4j
+@Service
+@DubboService(version = "1.0.0", group = "easy-disk")
+public class FileServiceImpl implements FileService {
+    // 单次统计的最大用户数
+    private static final int MAX_SUM_USER_COUNT = 1000;
+    // 单次批量查询的最大文件数
+    private static final int MAX_LIST_FILE_COUNT = 1000;
+    // 物理文件分页查询的默认和最大条数
+    private static final int DEFAULT_BLOB_PAGE_SIZE = 100;
+    private static final int MAX_BLOB_PAGE_SIZE = 1000;
+    // 搜索结果的默认和最大条数
+    private static final int DEFAULT_SEARCH_SIZE = 50;
+    private static final int MAX_SEARCH_SIZE = 200;
+    private static final int MAX_KEYWORD_LENGTH = 100;
+    private static final Pattern ILLEGAL_NAME_PATTERN = Pattern.compile("[\\\\/:*?\"<>|]");
+    private static final int MAX_NAME_LENGTH = 255;
+
+    @Resource
+    private FileBlobService fileBlobService;
+
+    @Resource
+    private FileCopyService fileCopyService;
+
+    @Resource
+    private UserFileService userFileService;
+
+    @Resource
+    private FileSearchService fileSearchService;
+
+    @Resource
+    private RedisLockUtil redisLockUtil;
+
+    /**
+     * 按sha256和大小查询已登记的物理文件，不存在时返回的data为null
+     */
+    @Override
+    public Result<FileBlobVO> findBlob(String fileSha256, Long fileSize) {
+        if (StrUtil.isBlank(fileSha256) || ObjectUtil.isNull(fileSize)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "文件参数不完整");
+        }
+        FileBlobCacheDTO blob = fileBlobService.findBlob(fileSha256.toLowerCase());
+        if (ObjectUtil.isNull(blob) || !Objects.equals(blob.getFileSize(), fileSize)) {
+            return Result.success(null);
+        }
+        return Result.success(new FileBlobVO()
+                .setBlobId(blob.getBlobId())
+                .setSha256(blob.getSha256())
+                .setFileSize(blob.getFileSize())
+                .setStoragePath(blob.getStoragePath())
+                .setStorageType(blob.getStorageType()));
+    }
+
+    /**
+     * 秒传，相同sha256和大小的物理文件已存在时直接引用，不存在时返回的data为null，调用方需先完成持有证明
+     */
+    @Override
+    @BusinessLog(operation = "秒传")
+    public Result<UserFileVO> instantUpload(InstantUploadDTO dto) {
+        try {
+            checkFileParams(dto.getUserId(), dto.getFileName(), dto.getFileSize(), dto.getFileSha256());
+            String sha256 = dto.getFileSha256().toLowerCase();
+            dto.setFileSha256(sha256);
+            // 未命中时不加锁，直接走普通上传
+            FileBlobCacheDTO blob = fileBlobService.findBlob(sha256);
+            if (ObjectUtil.isNull(blob) || !Objects.equals(blob.getFileSize(), dto.getFileSize())) {
+                return Result.success(null);
+            }
+            UserFileVO userFile = redisLockUtil.executeWithUploadLock(sha256, () -> fileBlobService.referenceBlob(dto));
+            if (ObjectUtil.isNull(userFile)) {
+                // 缓存中的物理文件已被清理
+                fileBlobService.evictBlob(sha256);
+            }
+            return Result.success(userFile);
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 保存上传完成的文件，物理文件已被其他上传抢先登记时返回已登记的存储路径
+     */
+    @Override
+    @BusinessLog(operation = "保存上传文件", logParams = false)
+    public Result<UserFileVO> saveUploadedFile(SaveUploadedFileDTO dto) {
+        try {
+            checkFileParams(dto.getUserId(), dto.getFileName(), dto.getFileSize(), dto.getFileSha256());
+            if (StrUtil.isBlank(dto.getStoragePath())) {
+                throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "存储路径不能为空");
+            }
+            if (Objects.equals(dto.getStorageType(), FileConstants.STORAGE_TYPE_CDC_MANIFEST)) {
+                checkChunkRefs(dto.getChunkRefs(), dto.getFileSize());
+            }
+            String sha256 = dto.getFileSha256().toLowerCase();
+            dto.setFileSha256(sha256);
+            UserFileVO userFile = redisLockUtil.executeWithUploadLock(sha256, () -> fileBlobService.registerBlob(dto));
+            return Result.success(userFile);
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 替换文件的内容，新的物理文件已被其他上传抢先登记时返回已登记的存储路径
+     */
+    @Override
+    @BusinessLog(operation = "替换文件内容", logParams = false)
+    public Result<UserFileVO> updateFileContent(UpdateFileContentDTO dto) {
+        try {
+            if (ObjectUtil.isNull(dto.getUserId()) || ObjectUtil.isNull(dto.getFileId()) || ObjectUtil.isNull(dto.getFileSize())
+                    || dto.getFileSize() < 0 || StrUtil.isBlank(dto.getStoragePath())) {
+                throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "文件参数不完整");
+            }
+            if (StrUtil.length(dto.getBaseSha256()) != 64 || StrUtil.length(dto.getFileSha256()) != 64) {
+                throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "文件sha256格式不正确");
+            }
+            if (Objects.equals(dto.getStorageType(), FileConstants.STORAGE_TYPE_CDC_MANIFEST)) {
+                checkChunkRefs(dto.getChunkRefs(), dto.getFileSize());
+            }
+            String sha256 = dto.getFileSha256().toLowerCase();
+            dto.setFileSha256(sha256).setBaseSha256(dto.getBaseSha256().toLowerCase());
+            UserFileVO userFile = redisLockUtil.executeWithUploadLock(sha256, () -> fileBlobService.replaceBlob(dto));
+            return Result.success(userFile);
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("替换文件内容与其他修改冲突: userId={}, fileId={}", dto.getUserId(), dto.getFileId(), e);
+            return Result.error(ResultCode.FILE_VERSION_CONFLICT);
+        }
+    }
+
+    /**
+     * 查询用户的文件
+     */
+    @Override
+    public Result<UserFileVO> getUserFile(Long userId, Long fileId) {
+        if (ObjectUtil.isNull(userId) || ObjectUtil.isNull(fileId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "文件参数不完整");
+        }
+        try {
+            return Result.success(userFileService.getUserFile(userId, fileId));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 批量查询用户的文件
+     */
+    @Override
+    public Result<List<UserFileVO>> listUserFiles(Long userId, List<Long> fileIds) {
+        if (ObjectUtil.isNull(userId) || CollUtil.isEmpty(fileIds) || fileIds.size() > MAX_LIST_FILE_COUNT) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "文件数量必须在1到" + MAX_LIST_FILE_COUNT + "之间");
+        }
+        return Result.success(userFileService.listUserFiles(userId, fileIds));
+    }
+
+    /**
+     * 重命名文件，以文件ID加移动锁，与移动和其他重命名串行，索引事件的顺序与数据库一致
+     */
+    @Override
+    @BusinessLog(operation = "重命名文件")
+    public Result<UserFileVO> renameFile(Long userId, Long fileId, String fileName) {
+        if (ObjectUtil.isNull(userId) || ObjectUtil.isNull(fileId) || StrUtil.isBlank(fileName)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "文件参数不完整");
+        }
+        String name = fileName.trim();
+        if (name.length() > MAX_NAME_LENGTH || ".".equals(name) || "..".equals(name)
+                || ILLEGAL_NAME_PATTERN.matcher(name).find()) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "文件名称不合法");
+        }
+        try {
+            return Result.success(redisLockUtil.executeWithFileMoveLock(fileId,
+                    () -> userFileService.renameFile(userId, fileId, name)));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 批量复制文件，源文件只读不加锁，目标文件夹在事务中加行锁
+     */
+    @Override
+    @BusinessLog(operation = "批量复制文件")
+    public Result<BatchResultVO> batchCopyFiles(Long userId, List<Long> fileIds, Long targetFolderId) {
+        try {
+            List<Long> ids = checkBatchFileIds(userId, fileIds);
+            Long targetId = ObjectUtil.defaultIfNull(targetFolderId, FileConstants.ROOT_FOLDER_ID);
+            return Result.success(fileCopyService.copyFiles(userId, ids, null, userId, targetId));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("批量复制文件与其他修改冲突: userId={}, fileCount={}, target={}", userId, fileIds.size(), targetFolderId, e);
+            return Result.error(ResultCode.FILE_COPY_FAILED, "目标文件夹正在被修改，请稍后重试");
+        }
+    }
+
+    /**
+     * 按文件名搜索，索引中刚被删除的文件在查询详情时过滤掉，结果可能少于size条
+     */
+    @Override
+    public Result<List<UserFileVO>> searchFiles(FileSearchDTO dto) {
+        if (ObjectUtil.isNull(dto.getUserId()) || StrUtil.isBlank(dto.getKeyword())) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "搜索参数不完整");
+        }
+        if (dto.getKeyword().length() > MAX_KEYWORD_LENGTH) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "关键词长度不能超过" + MAX_KEYWORD_LENGTH + "个字符");
+        }
+        int limit = ObjectUtil.isNull(dto.getSize()) || dto.getSize() <= 0 ? DEFAULT_SEARCH_SIZE
+                : Math.min(dto.getSize(), MAX_SEARCH_SIZE);
+        String category = StrUtil.isBlank(dto.getCategory()) ? null : dto.getCategory().trim().toLowerCase();
+        String extension = StrUtil.isBlank(dto.getExtension()) ? null
+                : StrUtil.removePrefix(dto.getExtension().trim(), ".").toLowerCase();
+        List<Long> fileIds = fileSearchService.search(dto.getUserId(), dto.getKeyword(), category, extension, limit);
+        if (fileIds.isEmpty()) {
+            return Result.success(new ArrayList<>());
+        }
+        return Result.success(userFileService.listUserFiles(dto.getUserId(), fileIds));
+    }
+
+    /**
+     * 统计用户文件的总大小，用于存储配额对账
+     */
+    @Override
+    public Result<Map<Long, Long>> sumUsedStorage(List<Long> userIds) {
+        if (CollUtil.isEmpty(userIds) || userIds.size() > MAX_SUM_USER_COUNT) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "用户数量必须在1到" + MAX_SUM_USER_COUNT + "之间");
+        }
+        return Result.success(userFileService.sumUsedStorage(userIds));
+    }
+
+    /**
+     * 按ID顺序查询一批物理文件，用于后台完整性校验
+     */
+    @Override
+    public Result<List<FileBlobVO>> listBlobs(Long afterId, Integer size) {
+        int limit = ObjectUtil.isNull(size) || size <= 0 ? DEFAULT_BLOB_PAGE_SIZE : Math.min(size, MAX_BLOB_PAGE_SIZE);
+        return Result.success(fileBlobService.listBlobs(ObjectUtil.defaultIfNull(afterId, 0L), limit));
+    }
+
+    /**
+     * 物理文件复制到新的存储路径后更新登记的路径，用于存储路径布局迁移
+     */
+    @Override
+    @BusinessLog(operation = "更新物理文件存储路径")
+    public Result<Boolean> updateBlobStoragePath(Long blobId, String oldPath, String newPath) {
+        if (ObjectUtil.isNull(blobId) || StrUtil.isBlank(oldPath) || StrUtil.isBlank(newPath)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "存储路径参数不完整");
+        }
+        return Result.success(fileBlobService.updateStoragePath(blobId, oldPath, newPath));
+    }
+
+    // ============================== 私有方法 ===============================
+    // 校验批量操作的文件ID，返回去重后的列表
+    private List<Long> checkBatchFileIds(Long userId, List<Long> fileIds) {
+        if (ObjectUtil.isNull(userId) || CollUtil.isEmpty(fileIds) || fileIds.size() > FileConstants.MAX_BATCH_FILE_COUNT) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR,
+                    "文件数量必须在1到" + FileConstants.MAX_BATCH_FILE_COUNT + "之间");
+        }
+        if (fileIds.contains(null)) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "文件ID不能为空");
+        }
+        return fileIds.stream().distinct().toList();
+    }
+
+    // 校验块清单，块大小之和必须等于文件大小
+    private void checkChunkRefs(List<ChunkRefDTO> chunkRefs, Long fileSize) {
+        if (CollUtil.isEmpty(chunkRefs)) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "块清单不能为空");
+        }
+        long totalSize = 0;
+        for (ChunkRefDTO ref : chunkRefs) {
+            if (StrUtil.length(ref.getSha256()) != 64 || ObjectUtil.isNull(ref.getSize()) || ref.getSize() <= 0) {
+                throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "块清单格式不正确");
+            }
+            ref.setSha256(ref.getSha256().toLowerCase());
+            totalSize += ref.getSize();
+        }
+        if (totalSize != fileSize) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "块清单与文件大小不一致");
+        }
+    }
+
+    // 校验文件参数
+    private void checkFileParams(Long userId, String fileName, Long fileSize, String fileSha256) {
+        if (ObjectUtil.isNull(userId) || StrUtil.isBlank(fileName) || ObjectUtil.isNull(fileSize) || fileSize < 0) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "文件参数不完整");
+        }
+        if (StrUtil.length(fileSha256) != 64) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "文件sha256格式不正确");
+        }
+    }
+}
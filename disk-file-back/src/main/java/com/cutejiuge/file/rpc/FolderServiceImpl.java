@@ -0,0 +1,249 @@
+package com.cutejiuge.file.rpc;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import com.cutejiuge.common.annotation.BusinessLog;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.RedisLockUtil;
+import com.cutejiuge.file.service.CopyJobService;
+import com.cutejiuge.file.service.FolderTreeService;
+import com.cutejiuge.iface.service.file.FolderService;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.FolderVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboService;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 文件夹服务RPC实现类
+ * <p>
+ * 移动以被移动的文件夹或文件ID加移动锁，锁住文件夹即锁住整棵子树；不同子树的移动互不影响，
+ * 它们之间的交叉（例如把A移入B的同时把B移入A）由事务中的行锁兜底。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午10:25
+ */
+@Slf4j
+@Service
+@DubboService(version = "1.0.0", group = "easy-disk")
+public class FolderServiceImpl implements FolderService {
+    // 文件夹名称中不允许出现的字符
+    private static final Pattern ILLEGAL_NAME_PATTERN = Pattern.compile("[\\\\/:*?\"<>|]");
+    private static final int MAX_NAME_LENGTH = 255;
+
+    @Resource
+    private FolderTreeService folderTreeService;
+
+    @Resource
+    private CopyJobService copyJobService;
+
+    @Resource
+    private RedisLockUtil redisLockUtil;
+
+    /**
+     * 创建文件夹
+     */
+    @Override
+    @BusinessLog(operation = "创建文件夹")
+    public Result<FolderVO> createFolder(Long userId, Long parentId, String folderName) {
+        try {
+            String name = checkFolderName(userId, folderName);
+            return Result.success(folderTreeService.createFolder(userId, normalizeFolderId(parentId), name));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 重命名文件夹
+     */
+    @Override
+    @BusinessLog(operation = "重命名文件夹")
+    public Result<FolderVO> renameFolder(Long userId, Long folderId, String folderName) {
+        try {
+            String name = checkFolderName(userId, folderName);
+            checkFolderId(folderId);
+            return Result.success(folderTreeService.renameFolder(userId, folderId, name));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 移动文件夹，以用户ID加文件夹树锁，同一用户的文件夹移动串行执行
+     */
+    @Override
+    @BusinessLog(operation = "移动文件夹")
+    public Result<FolderVO> moveFolder(Long userId, Long folderId, Long targetParentId) {
+        if (ObjectUtil.isNull(userId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "用户ID不能为空");
+        }
+        try {
+            checkFolderId(folderId);
+            Long targetId = normalizeFolderId(targetParentId);
+            return Result.success(redisLockUtil.executeWithFolderTreeLock(userId,
+                    () -> folderTreeService.moveFolder(userId, folderId, targetId)));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("移动文件夹与其他修改冲突: userId={}, folderId={}, target={}", userId, folderId, targetParentId, e);
+            return Result.error(ResultCode.FILE_MOVE_FAILED, "文件夹正在被修改，请稍后重试");
+        }
+    }
+
+    /**
+     * 移动文件，以文件ID加移动锁
+     */
+    @Override
+    @BusinessLog(operation = "移动文件")
+    public Result<UserFileVO> moveFile(Long userId, Long fileId, Long targetFolderId) {
+        if (ObjectUtil.isNull(userId) || ObjectUtil.isNull(fileId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "文件参数不完整");
+        }
+        try {
+            Long targetId = normalizeFolderId(targetFolderId);
+            return Result.success(redisLockUtil.executeWithFileMoveLock(fileId,
+                    () -> folderTreeService.moveFile(userId, fileId, targetId)));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("移动文件与其他修改冲突: userId={}, fileId={}, target={}", userId, fileId, targetFolderId, e);
+            return Result.error(ResultCode.FILE_MOVE_FAILED, "目标文件夹正在被修改，请稍后重试");
+        }
+    }
+
+    /**
+     * 批量移动文件，一次并行获取全部文件的移动锁，整批在一个事务中完成
+     */
+    @Override
+    @BusinessLog(operation = "批量移动文件")
+    public Result<BatchResultVO> batchMoveFiles(Long userId, List<Long> fileIds, Long targetFolderId) {
+        try {
+            List<Long> ids = checkBatchFileIds(userId, fileIds);
+            Long targetId = normalizeFolderId(targetFolderId);
+            return Result.success(redisLockUtil.executeWithFileMoveLocks(ids,
+                    () -> folderTreeService.moveFiles(userId, ids, targetId)));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("批量移动文件与其他修改冲突: userId={}, fileCount={}, target={}", userId, fileIds.size(), targetFolderId, e);
+            return Result.error(ResultCode.FILE_MOVE_FAILED, "目标文件夹正在被修改，请稍后重试");
+        }
+    }
+
+    /**
+     * 复制文件夹，源文件夹只读不加锁，复制期间的修改按各批次读到的为准
+     */
+    @Override
+    @BusinessLog(operation = "复制文件夹")
+    public Result<CopyJobVO> copyFolder(Long userId, Long folderId, Long targetParentId) {
+        if (ObjectUtil.isNull(userId) || ObjectUtil.isNull(folderId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "文件夹参数不完整");
+        }
+        if (folderId == FileConstants.ROOT_FOLDER_ID) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "不能复制根目录");
+        }
+        try {
+            return Result.success(copyJobService.startFolderCopy(userId, folderId, userId, normalizeFolderId(targetParentId)));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("复制文件夹与其他修改冲突: userId={}, folderId={}, target={}", userId, folderId, targetParentId, e);
+            return Result.error(ResultCode.FILE_COPY_FAILED, "目标文件夹正在被修改，请稍后重试");
+        }
+    }
+
+    /**
+     * 查询复制任务的进度
+     */
+    @Override
+    public Result<CopyJobVO> getCopyJob(Long userId, String jobId) {
+        if (ObjectUtil.isNull(userId) || StrUtil.isBlank(jobId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "任务参数不完整");
+        }
+        try {
+            return Result.success(copyJobService.getJob(userId, jobId));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 列出文件夹的直接子文件夹和文件
+     */
+    @Override
+    public Result<FolderContentVO> listFolder(Long userId, Long folderId) {
+        if (ObjectUtil.isNull(userId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "用户ID不能为空");
+        }
+        try {
+            return Result.success(folderTreeService.listFolder(userId, normalizeFolderId(folderId)));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 查询文件夹的整棵子树
+     */
+    @Override
+    public Result<FolderContentVO> getFolderTree(Long userId, Long folderId) {
+        if (ObjectUtil.isNull(userId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "用户ID不能为空");
+        }
+        try {
+            return Result.success(folderTreeService.getFolderTree(userId, normalizeFolderId(folderId)));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    // ============================== 私有方法 ===============================
+    // 校验文件夹名称，返回去掉首尾空白后的名称
+    private String checkFolderName(Long userId, String folderName) {
+        if (ObjectUtil.isNull(userId) || StrUtil.isBlank(folderName)) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "文件夹参数不完整");
+        }
+        String name = folderName.trim();
+        if (name.length() > MAX_NAME_LENGTH || ".".equals(name) || "..".equals(name)
+                || ILLEGAL_NAME_PATTERN.matcher(name).find()) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "文件夹名称不合法");
+        }
+        return name;
+    }
+
+    // 校验批量操作的文件ID，返回去重后的列表
+    private List<Long> checkBatchFileIds(Long userId, List<Long> fileIds) {
+        if (ObjectUtil.isNull(userId) || CollUtil.isEmpty(fileIds) || fileIds.size() > FileConstants.MAX_BATCH_FILE_COUNT) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR,
+                    "文件数量必须在1到" + FileConstants.MAX_BATCH_FILE_COUNT + "之间");
+        }
+        if (fileIds.contains(null)) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "文件ID不能为空");
+        }
+        return fileIds.stream().distinct().toList();
+    }
+
+    // 根目录不能重命名和移动
+    private void checkFolderId(Long folderId) {
+        if (normalizeFolderId(folderId) == FileConstants.ROOT_FOLDER_ID) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "不能修改根目录");
+        }
+    }
+
+    private Long normalizeFolderId(Long folderId) {
+        return ObjectUtil.defaultIfNull(folderId, FileConstants.ROOT_FOLDER_ID);
+    }
+}
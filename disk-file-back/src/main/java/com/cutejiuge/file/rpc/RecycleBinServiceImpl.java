@@ -0,0 +1,189 @@
+package com.cutejiuge.file.rpc;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.common.annotation.BusinessLog;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.RedisLockUtil;
+import com.cutejiuge.common.util.StorageQuotaUtil;
+import com.cutejiuge.file.service.RecycleItemService;
+import com.cutejiuge.iface.service.file.RecycleBinService;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.RecycleItemVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboService;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 回收站服务RPC实现类
+ * <p>
+ * 删除以文件或文件夹ID加删除锁，还原以回收站记录ID加删除锁，锁只覆盖修改删除标记的短事务。
+ * 回收站中的文件不计入已用空间：放入回收站时释放配额，还原时先预占配额、空间不足时拒绝还原，与按未删除文件对账的口径一致。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午3:40
+ */
+@Slf4j
+@Service
+@DubboService(version = "1.0.0", group = "easy-disk")
+public class RecycleBinServiceImpl implements RecycleBinService {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @Resource
+    private RecycleItemService recycleItemService;
+
+    @Resource
+    private RedisLockUtil redisLockUtil;
+
+    @Resource
+    private StorageQuotaUtil storageQuotaUtil;
+
+    /**
+     * 删除文件，以文件ID加删除锁
+     */
+    @Override
+    @BusinessLog(operation = "删除文件")
+    public Result<RecycleItemVO> deleteFile(Long userId, Long fileId) {
+        if (ObjectUtil.isNull(userId) || ObjectUtil.isNull(fileId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "文件参数不完整");
+        }
+        try {
+            RecycleItemVO item = redisLockUtil.executeWithFileDeleteLock(fileId,
+                    () -> recycleItemService.recycleFile(userId, fileId));
+            storageQuotaUtil.adjustUsed(userId, -item.getTotalSize());
+            return Result.success(item);
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("删除文件与其他修改冲突: userId={}, fileId={}", userId, fileId, e);
+            return Result.error(ResultCode.FILE_DELETE_FAILED, "文件正在被修改，请稍后重试");
+        }
+    }
+
+    /**
+     * 删除文件夹，以文件夹ID加删除锁
+     */
+    @Override
+    @BusinessLog(operation = "删除文件夹")
+    public Result<RecycleItemVO> deleteFolder(Long userId, Long folderId) {
+        if (ObjectUtil.isNull(userId) || ObjectUtil.isNull(folderId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "文件夹参数不完整");
+        }
+        if (folderId == FileConstants.ROOT_FOLDER_ID) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "不能删除根目录");
+        }
+        try {
+            RecycleItemVO item = redisLockUtil.executeWithFileDeleteLock(folderId,
+                    () -> recycleItemService.recycleFolder(userId, folderId));
+            storageQuotaUtil.adjustUsed(userId, -item.getTotalSize());
+            return Result.success(item);
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("删除文件夹与其他修改冲突: userId={}, folderId={}", userId, folderId, e);
+            return Result.error(ResultCode.FILE_DELETE_FAILED, "文件夹正在被修改，请稍后重试");
+        }
+    }
+
+    /**
+     * 批量删除文件，一次并行获取全部文件的删除锁，整批在一个事务中完成，已用空间调整一次
+     */
+    @Override
+    @BusinessLog(operation = "批量删除文件")
+    public Result<BatchResultVO> batchDeleteFiles(Long userId, List<Long> fileIds) {
+        try {
+            List<Long> ids = checkBatchFileIds(userId, fileIds);
+            BatchResultVO result = redisLockUtil.executeWithFileDeleteLocks(ids,
+                    () -> recycleItemService.recycleFiles(userId, ids));
+            if (result.getTotalSize() > 0) {
+                storageQuotaUtil.adjustUsed(userId, -result.getTotalSize());
+            }
+            return Result.success(result);
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("批量删除文件与其他修改冲突: userId={}, fileCount={}", userId, fileIds.size(), e);
+            return Result.error(ResultCode.FILE_DELETE_FAILED, "文件正在被修改，请稍后重试");
+        }
+    }
+
+    /**
+     * 按删除时间倒序查询回收站
+     */
+    @Override
+    public Result<List<RecycleItemVO>> listRecycleBin(Long userId, Long beforeId, Integer size) {
+        if (ObjectUtil.isNull(userId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "用户ID不能为空");
+        }
+        int limit = ObjectUtil.isNull(size) || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        return Result.success(recycleItemService.listItems(userId, beforeId, limit));
+    }
+
+    /**
+     * 还原回收站项目，以回收站记录ID加删除锁，与后台清理的标记互斥，配额在还原事务中预占并在提交后计入
+     */
+    @Override
+    @BusinessLog(operation = "还原回收站项目")
+    public Result<RecycleItemVO> restore(Long userId, Long recycleId) {
+        if (ObjectUtil.isNull(userId) || ObjectUtil.isNull(recycleId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "回收站参数不完整");
+        }
+        try {
+            return Result.success(redisLockUtil.executeWithFileDeleteLock(recycleId,
+                    () -> recycleItemService.restore(userId, recycleId)));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("还原与其他修改冲突: userId={}, recycleId={}", userId, recycleId, e);
+            return Result.error(ResultCode.FILE_MOVE_FAILED, "目标文件夹正在被修改，请稍后重试");
+        }
+    }
+
+    /**
+     * 彻底删除回收站项目
+     */
+    @Override
+    @BusinessLog(operation = "彻底删除回收站项目")
+    public Result<Void> purge(Long userId, Long recycleId) {
+        if (ObjectUtil.isNull(userId) || ObjectUtil.isNull(recycleId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "回收站参数不完整");
+        }
+        if (!recycleItemService.expireItem(userId, recycleId)) {
+            return Result.error(ResultCode.RECYCLE_ITEM_NOT_FOUND);
+        }
+        return Result.success();
+    }
+
+    /**
+     * 清空回收站
+     */
+    @Override
+    @BusinessLog(operation = "清空回收站")
+    public Result<Integer> emptyRecycleBin(Long userId) {
+        if (ObjectUtil.isNull(userId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "用户ID不能为空");
+        }
+        return Result.success(recycleItemService.expireAll(userId));
+    }
+
+    // ============================== 私有方法 ===============================
+    // 校验批量操作的文件ID，返回去重后的列表
+    private List<Long> checkBatchFileIds(Long userId, List<Long> fileIds) {
+        if (ObjectUtil.isNull(userId) || CollUtil.isEmpty(fileIds) || fileIds.size() > FileConstants.MAX_BATCH_FILE_COUNT) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR,
+                    "文件数量必须在1到" + FileConstants.MAX_BATCH_FILE_COUNT + "之间");
+        }
+        if (fileIds.contains(null)) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "文件ID不能为空");
+        }
+        return fileIds.stream().distinct().toList();
+    }
+}
@@ -0,0 +1,167 @@
+package com.cutejiuge.file.rpc;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.ReUtil;
+import cn.hutool.core.util.StrUtil;
+import com.cutejiuge.common.annotation.BusinessLog;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.ShareCodeUtil;
+import com.cutejiuge.file.service.ShareLinkService;
+import com.cutejiuge.iface.dto.file.CreateShareDTO;
+import com.cutejiuge.iface.dto.file.SaveShareDTO;
+import com.cutejiuge.iface.service.file.ShareService;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.ShareVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboService;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 分享服务RPC实现类
+ * <p>
+ * 查看分享的请求由网关的两级缓存承接，这里只在缓存未命中时被调用；访问次数由网关聚合后定时批量写回，查看分享不写数据库。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午8:10
+ */
+@Slf4j
+@Service
+@DubboService(version = "1.0.0", group = "easy-disk")
+public class ShareServiceImpl implements ShareService {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_EXPIRE_DAYS = 365;
+    // 提取码为4到6位字母或数字
+    private static final String EXTRACT_CODE_PATTERN = "^[0-9A-Za-z]{4,6}$";
+
+    @Resource
+    private ShareLinkService shareLinkService;
+
+    /**
+     * 创建分享
+     */
+    @Override
+    @BusinessLog(operation = "创建分享")
+    public Result<ShareVO> createShare(CreateShareDTO dto) {
+        if (ObjectUtil.isNull(dto) || ObjectUtil.isNull(dto.getUserId()) || ObjectUtil.isNull(dto.getItemId())
+                || ObjectUtil.isNull(dto.getItemType())) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "分享参数不完整");
+        }
+        if (dto.getItemType() != FileConstants.SHARE_ITEM_TYPE_FILE && dto.getItemType() != FileConstants.SHARE_ITEM_TYPE_FOLDER) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "分享项目类型不正确");
+        }
+        if (dto.getItemType() == FileConstants.SHARE_ITEM_TYPE_FOLDER && dto.getItemId() == FileConstants.ROOT_FOLDER_ID) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "不能分享根目录");
+        }
+        if (StrUtil.isNotEmpty(dto.getExtractCode()) && !ReUtil.isMatch(EXTRACT_CODE_PATTERN, dto.getExtractCode())) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "提取码为4到6位字母或数字");
+        }
+        if (ObjectUtil.isNotNull(dto.getExpireDays()) && (dto.getExpireDays() <= 0 || dto.getExpireDays() > MAX_EXPIRE_DAYS)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "有效天数为1到" + MAX_EXPIRE_DAYS + "天");
+        }
+        dto.setExtractCode(StrUtil.emptyToNull(dto.getExtractCode()));
+        try {
+            return Result.success(shareLinkService.createShare(dto));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 按分享码查询分享，只在网关缓存未命中时调用
+     */
+    @Override
+    public Result<ShareVO> getShare(String shareCode) {
+        if (!ShareCodeUtil.isValid(shareCode)) {
+            return Result.error(ResultCode.SHARE_NOT_FOUND);
+        }
+        try {
+            return Result.success(shareLinkService.getShare(shareCode));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 按创建时间倒序查询用户有效的分享
+     */
+    @Override
+    public Result<List<ShareVO>> listShares(Long userId, Long beforeId, Integer size) {
+        if (ObjectUtil.isNull(userId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "用户ID不能为空");
+        }
+        int limit = ObjectUtil.isNull(size) || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        return Result.success(shareLinkService.listShares(userId, beforeId, limit));
+    }
+
+    /**
+     * 取消分享
+     */
+    @Override
+    @BusinessLog(operation = "取消分享")
+    public Result<ShareVO> cancelShare(Long userId, Long shareId) {
+        if (ObjectUtil.isNull(userId) || ObjectUtil.isNull(shareId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "分享参数不完整");
+        }
+        try {
+            return Result.success(shareLinkService.cancelShare(userId, shareId));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 查询分享的内容
+     */
+    @Override
+    public Result<FolderContentVO> listShareContent(Long userId, Integer itemType, Long itemId, Long folderId) {
+        if (ObjectUtil.isNull(userId) || ObjectUtil.isNull(itemType) || ObjectUtil.isNull(itemId)) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "分享参数不完整");
+        }
+        try {
+            return Result.success(shareLinkService.listShareContent(userId, itemType, itemId, folderId));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+
+    /**
+     * 转存分享，分享的状态、有效期和提取码已由网关校验
+     */
+    @Override
+    @BusinessLog(operation = "转存分享")
+    public Result<CopyJobVO> saveShare(SaveShareDTO dto) {
+        if (ObjectUtil.isNull(dto) || ObjectUtil.isNull(dto.getUserId()) || ObjectUtil.isNull(dto.getShareUserId())
+                || ObjectUtil.isNull(dto.getItemType()) || ObjectUtil.isNull(dto.getItemId())) {
+            return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "转存参数不完整");
+        }
+        if (dto.getUserId().equals(dto.getShareUserId())) {
+            return Result.error(ResultCode.FILE_SAVE_FAILED, "不能转存自己的分享");
+        }
+        if (CollUtil.isNotEmpty(dto.getFileIds())) {
+            if (dto.getFileIds().size() > FileConstants.MAX_BATCH_FILE_COUNT || dto.getFileIds().contains(null)) {
+                return Result.error(ResultCode.PARAM_VALIDATION_ERROR, "文件数量不能超过" + FileConstants.MAX_BATCH_FILE_COUNT);
+            }
+            dto.setFileIds(dto.getFileIds().stream().distinct().toList());
+        }
+        dto.setTargetFolderId(ObjectUtil.defaultIfNull(dto.getTargetFolderId(), FileConstants.ROOT_FOLDER_ID));
+        try {
+            return Result.success(shareLinkService.saveShare(dto));
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("转存分享与其他修改冲突: userId={}, itemId={}, target={}", dto.getUserId(), dto.getItemId(),
+                    dto.getTargetFolderId(), e);
+            return Result.error(ResultCode.FILE_SAVE_FAILED, "目标文件夹正在被修改，请稍后重试");
+        }
+    }
+}
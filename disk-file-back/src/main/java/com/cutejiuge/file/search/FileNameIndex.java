@@ -0,0 +1,213 @@
+package com.cutejiuge.file.search;
+
+import com.cutejiuge.common.util.FileUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 单个用户的文件名倒排索引
+ * <p>
+ * 每个文件是一个文档，文档号按加入顺序递增，倒排表只追加，天然有序。单词放在有序词典中，前缀查询是一次范围遍历；
+ * CJK的单字和两字放在哈希表中精确查找。查询时每个片段得到一个候选位图，位图按位与后从大到小遍历，
+ * 最近加入的文件排在前面；两字求交集可能把不相邻的字也算进来，候选结果再用原文校验一次。
+ * <p>
+ * 修改和删除只把旧文档标记为失效，不改动倒排表，失效文档过多时由调用方重建。不是线程安全的，由调用方加锁。
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 上午9:30
+ */
+public class FileNameIndex {
+    private static final int INITIAL_CAPACITY = 1024;
+    // 失效文档超过这个数量且多于有效文档时需要重建
+    private static final int COMPACT_THRESHOLD = 1000;
+
+    private long[] fileIds = new long[INITIAL_CAPACITY];
+    private String[] fileNames = new String[INITIAL_CAPACITY];
+    private String[] categories = new String[INITIAL_CAPACITY];
+    private String[] extensions = new String[INITIAL_CAPACITY];
+    private int docCount;
+    private final BitSet alive = new BitSet();
+    private final Map<Long, Integer> docIdsByFileId = new HashMap<>();
+    private final TreeMap<String, IntList> wordPostings = new TreeMap<>();
+    private final Map<String, IntList> gramPostings = new HashMap<>();
+
+    /**
+     * 加入或更新一个文件，已存在时旧文档失效
+     */
+    public void upsert(long fileId, String fileName) {
+        remove(fileId);
+        int docId = docCount++;
+        ensureCapacity(docCount);
+        fileIds[docId] = fileId;
+        fileNames[docId] = fileName;
+        categories[docId] = FileUtil.getFileCategory(fileName);
+        extensions[docId] = FileUtil.getExtension(fileName).intern();
+        for (FileNameTokenizer.Token token : FileNameTokenizer.tokenize(FileNameTokenizer.normalize(fileName))) {
+            if (token.isCjk()) {
+                for (String gram : FileNameTokenizer.cjkGrams(token.getText())) {
+                    gramPostings.computeIfAbsent(gram, key -> new IntList()).addIfAbsent(docId);
+                }
+            } else {
+                wordPostings.computeIfAbsent(token.getText(), key -> new IntList()).addIfAbsent(docId);
+            }
+        }
+        alive.set(docId);
+        docIdsByFileId.put(fileId, docId);
+    }
+
+    /**
+     * 删除一个文件，不存在时忽略
+     */
+    public void remove(long fileId) {
+        Integer docId = docIdsByFileId.remove(fileId);
+        if (docId != null) {
+            alive.clear(docId);
+        }
+    }
+
+    /**
+     * 查询文件名包含关键词的文件
+     *
+     * @param keyword 关键词，单词按前缀匹配，CJK按连续子串匹配，多个片段之间是与的关系
+     * @param category 文件分类，为null时不过滤
+     * @param extension 扩展名，为null时不过滤
+     * @param limit 最多返回的数量
+     * @return 文件ID，最近加入的在前
+     */
+    public List<Long> search(String keyword, String category, String extension, int limit) {
+        List<Long> result = new ArrayList<>();
+        List<FileNameTokenizer.Token> tokens = FileNameTokenizer.tokenize(FileNameTokenizer.normalize(keyword));
+        if (tokens.isEmpty()) {
+            return result;
+        }
+        BitSet candidates = null;
+        for (FileNameTokenizer.Token token : tokens) {
+            BitSet matches = token.isCjk() ? matchCjk(token.getText()) : matchWordPrefix(token.getText());
+            if (candidates == null) {
+                candidates = matches;
+            } else {
+                candidates.and(matches);
+            }
+            if (candidates.isEmpty()) {
+                return result;
+            }
+        }
+        candidates.and(alive);
+        for (int docId = candidates.previousSetBit(docCount - 1); docId >= 0 && result.size() < limit;
+             docId = candidates.previousSetBit(docId - 1)) {
+            if ((category == null || category.equals(categories[docId]))
+                    && (extension == null || extension.equals(extensions[docId]))
+                    && containsCjkTokens(docId, tokens)) {
+                result.add(fileIds[docId]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 有效文件数量
+     */
+    public int size() {
+        return docIdsByFileId.size();
+    }
+
+    /**
+     * 失效文档过多，重建可以回收内存
+     */
+    public boolean needsCompaction() {
+        int dead = docCount - docIdsByFileId.size();
+        return dead > COMPACT_THRESHOLD && dead > docIdsByFileId.size();
+    }
+
+    // ======================== 私有方法 ========================
+    // CJK片段：所有两字的倒排表求交集，有一个两字不存在时没有结果
+    private BitSet matchCjk(String text) {
+        BitSet matches = null;
+        for (String gram : FileNameTokenizer.cjkQueryGrams(text)) {
+            IntList postings = gramPostings.get(gram);
+            if (postings == null) {
+                return new BitSet();
+            }
+            BitSet gramMatches = postings.toBitSet();
+            if (matches == null) {
+                matches = gramMatches;
+            } else {
+                matches.and(gramMatches);
+            }
+        }
+        return matches == null ? new BitSet() : matches;
+    }
+
+    // 单词：词典中以它为前缀的所有词项的倒排表求并集
+    private BitSet matchWordPrefix(String prefix) {
+        BitSet matches = new BitSet(docCount);
+        for (IntList postings : wordPostings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            postings.addTo(matches);
+        }
+        return matches;
+    }
+
+    // 两字交集可能来自不相邻的位置，用原文确认每个CJK片段都是连续出现的
+    private boolean containsCjkTokens(int docId, List<FileNameTokenizer.Token> tokens) {
+        String normalized = null;
+        for (FileNameTokenizer.Token token : tokens) {
+            if (token.isCjk() && token.getText().codePointCount(0, token.getText().length()) > 2) {
+                if (normalized == null) {
+                    normalized = FileNameTokenizer.normalize(fileNames[docId]);
+                }
+                if (!normalized.contains(token.getText())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= fileIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, fileIds.length * 2);
+        fileIds = Arrays.copyOf(fileIds, newCapacity);
+        fileNames = Arrays.copyOf(fileNames, newCapacity);
+        categories = Arrays.copyOf(categories, newCapacity);
+        extensions = Arrays.copyOf(extensions, newCapacity);
+    }
+
+    /**
+     * 只追加的有序文档号列表
+     */
+    private static class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        // 同一个文档中重复出现的词项只记一次，文档号递增，只需要和最后一个比较
+        void addIfAbsent(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addTo(BitSet bitSet) {
+            for (int i = 0; i < size; i++) {
+                bitSet.set(values[i]);
+            }
+        }
+
+        BitSet toBitSet() {
+            BitSet bitSet = new BitSet(size == 0 ? 0 : values[size - 1] + 1);
+            addTo(bitSet);
+            return bitSet;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.cutejiuge.file.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 文件名分词器
+ * <p>
+ * 文件名先做NFKC归一化（全角字母数字转半角）并转小写，再切成连续的片段：中日韩文字连在一起的是一个CJK片段，
+ * 其余字母和数字连在一起的是一个单词，其他字符都是分隔符。建索引时CJK片段拆成单字和相邻两字，单词整体作为一个词项；
+ * 查询时CJK片段按两字求交集，单词按前缀匹配词典中的词项。"2024年度报告final.pdf"切成 [2024] [年度报告] [final] [pdf]。
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 上午9:10
+ */
+public final class FileNameTokenizer {
+    private FileNameTokenizer() {
+    }
+
+    /**
+     * 归一化，建索引、查询和校验候选结果都用归一化后的文本
+     */
+    public static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 把归一化后的文本切成片段
+     */
+    public static List<Token> tokenize(String normalized) {
+        List<Token> tokens = new ArrayList<>();
+        int start = -1;
+        boolean startCjk = false;
+        int i = 0;
+        while (i <= normalized.length()) {
+            int codePoint = i < normalized.length() ? normalized.codePointAt(i) : -1;
+            boolean cjk = codePoint >= 0 && isCjk(codePoint);
+            boolean word = codePoint >= 0 && !cjk && Character.isLetterOrDigit(codePoint);
+            // 片段在字符类别变化或遇到分隔符时结束
+            if (start >= 0 && ((!cjk && !word) || cjk != startCjk)) {
+                tokens.add(new Token(normalized.substring(start, i), startCjk));
+                start = -1;
+            }
+            if (start < 0 && (cjk || word)) {
+                start = i;
+                startCjk = cjk;
+            }
+            i += codePoint >= 0 ? Character.charCount(codePoint) : 1;
+        }
+        return tokens;
+    }
+
+    /**
+     * CJK片段的索引词项：每个单字和相邻两字
+     */
+    public static List<String> cjkGrams(String text) {
+        int[] codePoints = text.codePoints().toArray();
+        List<String> grams = new ArrayList<>(codePoints.length * 2);
+        for (int i = 0; i < codePoints.length; i++) {
+            grams.add(new String(codePoints, i, 1));
+            if (i + 1 < codePoints.length) {
+                grams.add(new String(codePoints, i, 2));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * CJK片段的查询词项：只有一个字时用单字，否则用全部相邻两字
+     */
+    public static List<String> cjkQueryGrams(String text) {
+        int[] codePoints = text.codePoints().toArray();
+        List<String> grams = new ArrayList<>(codePoints.length);
+        if (codePoints.length == 1) {
+            grams.add(text);
+            return grams;
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            grams.add(new String(codePoints, i, 2));
+        }
+        return grams;
+    }
+
+    // ======================== 私有方法 ========================
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 分词得到的片段
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Token {
+        /**
+         * 片段文本
+         */
+        private final String text;
+
+        /**
+         * 是否为CJK片段
+         */
+        private final boolean cjk;
+    }
+}
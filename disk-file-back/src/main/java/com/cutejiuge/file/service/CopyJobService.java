@@ -0,0 +1,27 @@
+package com.cutejiuge.file.service;
+
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+
+/**
+ * 文件夹复制任务服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午4:50
+ */
+public interface CopyJobService {
+    /**
+     * 复制文件夹及其整棵子树：文件夹结构同步复制，文件较少时同步复制完成，否则在后台分批复制
+     *
+     * @param sourceUserId 源文件夹所属的用户ID，转存分享时为分享者
+     * @param folderId 源文件夹ID
+     * @param targetUserId 复制到的用户ID，任务归属于该用户
+     * @param targetParentId 目标父文件夹ID，0为根目录
+     * @return 任务进度，同步完成时状态为已完成
+     */
+    CopyJobVO startFolderCopy(Long sourceUserId, Long folderId, Long targetUserId, Long targetParentId);
+
+    /**
+     * 查询任务进度，任务不存在、已过期或不属于该用户时抛出复制任务不存在
+     */
+    CopyJobVO getJob(Long userId, String jobId);
+}
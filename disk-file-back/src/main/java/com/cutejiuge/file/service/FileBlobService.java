@@ -0,0 +1,53 @@
+package com.cutejiuge.file.service;
+
+import com.cutejiuge.file.pojo.dto.FileBlobCacheDTO;
+import com.cutejiuge.iface.dto.file.InstantUploadDTO;
+import com.cutejiuge.iface.dto.file.SaveUploadedFileDTO;
+import com.cutejiuge.iface.dto.file.UpdateFileContentDTO;
+import com.cutejiuge.iface.vo.file.FileBlobVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+
+import java.util.List;
+
+/**
+ * 物理文件索引服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:45
+ */
+public interface FileBlobService {
+    /**
+     * 根据sha256查找物理文件，优先查缓存，缓存未命中时查库并回填
+     */
+    FileBlobCacheDTO findBlob(String sha256);
+
+    /**
+     * 删除sha256索引缓存
+     */
+    void evictBlob(String sha256);
+
+    /**
+     * 引用已存在的物理文件创建用户文件，物理文件不存在时返回null
+     */
+    UserFileVO referenceBlob(InstantUploadDTO dto);
+
+    /**
+     * 登记新上传的物理文件并创建用户文件，物理文件已存在时只增加引用计数
+     */
+    UserFileVO registerBlob(SaveUploadedFileDTO dto);
+
+    /**
+     * 把用户文件换成新的物理文件，新物理文件已存在时只增加引用计数，并释放对原物理文件的引用
+     */
+    UserFileVO replaceBlob(UpdateFileContentDTO dto);
+
+    /**
+     * 按ID顺序查询ID大于afterId的一批物理文件
+     */
+    List<FileBlobVO> listBlobs(Long afterId, int limit);
+
+    /**
+     * 物理文件迁移到新的存储路径后更新登记的路径，路径已不是oldPath时返回false
+     */
+    boolean updateStoragePath(Long blobId, String oldPath, String newPath);
+}
@@ -0,0 +1,40 @@
+package com.cutejiuge.file.service;
+
+import com.cutejiuge.file.entity.UserFileEntity;
+import com.cutejiuge.file.pojo.dto.FolderCopyPlanDTO;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+
+import java.util.List;
+
+/**
+ * 文件复制服务接口，复制只新增用户文件记录并增加物理文件的引用计数，不复制数据
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午4:25
+ */
+public interface FileCopyService {
+    /**
+     * 批量复制文件到同一个文件夹，不存在或不在范围内的文件记为失败，目标文件夹不存在或配额不足时整批失败
+     *
+     * @param sourceUserId 源文件所属的用户ID，转存分享时为分享者
+     * @param fileIds 源文件ID
+     * @param scopePath 源文件必须位于这个路径的子树内，为null时不限制
+     * @param targetUserId 复制到的用户ID
+     * @param targetFolderId 目标文件夹ID，0为根目录
+     */
+    BatchResultVO copyFiles(Long sourceUserId, List<Long> fileIds, String scopePath, Long targetUserId, Long targetFolderId);
+
+    /**
+     * 复制文件夹结构，不包含文件，与目标文件夹中已有的文件夹重名时加序号
+     *
+     * @return 复制计划，文件由调用方按计划分批复制
+     */
+    FolderCopyPlanDTO copyFolderTree(Long sourceUserId, Long folderId, Long targetUserId, Long targetParentId);
+
+    /**
+     * 按复制计划复制一批文件，所在文件夹不在计划中或复制得到的文件夹已被删除的文件跳过
+     *
+     * @return 复制成功的文件数和总大小
+     */
+    BatchResultVO copyFolderFiles(FolderCopyPlanDTO plan, List<UserFileEntity> sources);
+}
@@ -0,0 +1,52 @@
+package com.cutejiuge.file.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件名搜索服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 上午10:00
+ */
+public interface FileSearchService {
+    /**
+     * 在用户的文件名索引中查询
+     *
+     * @param userId 用户ID
+     * @param keyword 关键词
+     * @param category 文件分类，为null时不过滤
+     * @param extension 扩展名，为null时不过滤
+     * @param limit 最多返回的数量
+     * @return 文件ID，最近加入的在前，可能包含刚被删除的文件，调用方查询详情时会过滤掉
+     */
+    List<Long> search(Long userId, String keyword, String category, String extension, int limit);
+
+    /**
+     * 文件加入或改名后更新索引，在事务中调用时提交后生效
+     */
+    void onFileSaved(Long userId, Long fileId, String fileName);
+
+    /**
+     * 文件删除后更新索引，在事务中调用时提交后生效
+     */
+    void onFileRemoved(Long userId, Long fileId);
+
+    /**
+     * 多个文件加入后更新索引，一次写入全部事件
+     *
+     * @param fileNames 文件ID到文件名的映射
+     */
+    void onFilesSaved(Long userId, Map<Long, String> fileNames);
+
+    /**
+     * 多个文件删除后更新索引，一次写入全部事件
+     */
+    void onFilesRemoved(Long userId, Collection<Long> fileIds);
+
+    /**
+     * 批量变化（文件夹放入回收站或还原）后重建索引，在事务中调用时提交后生效
+     */
+    void onFilesChanged(Long userId);
+}
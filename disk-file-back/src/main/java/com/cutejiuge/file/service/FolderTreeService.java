@@ -0,0 +1,69 @@
+package com.cutejiuge.file.service;
+
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.FolderVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+
+import java.util.List;
+
+/**
+ * 文件夹树服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午9:40
+ */
+public interface FolderTreeService {
+    /**
+     * 创建文件夹
+     *
+     * @param parentId 父文件夹ID，0为根目录
+     */
+    FolderVO createFolder(Long userId, Long parentId, String folderName);
+
+    /**
+     * 重命名文件夹
+     */
+    FolderVO renameFolder(Long userId, Long folderId, String folderName);
+
+    /**
+     * 移动文件夹，调用方需要持有该文件夹的移动锁
+     *
+     * @param targetParentId 目标父文件夹ID，0为根目录
+     */
+    FolderVO moveFolder(Long userId, Long folderId, Long targetParentId);
+
+    /**
+     * 移动文件，调用方需要持有该文件的移动锁
+     *
+     * @param targetFolderId 目标文件夹ID，0为根目录
+     */
+    UserFileVO moveFile(Long userId, Long fileId, Long targetFolderId);
+
+    /**
+     * 批量移动文件到同一个文件夹，不存在或不属于该用户的文件记为失败，目标文件夹不存在时整批失败
+     */
+    BatchResultVO moveFiles(Long userId, List<Long> fileIds, Long targetFolderId);
+
+    /**
+     * 列出文件夹的直接子文件夹和文件
+     */
+    FolderContentVO listFolder(Long userId, Long folderId);
+
+    /**
+     * 查询文件夹的整棵子树，不包含文件夹自身
+     */
+    FolderContentVO getFolderTree(Long userId, Long folderId);
+
+    /**
+     * 获取文件夹路径并加共享锁，保证事务提交前路径不会被移动改写，需要在事务中调用
+     *
+     * @return 文件夹不存在时返回null
+     */
+    String lockFolderPath(Long userId, Long folderId);
+
+    /**
+     * 调整路径上所有文件夹（包含路径指向的文件夹自身）的子树计数器，需要在事务中调用
+     */
+    void addFileCounters(String folderPath, long fileCountDelta, long sizeDelta);
+}
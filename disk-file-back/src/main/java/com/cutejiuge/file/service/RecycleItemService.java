@@ -0,0 +1,77 @@
+package com.cutejiuge.file.service;
+
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.RecycleItemVO;
+
+import java.util.List;
+
+/**
+ * 回收站项目服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午2:35
+ */
+public interface RecycleItemService {
+    /**
+     * 把文件放入回收站，调用方需要持有该文件的删除锁
+     */
+    RecycleItemVO recycleFile(Long userId, Long fileId);
+
+    /**
+     * 把多个文件放入回收站，每个文件一条回收站记录，不存在或不属于该用户的文件记为失败
+     */
+    BatchResultVO recycleFiles(Long userId, List<Long> fileIds);
+
+    /**
+     * 把文件夹及其整棵子树放入回收站，调用方需要持有该文件夹的删除锁
+     */
+    RecycleItemVO recycleFolder(Long userId, Long folderId);
+
+    /**
+     * 按删除时间倒序查询用户可还原的项目
+     */
+    List<RecycleItemVO> listItems(Long userId, Long beforeId, int limit);
+
+    /**
+     * 还原回收站项目，调用方需要持有该回收站记录的删除锁
+     *
+     * @return 还原后的项目信息，parentId和itemName为实际还原到的位置和名称
+     */
+    RecycleItemVO restore(Long userId, Long recycleId);
+
+    /**
+     * 让用户的一个项目立即过期
+     *
+     * @return 项目不存在或不可还原时返回false
+     */
+    boolean expireItem(Long userId, Long recycleId);
+
+    /**
+     * 让用户的全部项目立即过期，返回过期的项目数
+     */
+    int expireAll(Long userId);
+
+    /**
+     * 把回收站记录标记为正在清理，调用方需要持有该回收站记录的删除锁
+     */
+    boolean markPurging(Long recycleId);
+
+    /**
+     * 物理删除回收站记录下ID大于afterId的一批文件并释放物理文件引用，一批一个事务
+     *
+     * @return 本批最后一个文件的ID，没有剩余文件时返回null
+     */
+    Long purgeFileBatch(Long recycleId, Long afterId, int limit);
+
+    /**
+     * 物理删除回收站记录下ID大于afterId的一批文件夹，一批一个事务
+     *
+     * @return 本批最后一个文件夹的ID，没有剩余文件夹时返回null
+     */
+    Long purgeFolderBatch(Long recycleId, Long afterId, int limit);
+
+    /**
+     * 删除已清理完的回收站记录
+     */
+    void removeItem(Long recycleId);
+}
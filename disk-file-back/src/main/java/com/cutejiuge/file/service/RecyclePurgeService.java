@@ -0,0 +1,14 @@
+package com.cutejiuge.file.service;
+
+/**
+ * 回收站清理服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午3:20
+ */
+public interface RecyclePurgeService {
+    /**
+     * 清理已过期的回收站项目，物理删除文件和文件夹并释放物理文件引用
+     */
+    void purgeExpired();
+}
@@ -0,0 +1,47 @@
+package com.cutejiuge.file.service;
+
+import com.cutejiuge.iface.dto.file.CreateShareDTO;
+import com.cutejiuge.iface.dto.file.SaveShareDTO;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.ShareVO;
+
+import java.util.List;
+
+/**
+ * 分享链接服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午7:40
+ */
+public interface ShareLinkService {
+    /**
+     * 创建分享，校验分享的文件或文件夹属于该用户
+     */
+    ShareVO createShare(CreateShareDTO dto);
+
+    /**
+     * 按分享码查询分享，不存在时抛出分享不存在
+     */
+    ShareVO getShare(String shareCode);
+
+    /**
+     * 按创建时间倒序查询用户有效的分享
+     */
+    List<ShareVO> listShares(Long userId, Long beforeId, int limit);
+
+    /**
+     * 取消分享，返回被取消的分享
+     */
+    ShareVO cancelShare(Long userId, Long shareId);
+
+    /**
+     * 查询分享的内容，文件夹分享只能访问分享的文件夹子树
+     */
+    FolderContentVO listShareContent(Long userId, Integer itemType, Long itemId, Long folderId);
+
+    /**
+     * 转存分享到自己的网盘，只能转存分享的文件或分享的文件夹子树内的内容
+     */
+    CopyJobVO saveShare(SaveShareDTO dto);
+}
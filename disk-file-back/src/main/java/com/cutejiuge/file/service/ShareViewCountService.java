@@ -0,0 +1,14 @@
+package com.cutejiuge.file.service;
+
+/**
+ * 分享访问次数写回服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午7:55
+ */
+public interface ShareViewCountService {
+    /**
+     * 把redis中累计的访问次数批量写回数据库
+     */
+    void flushViewCounts();
+}
@@ -0,0 +1,44 @@
+package com.cutejiuge.file.service;
+
+import com.cutejiuge.iface.vo.file.UserFileVO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户文件服务接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午4:20
+ */
+public interface UserFileService {
+    /**
+     * 查询用户的文件，包含物理文件的存储路径
+     */
+    UserFileVO getUserFile(Long userId, Long fileId);
+
+    /**
+     * 批量查询用户的文件，按fileIds的顺序返回，不存在或不属于该用户的文件不在结果中
+     */
+    List<UserFileVO> listUserFiles(Long userId, List<Long> fileIds);
+
+    /**
+     * 查询文件夹下的直接子文件
+     */
+    List<UserFileVO> listFolderFiles(Long userId, Long folderId);
+
+    /**
+     * 查询所在文件夹路径以path为前缀的全部文件
+     */
+    List<UserFileVO> listSubtreeFiles(Long userId, String path);
+
+    /**
+     * 重命名文件，文件不存在或不属于该用户时抛出FILE_NOT_FOUND
+     */
+    UserFileVO renameFile(Long userId, Long fileId, String fileName);
+
+    /**
+     * 统计用户文件的总大小，没有文件的用户不在结果中
+     */
+    Map<Long, Long> sumUsedStorage(List<Long> userIds);
+}
@@ -0,0 +1,248 @@
+package com.cutejiuge.file.service.impl;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.file.entity.UserFileEntity;
+import com.cutejiuge.file.pojo.dto.FolderCopyPlanDTO;
+import com.cutejiuge.file.repository.UserFileRepository;
+import com.cutejiuge.file.service.CopyJobService;
+import com.cutejiuge.file.service.FileCopyService;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件夹复制任务服务实现类
+ * <p>
+ * 先在一个事务中复制整棵文件夹结构，用户立即能看到复制得到的文件夹；再按源文件夹逐个键集分页读取文件，
+ * 凑满一批后在一个短事务中复制，文件数不超过sync-max-files时在调用线程中完成，否则交给后台线程池。
+ * 每批复制后把进度写入redis，任意实例都能查询；复制期间源文件夹的变化按批次读到的为准，已复制的部分始终计数一致。
+ * <p>
+ * 任务不做断点续传：实例重启时正在执行的任务停止，进度超过stale-job-ms没有更新的任务按中断返回，已复制的部分保留。
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午4:55
+ */
+@Slf4j
+@Service
+public class CopyJobServiceImpl implements CopyJobService {
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_FOLDER_ID = "folderId";
+    private static final String FIELD_FOLDER_NAME = "folderName";
+    private static final String FIELD_TOTAL_FILES = "totalFiles";
+    private static final String FIELD_TOTAL_SIZE = "totalSize";
+    private static final String FIELD_COPIED_FILES = "copiedFiles";
+    private static final String FIELD_COPIED_SIZE = "copiedSize";
+    private static final String FIELD_SKIPPED_FILES = "skippedFiles";
+    private static final String FIELD_MESSAGE = "message";
+    private static final String FIELD_HEARTBEAT = "heartbeat";
+    // 一批复制与其他修改死锁时的最大尝试次数
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+
+    @Resource
+    private FileCopyService fileCopyService;
+
+    @Resource
+    private UserFileRepository userFileRepository;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${file.copy.batch-size:500}")
+    private Integer batchSize;
+
+    // 文件数不超过这个值时同步复制
+    @Value("${file.copy.sync-max-files:1000}")
+    private Long syncMaxFiles;
+
+    @Value("${file.copy.job-threads:2}")
+    private Integer jobThreads;
+
+    @Value("${file.copy.job-queue-size:100}")
+    private Integer jobQueueSize;
+
+    @Value("${file.copy.job-expire-hours:24}")
+    private Long jobExpireHours;
+
+    @Value("${file.copy.stale-job-ms:300000}")
+    private Long staleJobMs;
+
+    private ThreadPoolExecutor jobExecutor;
+
+    @PostConstruct
+    public void init() {
+        jobExecutor = new ThreadPoolExecutor(jobThreads, jobThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(jobQueueSize), new NamedThreadFactory("folder-copy-", true),
+                new ThreadPoolExecutor.AbortPolicy());
+        jobExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobExecutor.shutdownNow();
+    }
+
+    /**
+     * 复制文件夹，排队的任务已满时在复制文件夹结构之前拒绝
+     */
+    @Override
+    public CopyJobVO startFolderCopy(Long sourceUserId, Long folderId, Long targetUserId, Long targetParentId) {
+        if (jobExecutor.getQueue().remainingCapacity() == 0) {
+            throw new BusinessException(ResultCode.FILE_COPY_FAILED, "复制任务过多，请稍后重试");
+        }
+        FolderCopyPlanDTO plan = fileCopyService.copyFolderTree(sourceUserId, folderId, targetUserId, targetParentId);
+        String jobId = IdUtil.fastSimpleUUID();
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_USER_ID, String.valueOf(targetUserId));
+        fields.put(FIELD_STATUS, String.valueOf(FileConstants.COPY_JOB_STATUS_RUNNING));
+        fields.put(FIELD_FOLDER_ID, String.valueOf(plan.getFolderId()));
+        fields.put(FIELD_FOLDER_NAME, plan.getFolderName());
+        fields.put(FIELD_TOTAL_FILES, String.valueOf(plan.getTotalFiles()));
+        fields.put(FIELD_TOTAL_SIZE, String.valueOf(plan.getTotalSize()));
+        fields.put(FIELD_COPIED_FILES, "0");
+        fields.put(FIELD_COPIED_SIZE, "0");
+        fields.put(FIELD_SKIPPED_FILES, "0");
+        fields.put(FIELD_HEARTBEAT, String.valueOf(System.currentTimeMillis()));
+        stringRedisTemplate.opsForHash().putAll(jobKey(jobId), fields);
+        stringRedisTemplate.expire(jobKey(jobId), jobExpireHours, TimeUnit.HOURS);
+        if (plan.getTotalFiles() <= syncMaxFiles) {
+            runJob(jobId, plan);
+        } else {
+            try {
+                jobExecutor.execute(() -> runJob(jobId, plan));
+            } catch (RejectedExecutionException e) {
+                log.warn("复制任务被拒绝: jobId={}, folderId={}", jobId, plan.getFolderId());
+                finishJob(jobId, FileConstants.COPY_JOB_STATUS_FAILED, "复制任务过多，请稍后重试");
+            }
+        }
+        return getJob(targetUserId, jobId);
+    }
+
+    /**
+     * 查询任务进度，进行中但长时间没有更新的任务按中断返回
+     */
+    @Override
+    public CopyJobVO getJob(Long userId, String jobId) {
+        Map<Object, Object> fields = stringRedisTemplate.opsForHash().entries(jobKey(jobId));
+        if (fields.isEmpty() || !String.valueOf(userId).equals(fields.get(FIELD_USER_ID))) {
+            throw new BusinessException(ResultCode.COPY_JOB_NOT_FOUND);
+        }
+        CopyJobVO job = new CopyJobVO()
+                .setJobId(jobId)
+                .setStatus(Integer.valueOf((String) fields.get(FIELD_STATUS)))
+                .setFolderId(Long.valueOf((String) fields.get(FIELD_FOLDER_ID)))
+                .setFolderName((String) fields.get(FIELD_FOLDER_NAME))
+                .setTotalFiles(Long.valueOf((String) fields.get(FIELD_TOTAL_FILES)))
+                .setTotalSize(Long.valueOf((String) fields.get(FIELD_TOTAL_SIZE)))
+                .setCopiedFiles(Long.valueOf((String) fields.get(FIELD_COPIED_FILES)))
+                .setCopiedSize(Long.valueOf((String) fields.get(FIELD_COPIED_SIZE)))
+                .setSkippedFiles(Long.valueOf((String) fields.get(FIELD_SKIPPED_FILES)))
+                .setMessage((String) fields.get(FIELD_MESSAGE));
+        long heartbeat = Long.parseLong((String) fields.get(FIELD_HEARTBEAT));
+        if (job.getStatus() == FileConstants.COPY_JOB_STATUS_RUNNING && System.currentTimeMillis() - heartbeat > staleJobMs) {
+            job.setStatus(FileConstants.COPY_JOB_STATUS_FAILED).setMessage("复制任务已中断，已复制的文件保留");
+        }
+        return job;
+    }
+
+    // ======================== 私有方法 ========================
+    // 按源文件夹逐个分页读取文件，凑满一批复制一次
+    private void runJob(String jobId, FolderCopyPlanDTO plan) {
+        long startTime = System.currentTimeMillis();
+        long[] progress = new long[3];
+        try {
+            List<UserFileEntity> buffer = new ArrayList<>(batchSize * 2);
+            for (Long sourceFolderId : plan.getFolderIdMap().keySet()) {
+                long afterId = 0L;
+                List<UserFileEntity> page;
+                do {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new BusinessException(ResultCode.FILE_COPY_FAILED, "服务停止，复制任务中断，已复制的文件保留");
+                    }
+                    page = userFileRepository.listFolderFilesAfter(plan.getSourceUserId(), sourceFolderId, afterId, batchSize);
+                    buffer.addAll(page);
+                    if (buffer.size() >= batchSize) {
+                        copyBatch(jobId, plan, buffer, progress);
+                        buffer.clear();
+                    }
+                    if (!page.isEmpty()) {
+                        afterId = page.get(page.size() - 1).getId();
+                    }
+                } while (page.size() == batchSize);
+            }
+            if (!buffer.isEmpty()) {
+                copyBatch(jobId, plan, buffer, progress);
+            }
+            finishJob(jobId, FileConstants.COPY_JOB_STATUS_SUCCESS, null);
+            log.info("复制文件夹完成: jobId={}, folderId={}, copied={}, skipped={}, size={}, cost={}ms", jobId,
+                    plan.getFolderId(), progress[0], progress[2], progress[1], System.currentTimeMillis() - startTime);
+        } catch (BusinessException e) {
+            log.warn("复制文件夹失败: jobId={}, folderId={}, copied={}, reason={}", jobId, plan.getFolderId(), progress[0],
+                    e.getMessage());
+            finishJob(jobId, FileConstants.COPY_JOB_STATUS_FAILED, e.getMessage());
+        } catch (Exception e) {
+            log.error("复制文件夹异常: jobId={}, folderId={}, copied={}", jobId, plan.getFolderId(), progress[0], e);
+            finishJob(jobId, FileConstants.COPY_JOB_STATUS_FAILED, "复制失败，已复制的文件保留");
+        }
+    }
+
+    // 复制一批文件并更新进度，progress依次为已复制文件数、已复制大小、跳过的文件数
+    private void copyBatch(String jobId, FolderCopyPlanDTO plan, List<UserFileEntity> files, long[] progress) {
+        BatchResultVO result = null;
+        for (int attempt = 1; result == null; attempt++) {
+            try {
+                result = fileCopyService.copyFolderFiles(plan, files);
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= MAX_BATCH_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("复制文件与其他修改冲突，重试: jobId={}, attempt={}", jobId, attempt);
+            }
+        }
+        progress[0] += result.getSuccessCount();
+        progress[1] += result.getTotalSize();
+        progress[2] += files.size() - result.getSuccessCount();
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_COPIED_FILES, String.valueOf(progress[0]));
+        fields.put(FIELD_COPIED_SIZE, String.valueOf(progress[1]));
+        fields.put(FIELD_SKIPPED_FILES, String.valueOf(progress[2]));
+        fields.put(FIELD_HEARTBEAT, String.valueOf(System.currentTimeMillis()));
+        stringRedisTemplate.opsForHash().putAll(jobKey(jobId), fields);
+    }
+
+    private void finishJob(String jobId, int status, String message) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_STATUS, String.valueOf(status));
+        fields.put(FIELD_HEARTBEAT, String.valueOf(System.currentTimeMillis()));
+        if (ObjectUtil.isNotNull(message)) {
+            fields.put(FIELD_MESSAGE, message);
+        }
+        stringRedisTemplate.opsForHash().putAll(jobKey(jobId), fields);
+        stringRedisTemplate.expire(jobKey(jobId), jobExpireHours, TimeUnit.HOURS);
+    }
+
+    private static String jobKey(String jobId) {
+        return FileConstants.COPY_JOB_KEY_PREFIX + jobId;
+    }
+}
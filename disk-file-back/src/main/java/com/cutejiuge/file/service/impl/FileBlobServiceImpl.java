@@ -0,0 +1,280 @@
+package com.cutejiuge.file.service.impl;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.file.entity.FileBlobEntity;
+import com.cutejiuge.file.entity.UserFileEntity;
+import com.cutejiuge.file.pojo.dto.FileBlobCacheDTO;
+import com.cutejiuge.file.repository.FileBlobRepository;
+import com.cutejiuge.file.repository.FileChunkRepository;
+import com.cutejiuge.file.repository.UserFileRepository;
+import com.cutejiuge.file.service.FileBlobService;
+import com.cutejiuge.file.service.FileSearchService;
+import com.cutejiuge.file.service.FolderTreeService;
+import com.cutejiuge.iface.dto.file.ChunkRefDTO;
+import com.cutejiuge.iface.dto.file.InstantUploadDTO;
+import com.cutejiuge.iface.dto.file.SaveUploadedFileDTO;
+import com.cutejiuge.iface.dto.file.UpdateFileContentDTO;
+import com.cutejiuge.iface.vo.file.FileBlobVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 物理文件索引服务实现类
+ * <p>
+ * sha256到物理文件的索引以redis为主、数据库兜底，秒传判断只需要一次GET。
+ * 引用计数只保存在数据库中，通过 ref_count = ref_count + 1 原子更新，缓存中只放不可变的信息，不存在计数不一致的问题。
+ * 调用方需要持有该sha256的上传锁，保证同一个物理文件只登记一次。
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:48
+ */
+@Slf4j
+@Service
+public class FileBlobServiceImpl implements FileBlobService {
+    @Resource
+    private FileBlobRepository fileBlobRepository;
+
+    @Resource
+    private UserFileRepository userFileRepository;
+
+    @Resource
+    private FileChunkRepository fileChunkRepository;
+
+    @Resource
+    private FolderTreeService folderTreeService;
+
+    @Resource
+    private FileSearchService fileSearchService;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${file.blob.cache-expire-days:7}")
+    private Integer cacheExpireDays;
+
+    /**
+     * 根据sha256查找物理文件，优先查缓存，缓存未命中时查库并回填
+     */
+    @Override
+    public FileBlobCacheDTO findBlob(String sha256) {
+        String cacheKey = FileConstants.FILE_BLOB_KEY_PREFIX + sha256;
+        FileBlobCacheDTO cached = (FileBlobCacheDTO) redisTemplate.opsForValue().get(cacheKey);
+        if (ObjectUtil.isNotNull(cached)) {
+            return cached;
+        }
+        FileBlobEntity entity = fileBlobRepository.getBySha256(sha256);
+        if (ObjectUtil.isNull(entity)) {
+            return null;
+        }
+        FileBlobCacheDTO blob = toCacheDTO(entity);
+        redisTemplate.opsForValue().set(cacheKey, blob, Duration.ofDays(cacheExpireDays));
+        return blob;
+    }
+
+    /**
+     * 删除sha256索引缓存
+     */
+    @Override
+    public void evictBlob(String sha256) {
+        redisTemplate.delete(FileConstants.FILE_BLOB_KEY_PREFIX + sha256);
+    }
+
+    /**
+     * 引用已存在的物理文件创建用户文件，不移动任何字节
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public UserFileVO referenceBlob(InstantUploadDTO dto) {
+        // 以数据库为准再确认一次，缓存可能滞后于物理文件的清理
+        FileBlobEntity blob = fileBlobRepository.getBySha256(dto.getFileSha256());
+        if (ObjectUtil.isNull(blob) || !Objects.equals(blob.getFileSize(), dto.getFileSize())
+                || !fileBlobRepository.increaseRefCount(blob.getId())) {
+            return null;
+        }
+        UserFileEntity userFile = saveUserFile(dto.getUserId(), dto.getFolderId(), dto.getFileName(), blob);
+        log.info("秒传成功: userId={}, fileId={}, blobId={}", dto.getUserId(), userFile.getId(), blob.getId());
+        return toUserFileVO(userFile, blob);
+    }
+
+    /**
+     * 登记新上传的物理文件并创建用户文件，物理文件已存在时只增加引用计数
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public UserFileVO registerBlob(SaveUploadedFileDTO dto) {
+        FileBlobEntity blob = acquireBlob(dto.getFileSha256(), dto.getFileSize(), dto.getStoragePath(), dto.getStorageType(),
+                dto.getChunkRefs());
+        UserFileEntity userFile = saveUserFile(dto.getUserId(), dto.getFolderId(), dto.getFileName(), blob);
+        cacheBlobAfterCommit(blob);
+        return toUserFileVO(userFile, blob);
+    }
+
+    /**
+     * 把用户文件换成新的物理文件，文件行加锁后比较当前的sha256，并发修改时只有一个能成功；
+     * 同时更新修改时间，下载的Last-Modified和If-Range日期校验以它为准
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public UserFileVO replaceBlob(UpdateFileContentDTO dto) {
+        UserFileEntity userFile = userFileRepository.getUserFileForUpdate(dto.getUserId(), dto.getFileId());
+        if (ObjectUtil.isNull(userFile)) {
+            throw new BusinessException(ResultCode.FILE_NOT_FOUND);
+        }
+        if (!dto.getBaseSha256().equals(userFile.getFileSha256())) {
+            throw new BusinessException(ResultCode.FILE_VERSION_CONFLICT);
+        }
+        FileBlobEntity blob = acquireBlob(dto.getFileSha256(), dto.getFileSize(), dto.getStoragePath(), dto.getStorageType(),
+                dto.getChunkRefs());
+        Long oldBlobId = userFile.getBlobId();
+        long sizeDelta = blob.getFileSize() - userFile.getFileSize();
+        LocalDateTime updatedAt = LocalDateTime.now();
+        userFileRepository.updateContent(userFile.getId(), blob.getId(), blob.getFileSize(), blob.getSha256(), updatedAt);
+        if (!fileBlobRepository.decreaseRefCount(oldBlobId)) {
+            log.warn("释放原物理文件引用失败，物理文件不存在: fileId={}, blobId={}", userFile.getId(), oldBlobId);
+        }
+        if (sizeDelta != 0) {
+            folderTreeService.addFileCounters(userFile.getFolderPath(), 0, sizeDelta);
+        }
+        cacheBlobAfterCommit(blob);
+        log.info("替换文件内容: userId={}, fileId={}, blobId={} -> {}, sizeDelta={}",
+                dto.getUserId(), userFile.getId(), oldBlobId, blob.getId(), sizeDelta);
+        userFile.setBlobId(blob.getId());
+        userFile.setFileSize(blob.getFileSize());
+        userFile.setFileSha256(blob.getSha256());
+        userFile.setUpdatedAt(updatedAt);
+        return toUserFileVO(userFile, blob);
+    }
+
+    /**
+     * 按ID顺序查询ID大于afterId的一批物理文件
+     */
+    @Override
+    public List<FileBlobVO> listBlobs(Long afterId, int limit) {
+        List<FileBlobVO> blobs = new ArrayList<>();
+        for (FileBlobEntity blob : fileBlobRepository.listAfter(afterId, limit)) {
+            blobs.add(new FileBlobVO()
+                    .setBlobId(blob.getId())
+                    .setSha256(blob.getSha256())
+                    .setFileSize(blob.getFileSize())
+                    .setStoragePath(blob.getStoragePath())
+                    .setStorageType(blob.getStorageType())
+                    .setRefCount(blob.getRefCount()));
+        }
+        return blobs;
+    }
+
+    /**
+     * 物理文件迁移到新的存储路径后更新登记的路径，路径已不是oldPath时返回false
+     */
+    @Override
+    public boolean updateStoragePath(Long blobId, String oldPath, String newPath) {
+        FileBlobEntity blob = fileBlobRepository.getById(blobId);
+        if (ObjectUtil.isNull(blob) || !fileBlobRepository.updateStoragePath(blobId, oldPath, newPath)) {
+            return false;
+        }
+        evictBlob(blob.getSha256());
+        log.info("更新物理文件存储路径: blobId={}, oldPath={}, newPath={}", blobId, oldPath, newPath);
+        return true;
+    }
+
+    // ======================== 私有方法 ========================
+    // 保存用户文件并累加所在文件夹及其祖先的计数器，目标文件夹在上传期间被删除时保存到根目录
+    private UserFileEntity saveUserFile(Long userId, Long folderId, String fileName, FileBlobEntity blob) {
+        Long targetFolderId = ObjectUtil.defaultIfNull(folderId, FileConstants.ROOT_FOLDER_ID);
+        String folderPath = folderTreeService.lockFolderPath(userId, targetFolderId);
+        if (folderPath == null) {
+            log.warn("目标文件夹不存在，保存到根目录: userId={}, folderId={}", userId, targetFolderId);
+            targetFolderId = FileConstants.ROOT_FOLDER_ID;
+            folderPath = FileConstants.ROOT_FOLDER_PATH;
+        }
+        UserFileEntity userFile = new UserFileEntity();
+        userFile.setUserId(userId);
+        userFile.setFolderId(targetFolderId);
+        userFile.setFolderPath(folderPath);
+        userFile.setBlobId(blob.getId());
+        userFile.setFileName(fileName);
+        userFile.setFileSize(blob.getFileSize());
+        userFile.setFileSha256(blob.getSha256());
+        userFileRepository.save(userFile);
+        folderTreeService.addFileCounters(folderPath, 1, blob.getFileSize());
+        fileSearchService.onFileSaved(userId, userFile.getId(), fileName);
+        return userFile;
+    }
+
+    // 物理文件已存在时增加引用计数，否则登记新的物理文件
+    private FileBlobEntity acquireBlob(String sha256, Long fileSize, String storagePath, Integer storageType,
+                                       List<ChunkRefDTO> chunkRefs) {
+        FileBlobEntity blob = fileBlobRepository.getBySha256(sha256);
+        if (ObjectUtil.isNotNull(blob) && fileBlobRepository.increaseRefCount(blob.getId())) {
+            log.info("物理文件已存在，增加引用: blobId={}, sha256={}", blob.getId(), blob.getSha256());
+            return blob;
+        }
+        blob = new FileBlobEntity();
+        blob.setSha256(sha256);
+        blob.setFileSize(fileSize);
+        blob.setStoragePath(storagePath);
+        blob.setStorageType(ObjectUtil.defaultIfNull(storageType, FileConstants.STORAGE_TYPE_FILE));
+        blob.setRefCount(1);
+        fileBlobRepository.save(blob);
+        // 只有新登记的块清单才引用块，物理文件已存在时调用方会删除自己写的清单
+        if (blob.getStorageType() == FileConstants.STORAGE_TYPE_CDC_MANIFEST) {
+            fileChunkRepository.increaseRefCounts(chunkRefs);
+        }
+        log.info("登记物理文件: blobId={}, sha256={}, storagePath={}", blob.getId(), blob.getSha256(), blob.getStoragePath());
+        return blob;
+    }
+
+    // 事务提交后再写缓存，避免回滚后缓存指向不存在的记录
+    private void cacheBlobAfterCommit(FileBlobEntity blob) {
+        FileBlobCacheDTO cache = toCacheDTO(blob);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                redisTemplate.opsForValue().set(FileConstants.FILE_BLOB_KEY_PREFIX + cache.getSha256(), cache,
+                        Duration.ofDays(cacheExpireDays));
+            }
+        });
+    }
+
+    // 物理文件实体转缓存对象
+    private FileBlobCacheDTO toCacheDTO(FileBlobEntity entity) {
+        return FileBlobCacheDTO.builder()
+                .blobId(entity.getId())
+                .sha256(entity.getSha256())
+                .fileSize(entity.getFileSize())
+                .storagePath(entity.getStoragePath())
+                .storageType(entity.getStorageType())
+                .build();
+    }
+
+    // 构建用户文件信息
+    private UserFileVO toUserFileVO(UserFileEntity userFile, FileBlobEntity blob) {
+        return new UserFileVO()
+                .setFileId(userFile.getId())
+                .setFolderId(userFile.getFolderId())
+                .setFileName(userFile.getFileName())
+                .setFileSize(userFile.getFileSize())
+                .setFileSha256(userFile.getFileSha256())
+                .setStoragePath(blob.getStoragePath())
+                .setStorageType(blob.getStorageType())
+                .setUpdateTime(ObjectUtil.isNull(userFile.getUpdatedAt()) ? null
+                        : userFile.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+}
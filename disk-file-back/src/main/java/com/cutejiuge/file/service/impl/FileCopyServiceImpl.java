@@ -0,0 +1,290 @@
+package com.cutejiuge.file.service.impl;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.ObjectUtil;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.StorageQuotaUtil;
+import com.cutejiuge.file.entity.FolderEntity;
+import com.cutejiuge.file.entity.UserFileEntity;
+import com.cutejiuge.file.pojo.dto.FolderCopyPlanDTO;
+import com.cutejiuge.file.repository.FileBlobRepository;
+import com.cutejiuge.file.repository.FolderRepository;
+import com.cutejiuge.file.repository.UserFileRepository;
+import com.cutejiuge.file.service.FileCopyService;
+import com.cutejiuge.file.service.FileSearchService;
+import com.cutejiuge.file.service.FolderTreeService;
+import com.cutejiuge.iface.vo.file.BatchFailureVO;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 文件复制服务实现类
+ * <p>
+ * 文件内容不可变，复制得到的用户文件与源文件指向同一个物理文件，只增加引用计数；删除任意一份只减少引用计数，
+ * 修改即上传新版本，会登记新的物理文件，两份从此各自独立，复制本身不产生任何文件IO。
+ * 每批复制是一次批量插入、一条CASE WHEN的引用计数UPDATE和按目标文件夹合并的计数器调整；
+ * 复制前按总大小预占配额，事务提交后计入已用空间，回滚时释放。配额由网关在调用前加载。
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午4:30
+ */
+@Slf4j
+@Service
+public class FileCopyServiceImpl implements FileCopyService {
+    // 重名时依次尝试的最大序号
+    private static final int MAX_NAME_SUFFIX = 100;
+
+    @Resource
+    private UserFileRepository userFileRepository;
+
+    @Resource
+    private FolderRepository folderRepository;
+
+    @Resource
+    private FileBlobRepository fileBlobRepository;
+
+    @Resource
+    private FolderTreeService folderTreeService;
+
+    @Resource
+    private FileSearchService fileSearchService;
+
+    @Resource
+    private StorageQuotaUtil storageQuotaUtil;
+
+    /**
+     * 批量复制文件，源文件只读不加锁，目标文件夹加共享锁
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BatchResultVO copyFiles(Long sourceUserId, List<Long> fileIds, String scopePath, Long targetUserId, Long targetFolderId) {
+        List<UserFileEntity> files = userFileRepository.listUserFiles(sourceUserId, fileIds).stream()
+                .filter(file -> scopePath == null || ObjectUtil.defaultIfNull(file.getFolderPath(), FileConstants.ROOT_FOLDER_PATH)
+                        .startsWith(scopePath))
+                .toList();
+        Set<Long> foundIds = files.stream().map(UserFileEntity::getId).collect(Collectors.toSet());
+        BatchResultVO result = new BatchResultVO();
+        for (Long fileId : fileIds) {
+            if (!foundIds.contains(fileId)) {
+                result.getFailures().add(new BatchFailureVO(fileId, ResultCode.FILE_NOT_FOUND.getCode(),
+                        ResultCode.FILE_NOT_FOUND.getMessage()));
+            }
+        }
+        if (files.isEmpty()) {
+            return result;
+        }
+        String folderPath = folderTreeService.lockFolderPath(targetUserId, targetFolderId);
+        if (folderPath == null) {
+            throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+        }
+        long totalSize = saveCopies(targetUserId, files, file -> targetFolderId, Map.of(targetFolderId, folderPath));
+        log.info("批量复制文件: sourceUserId={}, targetUserId={}, target={}, requested={}, copied={}, totalSize={}",
+                sourceUserId, targetUserId, targetFolderId, fileIds.size(), files.size(), totalSize);
+        return result.setSuccessCount(files.size()).setTotalSize(totalSize);
+    }
+
+    /**
+     * 复制文件夹结构：子树一次前缀范围扫描，新文件夹的ID预先生成，按父文件夹在前的顺序拼出物化路径后一次批量插入
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public FolderCopyPlanDTO copyFolderTree(Long sourceUserId, Long folderId, Long targetUserId, Long targetParentId) {
+        FolderEntity source = folderRepository.getUserFolder(sourceUserId, folderId);
+        if (ObjectUtil.isNull(source)) {
+            throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+        }
+        String targetPath = folderTreeService.lockFolderPath(targetUserId, targetParentId);
+        if (targetPath == null) {
+            throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+        }
+        if (sourceUserId.equals(targetUserId) && targetPath.startsWith(source.getPath())) {
+            throw new BusinessException(ResultCode.FILE_COPY_FAILED, "不能把文件夹复制到自身或自身的子文件夹中");
+        }
+        checkAvailableSpace(targetUserId, source.getTotalSize());
+        List<FolderEntity> subtree = folderRepository.listSubtree(sourceUserId, source.getPath());
+        int maxDepth = subtree.stream().mapToInt(FolderEntity::getDepth).max().orElse(source.getDepth());
+        int depthDelta = getDepth(targetPath) + 1 - source.getDepth();
+        if (maxDepth + depthDelta > FileConstants.MAX_FOLDER_DEPTH) {
+            throw new BusinessException(ResultCode.FILE_COPY_FAILED, "复制后文件夹层级将超过" + FileConstants.MAX_FOLDER_DEPTH);
+        }
+        String folderName = resolveCopyName(targetUserId, targetParentId, source.getFolderName());
+        // 源文件夹ID -> 复制得到的文件夹，路径排序保证父文件夹先于子文件夹
+        Map<Long, FolderEntity> copies = new LinkedHashMap<>(subtree.size() * 2);
+        for (FolderEntity folder : subtree) {
+            boolean root = folder.getId().equals(folderId);
+            FolderEntity parent = root ? null : copies.get(folder.getParentId());
+            if (!root && parent == null) {
+                continue;
+            }
+            FolderEntity copy = new FolderEntity();
+            copy.setId(IdWorker.getId());
+            copy.setUserId(targetUserId);
+            copy.setParentId(root ? targetParentId : parent.getId());
+            copy.setFolderName(root ? folderName : folder.getFolderName());
+            copy.setPath((root ? targetPath : parent.getPath()) + copy.getId() + "/");
+            copy.setDepth(folder.getDepth() + depthDelta);
+            copy.setFileCount(0L);
+            copy.setTotalSize(0L);
+            copies.put(folder.getId(), copy);
+        }
+        folderRepository.saveBatch(new ArrayList<>(copies.values()));
+        Map<Long, Long> folderIdMap = new LinkedHashMap<>(copies.size() * 2);
+        copies.forEach((sourceId, copy) -> folderIdMap.put(sourceId, copy.getId()));
+        FolderEntity rootCopy = copies.get(folderId);
+        log.info("复制文件夹结构: sourceUserId={}, folderId={}, targetUserId={}, newFolderId={}, folders={}, files={}",
+                sourceUserId, folderId, targetUserId, rootCopy.getId(), copies.size(), source.getFileCount());
+        return FolderCopyPlanDTO.builder()
+                .sourceUserId(sourceUserId)
+                .targetUserId(targetUserId)
+                .folderId(rootCopy.getId())
+                .folderName(folderName)
+                .folderIdMap(folderIdMap)
+                .totalFiles(source.getFileCount())
+                .totalSize(source.getTotalSize())
+                .build();
+    }
+
+    /**
+     * 复制一批文件，目标文件夹一次加共享锁查询出当前路径，复制期间文件夹被移动也能写入正确的路径
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BatchResultVO copyFolderFiles(FolderCopyPlanDTO plan, List<UserFileEntity> sources) {
+        Set<Long> targetIds = sources.stream()
+                .map(file -> plan.getFolderIdMap().get(file.getFolderId()))
+                .filter(ObjectUtil::isNotNull)
+                .collect(Collectors.toSet());
+        BatchResultVO result = new BatchResultVO();
+        if (targetIds.isEmpty()) {
+            return result;
+        }
+        Map<Long, String> pathsByFolderId = new HashMap<>(targetIds.size() * 2);
+        for (FolderEntity folder : folderRepository.listUserFoldersForShare(plan.getTargetUserId(), targetIds)) {
+            pathsByFolderId.put(folder.getId(), folder.getPath());
+        }
+        List<UserFileEntity> files = sources.stream()
+                .filter(file -> pathsByFolderId.containsKey(plan.getFolderIdMap().get(file.getFolderId())))
+                .toList();
+        if (files.isEmpty()) {
+            return result;
+        }
+        long totalSize = saveCopies(plan.getTargetUserId(), files, file -> plan.getFolderIdMap().get(file.getFolderId()),
+                pathsByFolderId);
+        return result.setSuccessCount(files.size()).setTotalSize(totalSize);
+    }
+
+    // ======================== 私有方法 ========================
+    // 预占配额后插入复制得到的用户文件，增加引用计数和目标文件夹的计数器，返回复制的总大小
+    private long saveCopies(Long userId, List<UserFileEntity> files, Function<UserFileEntity, Long> targetFolderOf,
+                            Map<Long, String> pathsByFolderId) {
+        long totalSize = files.stream().mapToLong(UserFileEntity::getFileSize).sum();
+        reserveQuota(userId, totalSize);
+        List<UserFileEntity> copies = new ArrayList<>(files.size());
+        Map<Long, Integer> refCounts = new TreeMap<>();
+        // 目标文件夹路径 -> {文件数, 总大小}
+        Map<String, long[]> countersByPath = new HashMap<>();
+        for (UserFileEntity file : files) {
+            Long folderId = targetFolderOf.apply(file);
+            UserFileEntity copy = new UserFileEntity();
+            copy.setUserId(userId);
+            copy.setFolderId(folderId);
+            copy.setFolderPath(pathsByFolderId.get(folderId));
+            copy.setBlobId(file.getBlobId());
+            copy.setFileName(file.getFileName());
+            copy.setFileSize(file.getFileSize());
+            copy.setFileSha256(file.getFileSha256());
+            copies.add(copy);
+            refCounts.merge(file.getBlobId(), 1, Integer::sum);
+            long[] counters = countersByPath.computeIfAbsent(copy.getFolderPath(), key -> new long[2]);
+            counters[0]++;
+            counters[1] += file.getFileSize();
+        }
+        userFileRepository.saveBatch(copies);
+        fileBlobRepository.increaseRefCounts(refCounts);
+        countersByPath.forEach((path, counters) -> folderTreeService.addFileCounters(path, counters[0], counters[1]));
+        Map<Long, String> fileNames = new LinkedHashMap<>(copies.size() * 2);
+        for (UserFileEntity copy : copies) {
+            fileNames.put(copy.getId(), copy.getFileName());
+        }
+        fileSearchService.onFilesSaved(userId, fileNames);
+        return totalSize;
+    }
+
+    // 预占配额，事务提交后计入已用空间，回滚时释放
+    private void reserveQuota(Long userId, long size) {
+        String reservationId = IdUtil.fastSimpleUUID();
+        long expireAtMillis = System.currentTimeMillis() + Duration.ofHours(1).toMillis();
+        StorageQuotaUtil.ReserveResult reserveResult = storageQuotaUtil.reserve(userId, reservationId, size, expireAtMillis);
+        if (reserveResult == StorageQuotaUtil.ReserveResult.NOT_LOADED) {
+            throw new BusinessException(ResultCode.FILE_COPY_FAILED, "存储配额未加载，请稍后重试");
+        }
+        if (reserveResult == StorageQuotaUtil.ReserveResult.INSUFFICIENT) {
+            throw new BusinessException(ResultCode.STORAGE_SPACE_INSUFFICIENT);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    storageQuotaUtil.commit(userId, reservationId, size);
+                } else {
+                    storageQuotaUtil.release(userId, reservationId);
+                }
+            }
+        });
+    }
+
+    // 复制文件夹前按统计值检查剩余空间，避免建好文件夹结构后才发现空间不足，实际扣减在每批复制时预占
+    private void checkAvailableSpace(Long userId, long size) {
+        StorageQuotaUtil.Quota quota = storageQuotaUtil.getQuota(userId);
+        if (ObjectUtil.isNull(quota)) {
+            throw new BusinessException(ResultCode.FILE_COPY_FAILED, "存储配额未加载，请稍后重试");
+        }
+        if (quota.getAvailable() < size) {
+            throw new BusinessException(ResultCode.STORAGE_SPACE_INSUFFICIENT);
+        }
+    }
+
+    // 与目标文件夹中已有的文件夹重名时依次尝试 名称(1)、名称(2)...
+    private String resolveCopyName(Long userId, Long parentId, String folderName) {
+        if (!folderRepository.existsFolderName(userId, parentId, folderName)) {
+            return folderName;
+        }
+        for (int i = 1; i <= MAX_NAME_SUFFIX; i++) {
+            String name = folderName + "(" + i + ")";
+            if (!folderRepository.existsFolderName(userId, parentId, name)) {
+                return name;
+            }
+        }
+        throw new BusinessException(ResultCode.FOLDER_NAME_DUPLICATE);
+    }
+
+    // 路径的层级即路径上的文件夹数
+    private int getDepth(String path) {
+        int depth = 0;
+        for (int i = 1; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+}
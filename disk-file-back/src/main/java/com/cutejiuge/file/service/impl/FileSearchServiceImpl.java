@@ -0,0 +1,286 @@
+package com.cutejiuge.file.service.impl;
+
+import cn.hutool.json.JSONUtil;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.file.pojo.dto.FileSearchEventDTO;
+import com.cutejiuge.file.repository.UserFileRepository;
+import com.cutejiuge.file.search.FileNameIndex;
+import com.cutejiuge.file.service.FileSearchService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 文件名搜索服务实现类
+ * <p>
+ * 每个用户的文件名索引常驻在查询过的实例内存中，按最近访问淘汰，最多缓存max-cached-users个用户。
+ * 文件变化时在redis中给该用户的版本号加1并追加一条变更事件，查询前比较本地和redis的版本号，落后时按序号补齐缺失的事件；
+ * 事件已被裁剪、遇到批量变化或失效文档过多时从数据库重建。事件在事务提交后追加，查询详情时再过滤一次已删除的文件，
+ * 追加失败的事件只会让少量文件搜不到，redis中的版本号过期后会触发重建。
+ * <p>
+ * 重建先读版本号再扫描数据库，扫描期间的事件随后重放一遍，加入和删除都是幂等的。
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 上午10:05
+ */
+@Slf4j
+@Service
+public class FileSearchServiceImpl implements FileSearchService {
+    private static final String OP_UPSERT = "UPSERT";
+    private static final String OP_REMOVE = "REMOVE";
+    private static final String OP_RELOAD = "RELOAD";
+
+    // 追加ARGV[3]开始的事件，每条事件占一个版本号，只保留最近ARGV[1]条，返回最新的版本号
+    private static final RedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>("""
+            local count = #ARGV - 2
+            local version = redis.call('INCRBY', KEYS[1], count) - count
+            for i = 3, #ARGV do
+                version = version + 1
+                redis.call('RPUSH', KEYS[2], version .. ' ' .. ARGV[i])
+            end
+            redis.call('LTRIM', KEYS[2], -tonumber(ARGV[1]), -1)
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[2])
+            return version
+            """, Long.class);
+
+    @Resource
+    private UserFileRepository userFileRepository;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${file.search.max-cached-users:200}")
+    private Integer maxCachedUsers;
+
+    // 每个用户保留的最近事件数，落后更多时重建
+    @Value("${file.search.max-events:1000}")
+    private Integer maxEvents;
+
+    // 版本号和事件的过期时间，过期后各实例的索引都会重建一次
+    @Value("${file.search.event-expire-days:7}")
+    private Integer eventExpireDays;
+
+    // 按访问顺序排列，超过上限时淘汰最久未查询的用户
+    private final Map<Long, UserIndex> indexes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, UserIndex> eldest) {
+            return size() > maxCachedUsers;
+        }
+    };
+
+    /**
+     * 查询前把本地索引补齐到redis中的版本
+     */
+    @Override
+    public List<Long> search(Long userId, String keyword, String category, String extension, int limit) {
+        UserIndex userIndex = getUserIndex(userId);
+        long remoteVersion = readVersion(userId);
+        if (!userIndex.isCurrent(remoteVersion)) {
+            userIndex.lock.writeLock().lock();
+            try {
+                if (!userIndex.isCurrent(remoteVersion)) {
+                    refresh(userId, userIndex, remoteVersion);
+                }
+            } finally {
+                userIndex.lock.writeLock().unlock();
+            }
+        }
+        userIndex.lock.readLock().lock();
+        try {
+            return userIndex.index.search(keyword, category, extension, limit);
+        } finally {
+            userIndex.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 文件加入或改名
+     */
+    @Override
+    public void onFileSaved(Long userId, Long fileId, String fileName) {
+        appendEvents(userId, List.of(upsertEvent(fileId, fileName)));
+    }
+
+    /**
+     * 文件删除
+     */
+    @Override
+    public void onFileRemoved(Long userId, Long fileId) {
+        appendEvents(userId, List.of(removeEvent(fileId)));
+    }
+
+    /**
+     * 多个文件加入，事件超过保留条数时改为重建
+     */
+    @Override
+    public void onFilesSaved(Long userId, Map<Long, String> fileNames) {
+        if (fileNames.size() > maxEvents) {
+            onFilesChanged(userId);
+            return;
+        }
+        List<FileSearchEventDTO> events = new ArrayList<>(fileNames.size());
+        fileNames.forEach((fileId, fileName) -> events.add(upsertEvent(fileId, fileName)));
+        appendEvents(userId, events);
+    }
+
+    /**
+     * 多个文件删除，事件超过保留条数时改为重建
+     */
+    @Override
+    public void onFilesRemoved(Long userId, Collection<Long> fileIds) {
+        if (fileIds.size() > maxEvents) {
+            onFilesChanged(userId);
+            return;
+        }
+        appendEvents(userId, fileIds.stream().map(this::removeEvent).toList());
+    }
+
+    /**
+     * 批量变化，各实例下次查询时重建
+     */
+    @Override
+    public void onFilesChanged(Long userId) {
+        appendEvents(userId, List.of(FileSearchEventDTO.builder().op(OP_RELOAD).build()));
+    }
+
+    // ======================== 私有方法 ========================
+    private UserIndex getUserIndex(Long userId) {
+        synchronized (indexes) {
+            return indexes.computeIfAbsent(userId, key -> new UserIndex());
+        }
+    }
+
+    // 落后不多时补齐事件，否则重建，需要持有写锁
+    private void refresh(Long userId, UserIndex userIndex, long remoteVersion) {
+        if (userIndex.index != null && remoteVersion > userIndex.version
+                && remoteVersion - userIndex.version <= maxEvents && !userIndex.index.needsCompaction()
+                && applyEvents(userId, userIndex)) {
+            return;
+        }
+        rebuild(userId, userIndex);
+    }
+
+    // 从数据库重建，再重放扫描期间追加的事件
+    private void rebuild(Long userId, UserIndex userIndex) {
+        long startNanos = System.nanoTime();
+        long version = readVersion(userId);
+        FileNameIndex index = new FileNameIndex();
+        userFileRepository.scanFileNames(userId, file -> index.upsert(file.getId(), file.getFileName()));
+        userIndex.index = index;
+        userIndex.version = version;
+        // 扫描期间又有批量变化时停在它之前，下次查询再重建
+        applyEvents(userId, userIndex);
+        log.info("重建文件名索引: userId={}, fileCount={}, version={}, cost={}ms", userId, index.size(),
+                userIndex.version, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    // 按序号应用本地版本之后的事件，事件不连续或遇到批量变化时返回false，需要重建
+    private boolean applyEvents(Long userId, UserIndex userIndex) {
+        List<String> entries = stringRedisTemplate.opsForList().range(eventsKey(userId), 0, -1);
+        if (entries == null) {
+            return false;
+        }
+        for (String entry : entries) {
+            int separator = entry.indexOf(' ');
+            long version = Long.parseLong(entry.substring(0, separator));
+            if (version <= userIndex.version) {
+                continue;
+            }
+            if (version != userIndex.version + 1) {
+                return false;
+            }
+            FileSearchEventDTO event = JSONUtil.toBean(entry.substring(separator + 1), FileSearchEventDTO.class);
+            switch (event.getOp()) {
+                case OP_UPSERT -> userIndex.index.upsert(event.getFileId(), event.getFileName());
+                case OP_REMOVE -> userIndex.index.remove(event.getFileId());
+                default -> {
+                    return false;
+                }
+            }
+            userIndex.version = version;
+        }
+        return true;
+    }
+
+    // 在事务中时提交后再追加，回滚的变更不会出现在索引中
+    private void appendEvents(Long userId, List<FileSearchEventDTO> events) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doAppendEvents(userId, events);
+                }
+            });
+        } else {
+            doAppendEvents(userId, events);
+        }
+    }
+
+    private void doAppendEvents(Long userId, List<FileSearchEventDTO> events) {
+        List<String> args = new ArrayList<>(events.size() + 2);
+        args.add(String.valueOf(maxEvents));
+        args.add(String.valueOf(TimeUnit.DAYS.toMillis(eventExpireDays)));
+        for (FileSearchEventDTO event : events) {
+            args.add(JSONUtil.toJsonStr(event));
+        }
+        try {
+            stringRedisTemplate.execute(APPEND_SCRIPT, List.of(versionKey(userId), eventsKey(userId)), args.toArray());
+        } catch (Exception e) {
+            // 至少让本实例的索引在下次查询时重建
+            log.error("追加文件名索引事件失败: userId={}, eventCount={}", userId, events.size(), e);
+            synchronized (indexes) {
+                indexes.remove(userId);
+            }
+        }
+    }
+
+    private FileSearchEventDTO upsertEvent(Long fileId, String fileName) {
+        return FileSearchEventDTO.builder().op(OP_UPSERT).fileId(fileId).fileName(fileName).build();
+    }
+
+    private FileSearchEventDTO removeEvent(Long fileId) {
+        return FileSearchEventDTO.builder().op(OP_REMOVE).fileId(fileId).build();
+    }
+
+    private long readVersion(Long userId) {
+        String version = stringRedisTemplate.opsForValue().get(versionKey(userId));
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    // 版本号和事件使用相同的hash tag，集群模式下在同一个slot中
+    private static String versionKey(Long userId) {
+        return FileConstants.SEARCH_VERSION_KEY_PREFIX + "{" + userId + "}";
+    }
+
+    private static String eventsKey(Long userId) {
+        return FileConstants.SEARCH_EVENTS_KEY_PREFIX + "{" + userId + "}";
+    }
+
+    /**
+     * 单个用户的索引和对应的版本号，补齐和重建时持有写锁，查询时持有读锁
+     */
+    private static class UserIndex {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile FileNameIndex index;
+        private volatile long version;
+
+        boolean isCurrent(long remoteVersion) {
+            return index != null && version == remoteVersion;
+        }
+    }
+}
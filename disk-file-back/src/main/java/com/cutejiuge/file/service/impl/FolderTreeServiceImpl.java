@@ -0,0 +1,373 @@
+package com.cutejiuge.file.service.impl;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.file.entity.FolderEntity;
+import com.cutejiuge.file.entity.UserFileEntity;
+import com.cutejiuge.file.repository.FolderRepository;
+import com.cutejiuge.file.repository.UserFileRepository;
+import com.cutejiuge.file.service.FolderTreeService;
+import com.cutejiuge.file.service.UserFileService;
+import com.cutejiuge.iface.vo.file.BatchFailureVO;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.FolderVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 文件夹树服务实现类
+ * <p>
+ * 文件夹使用物化路径：路径由祖先和自身的ID依次以"/"连接，文件记录所在文件夹的路径。
+ * 列出子树是文件夹表和文件表上各一次前缀范围扫描；移动文件夹是两条按前缀改写路径的UPDATE，与子树大小无关的只有语句数；
+ * 路径只包含ID，重命名不需要改写子树。
+ * <p>
+ * 每个文件夹维护子树内的文件数和总大小，文件增减和移动时对路径上的祖先做一次原子增减，查询文件夹大小不需要递归统计。
+ * 移动时对被移动的文件夹和目标文件夹加行锁，向文件夹添加文件时对目标文件夹加共享锁，保证文件记录的路径与文件夹一致。
+ * 调用方在事务外以用户ID加文件夹树锁，同一用户的文件夹移动串行执行，事务内加锁读到的路径就是最新的，移动不会形成环。
+ * 同名检查之外，(user_id, parent_id, folder_name)上有只约束未删除文件夹的唯一索引，并发创建或重命名时由索引兜底。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午9:45
+ */
+@Slf4j
+@Service
+public class FolderTreeServiceImpl implements FolderTreeService {
+    @Resource
+    private FolderRepository folderRepository;
+
+    @Resource
+    private UserFileRepository userFileRepository;
+
+    @Resource
+    private UserFileService userFileService;
+
+    /**
+     * 创建文件夹，ID预先生成以便直接写入物化路径
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public FolderVO createFolder(Long userId, Long parentId, String folderName) {
+        String parentPath = lockFolderPath(userId, parentId);
+        if (parentPath == null) {
+            throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+        }
+        int depth = getDepth(parentPath) + 1;
+        if (depth > FileConstants.MAX_FOLDER_DEPTH) {
+            throw new BusinessException(ResultCode.PARAM_VALIDATION_ERROR, "文件夹层级不能超过" + FileConstants.MAX_FOLDER_DEPTH);
+        }
+        if (folderRepository.existsFolderName(userId, parentId, folderName)) {
+            throw new BusinessException(ResultCode.FOLDER_NAME_DUPLICATE);
+        }
+        FolderEntity folder = new FolderEntity();
+        folder.setId(IdWorker.getId());
+        folder.setUserId(userId);
+        folder.setParentId(parentId);
+        folder.setFolderName(folderName);
+        folder.setPath(parentPath + folder.getId() + "/");
+        folder.setDepth(depth);
+        folder.setFileCount(0L);
+        folder.setTotalSize(0L);
+        try {
+            folderRepository.save(folder);
+        } catch (DuplicateKeyException e) {
+            throw new BusinessException(ResultCode.FOLDER_NAME_DUPLICATE);
+        }
+        log.info("创建文件夹: userId={}, folderId={}, path={}", userId, folder.getId(), folder.getPath());
+        return toFolderVO(folder);
+    }
+
+    /**
+     * 重命名文件夹，路径只包含ID，不需要改写子树
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public FolderVO renameFolder(Long userId, Long folderId, String folderName) {
+        FolderEntity folder = getUserFolderForUpdate(userId, folderId);
+        if (folder.getFolderName().equals(folderName)) {
+            return toFolderVO(folder);
+        }
+        if (folderRepository.existsFolderName(userId, folder.getParentId(), folderName)) {
+            throw new BusinessException(ResultCode.FOLDER_NAME_DUPLICATE);
+        }
+        try {
+            folderRepository.rename(folderId, folderName);
+        } catch (DuplicateKeyException e) {
+            throw new BusinessException(ResultCode.FOLDER_NAME_DUPLICATE);
+        }
+        folder.setFolderName(folderName);
+        return toFolderVO(folder);
+    }
+
+    /**
+     * 移动文件夹：改写子树内文件夹和文件的路径前缀，把子树计数器从原祖先转移到新祖先，
+     * 调用方需持有该用户的文件夹树锁，否则并发的两次移动可能各自通过环检查
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public FolderVO moveFolder(Long userId, Long folderId, Long targetParentId) {
+        if (Objects.equals(folderId, targetParentId)) {
+            throw new BusinessException(ResultCode.FILE_MOVE_FAILED, "不能把文件夹移动到自身");
+        }
+        // 按ID顺序加锁，两个方向相反的移动不会互相等待
+        FolderEntity folder;
+        FolderEntity target = null;
+        if (isRoot(targetParentId)) {
+            folder = getUserFolderForUpdate(userId, folderId);
+        } else if (folderId < targetParentId) {
+            folder = getUserFolderForUpdate(userId, folderId);
+            target = getUserFolderForUpdate(userId, targetParentId);
+        } else {
+            target = getUserFolderForUpdate(userId, targetParentId);
+            folder = getUserFolderForUpdate(userId, folderId);
+        }
+        if (Objects.equals(folder.getParentId(), targetParentId)) {
+            return toFolderVO(folder);
+        }
+        String targetPath = target == null ? FileConstants.ROOT_FOLDER_PATH : target.getPath();
+        String oldPath = folder.getPath();
+        if (targetPath.startsWith(oldPath)) {
+            throw new BusinessException(ResultCode.FILE_MOVE_FAILED, "不能把文件夹移动到自身的子文件夹中");
+        }
+        if (folderRepository.existsFolderName(userId, targetParentId, folder.getFolderName())) {
+            throw new BusinessException(ResultCode.FOLDER_NAME_DUPLICATE);
+        }
+        String newPath = targetPath + folderId + "/";
+        int depthDelta = getDepth(newPath) - folder.getDepth();
+        if (folderRepository.getMaxDepth(userId, oldPath) + depthDelta > FileConstants.MAX_FOLDER_DEPTH) {
+            throw new BusinessException(ResultCode.FILE_MOVE_FAILED, "移动后文件夹层级将超过" + FileConstants.MAX_FOLDER_DEPTH);
+        }
+        try {
+            folderRepository.updateParent(folderId, targetParentId);
+        } catch (DuplicateKeyException e) {
+            throw new BusinessException(ResultCode.FOLDER_NAME_DUPLICATE);
+        }
+        int folderCount = folderRepository.rewritePathPrefix(userId, oldPath, newPath, depthDelta);
+        int fileCount = userFileRepository.rewriteFolderPathPrefix(userId, oldPath, newPath);
+        moveCounters(getParentPath(oldPath), targetPath, folder.getFileCount(), folder.getTotalSize());
+        log.info("移动文件夹: userId={}, folderId={}, {} -> {}, folders={}, files={}",
+                userId, folderId, oldPath, newPath, folderCount, fileCount);
+        folder.setParentId(targetParentId);
+        folder.setPath(newPath);
+        folder.setDepth(folder.getDepth() + depthDelta);
+        return toFolderVO(folder);
+    }
+
+    /**
+     * 移动文件，计数器只在两条路径不重合的祖先上调整
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public UserFileVO moveFile(Long userId, Long fileId, Long targetFolderId) {
+        UserFileEntity userFile = userFileRepository.getUserFileForUpdate(userId, fileId);
+        if (ObjectUtil.isNull(userFile)) {
+            throw new BusinessException(ResultCode.FILE_NOT_FOUND);
+        }
+        if (!Objects.equals(ObjectUtil.defaultIfNull(userFile.getFolderId(), FileConstants.ROOT_FOLDER_ID), targetFolderId)) {
+            String targetPath = lockFolderPath(userId, targetFolderId);
+            if (targetPath == null) {
+                throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+            }
+            String oldPath = ObjectUtil.defaultIfNull(userFile.getFolderPath(), FileConstants.ROOT_FOLDER_PATH);
+            userFileRepository.updateFolder(fileId, targetFolderId, targetPath);
+            moveCounters(oldPath, targetPath, 1, userFile.getFileSize());
+        }
+        return userFileService.getUserFile(userId, fileId);
+    }
+
+    /**
+     * 批量移动文件，一次加锁查询和一条UPDATE，计数器按原所在文件夹合并后调整，一般只有一两个来源文件夹
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BatchResultVO moveFiles(Long userId, List<Long> fileIds, Long targetFolderId) {
+        List<UserFileEntity> files = userFileRepository.listUserFilesForUpdate(userId, fileIds);
+        BatchResultVO result = newBatchResult(fileIds, files);
+        if (files.isEmpty()) {
+            return result;
+        }
+        String targetPath = lockFolderPath(userId, targetFolderId);
+        if (targetPath == null) {
+            throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+        }
+        // 原所在文件夹路径 -> {文件数, 总大小}，已在目标文件夹中的文件不需要修改
+        Map<String, long[]> countersByPath = new HashMap<>();
+        List<Long> movedIds = new ArrayList<>(files.size());
+        long totalSize = 0;
+        for (UserFileEntity file : files) {
+            totalSize += file.getFileSize();
+            if (Objects.equals(ObjectUtil.defaultIfNull(file.getFolderId(), FileConstants.ROOT_FOLDER_ID), targetFolderId)) {
+                continue;
+            }
+            movedIds.add(file.getId());
+            long[] counters = countersByPath.computeIfAbsent(
+                    ObjectUtil.defaultIfNull(file.getFolderPath(), FileConstants.ROOT_FOLDER_PATH), key -> new long[2]);
+            counters[0]++;
+            counters[1] += file.getFileSize();
+        }
+        if (!movedIds.isEmpty()) {
+            userFileRepository.updateFolder(movedIds, targetFolderId, targetPath);
+            countersByPath.forEach((oldPath, counters) -> moveCounters(oldPath, targetPath, counters[0], counters[1]));
+        }
+        log.info("批量移动文件: userId={}, target={}, requested={}, moved={}, sourceFolders={}",
+                userId, targetFolderId, fileIds.size(), movedIds.size(), countersByPath.size());
+        return result.setSuccessCount(files.size()).setTotalSize(totalSize);
+    }
+
+    /**
+     * 列出文件夹的直接子文件夹和文件
+     */
+    @Override
+    public FolderContentVO listFolder(Long userId, Long folderId) {
+        FolderEntity folder = isRoot(folderId) ? null : getUserFolder(userId, folderId);
+        List<FolderVO> folders = new ArrayList<>();
+        for (FolderEntity child : folderRepository.listChildren(userId, folderId)) {
+            folders.add(toFolderVO(child));
+        }
+        return new FolderContentVO()
+                .setFolder(folder == null ? null : toFolderVO(folder))
+                .setFolders(folders)
+                .setFiles(userFileService.listFolderFiles(userId, folderId));
+    }
+
+    /**
+     * 查询整棵子树，文件夹和文件各一次前缀范围扫描
+     */
+    @Override
+    public FolderContentVO getFolderTree(Long userId, Long folderId) {
+        FolderEntity folder = isRoot(folderId) ? null : getUserFolder(userId, folderId);
+        String path = folder == null ? FileConstants.ROOT_FOLDER_PATH : folder.getPath();
+        List<FolderVO> folders = new ArrayList<>();
+        for (FolderEntity descendant : folderRepository.listSubtree(userId, path)) {
+            if (!descendant.getPath().equals(path)) {
+                folders.add(toFolderVO(descendant));
+            }
+        }
+        return new FolderContentVO()
+                .setFolder(folder == null ? null : toFolderVO(folder))
+                .setFolders(folders)
+                .setFiles(userFileService.listSubtreeFiles(userId, path));
+    }
+
+    /**
+     * 获取文件夹路径并加共享锁
+     */
+    @Override
+    public String lockFolderPath(Long userId, Long folderId) {
+        if (isRoot(folderId)) {
+            return FileConstants.ROOT_FOLDER_PATH;
+        }
+        FolderEntity folder = folderRepository.getUserFolderForShare(userId, folderId);
+        return folder == null ? null : folder.getPath();
+    }
+
+    /**
+     * 调整路径上所有文件夹的子树计数器，一条UPDATE按主键顺序更新
+     */
+    @Override
+    public void addFileCounters(String folderPath, long fileCountDelta, long sizeDelta) {
+        folderRepository.addCounters(parseFolderIds(folderPath), fileCountDelta, sizeDelta);
+    }
+
+    // ======================== 私有方法 ========================
+    private boolean isRoot(Long folderId) {
+        return folderId == null || folderId == FileConstants.ROOT_FOLDER_ID;
+    }
+
+    private FolderEntity getUserFolder(Long userId, Long folderId) {
+        FolderEntity folder = folderRepository.getUserFolder(userId, folderId);
+        if (ObjectUtil.isNull(folder)) {
+            throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+        }
+        return folder;
+    }
+
+    private FolderEntity getUserFolderForUpdate(Long userId, Long folderId) {
+        FolderEntity folder = folderRepository.getUserFolderForUpdate(userId, folderId);
+        if (ObjectUtil.isNull(folder)) {
+            throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+        }
+        return folder;
+    }
+
+    // 查询到的文件之外的ID记为不存在
+    private BatchResultVO newBatchResult(List<Long> fileIds, List<UserFileEntity> files) {
+        Set<Long> foundIds = files.stream().map(UserFileEntity::getId).collect(Collectors.toSet());
+        BatchResultVO result = new BatchResultVO();
+        for (Long fileId : fileIds) {
+            if (!foundIds.contains(fileId)) {
+                result.getFailures().add(new BatchFailureVO(fileId, ResultCode.FILE_NOT_FOUND.getCode(),
+                        ResultCode.FILE_NOT_FOUND.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    // 把计数从旧路径上的文件夹转移到新路径上的文件夹，两条路径的公共祖先不变
+    private void moveCounters(String oldPath, String newPath, long fileCount, long size) {
+        Set<Long> oldIds = parseFolderIds(oldPath);
+        Set<Long> newIds = parseFolderIds(newPath);
+        Set<Long> common = new LinkedHashSet<>(oldIds);
+        common.retainAll(newIds);
+        oldIds.removeAll(common);
+        newIds.removeAll(common);
+        folderRepository.addCounters(oldIds, -fileCount, -size);
+        folderRepository.addCounters(newIds, fileCount, size);
+    }
+
+    // 解析路径上的文件夹ID，根目录路径返回空集合
+    private Set<Long> parseFolderIds(String path) {
+        Set<Long> folderIds = new LinkedHashSet<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                folderIds.add(Long.parseLong(segment));
+            }
+        }
+        return folderIds;
+    }
+
+    // 路径的层级即路径上的文件夹数
+    private int getDepth(String path) {
+        int depth = 0;
+        for (int i = 1; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    // 去掉路径的最后一段，得到父文件夹的路径
+    private String getParentPath(String path) {
+        return path.substring(0, path.lastIndexOf('/', path.length() - 2) + 1);
+    }
+
+    private FolderVO toFolderVO(FolderEntity folder) {
+        return new FolderVO()
+                .setFolderId(folder.getId())
+                .setParentId(folder.getParentId())
+                .setFolderName(folder.getFolderName())
+                .setDepth(folder.getDepth())
+                .setFileCount(folder.getFileCount())
+                .setTotalSize(folder.getTotalSize())
+                .setCreateTime(ObjectUtil.isNull(folder.getCreatedAt()) ? null
+                        : folder.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+}
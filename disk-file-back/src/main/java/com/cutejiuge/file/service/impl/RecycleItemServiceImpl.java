@@ -0,0 +1,442 @@
+package com.cutejiuge.file.service.impl;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.StorageQuotaUtil;
+import com.cutejiuge.file.entity.FolderEntity;
+import com.cutejiuge.file.entity.RecycleBinEntity;
+import com.cutejiuge.file.entity.UserFileEntity;
+import com.cutejiuge.file.repository.FileBlobRepository;
+import com.cutejiuge.file.repository.FolderRepository;
+import com.cutejiuge.file.repository.RecycleBinRepository;
+import com.cutejiuge.file.repository.UserFileRepository;
+import com.cutejiuge.file.service.FileSearchService;
+import com.cutejiuge.file.service.FolderTreeService;
+import com.cutejiuge.file.service.RecycleItemService;
+import com.cutejiuge.iface.vo.file.BatchFailureVO;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.RecycleItemVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 回收站项目服务实现类
+ * <p>
+ * 删除文件夹时，子树内的文件夹和文件各用一条按路径前缀的UPDATE写入删除时间和同一个回收站记录ID，与子树大小无关的只有语句数；
+ * 还原时按回收站记录ID各用一条UPDATE清除删除标记，同时把路径改写到实际还原的位置。
+ * 删除时只从祖先文件夹上减去子树计数，被删除文件夹自身的计数保留，还原时原样加回新的祖先。
+ * 回收站中的内容不计入已用空间，还原与上传一样先预占配额，空间不足时拒绝还原，事务提交后计入已用空间，回滚时释放预占。
+ * <p>
+ * 物理删除由后台任务按回收站记录分批进行：每批按主键键集分页取一批行并加锁，删除后按物理文件合并释放引用，一批一个事务。
+ * 物理文件引用计数降为0后保留，仍可被秒传重新引用，存储对象的回收不在这里处理。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午2:40
+ */
+@Slf4j
+@Service
+public class RecycleItemServiceImpl implements RecycleItemService {
+    // 还原时与同名文件或文件夹冲突的最大重命名尝试次数
+    private static final int MAX_RENAME_ATTEMPTS = 100;
+
+    @Resource
+    private RecycleBinRepository recycleBinRepository;
+
+    @Resource
+    private FolderRepository folderRepository;
+
+    @Resource
+    private UserFileRepository userFileRepository;
+
+    @Resource
+    private FileBlobRepository fileBlobRepository;
+
+    @Resource
+    private FolderTreeService folderTreeService;
+
+    @Resource
+    private FileSearchService fileSearchService;
+
+    @Resource
+    private StorageQuotaUtil storageQuotaUtil;
+
+    @Value("${file.recycle.retention-days:30}")
+    private Integer retentionDays;
+
+    /**
+     * 把文件放入回收站，从所在文件夹的祖先上减去计数
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public RecycleItemVO recycleFile(Long userId, Long fileId) {
+        UserFileEntity userFile = userFileRepository.getUserFileForUpdate(userId, fileId);
+        if (ObjectUtil.isNull(userFile)) {
+            throw new BusinessException(ResultCode.FILE_NOT_FOUND);
+        }
+        RecycleBinEntity item = newItem(userId, FileConstants.RECYCLE_ITEM_TYPE_FILE, fileId, userFile.getFileName(),
+                ObjectUtil.defaultIfNull(userFile.getFolderId(), FileConstants.ROOT_FOLDER_ID), 1L, userFile.getFileSize());
+        userFileRepository.recycleFile(fileId, item.getId());
+        folderTreeService.addFileCounters(ObjectUtil.defaultIfNull(userFile.getFolderPath(), FileConstants.ROOT_FOLDER_PATH),
+                -1, -userFile.getFileSize());
+        recycleBinRepository.save(item);
+        fileSearchService.onFileRemoved(userId, fileId);
+        log.info("文件放入回收站: userId={}, fileId={}, recycleId={}", userId, fileId, item.getId());
+        return toRecycleItemVO(item);
+    }
+
+    /**
+     * 批量把文件放入回收站：一次加锁查询，文件一条CASE WHEN的UPDATE，回收站记录一次批量插入，
+     * 计数器按所在文件夹合并后调整
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BatchResultVO recycleFiles(Long userId, List<Long> fileIds) {
+        List<UserFileEntity> files = userFileRepository.listUserFilesForUpdate(userId, fileIds);
+        Set<Long> foundIds = files.stream().map(UserFileEntity::getId).collect(Collectors.toSet());
+        BatchResultVO result = new BatchResultVO();
+        for (Long fileId : fileIds) {
+            if (!foundIds.contains(fileId)) {
+                result.getFailures().add(new BatchFailureVO(fileId, ResultCode.FILE_NOT_FOUND.getCode(),
+                        ResultCode.FILE_NOT_FOUND.getMessage()));
+            }
+        }
+        if (files.isEmpty()) {
+            return result;
+        }
+        List<RecycleBinEntity> items = new ArrayList<>(files.size());
+        Map<Long, Long> recycleIdsByFileId = new LinkedHashMap<>(files.size() * 2);
+        // 所在文件夹路径 -> {文件数, 总大小}
+        Map<String, long[]> countersByPath = new HashMap<>();
+        long totalSize = 0;
+        for (UserFileEntity file : files) {
+            RecycleBinEntity item = newItem(userId, FileConstants.RECYCLE_ITEM_TYPE_FILE, file.getId(), file.getFileName(),
+                    ObjectUtil.defaultIfNull(file.getFolderId(), FileConstants.ROOT_FOLDER_ID), 1L, file.getFileSize());
+            items.add(item);
+            recycleIdsByFileId.put(file.getId(), item.getId());
+            long[] counters = countersByPath.computeIfAbsent(
+                    ObjectUtil.defaultIfNull(file.getFolderPath(), FileConstants.ROOT_FOLDER_PATH), key -> new long[2]);
+            counters[0]++;
+            counters[1] += file.getFileSize();
+            totalSize += file.getFileSize();
+        }
+        userFileRepository.recycleFiles(recycleIdsByFileId);
+        countersByPath.forEach((folderPath, counters) -> folderTreeService.addFileCounters(folderPath, -counters[0], -counters[1]));
+        recycleBinRepository.saveBatch(items);
+        fileSearchService.onFilesRemoved(userId, recycleIdsByFileId.keySet());
+        log.info("批量放入回收站: userId={}, requested={}, recycled={}, folders={}",
+                userId, fileIds.size(), files.size(), countersByPath.size());
+        return result.setSuccessCount(files.size()).setTotalSize(totalSize);
+    }
+
+    /**
+     * 把文件夹及其整棵子树放入回收站，文件夹和文件各一条UPDATE
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public RecycleItemVO recycleFolder(Long userId, Long folderId) {
+        FolderEntity folder = folderRepository.getUserFolderForUpdate(userId, folderId);
+        if (ObjectUtil.isNull(folder)) {
+            throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+        }
+        RecycleBinEntity item = newItem(userId, FileConstants.RECYCLE_ITEM_TYPE_FOLDER, folderId, folder.getFolderName(),
+                folder.getParentId(), folder.getFileCount(), folder.getTotalSize());
+        int folderCount = folderRepository.recycleSubtree(userId, folder.getPath(), item.getId());
+        int fileCount = userFileRepository.recycleSubtreeFiles(userId, folder.getPath(), item.getId());
+        folderTreeService.addFileCounters(getParentPath(folder.getPath()), -folder.getFileCount(), -folder.getTotalSize());
+        recycleBinRepository.save(item);
+        if (fileCount > 0) {
+            fileSearchService.onFilesChanged(userId);
+        }
+        log.info("文件夹放入回收站: userId={}, folderId={}, recycleId={}, folders={}, files={}",
+                userId, folderId, item.getId(), folderCount, fileCount);
+        return toRecycleItemVO(item);
+    }
+
+    /**
+     * 按删除时间倒序查询用户可还原的项目
+     */
+    @Override
+    public List<RecycleItemVO> listItems(Long userId, Long beforeId, int limit) {
+        List<RecycleItemVO> items = new ArrayList<>();
+        for (RecycleBinEntity item : recycleBinRepository.listUserItems(userId, beforeId, limit)) {
+            items.add(toRecycleItemVO(item));
+        }
+        return items;
+    }
+
+    /**
+     * 还原回收站项目，原所在文件夹已被删除时还原到根目录，先按项目总大小预占配额
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public RecycleItemVO restore(Long userId, Long recycleId) {
+        RecycleBinEntity item = recycleBinRepository.getUserItemForUpdate(userId, recycleId);
+        if (ObjectUtil.isNull(item)) {
+            throw new BusinessException(ResultCode.RECYCLE_ITEM_NOT_FOUND);
+        }
+        reserveQuota(userId, item);
+        if (item.getItemType() == FileConstants.RECYCLE_ITEM_TYPE_FOLDER) {
+            restoreFolder(userId, item);
+        } else {
+            restoreFile(userId, item);
+        }
+        recycleBinRepository.delete(recycleId);
+        log.info("还原回收站项目: userId={}, recycleId={}, itemId={}, parentId={}",
+                userId, recycleId, item.getItemId(), item.getParentId());
+        return toRecycleItemVO(item);
+    }
+
+    /**
+     * 让用户的一个项目立即过期
+     */
+    @Override
+    public boolean expireItem(Long userId, Long recycleId) {
+        return recycleBinRepository.expireUserItem(userId, recycleId);
+    }
+
+    /**
+     * 让用户的全部项目立即过期
+     */
+    @Override
+    public int expireAll(Long userId) {
+        return recycleBinRepository.expireUserItems(userId);
+    }
+
+    /**
+     * 把回收站记录标记为正在清理
+     */
+    @Override
+    public boolean markPurging(Long recycleId) {
+        return recycleBinRepository.markPurging(recycleId);
+    }
+
+    /**
+     * 物理删除一批文件，同一物理文件的引用合并为一次减少，按物理文件ID顺序更新避免死锁
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Long purgeFileBatch(Long recycleId, Long afterId, int limit) {
+        List<UserFileEntity> files = userFileRepository.listRecycledFilesForUpdate(recycleId, afterId, limit);
+        if (files.isEmpty()) {
+            return null;
+        }
+        List<Long> fileIds = new ArrayList<>(files.size());
+        Map<Long, Integer> blobRefs = new TreeMap<>();
+        for (UserFileEntity file : files) {
+            fileIds.add(file.getId());
+            blobRefs.merge(file.getBlobId(), 1, Integer::sum);
+        }
+        userFileRepository.purgeFiles(recycleId, fileIds);
+        blobRefs.forEach((blobId, count) -> {
+            if (!fileBlobRepository.decreaseRefCount(blobId, count)) {
+                log.warn("释放物理文件引用失败，物理文件不存在: blobId={}, count={}", blobId, count);
+            }
+        });
+        return fileIds.get(fileIds.size() - 1);
+    }
+
+    /**
+     * 物理删除一批文件夹
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Long purgeFolderBatch(Long recycleId, Long afterId, int limit) {
+        List<FolderEntity> folders = folderRepository.listRecycledForUpdate(recycleId, afterId, limit);
+        if (folders.isEmpty()) {
+            return null;
+        }
+        List<Long> folderIds = folders.stream().map(FolderEntity::getId).toList();
+        folderRepository.purgeFolders(recycleId, folderIds);
+        return folderIds.get(folderIds.size() - 1);
+    }
+
+    /**
+     * 删除已清理完的回收站记录
+     */
+    @Override
+    public void removeItem(Long recycleId) {
+        recycleBinRepository.delete(recycleId);
+    }
+
+    // ======================== 私有方法 ========================
+    // 预占还原项目的空间，事务提交后计入已用空间，回滚时释放
+    private void reserveQuota(Long userId, RecycleBinEntity item) {
+        long size = ObjectUtil.defaultIfNull(item.getTotalSize(), 0L);
+        if (size <= 0) {
+            return;
+        }
+        String reservationId = "restore:" + item.getId();
+        long expireAtMillis = System.currentTimeMillis() + Duration.ofHours(1).toMillis();
+        StorageQuotaUtil.ReserveResult reserveResult = storageQuotaUtil.reserve(userId, reservationId, size, expireAtMillis);
+        if (reserveResult == StorageQuotaUtil.ReserveResult.NOT_LOADED) {
+            throw new BusinessException(ResultCode.RPC_ERROR.getCode(), "存储配额未加载，请稍后重试");
+        }
+        if (reserveResult == StorageQuotaUtil.ReserveResult.INSUFFICIENT) {
+            throw new BusinessException(ResultCode.STORAGE_SPACE_INSUFFICIENT, "存储空间不足，无法还原");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    storageQuotaUtil.commit(userId, reservationId, size);
+                } else {
+                    storageQuotaUtil.release(userId, reservationId);
+                }
+            }
+        });
+    }
+
+    // 还原单个文件，原文件夹已不存在时还原到根目录，与同名文件冲突时自动重命名
+    private void restoreFile(Long userId, RecycleBinEntity item) {
+        UserFileEntity userFile = userFileRepository.getRecycledFile(userId, item.getItemId(), item.getId());
+        if (ObjectUtil.isNull(userFile)) {
+            log.error("回收站记录对应的文件不存在: recycleId={}, fileId={}", item.getId(), item.getItemId());
+            throw new BusinessException(ResultCode.RECYCLE_ITEM_NOT_FOUND);
+        }
+        Long parentId = item.getParentId();
+        String parentPath = folderTreeService.lockFolderPath(userId, parentId);
+        if (parentPath == null) {
+            parentId = FileConstants.ROOT_FOLDER_ID;
+            parentPath = FileConstants.ROOT_FOLDER_PATH;
+        }
+        String fileName = resolveFileName(userId, parentId, userFile.getFileName());
+        userFileRepository.restoreRecycledFile(userFile.getId(), item.getId(), parentId, parentPath, fileName);
+        folderTreeService.addFileCounters(parentPath, 1, userFile.getFileSize());
+        fileSearchService.onFileSaved(userId, userFile.getId(), fileName);
+        item.setParentId(parentId);
+        item.setItemName(fileName);
+    }
+
+    // 还原文件夹子树，原父文件夹已不存在或还原后层级超限时还原到根目录，与同名文件夹冲突时自动重命名
+    private void restoreFolder(Long userId, RecycleBinEntity item) {
+        FolderEntity folder = folderRepository.getRecycledFolder(userId, item.getItemId(), item.getId());
+        if (ObjectUtil.isNull(folder)) {
+            log.error("回收站记录对应的文件夹不存在: recycleId={}, folderId={}", item.getId(), item.getItemId());
+            throw new BusinessException(ResultCode.RECYCLE_ITEM_NOT_FOUND);
+        }
+        Long parentId = item.getParentId();
+        String parentPath = folderTreeService.lockFolderPath(userId, parentId);
+        int maxDepth = folderRepository.getRecycledMaxDepth(item.getId());
+        if (parentPath == null || maxDepth - folder.getDepth() + getDepth(parentPath) + 1 > FileConstants.MAX_FOLDER_DEPTH) {
+            parentId = FileConstants.ROOT_FOLDER_ID;
+            parentPath = FileConstants.ROOT_FOLDER_PATH;
+        }
+        String folderName = resolveFolderName(userId, parentId, folder.getFolderName());
+        String newPath = parentPath + folder.getId() + "/";
+        int depthDelta = getDepth(newPath) - folder.getDepth();
+        int folderCount = folderRepository.restoreRecycledSubtree(userId, item.getId(), folder.getPath(), newPath, depthDelta);
+        int fileCount = userFileRepository.restoreRecycledFiles(userId, item.getId(), folder.getPath(), newPath);
+        if (!Objects.equals(parentId, folder.getParentId())) {
+            folderRepository.updateParent(folder.getId(), parentId);
+        }
+        if (!folderName.equals(folder.getFolderName())) {
+            folderRepository.rename(folder.getId(), folderName);
+        }
+        folderTreeService.addFileCounters(parentPath, folder.getFileCount(), folder.getTotalSize());
+        if (fileCount > 0) {
+            fileSearchService.onFilesChanged(userId);
+        }
+        log.debug("还原文件夹子树: folderId={}, {} -> {}, folders={}, files={}",
+                folder.getId(), folder.getPath(), newPath, folderCount, fileCount);
+        item.setParentId(parentId);
+        item.setItemName(folderName);
+    }
+
+    // 目标目录下已有同名文件夹时依次尝试"名称 (1)"、"名称 (2)"
+    private String resolveFolderName(Long userId, Long parentId, String folderName) {
+        String name = folderName;
+        for (int i = 1; folderRepository.existsFolderName(userId, parentId, name); i++) {
+            if (i > MAX_RENAME_ATTEMPTS) {
+                throw new BusinessException(ResultCode.FOLDER_NAME_DUPLICATE);
+            }
+            name = folderName + " (" + i + ")";
+        }
+        return name;
+    }
+
+    // 目标目录下已有同名文件时依次尝试"名称 (1).扩展名"、"名称 (2).扩展名"，以点开头的文件整体视为名称
+    private String resolveFileName(Long userId, Long folderId, String fileName) {
+        int dotIndex = fileName.lastIndexOf('.');
+        String baseName = dotIndex > 0 ? fileName.substring(0, dotIndex) : fileName;
+        String extension = dotIndex > 0 ? fileName.substring(dotIndex) : "";
+        String name = fileName;
+        for (int i = 1; userFileRepository.existsFileName(userId, folderId, name); i++) {
+            if (i > MAX_RENAME_ATTEMPTS) {
+                throw new BusinessException(ResultCode.FILE_NAME_DUPLICATE);
+            }
+            name = baseName + " (" + i + ")" + extension;
+        }
+        return name;
+    }
+
+    private RecycleBinEntity newItem(Long userId, int itemType, Long itemId, String itemName, Long parentId,
+                                     Long fileCount, Long totalSize) {
+        RecycleBinEntity item = new RecycleBinEntity();
+        item.setId(IdWorker.getId());
+        item.setUserId(userId);
+        item.setItemType(itemType);
+        item.setItemId(itemId);
+        item.setItemName(itemName);
+        item.setParentId(parentId);
+        item.setFileCount(fileCount);
+        item.setTotalSize(totalSize);
+        item.setStatus(FileConstants.RECYCLE_STATUS_RECYCLED);
+        item.setCreatedAt(LocalDateTime.now());
+        item.setExpireAt(item.getCreatedAt().plusDays(retentionDays));
+        return item;
+    }
+
+    // 路径的层级即路径上的文件夹数
+    private int getDepth(String path) {
+        int depth = 0;
+        for (int i = 1; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    // 去掉路径的最后一段，得到父文件夹的路径
+    private String getParentPath(String path) {
+        return path.substring(0, path.lastIndexOf('/', path.length() - 2) + 1);
+    }
+
+    private RecycleItemVO toRecycleItemVO(RecycleBinEntity item) {
+        return new RecycleItemVO()
+                .setRecycleId(item.getId())
+                .setItemType(item.getItemType())
+                .setItemId(item.getItemId())
+                .setItemName(item.getItemName())
+                .setParentId(item.getParentId())
+                .setFileCount(item.getFileCount())
+                .setTotalSize(item.getTotalSize())
+                .setDeleteTime(toEpochMilli(item.getCreatedAt()))
+                .setExpireTime(toEpochMilli(item.getExpireAt()));
+    }
+
+    private Long toEpochMilli(LocalDateTime time) {
+        return ObjectUtil.isNull(time) ? null : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
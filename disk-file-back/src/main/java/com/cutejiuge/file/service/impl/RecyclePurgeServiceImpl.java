@@ -0,0 +1,172 @@
+package com.cutejiuge.file.service.impl;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.util.RedisLockUtil;
+import com.cutejiuge.file.entity.RecycleBinEntity;
+import com.cutejiuge.file.repository.RecycleBinRepository;
+import com.cutejiuge.file.service.RecycleItemService;
+import com.cutejiuge.file.service.RecyclePurgeService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * 回收站清理服务实现类
+ * <p>
+ * 清理按回收站记录逐个进行：先在删除锁内把记录标记为正在清理，此后不能再还原，删除锁只在这一步持有；
+ * 再按主键键集分页逐批物理删除文件和文件夹，每批一个短事务，最后删除回收站记录。中途停止时下次从头继续，已删除的行不会再扫描到。
+ * <p>
+ * 批次之间按数据库负载暂停：以每批的执行耗时作为负载信号，超过目标耗时时暂停时间翻倍，低于目标时逐步缩短，
+ * 且暂停时间不短于本批耗时，清理最多占用一个连接一半的时间，不会和在线请求争抢数据库。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午3:25
+ */
+@Slf4j
+@Service
+public class RecyclePurgeServiceImpl implements RecyclePurgeService {
+    private static final String PURGE_LOCK_KEY = "recycle_bin:purge";
+    // 每次查询的过期记录数
+    private static final int ITEM_BATCH_SIZE = 100;
+
+    @Resource
+    private RecycleBinRepository recycleBinRepository;
+
+    @Resource
+    private RecycleItemService recycleItemService;
+
+    @Resource
+    private RedisLockUtil redisLockUtil;
+
+    @Value("${file.recycle.purge-batch-size:500}")
+    private Integer purgeBatchSize;
+
+    @Value("${file.recycle.purge-time-budget-ms:300000}")
+    private Long purgeTimeBudgetMs;
+
+    @Value("${file.recycle.purge-target-batch-ms:200}")
+    private Long targetBatchMs;
+
+    @Value("${file.recycle.purge-min-pause-ms:20}")
+    private Long minPauseMs;
+
+    @Value("${file.recycle.purge-max-pause-ms:5000}")
+    private Long maxPauseMs;
+
+    /**
+     * 清理已过期的回收站项目，单次运行不超过时间预算，剩余的留到下次
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${file.recycle.purge-interval-ms:60000}") // 默认每1min执行一次
+    public void purgeExpired() {
+        RLock lock = redisLockUtil.tryLock(PURGE_LOCK_KEY, purgeTimeBudgetMs / 1000 + 60);
+        if (ObjectUtil.isNull(lock)) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + purgeTimeBudgetMs;
+        PurgeThrottle throttle = new PurgeThrottle(targetBatchMs, minPauseMs, maxPauseMs);
+        int purgedCount = 0;
+        try {
+            long afterId = 0L;
+            List<RecycleBinEntity> items;
+            while (System.currentTimeMillis() < deadline
+                    && !(items = recycleBinRepository.listExpired(afterId, ITEM_BATCH_SIZE)).isEmpty()) {
+                for (RecycleBinEntity item : items) {
+                    if (!purgeItem(item, throttle, deadline)) {
+                        break;
+                    }
+                    purgedCount++;
+                }
+                afterId = items.get(items.size() - 1).getId();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("回收站清理被中断");
+        } catch (Exception e) {
+            log.error("回收站清理异常", e);
+        } finally {
+            redisLockUtil.unlock(lock);
+        }
+        if (purgedCount > 0) {
+            log.info("回收站清理完成: purgedCount={}, batches={}, cost={}ms",
+                    purgedCount, throttle.getBatchCount(), System.currentTimeMillis() - startTime);
+        }
+    }
+
+    // ===================== 私有方法 ======================
+    // 清理一个回收站项目，超出时间预算时返回false，未清理完的部分下次继续
+    private boolean purgeItem(RecycleBinEntity item, PurgeThrottle throttle, long deadline) throws InterruptedException {
+        Long recycleId = item.getId();
+        if (item.getStatus() == FileConstants.RECYCLE_STATUS_RECYCLED) {
+            // 只有标记成功才继续，标记失败说明记录在此期间被还原
+            boolean marked = redisLockUtil.executeWithFileDeleteLock(recycleId, () -> recycleItemService.markPurging(recycleId));
+            if (!marked) {
+                return true;
+            }
+        }
+        if (!purgeInBatches(afterId -> recycleItemService.purgeFileBatch(recycleId, afterId, purgeBatchSize), throttle, deadline)
+                || !purgeInBatches(afterId -> recycleItemService.purgeFolderBatch(recycleId, afterId, purgeBatchSize), throttle, deadline)) {
+            return false;
+        }
+        recycleItemService.removeItem(recycleId);
+        log.debug("回收站项目清理完成: userId={}, recycleId={}, itemId={}", item.getUserId(), recycleId, item.getItemId());
+        return true;
+    }
+
+    // 从头开始逐批执行，batch返回本批最后一行的ID，没有剩余时返回null
+    private boolean purgeInBatches(UnaryOperator<Long> batch, PurgeThrottle throttle, long deadline) throws InterruptedException {
+        Long afterId = 0L;
+        while (true) {
+            long batchStart = System.currentTimeMillis();
+            afterId = batch.apply(afterId);
+            if (afterId == null) {
+                return true;
+            }
+            throttle.pause(System.currentTimeMillis() - batchStart);
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 按批次耗时自适应调整批次间的暂停时间
+     */
+    private static class PurgeThrottle {
+        private final long targetBatchMs;
+        private final long minPauseMs;
+        private final long maxPauseMs;
+        private long pauseMs;
+        private int batchCount;
+
+        private PurgeThrottle(long targetBatchMs, long minPauseMs, long maxPauseMs) {
+            this.targetBatchMs = targetBatchMs;
+            this.minPauseMs = minPauseMs;
+            this.maxPauseMs = maxPauseMs;
+            this.pauseMs = minPauseMs;
+        }
+
+        // 批次耗时超过目标说明数据库繁忙，暂停翻倍；否则每次缩短四分之一
+        private void pause(long batchMs) throws InterruptedException {
+            batchCount++;
+            if (batchMs > targetBatchMs) {
+                pauseMs = Math.min(maxPauseMs, pauseMs * 2);
+            } else {
+                pauseMs = Math.max(minPauseMs, pauseMs - pauseMs / 4);
+            }
+            Thread.sleep(Math.min(maxPauseMs, Math.max(pauseMs, batchMs)));
+        }
+
+        private int getBatchCount() {
+            return batchCount;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.cutejiuge.file.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.ObjectUtil;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.ShareCodeUtil;
+import com.cutejiuge.file.entity.FolderEntity;
+import com.cutejiuge.file.entity.ShareEntity;
+import com.cutejiuge.file.repository.FolderRepository;
+import com.cutejiuge.file.repository.ShareRepository;
+import com.cutejiuge.file.service.CopyJobService;
+import com.cutejiuge.file.service.FileCopyService;
+import com.cutejiuge.file.service.FolderTreeService;
+import com.cutejiuge.file.service.ShareLinkService;
+import com.cutejiuge.file.service.UserFileService;
+import com.cutejiuge.iface.dto.file.CreateShareDTO;
+import com.cutejiuge.iface.dto.file.SaveShareDTO;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.ShareVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分享链接服务实现类
+ * <p>
+ * 分享记录ID预先生成，分享码由ID经置换得到，一次插入即可，不需要先查重。
+ * 分享的文件夹以创建时的文件夹ID为准，访问子文件夹时按物化路径判断是否仍在分享的子树内，
+ * 文件夹移动后分享随之移动，文件夹被删除后分享的内容不可访问。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午7:45
+ */
+@Slf4j
+@Service
+public class ShareLinkServiceImpl implements ShareLinkService {
+    @Resource
+    private ShareRepository shareRepository;
+
+    @Resource
+    private FolderRepository folderRepository;
+
+    @Resource
+    private FolderTreeService folderTreeService;
+
+    @Resource
+    private UserFileService userFileService;
+
+    @Resource
+    private ShareCodeUtil shareCodeUtil;
+
+    @Resource
+    private FileCopyService fileCopyService;
+
+    @Resource
+    private CopyJobService copyJobService;
+
+    /**
+     * 创建分享，记录分享时的名称和大小
+     */
+    @Override
+    public ShareVO createShare(CreateShareDTO dto) {
+        ShareEntity share = new ShareEntity();
+        if (dto.getItemType() == FileConstants.SHARE_ITEM_TYPE_FILE) {
+            UserFileVO file = userFileService.getUserFile(dto.getUserId(), dto.getItemId());
+            share.setItemName(file.getFileName());
+            share.setItemSize(file.getFileSize());
+        } else {
+            FolderEntity folder = folderRepository.getUserFolder(dto.getUserId(), dto.getItemId());
+            if (ObjectUtil.isNull(folder)) {
+                throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+            }
+            share.setItemName(folder.getFolderName());
+            share.setItemSize(folder.getTotalSize());
+        }
+        share.setId(IdWorker.getId());
+        share.setShareCode(shareCodeUtil.generate(share.getId()));
+        share.setUserId(dto.getUserId());
+        share.setItemType(dto.getItemType());
+        share.setItemId(dto.getItemId());
+        share.setExtractCode(dto.getExtractCode());
+        share.setExpireAt(ObjectUtil.isNull(dto.getExpireDays()) ? null : LocalDateTime.now().plusDays(dto.getExpireDays()));
+        share.setStatus(FileConstants.SHARE_STATUS_ACTIVE);
+        share.setViewCount(0L);
+        shareRepository.save(share);
+        log.info("创建分享成功: userId={}, shareId={}, itemType={}, itemId={}",
+                share.getUserId(), share.getId(), share.getItemType(), share.getItemId());
+        return toShareVO(share);
+    }
+
+    /**
+     * 按分享码查询分享
+     */
+    @Override
+    public ShareVO getShare(String shareCode) {
+        ShareEntity share = shareRepository.getByShareCode(shareCode);
+        if (ObjectUtil.isNull(share)) {
+            throw new BusinessException(ResultCode.SHARE_NOT_FOUND);
+        }
+        return toShareVO(share);
+    }
+
+    /**
+     * 按创建时间倒序查询用户有效的分享
+     */
+    @Override
+    public List<ShareVO> listShares(Long userId, Long beforeId, int limit) {
+        List<ShareVO> shares = new ArrayList<>();
+        for (ShareEntity share : shareRepository.listUserShares(userId, beforeId, limit)) {
+            shares.add(toShareVO(share));
+        }
+        return shares;
+    }
+
+    /**
+     * 取消分享
+     */
+    @Override
+    public ShareVO cancelShare(Long userId, Long shareId) {
+        ShareEntity share = shareRepository.getUserShare(userId, shareId);
+        if (ObjectUtil.isNull(share)) {
+            throw new BusinessException(ResultCode.SHARE_NOT_FOUND);
+        }
+        if (!shareRepository.cancel(userId, shareId)) {
+            throw new BusinessException(ResultCode.SHARE_CANCELLED);
+        }
+        share.setStatus(FileConstants.SHARE_STATUS_CANCELLED);
+        return toShareVO(share);
+    }
+
+    /**
+     * 查询分享的内容，文件夹分享校验目标文件夹的路径以分享的文件夹路径开头
+     */
+    @Override
+    public FolderContentVO listShareContent(Long userId, Integer itemType, Long itemId, Long folderId) {
+        if (itemType == FileConstants.SHARE_ITEM_TYPE_FILE) {
+            return new FolderContentVO()
+                    .setFolders(new ArrayList<>())
+                    .setFiles(List.of(userFileService.getUserFile(userId, itemId)));
+        }
+        FolderEntity sharedFolder = folderRepository.getUserFolder(userId, itemId);
+        if (ObjectUtil.isNull(sharedFolder)) {
+            throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+        }
+        if (ObjectUtil.isNotNull(folderId) && !folderId.equals(itemId)) {
+            FolderEntity folder = folderRepository.getUserFolder(userId, folderId);
+            if (ObjectUtil.isNull(folder) || !folder.getPath().startsWith(sharedFolder.getPath())) {
+                throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+            }
+        }
+        return folderTreeService.listFolder(userId, ObjectUtil.isNull(folderId) ? itemId : folderId);
+    }
+
+    /**
+     * 转存分享：文件同步复制，文件夹按复制任务处理，都只复制记录并增加引用计数
+     */
+    @Override
+    public CopyJobVO saveShare(SaveShareDTO dto) {
+        if (dto.getItemType() == FileConstants.SHARE_ITEM_TYPE_FILE) {
+            BatchResultVO result = fileCopyService.copyFiles(dto.getShareUserId(), List.of(dto.getItemId()), null,
+                    dto.getUserId(), dto.getTargetFolderId());
+            if (result.getSuccessCount() == 0) {
+                throw new BusinessException(ResultCode.FILE_NOT_FOUND);
+            }
+            return toCopyJobVO(result, 1);
+        }
+        FolderEntity sharedFolder = folderRepository.getUserFolder(dto.getShareUserId(), dto.getItemId());
+        if (ObjectUtil.isNull(sharedFolder)) {
+            throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+        }
+        if (CollUtil.isNotEmpty(dto.getFileIds())) {
+            BatchResultVO result = fileCopyService.copyFiles(dto.getShareUserId(), dto.getFileIds(), sharedFolder.getPath(),
+                    dto.getUserId(), dto.getTargetFolderId());
+            return toCopyJobVO(result, dto.getFileIds().size());
+        }
+        Long folderId = ObjectUtil.defaultIfNull(dto.getFolderId(), dto.getItemId());
+        if (!folderId.equals(dto.getItemId())) {
+            FolderEntity folder = folderRepository.getUserFolder(dto.getShareUserId(), folderId);
+            if (ObjectUtil.isNull(folder) || !folder.getPath().startsWith(sharedFolder.getPath())) {
+                throw new BusinessException(ResultCode.FOLDER_NOT_FOUND);
+            }
+        }
+        return copyJobService.startFolderCopy(dto.getShareUserId(), folderId, dto.getUserId(), dto.getTargetFolderId());
+    }
+
+    // ======================== 私有方法 ========================
+    // 只复制文件时同步完成，没有任务ID
+    private CopyJobVO toCopyJobVO(BatchResultVO result, int requestedCount) {
+        return new CopyJobVO()
+                .setStatus(FileConstants.COPY_JOB_STATUS_SUCCESS)
+                .setTotalFiles((long) requestedCount)
+                .setTotalSize(result.getTotalSize())
+                .setCopiedFiles((long) result.getSuccessCount())
+                .setCopiedSize(result.getTotalSize())
+                .setSkippedFiles((long) result.getFailures().size());
+    }
+
+    private ShareVO toShareVO(ShareEntity share) {
+        return new ShareVO()
+                .setShareId(share.getId())
+                .setShareCode(share.getShareCode())
+                .setUserId(share.getUserId())
+                .setItemType(share.getItemType())
+                .setItemId(share.getItemId())
+                .setItemName(share.getItemName())
+                .setItemSize(share.getItemSize())
+                .setExtractCode(share.getExtractCode())
+                .setNeedExtractCode(ObjectUtil.isNotEmpty(share.getExtractCode()))
+                .setExpireTime(toEpochMilli(share.getExpireAt()))
+                .setStatus(share.getStatus())
+                .setViewCount(share.getViewCount())
+                .setCreateTime(toEpochMilli(share.getCreatedAt()));
+    }
+
+    private Long toEpochMilli(LocalDateTime time) {
+        return ObjectUtil.isNull(time) ? null : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,89 @@
+package com.cutejiuge.file.service.impl;
+
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.file.repository.ShareRepository;
+import com.cutejiuge.file.service.ShareViewCountService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分享访问次数写回服务实现类
+ * <p>
+ * 网关把访问次数在本地聚合后定时HINCRBY到redis的待写回hash，这里定时取出整个hash并删除，
+ * 每批分享一条CASE WHEN语句累加view_count，热门分享每个周期只更新一次数据库。
+ * 取出和删除在一个lua脚本中完成，多个实例同时执行也不会重复写回，因此不需要分布式锁；写回失败时把增量加回hash，下次重试。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午8:00
+ */
+@Slf4j
+@Service
+public class ShareViewCountServiceImpl implements ShareViewCountService {
+    @Resource
+    private ShareRepository shareRepository;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${file.share.view-flush-batch-size:500}")
+    private Integer flushBatchSize;
+
+    // 取出全部待写回的访问次数并删除hash，返回 {分享ID, 增量, ...}
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DRAIN_SCRIPT = new DefaultRedisScript<>("""
+            local values = redis.call('HGETALL', KEYS[1])
+            if #values > 0 then redis.call('DEL', KEYS[1]) end
+            return values
+            """, List.class);
+
+    /**
+     * 把redis中累计的访问次数批量写回数据库
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${file.share.view-flush-interval-ms:5000}") // 默认每5s执行一次
+    public void flushViewCounts() {
+        List<?> values = stringRedisTemplate.execute(DRAIN_SCRIPT, List.of(FileConstants.SHARE_PENDING_VIEWS_KEY));
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> batch = new HashMap<>(flushBatchSize * 2);
+        int flushedCount = 0;
+        for (int i = 0; i + 1 < values.size(); i += 2) {
+            batch.put(Long.valueOf(values.get(i).toString()), Long.valueOf(values.get(i + 1).toString()));
+            if (batch.size() >= flushBatchSize || i + 3 >= values.size()) {
+                flushedCount += flushBatch(batch);
+                batch = new HashMap<>(flushBatchSize * 2);
+            }
+        }
+        log.debug("分享访问次数写回完成: shareCount={}, flushedCount={}", values.size() / 2, flushedCount);
+    }
+
+    // ======================== 私有方法 ========================
+    // 写回一批访问次数，失败时把增量加回待写回hash
+    private int flushBatch(Map<Long, Long> batch) {
+        try {
+            return shareRepository.batchIncrementViewCount(batch);
+        } catch (Exception e) {
+            log.error("分享访问次数写回失败，放回redis等待重试: shareCount={}", batch.size(), e);
+            byte[] key = FileConstants.SHARE_PENDING_VIEWS_KEY.getBytes(StandardCharsets.UTF_8);
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                batch.forEach((shareId, delta) -> connection.hashCommands().hIncrBy(key,
+                        String.valueOf(shareId).getBytes(StandardCharsets.UTF_8), delta));
+                return null;
+            });
+            return 0;
+        }
+    }
+}
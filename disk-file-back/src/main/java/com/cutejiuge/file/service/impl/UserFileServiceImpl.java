@@ -0,0 +1,165 @@
+package com.cutejiuge.file.service.impl;
+
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.common.constants.FileConstants;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.file.entity.FileBlobEntity;
+import com.cutejiuge.file.entity.UserFileEntity;
+import com.cutejiuge.file.repository.FileBlobRepository;
+import com.cutejiuge.file.repository.UserFileRepository;
+import com.cutejiuge.file.service.FileSearchService;
+import com.cutejiuge.file.service.UserFileService;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 用户文件服务实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午4:22
+ */
+@Slf4j
+@Service
+public class UserFileServiceImpl implements UserFileService {
+    // 批量查询物理文件时每批的ID数
+    private static final int BLOB_QUERY_BATCH_SIZE = 1000;
+
+    @Resource
+    private UserFileRepository userFileRepository;
+
+    @Resource
+    private FileBlobRepository fileBlobRepository;
+
+    @Resource
+    private FileSearchService fileSearchService;
+
+    /**
+     * 查询用户的文件，包含物理文件的存储路径
+     */
+    @Override
+    public UserFileVO getUserFile(Long userId, Long fileId) {
+        UserFileEntity userFile = userFileRepository.getUserFile(userId, fileId);
+        if (ObjectUtil.isNull(userFile)) {
+            throw new BusinessException(ResultCode.FILE_NOT_FOUND);
+        }
+        FileBlobEntity blob = fileBlobRepository.getById(userFile.getBlobId());
+        if (ObjectUtil.isNull(blob)) {
+            log.error("用户文件引用的物理文件不存在: fileId={}, blobId={}", fileId, userFile.getBlobId());
+            throw new BusinessException(ResultCode.FILE_NOT_FOUND);
+        }
+        return toUserFileVO(userFile, blob);
+    }
+
+    /**
+     * 批量查询用户的文件，用户文件和物理文件各查询一次
+     */
+    @Override
+    public List<UserFileVO> listUserFiles(Long userId, List<Long> fileIds) {
+        Map<Long, UserFileEntity> userFileMap = userFileRepository.listUserFiles(userId, fileIds).stream()
+                .collect(Collectors.toMap(UserFileEntity::getId, Function.identity()));
+        List<UserFileEntity> userFiles = new ArrayList<>(userFileMap.size());
+        for (Long fileId : fileIds) {
+            UserFileEntity userFile = userFileMap.get(fileId);
+            if (ObjectUtil.isNotNull(userFile)) {
+                userFiles.add(userFile);
+            }
+        }
+        return toUserFileVOs(userFiles);
+    }
+
+    /**
+     * 查询文件夹下的直接子文件
+     */
+    @Override
+    public List<UserFileVO> listFolderFiles(Long userId, Long folderId) {
+        return toUserFileVOs(userFileRepository.listFolderFiles(userId, folderId));
+    }
+
+    /**
+     * 查询子树内的全部文件，一次范围扫描加一次物理文件批量查询
+     */
+    @Override
+    public List<UserFileVO> listSubtreeFiles(Long userId, String path) {
+        return toUserFileVOs(userFileRepository.listSubtreeFiles(userId, path));
+    }
+
+    /**
+     * 重命名文件，名称未变化时不做修改
+     */
+    @Override
+    public UserFileVO renameFile(Long userId, Long fileId, String fileName) {
+        UserFileEntity userFile = userFileRepository.getUserFile(userId, fileId);
+        if (ObjectUtil.isNull(userFile)) {
+            throw new BusinessException(ResultCode.FILE_NOT_FOUND);
+        }
+        if (!fileName.equals(userFile.getFileName())) {
+            if (!userFileRepository.rename(fileId, fileName)) {
+                throw new BusinessException(ResultCode.FILE_NOT_FOUND);
+            }
+            fileSearchService.onFileSaved(userId, fileId, fileName);
+            log.info("重命名文件: userId={}, fileId={}, {} -> {}", userId, fileId, userFile.getFileName(), fileName);
+        }
+        return getUserFile(userId, fileId);
+    }
+
+    /**
+     * 统计用户文件的总大小
+     */
+    @Override
+    public Map<Long, Long> sumUsedStorage(List<Long> userIds) {
+        return userFileRepository.sumFileSizeByUserIds(userIds);
+    }
+
+    // ======================== 私有方法 ========================
+    // 批量查询物理文件后按原顺序构建，物理文件缺失的用户文件不在结果中
+    private List<UserFileVO> toUserFileVOs(List<UserFileEntity> userFiles) {
+        if (userFiles.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 子树内的文件可能很多，物理文件分批查询，控制IN列表长度
+        List<Long> blobIds = userFiles.stream().map(UserFileEntity::getBlobId).distinct().toList();
+        Map<Long, FileBlobEntity> blobMap = new HashMap<>(blobIds.size() * 2);
+        for (List<Long> batch : ListUtil.partition(blobIds, BLOB_QUERY_BATCH_SIZE)) {
+            for (FileBlobEntity blob : fileBlobRepository.listByIds(batch)) {
+                blobMap.put(blob.getId(), blob);
+            }
+        }
+        List<UserFileVO> files = new ArrayList<>(userFiles.size());
+        for (UserFileEntity userFile : userFiles) {
+            FileBlobEntity blob = blobMap.get(userFile.getBlobId());
+            if (ObjectUtil.isNull(blob)) {
+                log.error("用户文件引用的物理文件不存在: fileId={}, blobId={}", userFile.getId(), userFile.getBlobId());
+                continue;
+            }
+            files.add(toUserFileVO(userFile, blob));
+        }
+        return files;
+    }
+
+    private UserFileVO toUserFileVO(UserFileEntity userFile, FileBlobEntity blob) {
+        return new UserFileVO()
+                .setFileId(userFile.getId())
+                .setFolderId(ObjectUtil.defaultIfNull(userFile.getFolderId(), FileConstants.ROOT_FOLDER_ID))
+                .setFileName(userFile.getFileName())
+                .setFileSize(userFile.getFileSize())
+                .setFileSha256(userFile.getFileSha256())
+                .setStoragePath(blob.getStoragePath())
+                .setStorageType(blob.getStorageType())
+                .setCreateTime(ObjectUtil.isNull(userFile.getCreatedAt()) ? null
+                        : userFile.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .setUpdateTime(ObjectUtil.isNull(userFile.getUpdatedAt()) ? null
+                        : userFile.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+}
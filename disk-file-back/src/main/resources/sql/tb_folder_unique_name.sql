@@ -0,0 +1,9 @@
+-- 同一父目录下未删除的文件夹不能重名
+-- 服务端的同名检查是先查后写，并发创建、重命名或移动时可能都通过检查，由唯一索引兜底
+-- 删除的文件夹进入回收站后deleted_at非空，name_unique_flag为NULL，不参与唯一约束，还原时再按需重命名
+-- 执行前先处理已有的重名数据，否则建索引会失败：
+--   SELECT user_id, parent_id, folder_name, COUNT(*) FROM tb_folder
+--   WHERE deleted_at IS NULL GROUP BY user_id, parent_id, folder_name HAVING COUNT(*) > 1;
+ALTER TABLE tb_folder
+    ADD COLUMN name_unique_flag TINYINT GENERATED ALWAYS AS (IF(deleted_at IS NULL, 1, NULL)) VIRTUAL,
+    ADD UNIQUE INDEX uk_user_parent_name (user_id, parent_id, folder_name, name_unique_flag);
@@ -0,0 +1,36 @@
+package com.cutejiuge.iface.dto.file;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * CDC块引用DTO
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 上午9:48
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class ChunkRefDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 5172983364019827125L;
+
+    /**
+     * 块sha256
+     */
+    private String sha256;
+
+    /**
+     * 块大小(字节)
+     */
+    private Integer size;
+}
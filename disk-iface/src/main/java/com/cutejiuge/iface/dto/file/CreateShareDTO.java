@@ -0,0 +1,51 @@
+package com.cutejiuge.iface.dto.file;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 创建分享DTO
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午7:30
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class CreateShareDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -6023817745190384562L;
+
+    /**
+     * 分享者用户ID
+     */
+    private Long userId;
+
+    /**
+     * 分享项目类型，1-文件 2-文件夹
+     */
+    private Integer itemType;
+
+    /**
+     * 分享的文件或文件夹ID
+     */
+    private Long itemId;
+
+    /**
+     * 提取码，为空表示公开分享
+     */
+    private String extractCode;
+
+    /**
+     * 有效天数，为空表示永久有效
+     */
+    private Integer expireDays;
+}
@@ -0,0 +1,51 @@
+package com.cutejiuge.iface.dto.file;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 按文件名搜索DTO
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 上午10:20
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class FileSearchDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 8712306659204471338L;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 关键词，英文和数字按单词前缀匹配，中文按连续子串匹配
+     */
+    private String keyword;
+
+    /**
+     * 文件分类，image/document/audio/video/archive/other，为空时不过滤
+     */
+    private String category;
+
+    /**
+     * 扩展名，不包含点，为空时不过滤
+     */
+    private String extension;
+
+    /**
+     * 最多返回的数量
+     */
+    private Integer size;
+}
@@ -0,0 +1,53 @@
+package com.cutejiuge.iface.dto.file;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 秒传DTO
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:20
+ */
+@Data
+@Builder
+@Accessors(chain = true)
+public class InstantUploadDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 3719648202415837796L;
+
+    /**
+     * 用户ID
+     */
+    @NotNull(message = "用户ID不能为空")
+    private Long userId;
+
+    /**
+     * 目标文件夹ID，为空时保存到根目录
+     */
+    private Long folderId;
+
+    /**
+     * 文件名
+     */
+    @NotBlank(message = "文件名不能为空")
+    private String fileName;
+
+    /**
+     * 文件大小(字节)
+     */
+    @NotNull(message = "文件大小不能为空")
+    private Long fileSize;
+
+    /**
+     * 文件sha256
+     */
+    @NotBlank(message = "文件sha256不能为空")
+    private String fileSha256;
+}
@@ -0,0 +1,62 @@
+package com.cutejiuge.iface.dto.file;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 转存分享DTO，分享的状态、有效期和提取码由网关校验
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午4:15
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+public class SaveShareDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 3861207459912846105L;
+
+    /**
+     * 转存者用户ID
+     */
+    private Long userId;
+
+    /**
+     * 分享者用户ID
+     */
+    private Long shareUserId;
+
+    /**
+     * 分享项目类型，1-文件 2-文件夹
+     */
+    private Integer itemType;
+
+    /**
+     * 分享的文件或文件夹ID
+     */
+    private Long itemId;
+
+    /**
+     * 文件夹分享中要转存的子文件夹ID，为空表示分享的文件夹本身
+     */
+    private Long folderId;
+
+    /**
+     * 文件夹分享中要转存的文件ID，不为空时只转存这些文件，忽略folderId
+     */
+    private List<Long> fileIds;
+
+    /**
+     * 转存到的文件夹ID，0为根目录
+     */
+    private Long targetFolderId;
+}
@@ -0,0 +1,70 @@
+package com.cutejiuge.iface.dto.file;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 保存上传完成的文件DTO
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:22
+ */
+@Data
+@Builder
+@Accessors(chain = true)
+public class SaveUploadedFileDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -2306452184735990160L;
+
+    /**
+     * 用户ID
+     */
+    @NotNull(message = "用户ID不能为空")
+    private Long userId;
+
+    /**
+     * 目标文件夹ID，为空时保存到根目录
+     */
+    private Long folderId;
+
+    /**
+     * 文件名
+     */
+    @NotBlank(message = "文件名不能为空")
+    private String fileName;
+
+    /**
+     * 文件大小(字节)
+     */
+    @NotNull(message = "文件大小不能为空")
+    private Long fileSize;
+
+    /**
+     * 文件sha256
+     */
+    @NotBlank(message = "文件sha256不能为空")
+    private String fileSha256;
+
+    /**
+     * 合并后的存储路径(相对存储根目录)
+     */
+    @NotBlank(message = "存储路径不能为空")
+    private String storagePath;
+
+    /**
+     * 存储方式，1-完整文件 2-CDC块清单 3-分块压缩文件，为空时按完整文件处理
+     */
+    private Integer storageType;
+
+    /**
+     * CDC块清单中引用的块，按文件中的顺序排列，仅storageType为CDC块清单时有值
+     */
+    private List<ChunkRefDTO> chunkRefs;
+}
@@ -0,0 +1,71 @@
+package com.cutejiuge.iface.dto.file;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 替换文件内容DTO，文件ID、文件名和所在文件夹不变，只换成新的物理文件
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午4:30
+ */
+@Data
+@Builder
+@Accessors(chain = true)
+public class UpdateFileContentDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 4129870365518260913L;
+
+    /**
+     * 用户ID
+     */
+    @NotNull(message = "用户ID不能为空")
+    private Long userId;
+
+    /**
+     * 文件ID
+     */
+    @NotNull(message = "文件ID不能为空")
+    private Long fileId;
+
+    /**
+     * 修改前的文件sha256，文件当前内容不是这个版本时拒绝替换
+     */
+    @NotBlank(message = "原文件sha256不能为空")
+    private String baseSha256;
+
+    /**
+     * 新的文件大小(字节)
+     */
+    @NotNull(message = "文件大小不能为空")
+    private Long fileSize;
+
+    /**
+     * 新的文件sha256
+     */
+    @NotBlank(message = "文件sha256不能为空")
+    private String fileSha256;
+
+    /**
+     * 新内容的存储路径(相对存储根目录)
+     */
+    @NotBlank(message = "存储路径不能为空")
+    private String storagePath;
+
+    /**
+     * 存储方式，1-完整文件 2-CDC块清单 3-分块压缩文件，为空时按完整文件处理
+     */
+    private Integer storageType;
+
+    /**
+     * CDC块清单中引用的块，按文件中的顺序排列，仅storageType为CDC块清单时有值
+     */
+    private List<ChunkRefDTO> chunkRefs;
+}
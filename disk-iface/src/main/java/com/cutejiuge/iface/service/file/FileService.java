@@ -0,0 +1,83 @@
+package com.cutejiuge.iface.service.file;
+
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.iface.dto.file.FileSearchDTO;
+import com.cutejiuge.iface.dto.file.InstantUploadDTO;
+import com.cutejiuge.iface.dto.file.SaveUploadedFileDTO;
+import com.cutejiuge.iface.dto.file.UpdateFileContentDTO;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.FileBlobVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件服务RPC接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:28
+ */
+public interface FileService {
+    /**
+     * 按sha256和大小查询已登记的物理文件，不存在时返回的data为null，用于秒传前校验客户端是否持有文件内容
+     */
+    Result<FileBlobVO> findBlob(String fileSha256, Long fileSize);
+
+    /**
+     * 秒传，相同sha256和大小的物理文件已存在时直接引用，不存在时返回的data为null。
+     * 不校验客户端是否持有文件内容，调用方需先完成持有证明
+     */
+    Result<UserFileVO> instantUpload(InstantUploadDTO dto);
+
+    /**
+     * 保存上传完成的文件，物理文件已被其他上传抢先登记时返回已登记的存储路径，调用方需删除自己合并的副本
+     */
+    Result<UserFileVO> saveUploadedFile(SaveUploadedFileDTO dto);
+
+    /**
+     * 替换文件的内容，文件当前的sha256不是baseSha256时返回FILE_VERSION_CONFLICT，
+     * 新的物理文件已存在时只增加引用并返回已登记的存储路径，调用方需删除自己写入的副本
+     */
+    Result<UserFileVO> updateFileContent(UpdateFileContentDTO dto);
+
+    /**
+     * 查询用户的文件，文件不存在或不属于该用户时返回FILE_NOT_FOUND
+     */
+    Result<UserFileVO> getUserFile(Long userId, Long fileId);
+
+    /**
+     * 批量查询用户的文件，按fileIds的顺序返回，不存在或不属于该用户的文件不在结果中
+     */
+    Result<List<UserFileVO>> listUserFiles(Long userId, List<Long> fileIds);
+
+    /**
+     * 重命名文件，文件不存在或不属于该用户时返回FILE_NOT_FOUND
+     */
+    Result<UserFileVO> renameFile(Long userId, Long fileId, String fileName);
+
+    /**
+     * 批量复制文件到同一个文件夹，只增加物理文件的引用，复制的总大小计入已用空间，调用前需要加载存储配额
+     */
+    Result<BatchResultVO> batchCopyFiles(Long userId, List<Long> fileIds, Long targetFolderId);
+
+    /**
+     * 按文件名搜索用户的文件，英文和数字按单词前缀匹配，中文按连续子串匹配，最近上传的在前
+     */
+    Result<List<UserFileVO>> searchFiles(FileSearchDTO dto);
+
+    /**
+     * 统计用户文件的总大小，用于存储配额对账，没有文件的用户不在结果中
+     */
+    Result<Map<Long, Long>> sumUsedStorage(List<Long> userIds);
+
+    /**
+     * 按ID顺序查询ID大于afterId的一批物理文件，用于后台完整性校验
+     */
+    Result<List<FileBlobVO>> listBlobs(Long afterId, Integer size);
+
+    /**
+     * 物理文件复制到新的存储路径后更新登记的路径，登记的路径已不是oldPath时返回false，调用方需删除新路径上的副本
+     */
+    Result<Boolean> updateBlobStoragePath(Long blobId, String oldPath, String newPath);
+}
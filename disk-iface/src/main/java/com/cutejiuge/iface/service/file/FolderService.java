@@ -0,0 +1,64 @@
+package com.cutejiuge.iface.service.file;
+
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.FolderVO;
+import com.cutejiuge.iface.vo.file.UserFileVO;
+
+import java.util.List;
+
+/**
+ * 文件夹服务RPC接口，文件夹ID为0表示根目录
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午10:20
+ */
+public interface FolderService {
+    /**
+     * 创建文件夹，同一目录下不能重名
+     */
+    Result<FolderVO> createFolder(Long userId, Long parentId, String folderName);
+
+    /**
+     * 重命名文件夹
+     */
+    Result<FolderVO> renameFolder(Long userId, Long folderId, String folderName);
+
+    /**
+     * 移动文件夹及其整棵子树，不能移动到自身或自身的子文件夹中
+     */
+    Result<FolderVO> moveFolder(Long userId, Long folderId, Long targetParentId);
+
+    /**
+     * 移动文件到指定文件夹
+     */
+    Result<UserFileVO> moveFile(Long userId, Long fileId, Long targetFolderId);
+
+    /**
+     * 批量移动文件到同一个文件夹，不存在的文件在结果中逐个列出，目标文件夹不存在时整批失败
+     */
+    Result<BatchResultVO> batchMoveFiles(Long userId, List<Long> fileIds, Long targetFolderId);
+
+    /**
+     * 复制文件夹及其整棵子树，不复制数据，复制的总大小计入已用空间，调用前需要加载存储配额；
+     * 文件较多时在后台复制，返回的任务状态为进行中
+     */
+    Result<CopyJobVO> copyFolder(Long userId, Long folderId, Long targetParentId);
+
+    /**
+     * 查询复制任务的进度
+     */
+    Result<CopyJobVO> getCopyJob(Long userId, String jobId);
+
+    /**
+     * 列出文件夹的直接子文件夹和文件
+     */
+    Result<FolderContentVO> listFolder(Long userId, Long folderId);
+
+    /**
+     * 查询文件夹的整棵子树，包含全部子孙文件夹和文件，用于打包下载
+     */
+    Result<FolderContentVO> getFolderTree(Long userId, Long folderId);
+}
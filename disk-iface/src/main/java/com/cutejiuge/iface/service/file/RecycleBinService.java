@@ -0,0 +1,50 @@
+package com.cutejiuge.iface.service.file;
+
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.iface.vo.file.BatchResultVO;
+import com.cutejiuge.iface.vo.file.RecycleItemVO;
+
+import java.util.List;
+
+/**
+ * 回收站服务RPC接口，删除的文件和文件夹先进入回收站，过期后由后台任务清理
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午2:30
+ */
+public interface RecycleBinService {
+    /**
+     * 删除文件，放入回收站
+     */
+    Result<RecycleItemVO> deleteFile(Long userId, Long fileId);
+
+    /**
+     * 删除文件夹，整棵子树作为一个项目放入回收站
+     */
+    Result<RecycleItemVO> deleteFolder(Long userId, Long folderId);
+
+    /**
+     * 批量删除文件，每个文件是一个回收站项目，不存在的文件在结果中逐个列出
+     */
+    Result<BatchResultVO> batchDeleteFiles(Long userId, List<Long> fileIds);
+
+    /**
+     * 按删除时间倒序查询回收站，beforeId为上一页最后一条记录的ID，第一页传null
+     */
+    Result<List<RecycleItemVO>> listRecycleBin(Long userId, Long beforeId, Integer size);
+
+    /**
+     * 还原回收站项目，原所在文件夹已不存在时还原到根目录
+     */
+    Result<RecycleItemVO> restore(Long userId, Long recycleId);
+
+    /**
+     * 彻底删除回收站项目，立即不可还原，数据由后台任务清理
+     */
+    Result<Void> purge(Long userId, Long recycleId);
+
+    /**
+     * 清空回收站，返回清空的项目数
+     */
+    Result<Integer> emptyRecycleBin(Long userId);
+}
@@ -0,0 +1,50 @@
+package com.cutejiuge.iface.service.file;
+
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.iface.dto.file.CreateShareDTO;
+import com.cutejiuge.iface.dto.file.SaveShareDTO;
+import com.cutejiuge.iface.vo.file.CopyJobVO;
+import com.cutejiuge.iface.vo.file.FolderContentVO;
+import com.cutejiuge.iface.vo.file.ShareVO;
+
+import java.util.List;
+
+/**
+ * 分享服务RPC接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午7:35
+ */
+public interface ShareService {
+    /**
+     * 创建分享，分享码由分享ID生成，不会重复
+     */
+    Result<ShareVO> createShare(CreateShareDTO dto);
+
+    /**
+     * 按分享码查询分享，包括已取消和已过期的分享，由调用方判断是否可以访问
+     */
+    Result<ShareVO> getShare(String shareCode);
+
+    /**
+     * 按创建时间倒序查询用户有效的分享，beforeId为上一页最后一条记录的ID，第一页传null
+     */
+    Result<List<ShareVO>> listShares(Long userId, Long beforeId, Integer size);
+
+    /**
+     * 取消分享，返回被取消的分享
+     */
+    Result<ShareVO> cancelShare(Long userId, Long shareId);
+
+    /**
+     * 查询分享的内容：分享文件时返回该文件；分享文件夹时返回folderId的直接内容，folderId为空表示分享的文件夹本身，
+     * folderId必须在分享的文件夹子树内
+     */
+    Result<FolderContentVO> listShareContent(Long userId, Integer itemType, Long itemId, Long folderId);
+
+    /**
+     * 转存分享到自己的网盘，不复制数据：分享文件或指定fileIds时同步完成，转存文件夹时返回复制任务，
+     * 进度通过FolderService.getCopyJob查询
+     */
+    Result<CopyJobVO> saveShare(SaveShareDTO dto);
+}
@@ -1,5 +1,7 @@
 package com.cutejiuge.iface.service.user;
 
+import com.cutejiuge.common.response.Result;
+
 /**
  * 用户服务的RPC接口
  *
@@ -7,5 +9,8 @@ package com.cutejiuge.iface.service.user;
  * @since 2025/8/25 下午11:50
  */
 public interface UserService {
-
+    /**
+     * 从数据库加载用户的存储配额到redis，配额已加载时只刷新总空间
+     */
+    Result<Void> loadStorageQuota(Long userId);
 }
@@ -0,0 +1,35 @@
+package com.cutejiuge.iface.vo.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 批量操作中失败的单个文件
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午2:12
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+@Schema(description = "批量操作中失败的单个文件")
+public class BatchFailureVO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 6631802957714302216L;
+
+    @Schema(name = "文件ID", example = "1846012345678901234")
+    private Long fileId;
+
+    @Schema(name = "错误码", example = "30001")
+    private Integer code;
+
+    @Schema(name = "失败原因", example = "文件不存在")
+    private String message;
+}
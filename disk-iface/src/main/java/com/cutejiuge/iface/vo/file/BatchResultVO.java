@@ -0,0 +1,33 @@
+package com.cutejiuge.iface.vo.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量操作结果
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午2:10
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "批量操作结果")
+public class BatchResultVO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 2718093465501238842L;
+
+    @Schema(name = "成功的文件数", example = "1998")
+    private Integer successCount = 0;
+
+    @Schema(name = "成功的文件总大小(字节)", example = "1073741824")
+    private Long totalSize = 0L;
+
+    @Schema(name = "失败的文件及原因")
+    private List<BatchFailureVO> failures = new ArrayList<>();
+}
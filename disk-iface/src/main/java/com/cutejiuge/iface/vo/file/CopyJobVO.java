@@ -0,0 +1,52 @@
+package com.cutejiuge.iface.vo.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 复制任务进度
+ *
+ * @author cutejiuge
+ * @since 2026/10/20 下午4:10
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "复制任务进度")
+public class CopyJobVO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 7350912846603127745L;
+
+    @Schema(name = "任务ID，只复制文件时同步完成，没有任务ID", example = "9f1c2a7e4b3d4c5e8a6b7c8d9e0f1a2b")
+    private String jobId;
+
+    @Schema(name = "状态，1-进行中 2-已完成 3-失败或中断", example = "1")
+    private Integer status;
+
+    @Schema(name = "复制得到的文件夹ID，只复制文件时为空", example = "1846012345678901234")
+    private Long folderId;
+
+    @Schema(name = "复制得到的文件夹名称，与目标文件夹中已有的重名时加序号", example = "照片(1)")
+    private String folderName;
+
+    @Schema(name = "待复制的文件数，开始时的统计值", example = "52000")
+    private Long totalFiles;
+
+    @Schema(name = "待复制的文件总大小(字节)，开始时的统计值", example = "21474836480")
+    private Long totalSize;
+
+    @Schema(name = "已复制的文件数", example = "12500")
+    private Long copiedFiles;
+
+    @Schema(name = "已复制的文件总大小(字节)", example = "5368709120")
+    private Long copiedSize;
+
+    @Schema(name = "跳过的文件数，复制期间被删除或移出的文件", example = "0")
+    private Long skippedFiles;
+
+    @Schema(name = "失败原因", example = "存储空间不足")
+    private String message;
+}
@@ -0,0 +1,40 @@
+package com.cutejiuge.iface.vo.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 物理文件信息
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午9:40
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "物理文件信息")
+public class FileBlobVO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -2093518847615042273L;
+
+    @Schema(name = "物理文件ID", example = "1846012345678901234")
+    private Long blobId;
+
+    @Schema(name = "文件sha256", example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    private String sha256;
+
+    @Schema(name = "文件大小(字节)", example = "104857600")
+    private Long fileSize;
+
+    @Schema(name = "存储路径", example = "user-files/1001/2026/10/1979403538843844608.mp4")
+    private String storagePath;
+
+    @Schema(name = "存储方式，1-完整文件 2-CDC块清单 3-分块压缩文件", example = "1")
+    private Integer storageType;
+
+    @Schema(name = "引用计数", example = "3")
+    private Integer refCount;
+}
@@ -0,0 +1,32 @@
+package com.cutejiuge.iface.vo.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 文件夹内容，列目录时为直接子项，查询子树时为子树内的全部文件夹和文件
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午9:32
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "文件夹内容")
+public class FolderContentVO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 7350912846620195381L;
+
+    @Schema(name = "当前文件夹，根目录时为空")
+    private FolderVO folder;
+
+    @Schema(name = "子文件夹，查询子树时按路径排序，父文件夹总在子文件夹之前")
+    private List<FolderVO> folders;
+
+    @Schema(name = "文件")
+    private List<UserFileVO> files;
+}
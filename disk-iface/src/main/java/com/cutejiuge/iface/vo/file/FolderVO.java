@@ -0,0 +1,43 @@
+package com.cutejiuge.iface.vo.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 文件夹信息
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 上午9:30
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "文件夹信息")
+public class FolderVO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = -4821937560182734415L;
+
+    @Schema(name = "文件夹ID", example = "1846012345678901234")
+    private Long folderId;
+
+    @Schema(name = "父文件夹ID，0为根目录", example = "0")
+    private Long parentId;
+
+    @Schema(name = "文件夹名称", example = "照片")
+    private String folderName;
+
+    @Schema(name = "层级，根目录下的文件夹为1", example = "1")
+    private Integer depth;
+
+    @Schema(name = "子树内的文件数", example = "128")
+    private Long fileCount;
+
+    @Schema(name = "子树内的文件总大小(字节)", example = "1073741824")
+    private Long totalSize;
+
+    @Schema(name = "创建时间戳(ms)", example = "1760668800000")
+    private Long createTime;
+}
@@ -0,0 +1,49 @@
+package com.cutejiuge.iface.vo.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 回收站项目信息
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午2:25
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "回收站项目信息")
+public class RecycleItemVO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 5170392846120957731L;
+
+    @Schema(name = "回收站记录ID", example = "1846012345678901234")
+    private Long recycleId;
+
+    @Schema(name = "项目类型，1-文件 2-文件夹", example = "2")
+    private Integer itemType;
+
+    @Schema(name = "被删除的文件或文件夹ID", example = "1846012345678901234")
+    private Long itemId;
+
+    @Schema(name = "被删除的文件或文件夹名称", example = "照片")
+    private String itemName;
+
+    @Schema(name = "删除前所在的文件夹ID，0为根目录", example = "0")
+    private Long parentId;
+
+    @Schema(name = "包含的文件数", example = "128")
+    private Long fileCount;
+
+    @Schema(name = "包含的文件总大小(字节)", example = "1073741824")
+    private Long totalSize;
+
+    @Schema(name = "删除时间戳(ms)", example = "1760668800000")
+    private Long deleteTime;
+
+    @Schema(name = "过期时间戳(ms)，过期后自动清理", example = "1763260800000")
+    private Long expireTime;
+}
@@ -0,0 +1,64 @@
+package com.cutejiuge.iface.vo.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 分享信息
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午7:32
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "分享信息")
+public class ShareVO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 3318620574912860437L;
+
+    @Schema(name = "分享ID", example = "1846012345678901234")
+    private Long shareId;
+
+    @Schema(name = "分享码", example = "3kTMd9Qx1Zb")
+    private String shareCode;
+
+    @Schema(name = "分享者用户ID", example = "1001")
+    private Long userId;
+
+    @Schema(name = "分享项目类型，1-文件 2-文件夹", example = "2")
+    private Integer itemType;
+
+    @Schema(name = "分享的文件或文件夹ID", example = "1846012345678901234")
+    private Long itemId;
+
+    @Schema(name = "分享的文件或文件夹名称", example = "照片")
+    private String itemName;
+
+    @Schema(name = "分享时的文件大小或文件夹总大小(字节)", example = "1073741824")
+    private Long itemSize;
+
+    @Schema(name = "提取码，只返回给分享者", example = "a1b2")
+    private String extractCode;
+
+    @Schema(name = "是否需要提取码", example = "true")
+    private Boolean needExtractCode;
+
+    @Schema(name = "过期时间戳(ms)，为空表示永久有效", example = "1763260800000")
+    private Long expireTime;
+
+    @Schema(name = "状态，1-有效 2-已取消", example = "1")
+    private Integer status;
+
+    @Schema(name = "访问次数，定时写回，有几秒延迟", example = "1024")
+    private Long viewCount;
+
+    @Schema(name = "独立访客数，HyperLogLog估算值，误差约0.81%", example = "512")
+    private Long visitorCount;
+
+    @Schema(name = "创建时间戳(ms)", example = "1760668800000")
+    private Long createTime;
+}
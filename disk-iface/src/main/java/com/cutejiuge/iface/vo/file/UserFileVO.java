@@ -0,0 +1,49 @@
+package com.cutejiuge.iface.vo.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 用户文件信息
+ *
+ * @author cutejiuge
+ * @since 2026/10/17 下午2:25
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "用户文件信息")
+public class UserFileVO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1486240387914253315L;
+
+    @Schema(name = "文件ID", example = "1846012345678901234")
+    private Long fileId;
+
+    @Schema(name = "所在文件夹ID，0为根目录", example = "0")
+    private Long folderId;
+
+    @Schema(name = "文件名", example = "movie.mp4")
+    private String fileName;
+
+    @Schema(name = "文件大小(字节)", example = "104857600")
+    private Long fileSize;
+
+    @Schema(name = "文件sha256", example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    private String fileSha256;
+
+    @Schema(name = "物理文件的存储路径", example = "user-files/1001/2026/10/1979403538843844608.mp4")
+    private String storagePath;
+
+    @Schema(name = "存储方式，1-完整文件 2-CDC块清单 3-分块压缩文件", example = "1")
+    private Integer storageType;
+
+    @Schema(name = "创建时间戳(ms)", example = "1760668800000")
+    private Long createTime;
+
+    @Schema(name = "内容最后修改时间戳(ms)，替换文件内容时更新，未修改过时与创建时间相同", example = "1760668800000")
+    private Long updateTime;
+}
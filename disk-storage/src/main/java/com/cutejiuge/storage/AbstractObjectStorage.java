@@ -0,0 +1,130 @@
+package com.cutejiuge.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 对象存储的公共实现：key校验和异步方法
+ * <p>
+ * 异步方法在固定大小的线程池中执行，等待队列有界，队列满时由调用线程执行，对调用方形成背压而不是无限堆积任务。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午6:20
+ */
+public abstract class AbstractObjectStorage implements ObjectStorage {
+    // key由非空的路径段组成，不允许反斜杠和控制字符
+    private static final Pattern KEY_PATTERN = Pattern.compile("^[^/\\\\\\p{Cntrl}]+(/[^/\\\\\\p{Cntrl}]+)*$");
+
+    private final ThreadPoolExecutor asyncExecutor;
+
+    /**
+     * @param asyncThreads 异步线程数
+     * @param asyncQueueCapacity 异步任务等待队列容量
+     */
+    protected AbstractObjectStorage(int asyncThreads, int asyncQueueCapacity) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        String threadPrefix = "storage-" + getType() + "-";
+        this.asyncExecutor = new ThreadPoolExecutor(asyncThreads, asyncThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(asyncQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, threadPrefix + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public CompletableFuture<ObjectMetadata> putAsync(String key, ByteBuffer data) {
+        return supplyAsync(() -> put(key, data));
+    }
+
+    @Override
+    public CompletableFuture<byte[]> getAsync(String key, long offset, int length) {
+        return supplyAsync(() -> {
+            try (InputStream input = get(key, offset, length)) {
+                return input.readAllBytes();
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<ObjectMetadata> statAsync(String key) {
+        return supplyAsync(() -> stat(key));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(String key) {
+        return supplyAsync(() -> delete(key));
+    }
+
+    @Override
+    public CompletableFuture<Integer> deleteByPrefixAsync(String prefix) {
+        return supplyAsync(() -> deleteByPrefix(prefix));
+    }
+
+    @Override
+    public void close() throws IOException {
+        asyncExecutor.shutdown();
+    }
+
+    /**
+     * 校验对象key
+     */
+    protected String checkKey(String key) {
+        if (key == null || key.length() > 1024 || !KEY_PATTERN.matcher(key).matches() || hasDotSegment(key)) {
+            throw new IllegalArgumentException("对象key不合法: " + key);
+        }
+        return key;
+    }
+
+    /**
+     * 校验前缀，必须以'/'结尾
+     */
+    protected String checkPrefix(String prefix) {
+        if (prefix == null || !prefix.endsWith("/")) {
+            throw new IllegalArgumentException("前缀必须以'/'结尾: " + prefix);
+        }
+        checkKey(prefix.substring(0, prefix.length() - 1));
+        return prefix;
+    }
+
+    /**
+     * 校验区间
+     */
+    protected void checkRange(long offset, long length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException(String.format("区间不合法: offset=%d, length=%d", offset, length));
+        }
+    }
+
+    private boolean hasDotSegment(String key) {
+        for (String segment : key.split("/")) {
+            if (".".equals(segment) || "..".equals(segment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(IoSupplier<T> supplier) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return supplier.get();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, asyncExecutor);
+    }
+
+    @FunctionalInterface
+    private interface IoSupplier<T> {
+        T get() throws IOException;
+    }
+}
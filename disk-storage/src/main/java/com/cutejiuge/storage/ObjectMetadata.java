@@ -0,0 +1,31 @@
+package com.cutejiuge.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 对象元数据
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午6:12
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ObjectMetadata {
+    /**
+     * 对象key
+     */
+    private final String key;
+
+    /**
+     * 对象大小
+     */
+    private final long size;
+
+    /**
+     * 最后修改时间戳（毫秒）
+     */
+    private final long lastModified;
+}
@@ -0,0 +1,165 @@
+package com.cutejiuge.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 对象存储SPI
+ * <p>
+ * 业务代码只通过对象key读写数据，key是以'/'分隔的相对路径（如 files/2026/10/18/1/xxx.pdf），与数据库中保存的存储路径一致。
+ * 所有写入都是原子的：读方要么看不到对象，要么看到完整的对象，不会读到写了一半的数据。
+ * <p>
+ * 同步方法在调用线程中执行；异步方法在实现类自己的有界线程池中执行，不占用请求线程。
+ * 对象不存在时读取类方法抛出{@link com.cutejiuge.storage.exception.ObjectNotFoundException}。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午6:10
+ */
+public interface ObjectStorage extends Closeable {
+    /**
+     * 存储类型，如local、memory
+     */
+    String getType();
+
+    /**
+     * 从输入流写入对象，恰好读取size个字节，数据不足或超出时抛出ObjectSizeMismatchException且不留下对象
+     *
+     * @param key 对象key
+     * @param input 输入流，调用方负责关闭
+     * @param size 对象大小
+     * @return 写入后的对象元数据
+     */
+    ObjectMetadata put(String key, InputStream input, long size) throws IOException;
+
+    /**
+     * 写入缓冲区中position到limit的数据，不改变缓冲区的position
+     */
+    ObjectMetadata put(String key, ByteBuffer data) throws IOException;
+
+    /**
+     * 读取整个对象，调用方负责关闭
+     */
+    InputStream get(String key) throws IOException;
+
+    /**
+     * 读取对象的一个区间，区间超出对象长度时只读到对象末尾
+     *
+     * @param key 对象key
+     * @param offset 起始位置
+     * @param length 长度
+     */
+    InputStream get(String key, long offset, long length) throws IOException;
+
+    /**
+     * 把对象的一个区间写到目标通道，本地文件系统实现由内核直接拷贝，不经过堆内存
+     *
+     * @return 写出的字节数
+     */
+    long transferTo(String key, long offset, long length, WritableByteChannel target) throws IOException;
+
+    /**
+     * 查询对象元数据，不存在时返回null
+     */
+    ObjectMetadata stat(String key) throws IOException;
+
+    /**
+     * 对象是否存在
+     */
+    default boolean exists(String key) throws IOException {
+        return stat(key) != null;
+    }
+
+    /**
+     * 删除对象
+     *
+     * @return 对象不存在时返回false
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * 删除前缀下的所有对象，前缀必须以'/'结尾
+     *
+     * @return 删除的对象数
+     */
+    int deleteByPrefix(String prefix) throws IOException;
+
+    /**
+     * 按顺序把多个对象拼接成一个新对象，源对象保持不变
+     *
+     * @param key 目标对象key
+     * @param sourceKeys 源对象key，按拼接顺序排列
+     * @return 目标对象元数据
+     */
+    ObjectMetadata compose(String key, List<String> sourceKeys) throws IOException;
+
+    /**
+     * 开始分段上传，分段全部上传后调用completeMultipart一次性生成对象
+     *
+     * @param key 目标对象key
+     * @return 分段上传ID
+     */
+    String initiateMultipart(String key) throws IOException;
+
+    /**
+     * 上传一个分段，同一个分段号重复上传时覆盖之前的内容
+     *
+     * @param uploadId 分段上传ID
+     * @param partNumber 分段号，从1开始
+     * @param input 输入流，调用方负责关闭
+     * @param size 分段大小
+     * @return 分段的元数据
+     */
+    ObjectMetadata uploadPart(String uploadId, int partNumber, InputStream input, long size) throws IOException;
+
+    /**
+     * 按分段号顺序拼接分段生成对象，完成后分段数据被清理
+     *
+     * @param uploadId 分段上传ID
+     * @param partNumbers 参与拼接的分段号，按拼接顺序排列
+     * @return 对象元数据
+     */
+    ObjectMetadata completeMultipart(String uploadId, List<Integer> partNumbers) throws IOException;
+
+    /**
+     * 取消分段上传，清理已上传的分段
+     */
+    void abortMultipart(String uploadId) throws IOException;
+
+    /**
+     * 对象在本地文件系统上的路径，用于sendfile等需要文件路径的场景；非本地存储或对象不存在时返回null
+     */
+    default Path getLocalPath(String key) {
+        return null;
+    }
+
+    /**
+     * 异步写入对象
+     */
+    CompletableFuture<ObjectMetadata> putAsync(String key, ByteBuffer data);
+
+    /**
+     * 异步读取对象的一个区间到内存，只适合小对象或小区间
+     */
+    CompletableFuture<byte[]> getAsync(String key, long offset, int length);
+
+    /**
+     * 异步查询对象元数据，不存在时结果为null
+     */
+    CompletableFuture<ObjectMetadata> statAsync(String key);
+
+    /**
+     * 异步删除对象
+     */
+    CompletableFuture<Boolean> deleteAsync(String key);
+
+    /**
+     * 异步删除前缀下的所有对象
+     */
+    CompletableFuture<Integer> deleteByPrefixAsync(String prefix);
+}
@@ -0,0 +1,64 @@
+package com.cutejiuge.storage.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 块缓存统计
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午5:15
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CacheStats {
+    /**
+     * 命中的块查找次数
+     */
+    private final long hitCount;
+
+    /**
+     * 未命中的块查找次数
+     */
+    private final long missCount;
+
+    /**
+     * 直接从缓存写出的字节数，即少从存储读取的字节数
+     */
+    private final long bytesSaved;
+
+    /**
+     * 未命中时从存储读取的字节数
+     */
+    private final long bytesLoaded;
+
+    /**
+     * 因容量不足被淘汰的块数
+     */
+    private final long evictionCount;
+
+    /**
+     * 频率不够被准入策略拒绝的块数
+     */
+    private final long rejectedCount;
+
+    /**
+     * 已缓存的块数
+     */
+    private final long blockCount;
+
+    /**
+     * 缓存容量（字节）
+     */
+    private final long capacityBytes;
+
+    /**
+     * 命中率，没有查找时为0
+     */
+    public double getHitRatio() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+}
@@ -0,0 +1,439 @@
+package com.cutejiuge.storage.cache;
+
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.ObjectStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 带堆外块缓存的对象存储，包装任意ObjectStorage实现
+ * <p>
+ * 对象内容按固定大小切块缓存，读取和transferTo按块查缓存：命中时直接从堆外slab写到目标通道，
+ * 未命中时从底层存储读取这个块，写出后交给W-TinyLFU策略决定是否进入缓存。CDC块、分块压缩对象和普通文件的区间读取都经过这里。
+ * 并发覆盖时一次读取仍然只会看到一个完整版本，与底层存储的语义一致。缓存按对象key分段加锁，不同对象的读取不会在同一把锁上排队。
+ * <p>
+ * 写入、拼接、完成分段上传和删除的前后使对应key的缓存失效。缓存只能感知经过本进程的写入，
+ * 对象key都是按内容或唯一文件名生成的，写入后不会被其他进程原地修改。
+ * 启用缓存后getLocalPath返回null，下载不再交给sendfile，改为经过缓存写出，热点文件不再重复读盘。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午5:50
+ */
+public class CachingObjectStorage implements ObjectStorage {
+    private final ObjectStorage delegate;
+    private final StripedBlockCache cache;
+    // 进行中的分段上传的目标key，完成前标记写入
+    private final Map<String, String> multipartKeys = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate 底层存储
+     * @param capacityBytes 缓存容量，启动时一次性分配直接内存
+     * @param blockSize 缓存块大小
+     */
+    public CachingObjectStorage(ObjectStorage delegate, long capacityBytes, int blockSize) {
+        this.delegate = delegate;
+        this.cache = new StripedBlockCache(capacityBytes, blockSize);
+    }
+
+    /**
+     * 缓存统计
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * 底层存储，后台校验这类只读一遍的顺序扫描直接读底层存储，既不污染缓存，也不会被缓存中的副本掩盖磁盘上的损坏
+     */
+    public ObjectStorage getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getType() {
+        return delegate.getType();
+    }
+
+    @Override
+    public ObjectMetadata put(String key, InputStream input, long size) throws IOException {
+        cache.beginWrite(key);
+        try {
+            return delegate.put(key, input, size);
+        } finally {
+            cache.endWrite(key);
+        }
+    }
+
+    @Override
+    public ObjectMetadata put(String key, ByteBuffer data) throws IOException {
+        cache.beginWrite(key);
+        try {
+            return delegate.put(key, data);
+        } finally {
+            cache.endWrite(key);
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return get(key, 0, Long.MAX_VALUE);
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        BlockCursor cursor = new BlockCursor(key, offset, length);
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                ByteBuffer current = cursor.current();
+                return current == null ? -1 : current.get() & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                ByteBuffer current = cursor.current();
+                if (current == null) {
+                    return -1;
+                }
+                int read = Math.min(length, current.remaining());
+                current.get(buffer, offset, read);
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                cursor.close();
+            }
+        };
+    }
+
+    /**
+     * 命中缓存的块直接从堆外slab写到目标通道
+     */
+    @Override
+    public long transferTo(String key, long offset, long length, WritableByteChannel target) throws IOException {
+        try (BlockCursor cursor = new BlockCursor(key, offset, length)) {
+            long transferred = 0;
+            ByteBuffer block;
+            while ((block = cursor.next()) != null) {
+                while (block.hasRemaining()) {
+                    transferred += target.write(block);
+                }
+            }
+            return transferred;
+        }
+    }
+
+    @Override
+    public ObjectMetadata stat(String key) throws IOException {
+        return delegate.stat(key);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return delegate.exists(key);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        cache.beginWrite(key);
+        try {
+            return delegate.delete(key);
+        } finally {
+            cache.endWrite(key);
+        }
+    }
+
+    @Override
+    public int deleteByPrefix(String prefix) throws IOException {
+        cache.invalidatePrefix(prefix);
+        try {
+            return delegate.deleteByPrefix(prefix);
+        } finally {
+            cache.invalidatePrefix(prefix);
+        }
+    }
+
+    @Override
+    public ObjectMetadata compose(String key, List<String> sourceKeys) throws IOException {
+        cache.beginWrite(key);
+        try {
+            return delegate.compose(key, sourceKeys);
+        } finally {
+            cache.endWrite(key);
+        }
+    }
+
+    @Override
+    public String initiateMultipart(String key) throws IOException {
+        String uploadId = delegate.initiateMultipart(key);
+        multipartKeys.put(uploadId, key);
+        return uploadId;
+    }
+
+    @Override
+    public ObjectMetadata uploadPart(String uploadId, int partNumber, InputStream input, long size) throws IOException {
+        return delegate.uploadPart(uploadId, partNumber, input, size);
+    }
+
+    @Override
+    public ObjectMetadata completeMultipart(String uploadId, List<Integer> partNumbers) throws IOException {
+        String key = multipartKeys.remove(uploadId);
+        if (key == null) {
+            // 重启前发起的分段上传，只能在完成后失效
+            ObjectMetadata metadata = delegate.completeMultipart(uploadId, partNumbers);
+            cache.invalidate(metadata.getKey());
+            return metadata;
+        }
+        cache.beginWrite(key);
+        try {
+            return delegate.completeMultipart(uploadId, partNumbers);
+        } finally {
+            cache.endWrite(key);
+        }
+    }
+
+    @Override
+    public void abortMultipart(String uploadId) throws IOException {
+        delegate.abortMultipart(uploadId);
+        multipartKeys.remove(uploadId);
+    }
+
+    @Override
+    public CompletableFuture<ObjectMetadata> putAsync(String key, ByteBuffer data) {
+        cache.beginWrite(key);
+        return whenWritten(key, () -> delegate.putAsync(key, data));
+    }
+
+    @Override
+    public CompletableFuture<byte[]> getAsync(String key, long offset, int length) {
+        return delegate.getAsync(key, offset, length);
+    }
+
+    @Override
+    public CompletableFuture<ObjectMetadata> statAsync(String key) {
+        return delegate.statAsync(key);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(String key) {
+        cache.beginWrite(key);
+        return whenWritten(key, () -> delegate.deleteAsync(key));
+    }
+
+    @Override
+    public CompletableFuture<Integer> deleteByPrefixAsync(String prefix) {
+        cache.invalidatePrefix(prefix);
+        return delegate.deleteByPrefixAsync(prefix).whenComplete((deleted, e) -> cache.invalidatePrefix(prefix));
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    // ======================== 私有方法 ========================
+    // 异步写入结束后调用endWrite，提交失败时立即调用
+    private <T> CompletableFuture<T> whenWritten(String key, Supplier<CompletableFuture<T>> write) {
+        try {
+            return write.get().whenComplete((result, e) -> cache.endWrite(key));
+        } catch (RuntimeException e) {
+            cache.endWrite(key);
+            throw e;
+        }
+    }
+
+    /**
+     * 按块遍历对象的一个区间
+     * <p>
+     * 区间的块全部在缓存中时开始前一次钉住全部块，不访问底层存储；否则开始时打开一个底层数据源，
+     * 未命中的块都从这个数据源按块对齐读取，一次读取内的数据来自同一个对象版本。
+     * 本地存储直接打开文件按位置读，其他存储打开一个覆盖整个区间的流，命中缓存的块在流中跳过。
+     */
+    private class BlockCursor implements AutoCloseable {
+        private final String key;
+        private final long end;
+        private final int blockSize;
+        private final SlabBlockCache.ReadSession session;
+        private long position;
+        private ByteBuffer current;
+        // 开始时一次钉住的全部块
+        private SlabBlockCache.Entry[] pinnedRange;
+        private int pinnedIndex;
+        // 当前被钉住的单个块
+        private SlabBlockCache.Entry pinned;
+        private FileChannel channel;
+        private InputStream stream;
+        private long streamPosition;
+        // 已经确认存在的对象前缀长度，用于判断读到的空块是否在对象末尾
+        private long verifiedEnd;
+        private boolean lastBlock;
+        private boolean closed;
+
+        private BlockCursor(String key, long offset, long length) throws IOException {
+            if (offset < 0 || length < 0) {
+                throw new IllegalArgumentException(String.format("区间不合法: offset=%d, length=%d", offset, length));
+            }
+            this.key = key;
+            this.position = offset;
+            this.end = length > Long.MAX_VALUE - offset ? Long.MAX_VALUE : offset + length;
+            this.blockSize = cache.getBlockSize();
+            this.session = cache.beginRead(key);
+            try {
+                pinnedRange = cache.pinRange(session, offset, end);
+                if (pinnedRange == null) {
+                    openSource();
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        // 当前块还有数据时返回当前块，否则读取下一个块
+        private ByteBuffer current() throws IOException {
+            return current != null && current.hasRemaining() ? current : next();
+        }
+
+        // 读取区间内的下一个块，到达区间或对象末尾时返回null
+        private ByteBuffer next() throws IOException {
+            releasePinned();
+            if (closed || lastBlock || position >= end) {
+                return null;
+            }
+            long blockIndex = position / blockSize;
+            int from = (int) (position - blockIndex * blockSize);
+            ByteBuffer block;
+            if (pinnedRange != null) {
+                if (pinnedIndex == pinnedRange.length) {
+                    return null;
+                }
+                SlabBlockCache.Entry entry = pinnedRange[pinnedIndex++];
+                cache.touch(entry);
+                block = cache.view(entry);
+            } else {
+                pinned = cache.acquire(session, blockIndex);
+                block = pinned != null ? cache.view(pinned) : load(blockIndex);
+            }
+            boolean hit = pinnedRange != null || pinned != null;
+            // 不满一块的是对象的最后一块
+            lastBlock = block.limit() < blockSize;
+            if (!lastBlock) {
+                verifiedEnd = (blockIndex + 1) * blockSize;
+            }
+            if (from >= block.limit()) {
+                releasePinned();
+                lastBlock = true;
+                return null;
+            }
+            block.position(from).limit((int) Math.min(block.limit(), from + (end - position)));
+            position += block.remaining();
+            if (hit) {
+                cache.recordBytesSaved(block.remaining());
+            }
+            current = block;
+            return block;
+        }
+
+        // 打开底层数据源，未命中的块都从这里读
+        private void openSource() throws IOException {
+            Path localPath = delegate.getLocalPath(key);
+            if (localPath != null) {
+                try {
+                    channel = FileChannel.open(localPath, StandardOpenOption.READ);
+                } catch (NoSuchFileException e) {
+                    // 文件刚被删除，由底层存储报告对象不存在
+                }
+            }
+            if (channel == null) {
+                long alignedStart = position / blockSize * blockSize;
+                long alignedEnd = end > Long.MAX_VALUE - blockSize ? Long.MAX_VALUE : (end + blockSize - 1) / blockSize * blockSize;
+                stream = delegate.get(key, alignedStart, alignedEnd - alignedStart);
+                streamPosition = alignedStart;
+            }
+            cache.verifySource(session);
+        }
+
+        // 从数据源读取一个块，交给缓存决定是否放入
+        private ByteBuffer load(long blockIndex) throws IOException {
+            long blockStart = blockIndex * blockSize;
+            byte[] data = new byte[blockSize];
+            int length;
+            if (channel != null) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining() && channel.read(buffer, blockStart + buffer.position()) >= 0) {
+                    // 按位置读满一块或到文件末尾
+                }
+                length = buffer.position();
+            } else {
+                skipTo(blockStart);
+                length = stream.readNBytes(data, 0, blockSize);
+                streamPosition += length;
+            }
+            boolean endOfObject = length < blockSize && (length > 0 || blockStart == verifiedEnd);
+            cache.admit(session, blockIndex, data, length, endOfObject);
+            return ByteBuffer.wrap(data, 0, length);
+        }
+
+        // 跳过流中已经从缓存写出的块
+        private void skipTo(long target) throws IOException {
+            while (streamPosition < target) {
+                long skipped = stream.skip(target - streamPosition);
+                if (skipped <= 0) {
+                    if (stream.read() < 0) {
+                        return;
+                    }
+                    skipped = 1;
+                }
+                streamPosition += skipped;
+            }
+        }
+
+        private void releasePinned() {
+            current = null;
+            if (pinned != null) {
+                cache.release(pinned);
+                pinned = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            releasePinned();
+            if (pinnedRange != null) {
+                for (SlabBlockCache.Entry entry : pinnedRange) {
+                    cache.release(entry);
+                }
+            }
+            // 关闭数据源
+            try {
+                if (channel != null) {
+                    channel.close();
+                } else if (stream != null) {
+                    stream.close();
+                }
+            } finally {
+                cache.endRead(session);
+            }
+        }
+    }
+}
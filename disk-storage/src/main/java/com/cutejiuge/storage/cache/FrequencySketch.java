@@ -0,0 +1,82 @@
+package com.cutejiuge.storage.cache;
+
+/**
+ * 访问频率估计，4位计数器的Count-Min Sketch，用于TinyLFU准入判断
+ * <p>
+ * 每个long保存16个4位计数器，一个key对应4个计数器，估计值取最小值。计数器最大为15，
+ * 累计增加次数达到容量的10倍时所有计数器减半，让频率随时间衰减，过去的热点不会一直占着缓存。
+ * 非线程安全，由调用方加锁。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午5:10
+ */
+final class FrequencySketch {
+    // 计数器减半后清除每个4位计数器的最高位
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param maximumSize 缓存最多容纳的条目数
+     */
+    FrequencySketch(int maximumSize) {
+        int size = Integer.highestOneBit(Math.max(2, maximumSize - 1)) << 1;
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * Math.max(1, maximumSize));
+    }
+
+    /**
+     * 估计的访问次数，最大为15
+     */
+    int frequency(int hash) {
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = indexHash(hash, i);
+            int offset = counterOffset(h);
+            frequency = Math.min(frequency, (int) ((table[(int) h & tableMask] >>> offset) & 0xFL));
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问
+     */
+    void increment(int hash) {
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = indexHash(hash, i);
+            int index = (int) h & tableMask;
+            int offset = counterOffset(h);
+            if (((table[index] >>> offset) & 0xFL) != 0xFL) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    // ======================== 私有方法 ========================
+    private long indexHash(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        return h + (h >>> 32);
+    }
+
+    // 用哈希的高位选择long中的第几个计数器
+    private int counterOffset(long h) {
+        return (int) ((h >>> 48) & 0xFL) << 2;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+}
@@ -0,0 +1,551 @@
+package com.cutejiuge.storage.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 堆外块缓存，W-TinyLFU淘汰和准入
+ * <p>
+ * 缓存空间是启动时一次性分配的若干个直接内存slab，切成与块大小相同的页，一个块占一页，不参与GC，多GB的缓存也不会增加GC停顿。
+ * 新块先进入占容量1%的窗口LRU；窗口满时最久未访问的块作为候选者，与主区域（SLRU，试用区+保护区）中最该淘汰的块比较访问频率，
+ * 频率高的留下。一次性的大文件顺序扫描只会从窗口中流过，不会冲掉主区域中的热点块。
+ * <p>
+ * 读取时块被引用计数钉住，淘汰时只从索引中移除，最后一个读方释放后页才回到空闲列表，正在写出的数据不会被覆盖。
+ * 对象写入和删除前后都按key失效，写入期间不命中也不放入新块；一次读取开始后对象被覆盖的，读到的块不会进入缓存。
+ * 一个实例的全部状态由一把锁保护，由StripedBlockCache按对象key分段使用。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午5:20
+ */
+final class SlabBlockCache {
+    // 单个slab的最大大小
+    private static final int MAX_SLAB_SIZE = 64 * 1024 * 1024;
+    // 窗口占总容量的比例
+    private static final double WINDOW_RATIO = 0.01;
+    // 保护区占主区域的比例
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final int blockSize;
+    private final int pageCount;
+    private final int pagesPerSlab;
+    private final ByteBuffer[] slabs;
+    // 空闲页栈
+    private final int[] freePages;
+    private int freeCount;
+
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final Map<BlockKey, Entry> entries = new HashMap<>();
+    private final LinkedHashSet<Entry> window = new LinkedHashSet<>();
+    private final LinkedHashSet<Entry> probation = new LinkedHashSet<>();
+    private final LinkedHashSet<Entry> protectedSegment = new LinkedHashSet<>();
+    // 有缓存块或正在读写的对象
+    private final Map<String, KeyState> keyStates = new HashMap<>();
+    private final FrequencySketch sketch;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+    private final LongAdder bytesLoaded = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * @param capacityBytes 缓存容量
+     * @param blockSize 块大小
+     */
+    SlabBlockCache(long capacityBytes, int blockSize) {
+        if (blockSize <= 0 || capacityBytes < blockSize || capacityBytes / blockSize > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(String.format("缓存参数不合法: capacity=%d, blockSize=%d", capacityBytes, blockSize));
+        }
+        this.blockSize = blockSize;
+        this.pageCount = (int) (capacityBytes / blockSize);
+        this.pagesPerSlab = Math.max(1, MAX_SLAB_SIZE / blockSize);
+        this.slabs = new ByteBuffer[(pageCount + pagesPerSlab - 1) / pagesPerSlab];
+        for (int i = 0; i < slabs.length; i++) {
+            slabs[i] = ByteBuffer.allocateDirect(Math.min(pagesPerSlab, pageCount - i * pagesPerSlab) * blockSize);
+        }
+        this.freePages = new int[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            freePages[i] = pageCount - 1 - i;
+        }
+        this.freeCount = pageCount;
+        this.windowCapacity = Math.max(1, (int) (pageCount * WINDOW_RATIO));
+        this.protectedCapacity = (int) ((pageCount - windowCapacity) * PROTECTED_RATIO);
+        this.sketch = new FrequencySketch(pageCount);
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * 开始读取对象，记下对象当前的失效版本，读取结束后必须调用endRead
+     */
+    ReadSession beginRead(String key) {
+        lock.lock();
+        try {
+            KeyState state = keyStates.computeIfAbsent(key, k -> new KeyState());
+            state.readers++;
+            return new ReadSession(key, state.epoch, state.writers == 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 读取结束
+     */
+    void endRead(ReadSession session) {
+        lock.lock();
+        try {
+            KeyState state = keyStates.get(session.key);
+            state.readers--;
+            removeIfIdle(session.key, state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 区间内的块全部在缓存中时一次钉住全部块并按顺序返回，否则返回null。
+     * 同一时刻缓存中一个对象的块都来自同一个版本，一次钉住后读取过程中对象被覆盖也不会读到新旧混合的内容。
+     * 不知道对象大小时读到对象末尾的区间不能确定覆盖了全部块，也返回null。
+     */
+    Entry[] pinRange(ReadSession session, long offset, long end) {
+        lock.lock();
+        try {
+            KeyState state = keyStates.get(session.key);
+            if (!isCurrent(session, state)) {
+                return null;
+            }
+            long limit = state.objectSize >= 0 ? Math.min(end, state.objectSize) : end;
+            if (limit == Long.MAX_VALUE) {
+                return null;
+            }
+            if (offset >= limit) {
+                return new Entry[0];
+            }
+            long first = offset / blockSize;
+            long last = (limit - 1) / blockSize;
+            if (last - first + 1 > state.entries.size()) {
+                return null;
+            }
+            Entry[] range = new Entry[(int) (last - first + 1)];
+            for (int i = 0; i < range.length; i++) {
+                range[i] = entries.get(new BlockKey(session.key, first + i));
+                if (range[i] == null) {
+                    return null;
+                }
+            }
+            for (Entry entry : range) {
+                entry.refs++;
+            }
+            return range;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录对pinRange钉住的块的一次访问
+     */
+    void touch(Entry entry) {
+        lock.lock();
+        try {
+            sketch.increment(entry.key.hash);
+            if (!entry.evicted) {
+                onHit(entry);
+            }
+            hitCount.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 查找块并记录一次访问，命中时返回被钉住的块，用完后必须调用release。
+     * 对象在读取开始后被覆盖或正在被写入时不命中，由读方从它打开的数据源读取
+     */
+    Entry acquire(ReadSession session, long blockIndex) {
+        BlockKey blockKey = new BlockKey(session.key, blockIndex);
+        lock.lock();
+        try {
+            sketch.increment(blockKey.hash);
+            Entry entry = isCurrent(session, keyStates.get(session.key)) ? entries.get(blockKey) : null;
+            if (entry == null) {
+                missCount.increment();
+                return null;
+            }
+            entry.refs++;
+            onHit(entry);
+            hitCount.increment();
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 被钉住的块在slab中的只读视图，position为0
+     */
+    ByteBuffer view(Entry entry) {
+        int offset = (entry.page % pagesPerSlab) * blockSize;
+        return slabs[entry.page / pagesPerSlab].duplicate().position(offset).limit(offset + entry.length).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * 释放acquire或pinRange钉住的块
+     */
+    void release(Entry entry) {
+        lock.lock();
+        try {
+            if (--entry.refs == 0 && entry.evicted) {
+                freePages[freeCount++] = entry.page;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 读方打开数据源后调用，打开前对象已经开始被覆盖的，数据源可能是新版本，这次读取不再使用和填充缓存
+     */
+    void verifySource(ReadSession session) {
+        lock.lock();
+        try {
+            if (!isCurrent(session, keyStates.get(session.key))) {
+                session.cacheable = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从数据源读到的块，对象在读取开始后没有被覆盖时放入缓存窗口
+     *
+     * @param endOfObject 这个块是对象的最后一块，记下对象大小
+     */
+    void admit(ReadSession session, long blockIndex, byte[] data, int length, boolean endOfObject) {
+        BlockKey blockKey = new BlockKey(session.key, blockIndex);
+        int page;
+        lock.lock();
+        try {
+            bytesLoaded.add(length);
+            KeyState state = keyStates.get(session.key);
+            if (!isCurrent(session, state)) {
+                return;
+            }
+            if (endOfObject) {
+                state.objectSize = blockIndex * blockSize + length;
+            }
+            page = length == 0 || entries.containsKey(blockKey) ? -1 : reservePage();
+            if (page < 0) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // 读方未结束，对象状态不会被移除，复制在锁外进行
+        int offset = (page % pagesPerSlab) * blockSize;
+        slabs[page / pagesPerSlab].duplicate().position(offset).put(data, 0, length);
+        lock.lock();
+        try {
+            KeyState state = keyStates.get(session.key);
+            if (!isCurrent(session, state) || entries.containsKey(blockKey)) {
+                freePages[freeCount++] = page;
+                return;
+            }
+            Entry entry = new Entry(blockKey, page, length);
+            entries.put(blockKey, entry);
+            state.entries.add(entry);
+            addToWindow(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 开始写入、拼接或删除对象：移除它的全部块，写入完成前不命中也不放入新块，必须与endWrite成对调用
+     */
+    void beginWrite(String key) {
+        lock.lock();
+        try {
+            KeyState state = keyStates.computeIfAbsent(key, k -> new KeyState());
+            state.writers++;
+            clear(state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写入结束，写入期间开始的读取不会把数据放入缓存
+     */
+    void endWrite(String key) {
+        lock.lock();
+        try {
+            KeyState state = keyStates.get(key);
+            state.writers--;
+            clear(state);
+            removeIfIdle(key, state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 对象已经被修改，无法在修改前标记时使用，例如完成分段上传前不知道目标key
+     */
+    void invalidate(String key) {
+        lock.lock();
+        try {
+            KeyState state = keyStates.get(key);
+            if (state != null) {
+                clear(state);
+                removeIfIdle(key, state);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 移除前缀下所有对象的块，在删除前后各调用一次
+     */
+    void invalidatePrefix(String prefix) {
+        lock.lock();
+        try {
+            List<String> keys = keyStates.keySet().stream().filter(key -> key.startsWith(prefix)).toList();
+            keys.forEach(this::invalidate);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录直接从缓存写出的字节数
+     */
+    void recordBytesSaved(long bytes) {
+        bytesSaved.add(bytes);
+    }
+
+    CacheStats stats() {
+        int blockCount;
+        lock.lock();
+        try {
+            blockCount = entries.size();
+        } finally {
+            lock.unlock();
+        }
+        return new CacheStats(hitCount.sum(), missCount.sum(), bytesSaved.sum(), bytesLoaded.sum(), evictionCount.sum(),
+                rejectedCount.sum(), blockCount, (long) pageCount * blockSize);
+    }
+
+    // ======================== 私有方法 ========================
+    // 读取开始后对象没有被覆盖，也没有正在进行的写入
+    private static boolean isCurrent(ReadSession session, KeyState state) {
+        return session.cacheable && state.epoch == session.epoch && state.writers == 0;
+    }
+
+    // 失效版本加一并移除对象的全部块
+    private void clear(KeyState state) {
+        state.epoch++;
+        state.objectSize = -1;
+        for (Entry entry : new ArrayList<>(state.entries)) {
+            remove(entry);
+        }
+    }
+
+    private void onHit(Entry entry) {
+        switch (entry.segment) {
+            case WINDOW -> moveToTail(window, entry);
+            case PROBATION -> {
+                // 试用区再次命中进入保护区，保护区超出配额时最久未访问的块降回试用区
+                probation.remove(entry);
+                entry.segment = Segment.PROTECTED;
+                protectedSegment.add(entry);
+                if (protectedSegment.size() > protectedCapacity) {
+                    Entry demoted = first(protectedSegment);
+                    protectedSegment.remove(demoted);
+                    demoted.segment = Segment.PROBATION;
+                    probation.add(demoted);
+                }
+            }
+            case PROTECTED -> moveToTail(protectedSegment, entry);
+        }
+    }
+
+    // 取一个空闲页，没有空闲页时按策略淘汰；所有块都被钉住时返回-1
+    private int reservePage() {
+        while (freeCount == 0) {
+            if (!evictOne()) {
+                return -1;
+            }
+        }
+        return freePages[--freeCount];
+    }
+
+    // 淘汰一个块：窗口达到配额时，窗口中最久未访问的块与主区域的淘汰者比较访问频率，频率高的留在主区域；没有块可淘汰时返回false
+    private boolean evictOne() {
+        Entry candidate = window.size() >= windowCapacity ? first(window) : null;
+        Entry victim = probation.isEmpty() ? first(protectedSegment) : first(probation);
+        if (candidate != null && victim != null) {
+            if (sketch.frequency(candidate.key.hash) > sketch.frequency(victim.key.hash)) {
+                remove(victim);
+                window.remove(candidate);
+                candidate.segment = Segment.PROBATION;
+                probation.add(candidate);
+            } else {
+                remove(candidate);
+                rejectedCount.increment();
+            }
+        } else {
+            Entry evicted = victim != null ? victim : first(window);
+            if (evicted == null) {
+                return false;
+            }
+            remove(evicted);
+        }
+        evictionCount.increment();
+        return true;
+    }
+
+    // 新块进入窗口，窗口超出配额时最久未访问的块转入试用区，此时还有空闲页，不需要比较频率
+    private void addToWindow(Entry entry) {
+        window.add(entry);
+        while (window.size() > windowCapacity) {
+            Entry overflow = first(window);
+            window.remove(overflow);
+            overflow.segment = Segment.PROBATION;
+            probation.add(overflow);
+        }
+    }
+
+    // 从索引中移除块，没有读方时页立即回到空闲列表
+    private void remove(Entry entry) {
+        switch (entry.segment) {
+            case WINDOW -> window.remove(entry);
+            case PROBATION -> probation.remove(entry);
+            case PROTECTED -> protectedSegment.remove(entry);
+        }
+        entries.remove(entry.key);
+        KeyState state = keyStates.get(entry.key.key);
+        state.entries.remove(entry);
+        removeIfIdle(entry.key.key, state);
+        entry.evicted = true;
+        if (entry.refs == 0) {
+            freePages[freeCount++] = entry.page;
+        }
+    }
+
+    private void removeIfIdle(String key, KeyState state) {
+        if (state.readers == 0 && state.writers == 0 && state.entries.isEmpty()) {
+            keyStates.remove(key);
+        }
+    }
+
+    private static void moveToTail(LinkedHashSet<Entry> segment, Entry entry) {
+        segment.remove(entry);
+        segment.add(entry);
+    }
+
+    private static Entry first(LinkedHashSet<Entry> segment) {
+        return segment.isEmpty() ? null : segment.iterator().next();
+    }
+
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    /**
+     * 缓存的块，按引用比较
+     */
+    static final class Entry {
+        private final BlockKey key;
+        private final int page;
+        private final int length;
+        private Segment segment = Segment.WINDOW;
+        // 正在读取的读方数
+        private int refs;
+        private boolean evicted;
+
+        private Entry(BlockKey key, int page, int length) {
+            this.key = key;
+            this.page = page;
+            this.length = length;
+        }
+
+        String objectKey() {
+            return key.key;
+        }
+    }
+
+    /**
+     * 对象key和块序号
+     */
+    private static final class BlockKey {
+        private final String key;
+        private final long blockIndex;
+        private final int hash;
+
+        private BlockKey(String key, long blockIndex) {
+            this.key = key;
+            this.blockIndex = blockIndex;
+            int h = 31 * key.hashCode() + Long.hashCode(blockIndex);
+            h = (h ^ (h >>> 16)) * 0x45d9f3b;
+            this.hash = h ^ (h >>> 16);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof BlockKey other && blockIndex == other.blockIndex && Objects.equals(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 对象的缓存状态：失效版本、已知的对象大小、已缓存的块和正在进行的读写数
+     */
+    private static final class KeyState {
+        private long epoch;
+        private long objectSize = -1;
+        private int readers;
+        private int writers;
+        private final Set<Entry> entries = new HashSet<>();
+    }
+
+    /**
+     * 一次读取，记录读取开始时对象的失效版本
+     */
+    static final class ReadSession {
+        private final String key;
+        private final long epoch;
+        private boolean cacheable;
+
+        private ReadSession(String key, long epoch, boolean cacheable) {
+            this.key = key;
+            this.epoch = epoch;
+            this.cacheable = cacheable;
+        }
+
+        String objectKey() {
+            return key;
+        }
+    }
+}
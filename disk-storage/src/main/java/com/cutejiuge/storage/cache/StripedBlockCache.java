@@ -0,0 +1,144 @@
+package com.cutejiuge.storage.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 按对象key分段的堆外块缓存
+ * <p>
+ * 单个SlabBlockCache的索引、LRU链表和频率统计由一把锁保护，命中路径也要加锁调整访问顺序，核数多时所有读方在这把锁上排队。
+ * 这里把容量平均分给若干个相互独立的分段，按对象key的哈希选择分段，不同对象的读写只竞争各自分段的锁。
+ * 同一个对象的块、失效版本和读写计数都在同一个分段中，一次钉住区间、覆盖时失效等语义与单个分段完全一致；
+ * 淘汰和准入在分段内独立进行，一个对象最多占用一个分段的容量。
+ *
+ * @author cutejiuge
+ * @since 2026/10/22 上午10:30
+ */
+final class StripedBlockCache {
+    // 最大分段数
+    private static final int MAX_STRIPES = 64;
+    // 每个分段至少的页数，容量太小时减少分段数，避免单个对象放不下
+    private static final int MIN_STRIPE_PAGES = 1024;
+
+    private final SlabBlockCache[] stripes;
+    private final int blockSize;
+
+    /**
+     * @param capacityBytes 缓存总容量
+     * @param blockSize 块大小
+     */
+    StripedBlockCache(long capacityBytes, int blockSize) {
+        if (blockSize <= 0 || capacityBytes < blockSize) {
+            throw new IllegalArgumentException(String.format("缓存参数不合法: capacity=%d, blockSize=%d", capacityBytes, blockSize));
+        }
+        int stripeCount = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors() * 2, MAX_STRIPES));
+        while (stripeCount > 1 && capacityBytes / stripeCount / blockSize < MIN_STRIPE_PAGES) {
+            stripeCount >>= 1;
+        }
+        this.stripes = new SlabBlockCache[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new SlabBlockCache(capacityBytes / stripeCount, blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    SlabBlockCache.ReadSession beginRead(String key) {
+        return stripe(key).beginRead(key);
+    }
+
+    void endRead(SlabBlockCache.ReadSession session) {
+        stripe(session.objectKey()).endRead(session);
+    }
+
+    SlabBlockCache.Entry[] pinRange(SlabBlockCache.ReadSession session, long offset, long end) {
+        return stripe(session.objectKey()).pinRange(session, offset, end);
+    }
+
+    void touch(SlabBlockCache.Entry entry) {
+        stripe(entry.objectKey()).touch(entry);
+    }
+
+    SlabBlockCache.Entry acquire(SlabBlockCache.ReadSession session, long blockIndex) {
+        return stripe(session.objectKey()).acquire(session, blockIndex);
+    }
+
+    ByteBuffer view(SlabBlockCache.Entry entry) {
+        return stripe(entry.objectKey()).view(entry);
+    }
+
+    void release(SlabBlockCache.Entry entry) {
+        stripe(entry.objectKey()).release(entry);
+    }
+
+    void verifySource(SlabBlockCache.ReadSession session) {
+        stripe(session.objectKey()).verifySource(session);
+    }
+
+    void admit(SlabBlockCache.ReadSession session, long blockIndex, byte[] data, int length, boolean endOfObject) {
+        stripe(session.objectKey()).admit(session, blockIndex, data, length, endOfObject);
+    }
+
+    void beginWrite(String key) {
+        stripe(key).beginWrite(key);
+    }
+
+    void endWrite(String key) {
+        stripe(key).endWrite(key);
+    }
+
+    void invalidate(String key) {
+        stripe(key).invalidate(key);
+    }
+
+    /**
+     * 前缀下的对象分布在所有分段中，逐个分段移除
+     */
+    void invalidatePrefix(String prefix) {
+        for (SlabBlockCache stripe : stripes) {
+            stripe.invalidatePrefix(prefix);
+        }
+    }
+
+    /**
+     * 直接写出的字节数只用于统计，记在第一个分段上
+     */
+    void recordBytesSaved(long bytes) {
+        stripes[0].recordBytesSaved(bytes);
+    }
+
+    /**
+     * 汇总各分段的统计
+     */
+    CacheStats stats() {
+        long hitCount = 0;
+        long missCount = 0;
+        long bytesSaved = 0;
+        long bytesLoaded = 0;
+        long evictionCount = 0;
+        long rejectedCount = 0;
+        long blockCount = 0;
+        long capacityBytes = 0;
+        for (SlabBlockCache stripe : stripes) {
+            CacheStats stats = stripe.stats();
+            hitCount += stats.getHitCount();
+            missCount += stats.getMissCount();
+            bytesSaved += stats.getBytesSaved();
+            bytesLoaded += stats.getBytesLoaded();
+            evictionCount += stats.getEvictionCount();
+            rejectedCount += stats.getRejectedCount();
+            blockCount += stats.getBlockCount();
+            capacityBytes += stats.getCapacityBytes();
+        }
+        return new CacheStats(hitCount, missCount, bytesSaved, bytesLoaded, evictionCount, rejectedCount, blockCount, capacityBytes);
+    }
+
+    // ======================== 私有方法 ========================
+    // 打散哈希的高位，分段数是2的幂，取低位
+    private SlabBlockCache stripe(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,291 @@
+package com.cutejiuge.storage.compress;
+
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.ObjectStorage;
+import com.cutejiuge.storage.exception.ObjectSizeMismatchException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分块压缩对象
+ * <p>
+ * 原始数据按固定大小切块，每块独立压缩，压缩后没有变小的块原样保存，已压缩的内容不会因为压缩变大。
+ * 对象格式：头部为魔数"EDZB"、版本、块大小、原始大小、块数，之后每块5字节索引（4字节存储长度和1字节算法编号），最后是各块数据。
+ * 区间读取时按索引只读取并解压覆盖区间的块，读取任意位置的几KB只需要解压一个块。
+ * <p>
+ * 写入使用分段上传：数据段依次上传，头部和索引作为第1段最后上传，不需要预先知道压缩后的大小，也不需要把整个对象放在内存中。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午10:15
+ */
+public final class BlockCompressedObject {
+    // 对象魔数 "EDZB"
+    private static final int MAGIC = 0x45445A42;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 21;
+    private static final int INDEX_ENTRY_SIZE = 5;
+    private static final int HEADER_PART_NUMBER = 1;
+    // 数据段的最小大小和最大数量，分段号不能超过10000
+    private static final int MIN_PART_SIZE = 8 * 1024 * 1024;
+    private static final int MAX_DATA_PARTS = 9000;
+
+    private final ObjectStorage objectStorage;
+    private final String key;
+    private final int blockSize;
+    private final long rawSize;
+    // 各块在对象中的起始位置，最后一个元素为数据结束位置
+    private final long[] blockOffsets;
+    private final byte[] blockCodecs;
+
+    private BlockCompressedObject(ObjectStorage objectStorage, String key, int blockSize, long rawSize,
+                                  long[] blockOffsets, byte[] blockCodecs) {
+        this.objectStorage = objectStorage;
+        this.key = key;
+        this.blockSize = blockSize;
+        this.rawSize = rawSize;
+        this.blockOffsets = blockOffsets;
+        this.blockCodecs = blockCodecs;
+    }
+
+    /**
+     * 把输入流中恰好rawSize字节的数据分块压缩后写入对象
+     *
+     * @throws ObjectSizeMismatchException 输入的数据量与rawSize不一致时抛出，不会留下对象
+     */
+    public static ObjectMetadata write(ObjectStorage objectStorage, String key, InputStream input, long rawSize,
+                                       CompressionCodec codec, int blockSize) throws IOException {
+        if (blockSize <= 0 || rawSize < 0) {
+            throw new IllegalArgumentException(String.format("分块参数不合法: blockSize=%d, rawSize=%d", blockSize, rawSize));
+        }
+        long blockCount = (rawSize + blockSize - 1) / blockSize;
+        if (blockCount > (Integer.MAX_VALUE - HEADER_SIZE) / INDEX_ENTRY_SIZE) {
+            throw new IllegalArgumentException("块数过多，请增大块大小: " + blockCount);
+        }
+        int partSize = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(MIN_PART_SIZE,
+                rawSize / MAX_DATA_PARTS + 2L * codec.maxCompressedLength(blockSize)));
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + (int) blockCount * INDEX_ENTRY_SIZE)
+                .putInt(MAGIC).put(VERSION).putInt(blockSize).putLong(rawSize).putInt((int) blockCount);
+        byte[] raw = new byte[blockSize];
+        byte[] part = new byte[(int) Math.min(partSize, Math.max(1, rawSize + 2L * codec.maxCompressedLength(blockSize)))];
+        List<Integer> partNumbers = new ArrayList<>();
+        partNumbers.add(HEADER_PART_NUMBER);
+        String uploadId = objectStorage.initiateMultipart(key);
+        try {
+            int partLength = 0;
+            long remaining = rawSize;
+            for (long i = 0; i < blockCount; i++) {
+                int length = (int) Math.min(blockSize, remaining);
+                if (input.readNBytes(raw, 0, length) != length) {
+                    throw new ObjectSizeMismatchException(key, rawSize);
+                }
+                remaining -= length;
+                // 直接压缩到分段缓冲区，放不下时先上传已有的数据
+                if (partLength + codec.maxCompressedLength(length) > part.length) {
+                    partLength = uploadDataPart(objectStorage, uploadId, partNumbers, part, partLength);
+                }
+                int storedLength = codec.compress(raw, 0, length, part, partLength);
+                CompressionCodec blockCodec = codec;
+                if (storedLength >= length) {
+                    System.arraycopy(raw, 0, part, partLength, length);
+                    storedLength = length;
+                    blockCodec = CompressionCodec.NONE;
+                }
+                partLength += storedLength;
+                header.putInt(storedLength).put(blockCodec.getId());
+            }
+            if (input.read() != -1) {
+                throw new ObjectSizeMismatchException(key, rawSize);
+            }
+            if (partLength > 0) {
+                uploadDataPart(objectStorage, uploadId, partNumbers, part, partLength);
+            }
+            objectStorage.uploadPart(uploadId, HEADER_PART_NUMBER, new ByteArrayInputStream(header.array()), header.capacity());
+            return objectStorage.completeMultipart(uploadId, partNumbers);
+        } catch (IOException | RuntimeException e) {
+            try {
+                objectStorage.abortMultipart(uploadId);
+            } catch (IOException abortException) {
+                e.addSuppressed(abortException);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 读取分块压缩对象的头部和索引
+     */
+    public static BlockCompressedObject open(ObjectStorage objectStorage, String key) throws IOException {
+        ByteBuffer header;
+        try (InputStream input = objectStorage.get(key, 0, HEADER_SIZE)) {
+            header = ByteBuffer.wrap(input.readNBytes(HEADER_SIZE));
+        }
+        if (header.remaining() != HEADER_SIZE || header.getInt() != MAGIC || header.get() != VERSION) {
+            throw new IOException("分块压缩对象格式不正确: " + key);
+        }
+        int blockSize = header.getInt();
+        long rawSize = header.getLong();
+        int blockCount = header.getInt();
+        if (blockSize <= 0 || rawSize < 0 || blockCount != (rawSize + blockSize - 1) / blockSize) {
+            throw new IOException("分块压缩对象头部不正确: " + key);
+        }
+        int indexSize = blockCount * INDEX_ENTRY_SIZE;
+        ByteBuffer index;
+        try (InputStream input = objectStorage.get(key, HEADER_SIZE, indexSize)) {
+            index = ByteBuffer.wrap(input.readNBytes(indexSize));
+        }
+        if (index.remaining() != indexSize) {
+            throw new IOException("分块压缩对象索引被截断: " + key);
+        }
+        long[] blockOffsets = new long[blockCount + 1];
+        byte[] blockCodecs = new byte[blockCount];
+        blockOffsets[0] = HEADER_SIZE + (long) indexSize;
+        for (int i = 0; i < blockCount; i++) {
+            blockOffsets[i + 1] = blockOffsets[i] + index.getInt();
+            blockCodecs[i] = index.get();
+        }
+        return new BlockCompressedObject(objectStorage, key, blockSize, rawSize, blockOffsets, blockCodecs);
+    }
+
+    /**
+     * 原始数据大小
+     */
+    public long getRawSize() {
+        return rawSize;
+    }
+
+    /**
+     * 把原始数据的一个区间写到目标通道，只读取并解压覆盖区间的块，返回写出的字节数
+     */
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        if (position < 0 || count < 0 || position + count > rawSize) {
+            throw new IllegalArgumentException(String.format("区间超出原始数据范围: position=%d, count=%d, rawSize=%d",
+                    position, count, rawSize));
+        }
+        if (count == 0) {
+            return 0;
+        }
+        int first = (int) (position / blockSize);
+        int last = (int) ((position + count - 1) / blockSize);
+        long end = position + count;
+        BlockReader reader = new BlockReader(first, last + 1);
+        try (reader) {
+            for (int i = first; i <= last; i++) {
+                ByteBuffer block = reader.next();
+                long blockStart = (long) i * blockSize;
+                block.position((int) Math.max(0, position - blockStart));
+                block.limit((int) Math.min(block.limit(), end - blockStart));
+                while (block.hasRemaining()) {
+                    target.write(block);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 按顺序解压整个对象的输入流，同一时间只在内存中保留一个块
+     */
+    public InputStream openInputStream() throws IOException {
+        BlockReader reader = new BlockReader(0, blockCodecs.length);
+        return new InputStream() {
+            private ByteBuffer current = ByteBuffer.allocate(0);
+
+            @Override
+            public int read() throws IOException {
+                return fill() ? current.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                if (!fill()) {
+                    return -1;
+                }
+                int read = Math.min(length, current.remaining());
+                current.get(buffer, offset, read);
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+
+            private boolean fill() throws IOException {
+                while (!current.hasRemaining()) {
+                    if (!reader.hasNext()) {
+                        return false;
+                    }
+                    current = reader.next();
+                }
+                return true;
+            }
+        };
+    }
+
+    // ======================== 私有方法 ========================
+    // 上传一个数据段，返回清空后的缓冲区长度
+    private static int uploadDataPart(ObjectStorage objectStorage, String uploadId, List<Integer> partNumbers,
+                                      byte[] part, int partLength) throws IOException {
+        int partNumber = partNumbers.size() + 1;
+        objectStorage.uploadPart(uploadId, partNumber, new ByteArrayInputStream(part, 0, partLength), partLength);
+        partNumbers.add(partNumber);
+        return 0;
+    }
+
+    private int getRawLength(int blockIndex) {
+        return (int) Math.min(blockSize, rawSize - (long) blockIndex * blockSize);
+    }
+
+    /**
+     * 用一次区间读取顺序解压[from, to)范围内的块，缓冲区在块之间复用
+     */
+    private class BlockReader implements AutoCloseable {
+        private final InputStream input;
+        private final int to;
+        private final byte[] stored;
+        private final byte[] raw;
+        private int next;
+
+        private BlockReader(int from, int to) throws IOException {
+            this.to = to;
+            this.next = from;
+            int maxStoredLength = 0;
+            for (int i = from; i < to; i++) {
+                maxStoredLength = (int) Math.max(maxStoredLength, blockOffsets[i + 1] - blockOffsets[i]);
+            }
+            this.stored = new byte[maxStoredLength];
+            this.raw = new byte[blockSize];
+            this.input = objectStorage.get(key, blockOffsets[from], blockOffsets[to] - blockOffsets[from]);
+        }
+
+        private boolean hasNext() {
+            return next < to;
+        }
+
+        // 返回的缓冲区在下一次调用时被覆盖
+        private ByteBuffer next() throws IOException {
+            int storedLength = (int) (blockOffsets[next + 1] - blockOffsets[next]);
+            int rawLength = getRawLength(next);
+            if (input.readNBytes(stored, 0, storedLength) != storedLength) {
+                throw new IOException(String.format("分块压缩对象被截断: key=%s, block=%d", key, next));
+            }
+            CompressionCodec.of(blockCodecs[next]).decompress(stored, 0, storedLength, raw, 0, rawLength);
+            next++;
+            return ByteBuffer.wrap(raw, 0, rawLength);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.cutejiuge.storage.compress;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.io.IOException;
+
+/**
+ * 块压缩算法，每个块独立压缩，解压时只需要块本身和原始长度
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午10:05
+ */
+public enum CompressionCodec {
+    /**
+     * 不压缩，用于已压缩的媒体和压缩包，以及压缩后没有变小的块
+     */
+    NONE((byte) 0, "none") {
+        @Override
+        public int maxCompressedLength(int length) {
+            return length;
+        }
+
+        @Override
+        public int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset) {
+            System.arraycopy(src, srcOffset, dest, destOffset, length);
+            return length;
+        }
+
+        @Override
+        public void decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int rawLength) throws IOException {
+            if (length != rawLength) {
+                throw new IOException(String.format("未压缩块长度不正确: %d/%d", length, rawLength));
+            }
+            System.arraycopy(src, srcOffset, dest, destOffset, length);
+        }
+    },
+
+    /**
+     * LZ4，压缩和解压速度都在GB/s级别，适合文本和文档
+     */
+    LZ4((byte) 1, "lz4") {
+        @Override
+        public int maxCompressedLength(int length) {
+            return Lz4Holder.COMPRESSOR.maxCompressedLength(length);
+        }
+
+        @Override
+        public int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset) {
+            return Lz4Holder.COMPRESSOR.compress(src, srcOffset, length, dest, destOffset);
+        }
+
+        @Override
+        public void decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int rawLength) throws IOException {
+            try {
+                int decompressed = Lz4Holder.DECOMPRESSOR.decompress(src, srcOffset, length, dest, destOffset, rawLength);
+                if (decompressed != rawLength) {
+                    throw new IOException(String.format("LZ4块解压后长度不正确: %d/%d", decompressed, rawLength));
+                }
+            } catch (LZ4Exception e) {
+                throw new IOException("LZ4块数据损坏", e);
+            }
+        }
+    };
+
+    private final byte id;
+    private final String codecName;
+
+    CompressionCodec(byte id, String codecName) {
+        this.id = id;
+        this.codecName = codecName;
+    }
+
+    /**
+     * 写入存储格式中的算法编号
+     */
+    public byte getId() {
+        return id;
+    }
+
+    /**
+     * 配置中使用的算法名称
+     */
+    public String getCodecName() {
+        return codecName;
+    }
+
+    /**
+     * 压缩结果的最大长度，用于分配输出缓冲区
+     */
+    public abstract int maxCompressedLength(int length);
+
+    /**
+     * 压缩一个块，返回压缩后的长度
+     */
+    public abstract int compress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset);
+
+    /**
+     * 解压一个块，解压后的长度必须等于rawLength
+     */
+    public abstract void decompress(byte[] src, int srcOffset, int length, byte[] dest, int destOffset, int rawLength) throws IOException;
+
+    /**
+     * 按存储格式中的算法编号查找
+     */
+    public static CompressionCodec of(byte id) throws IOException {
+        for (CompressionCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+        throw new IOException("不支持的压缩算法编号: " + id);
+    }
+
+    /**
+     * 按配置中的算法名称查找
+     */
+    public static CompressionCodec of(String codecName) {
+        for (CompressionCodec codec : values()) {
+            if (codec.codecName.equalsIgnoreCase(codecName.trim())) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("不支持的压缩算法: " + codecName);
+    }
+
+    // 首次使用LZ4时才加载，优先使用JNI实现，不可用时退回纯Java实现
+    private static class Lz4Holder {
+        private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+        private static final LZ4SafeDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+    }
+}
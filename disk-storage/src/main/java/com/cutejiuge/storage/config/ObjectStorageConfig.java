@@ -0,0 +1,86 @@
+package com.cutejiuge.storage.config;
+
+import com.cutejiuge.storage.ObjectStorage;
+import com.cutejiuge.storage.cache.CachingObjectStorage;
+import com.cutejiuge.storage.erasure.ErasureCodedStorage;
+import com.cutejiuge.storage.local.LocalFileSystemStorage;
+import com.cutejiuge.storage.memory.InMemoryObjectStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * 对象存储配置类，按file.storage.type选择存储后端，file.storage.cache.enabled为true时在外面包一层堆外块缓存
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午7:05
+ */
+@Slf4j
+@Configuration
+public class ObjectStorageConfig {
+    @Value("${file.storage.type:local}")
+    private String storageType;
+
+    @Value("${file.storage.root-path:/data/easy-disk}")
+    private String storageRootPath;
+
+    @Value("${file.storage.force-on-compose:true}")
+    private Boolean forceOnCompose;
+
+    @Value("${file.storage.async-threads:4}")
+    private Integer asyncThreads;
+
+    @Value("${file.storage.async-queue-capacity:1000}")
+    private Integer asyncQueueCapacity;
+
+    @Value("${file.storage.erasure.data-dirs:}")
+    private List<String> erasureDataDirs;
+
+    @Value("${file.storage.erasure.data-shards:4}")
+    private Integer erasureDataShards;
+
+    @Value("${file.storage.erasure.parity-shards:2}")
+    private Integer erasureParityShards;
+
+    @Value("${file.storage.erasure.cell-size:262144}")
+    private Integer erasureCellSize;
+
+    @Value("${file.storage.erasure.repair-interval-ms:30000}")
+    private Long erasureRepairIntervalMs;
+
+    @Value("${file.storage.cache.enabled:false}")
+    private Boolean cacheEnabled;
+
+    @Value("${file.storage.cache.capacity:1073741824}")
+    private Long cacheCapacity;
+
+    @Value("${file.storage.cache.block-size:262144}")
+    private Integer cacheBlockSize;
+
+    /**
+     * 配置对象存储
+     */
+    @Bean(destroyMethod = "close")
+    public ObjectStorage objectStorage() throws IOException {
+        ObjectStorage objectStorage = switch (storageType) {
+            case LocalFileSystemStorage.TYPE -> new LocalFileSystemStorage(Paths.get(storageRootPath),
+                    Boolean.TRUE.equals(forceOnCompose), asyncThreads, asyncQueueCapacity);
+            case InMemoryObjectStorage.TYPE -> new InMemoryObjectStorage(asyncThreads, asyncQueueCapacity);
+            case ErasureCodedStorage.TYPE -> new ErasureCodedStorage(erasureDataDirs.stream().map(Paths::get).toList(),
+                    erasureDataShards, erasureParityShards, erasureCellSize, erasureRepairIntervalMs, Boolean.TRUE.equals(forceOnCompose),
+                    asyncThreads, asyncQueueCapacity);
+            default -> throw new IllegalArgumentException("不支持的存储类型: " + storageType);
+        };
+        // 热点文件的块缓存在堆外，需要保证-XX:MaxDirectMemorySize大于缓存容量
+        if (Boolean.TRUE.equals(cacheEnabled)) {
+            objectStorage = new CachingObjectStorage(objectStorage, cacheCapacity, cacheBlockSize);
+        }
+        log.info("对象存储配置完成: type={}, cache={}, cacheCapacity={}", objectStorage.getType(), cacheEnabled, cacheCapacity);
+        return objectStorage;
+    }
+}
@@ -0,0 +1,1087 @@
+package com.cutejiuge.storage.erasure;
+
+import com.cutejiuge.storage.AbstractObjectStorage;
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.exception.ObjectNotFoundException;
+import com.cutejiuge.storage.exception.ObjectSizeMismatchException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 纠删码对象存储，对象切成k个数据分片和m个校验分片，分散保存在多个本地数据目录（通常每个目录是一块磁盘）中
+ * <p>
+ * 对象按条带编码：每个条带由k个分片单元组成，每个分片文件依次保存各条带中属于自己的分片单元，4+2时空间开销为1.5倍，
+ * 任意m个目录不可用时仍然可以读写。分片i的首选目录由key的哈希决定，k+m之外的目录作为备用目录，
+ * 首选目录不可用时写到备用目录。分片文件为 {数据目录}/{key}.ec{i}，头部记录版本号、对象大小和分片单元大小。
+ * <p>
+ * 读取时数据分片齐全则直接读取数据分片，不需要解码；缺少数据分片时读取任意k个分片解码所在条带（降级读）。
+ * 写入先写各目录下的临时文件再依次原子改名；覆盖写改名过程中读方可能暂时凑不齐同一版本的k个分片，此时短暂等待后重试。
+ * 开启fsync时改名前先把分片内容刷盘，改名后再刷所在目录，断电后不会在多个目录上同时出现改了名但内容为空或不完整的分片。
+ * <p>
+ * 每个数据目录下有一个标记文件，标记文件不存在说明目录不可用（如磁盘未挂载）。后台线程定期检查数据目录，
+ * 可用目录发生变化时扫描全部分片，把缺失的分片重建到首选目录或备用目录。
+ * 分段上传的分段是临时数据，不做纠删编码，原样保存在第一个可用目录的 .multipart/{uploadId}/ 中，完成时编码成对象。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午3:40
+ */
+@Slf4j
+public class ErasureCodedStorage extends AbstractObjectStorage {
+    /**
+     * 存储类型
+     */
+    public static final String TYPE = "erasure";
+
+    private static final String SHARD_SUFFIX = ".ec";
+    private static final Pattern SHARD_FILE_PATTERN = Pattern.compile("^(.+)\\.ec(\\d{1,2})$");
+    // 写入中的临时文件后缀
+    private static final String WRITING_SUFFIX = ".writing";
+    // 分段上传目录
+    private static final String MULTIPART_DIR = ".multipart";
+    // 分段上传目录中记录目标key的文件
+    private static final String MULTIPART_KEY_FILE = "target.key";
+    private static final String PART_SUFFIX = ".part";
+    // 数据目录标记文件
+    private static final String MARKER_FILE = ".easy-disk-shards";
+    // 分片文件魔数 "EDEC"
+    private static final int MAGIC = 0x45444543;
+    private static final byte VERSION = 1;
+    // 魔数、版本、k、m、分片编号、版本号、对象大小、分片单元大小、头部CRC32
+    private static final int HEADER_SIZE = 32;
+    // 分片单元按64字节对齐，小对象使用更小的分片单元，补零浪费的空间不超过k*64字节
+    private static final int CELL_ALIGNMENT = 64;
+    // 凑不齐同一版本的k个分片时的重试次数
+    private static final int OPEN_RETRIES = 10;
+    // 提交和修复时按key加锁的锁数量
+    private static final int WRITE_LOCK_STRIPES = 64;
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    private final List<Path> dataDirs;
+    private final ReedSolomon codec;
+    private final int dataShards;
+    private final int totalShards;
+    private final int maxCellSize;
+
+    /**
+     * 写入成功至少需要的分片数，为k+1，保证写入后还能容忍一个目录故障
+     */
+    private final int writeQuorum;
+
+    /**
+     * 是否在分片写完后fsync分片文件和所在目录
+     */
+    private final boolean forceOnWrite;
+
+    private final ReentrantLock[] writeLocks = new ReentrantLock[WRITE_LOCK_STRIPES];
+    private final ReentrantLock repairLock = new ReentrantLock();
+    private final AtomicLong lastGeneration = new AtomicLong();
+    private final ScheduledExecutorService repairExecutor;
+
+    // 上一次检查时的可用目录，只在修复线程中访问
+    private Set<Path> lastAvailableDirs;
+    // 启动时有目录新建了标记文件（新磁盘），需要扫描一次，把分片重建到新目录
+    private boolean pendingRepair;
+
+    /**
+     * @param dataDirs 数据目录，数量不少于k+m
+     * @param dataShards 数据分片数k
+     * @param parityShards 校验分片数m
+     * @param cellSize 分片单元大小，64的整数倍
+     * @param repairIntervalMs 检查数据目录的间隔，不大于0时不启动后台修复
+     * @param forceOnWrite 分片写完后是否fsync
+     * @param asyncThreads 异步线程数
+     * @param asyncQueueCapacity 异步任务等待队列容量
+     */
+    public ErasureCodedStorage(List<Path> dataDirs, int dataShards, int parityShards, int cellSize, long repairIntervalMs,
+                               boolean forceOnWrite, int asyncThreads, int asyncQueueCapacity) throws IOException {
+        super(asyncThreads, asyncQueueCapacity);
+        this.codec = new ReedSolomon(dataShards, parityShards);
+        this.dataShards = dataShards;
+        this.totalShards = codec.getTotalShards();
+        if (cellSize < CELL_ALIGNMENT || cellSize % CELL_ALIGNMENT != 0) {
+            throw new IllegalArgumentException("分片单元大小必须是" + CELL_ALIGNMENT + "的整数倍: " + cellSize);
+        }
+        this.maxCellSize = cellSize;
+        this.writeQuorum = dataShards + 1;
+        this.forceOnWrite = forceOnWrite;
+        List<Path> dirs = new ArrayList<>();
+        for (Path dataDir : dataDirs) {
+            Path dir = Files.createDirectories(dataDir).toAbsolutePath().normalize();
+            if (dirs.contains(dir)) {
+                throw new IllegalArgumentException("数据目录重复: " + dir);
+            }
+            Path marker = dir.resolve(MARKER_FILE);
+            if (!Files.exists(marker)) {
+                Files.createFile(marker);
+                pendingRepair = true;
+            }
+            dirs.add(dir);
+        }
+        if (dirs.size() < totalShards) {
+            throw new IllegalArgumentException(String.format("数据目录数%d少于分片数%d", dirs.size(), totalShards));
+        }
+        this.dataDirs = List.copyOf(dirs);
+        for (int i = 0; i < WRITE_LOCK_STRIPES; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+        if (repairIntervalMs > 0) {
+            this.repairExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "storage-" + TYPE + "-repair");
+                thread.setDaemon(true);
+                return thread;
+            });
+            repairExecutor.scheduleWithFixedDelay(this::checkDataDirs, repairIntervalMs, repairIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.repairExecutor = null;
+        }
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public ObjectMetadata put(String key, InputStream input, long size) throws IOException {
+        checkShardKey(key);
+        if (size < 0) {
+            throw new IllegalArgumentException("对象大小不合法: " + size);
+        }
+        List<Path> placement = placement(key);
+        Path[] targetDirs = chooseWriteDirs(placement);
+        int cellSize = cellSizeFor(size);
+        long generation = lastGeneration.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis() << 16));
+        Path[] writingFiles = new Path[totalShards];
+        FileChannel[] channels = new FileChannel[totalShards];
+        try {
+            for (int i = 0; i < totalShards; i++) {
+                if (targetDirs[i] != null) {
+                    writingFiles[i] = createWritingFile(shardPath(targetDirs[i], key, i));
+                    channels[i] = FileChannel.open(writingFiles[i], StandardOpenOption.WRITE);
+                    writeFully(channels[i], header(i, generation, size, cellSize));
+                }
+            }
+            byte[][] cells = new byte[totalShards][cellSize];
+            long remaining = size;
+            for (long stripe = 0, stripes = stripeCount(size, cellSize); stripe < stripes; stripe++) {
+                for (int j = 0; j < dataShards; j++) {
+                    int length = (int) Math.min(cellSize, remaining);
+                    if (length > 0 && input.readNBytes(cells[j], 0, length) != length) {
+                        throw new ObjectSizeMismatchException(key, size);
+                    }
+                    Arrays.fill(cells[j], length, cellSize, (byte) 0);
+                    remaining -= length;
+                }
+                codec.encodeParity(cells, cellSize);
+                for (int i = 0; i < totalShards; i++) {
+                    if (channels[i] != null) {
+                        writeFully(channels[i], ByteBuffer.wrap(cells[i], 0, cellSize));
+                    }
+                }
+            }
+            if (input.read() != -1) {
+                throw new ObjectSizeMismatchException(key, size);
+            }
+            forceAll(channels);
+            closeAll(channels);
+            commit(key, placement, targetDirs, writingFiles);
+            return new ObjectMetadata(key, size, generation >>> 16);
+        } catch (IOException | RuntimeException e) {
+            closeAll(channels);
+            for (Path writingFile : writingFiles) {
+                if (writingFile != null) {
+                    Files.deleteIfExists(writingFile);
+                }
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public ObjectMetadata put(String key, ByteBuffer data) throws IOException {
+        ByteBuffer buffer = data.duplicate();
+        return put(key, new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (length == 0) {
+                    return 0;
+                }
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                int read = Math.min(length, buffer.remaining());
+                buffer.get(bytes, offset, read);
+                return read;
+            }
+        }, buffer.remaining());
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return get(key, 0, Long.MAX_VALUE);
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        checkRange(offset, length);
+        ShardSet shards = openShards(key);
+        if (shards == null) {
+            throw new ObjectNotFoundException(key);
+        }
+        long start = Math.min(offset, shards.size);
+        long end = length >= shards.size - start ? shards.size : start + length;
+        return new ShardInputStream(shards, start, end);
+    }
+
+    @Override
+    public long transferTo(String key, long offset, long length, WritableByteChannel target) throws IOException {
+        try (InputStream input = get(key, offset, length)) {
+            byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+            long transferred = 0;
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                writeFully(target, ByteBuffer.wrap(buffer, 0, read));
+                transferred += read;
+            }
+            return transferred;
+        }
+    }
+
+    @Override
+    public ObjectMetadata stat(String key) throws IOException {
+        try (ShardSet shards = openShards(key)) {
+            return shards == null ? null : new ObjectMetadata(key, shards.size, shards.generation >>> 16);
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        checkShardKey(key);
+        List<Path> placement = placement(key);
+        ReentrantLock lock = writeLock(key);
+        lock.lock();
+        try {
+            boolean deleted = false;
+            for (int i = 0; i < totalShards; i++) {
+                for (Path dir : candidateDirs(placement, i)) {
+                    deleted |= Files.deleteIfExists(shardPath(dir, key, i));
+                }
+            }
+            return deleted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int deleteByPrefix(String prefix) throws IOException {
+        String directory = checkPrefix(prefix).substring(0, prefix.length() - 1);
+        checkShardKey(directory);
+        Set<String> keys = new HashSet<>();
+        for (Path dataDir : dataDirs) {
+            Path path = dataDir.resolve(directory);
+            if (!Files.isDirectory(path)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(path)) {
+                files.filter(Files::isRegularFile).forEach(file -> {
+                    Matcher matcher = matchShardFile(dataDir, file);
+                    if (matcher != null) {
+                        keys.add(matcher.group(1));
+                    }
+                });
+            }
+            FileUtils.deleteDirectory(path.toFile());
+        }
+        return keys.size();
+    }
+
+    /**
+     * 先查出各源对象的大小，再把源对象按顺序拼接后重新编码写入目标对象，同一时间只打开一个源对象
+     */
+    @Override
+    public ObjectMetadata compose(String key, List<String> sourceKeys) throws IOException {
+        long size = 0;
+        for (String sourceKey : sourceKeys) {
+            ObjectMetadata metadata = stat(sourceKey);
+            if (metadata == null) {
+                throw new ObjectNotFoundException(sourceKey);
+            }
+            size += metadata.getSize();
+        }
+        Iterator<String> keys = sourceKeys.iterator();
+        return putSequence(key, size, () -> get(keys.next()), keys::hasNext);
+    }
+
+    @Override
+    public String initiateMultipart(String key) throws IOException {
+        checkShardKey(key);
+        Path dataDir = dataDirs.stream().filter(this::isAvailable).findFirst()
+                .orElseThrow(() -> new IOException("没有可用的数据目录"));
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Path uploadDir = dataDir.resolve(MULTIPART_DIR).resolve(checkUploadId(uploadId));
+        Files.createDirectories(uploadDir);
+        Files.writeString(uploadDir.resolve(MULTIPART_KEY_FILE), key, StandardCharsets.UTF_8);
+        return uploadId;
+    }
+
+    @Override
+    public ObjectMetadata uploadPart(String uploadId, int partNumber, InputStream input, long size) throws IOException {
+        checkPartNumber(partNumber);
+        Path partFile = getExistingMultipartDir(uploadId).resolve(partNumber + PART_SUFFIX);
+        Path writingFile = createWritingFile(partFile);
+        try {
+            try (OutputStream output = Files.newOutputStream(writingFile)) {
+                if (IOUtils.copyLarge(input, output, 0, size) != size || input.read() != -1) {
+                    throw new ObjectSizeMismatchException(uploadId + "#" + partNumber, size);
+                }
+            }
+            Files.move(writingFile, partFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new ObjectMetadata(uploadId + "#" + partNumber, size, System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(writingFile);
+            throw e;
+        }
+    }
+
+    @Override
+    public ObjectMetadata completeMultipart(String uploadId, List<Integer> partNumbers) throws IOException {
+        Path uploadDir = getExistingMultipartDir(uploadId);
+        String key = Files.readString(uploadDir.resolve(MULTIPART_KEY_FILE), StandardCharsets.UTF_8);
+        long size = 0;
+        List<Path> parts = new ArrayList<>();
+        for (Integer partNumber : partNumbers) {
+            checkPartNumber(partNumber);
+            Path part = uploadDir.resolve(partNumber + PART_SUFFIX);
+            try {
+                size += Files.size(part);
+            } catch (NoSuchFileException e) {
+                throw new ObjectNotFoundException(MULTIPART_DIR + "/" + uploadId + "/" + partNumber + PART_SUFFIX);
+            }
+            parts.add(part);
+        }
+        Iterator<Path> iterator = parts.iterator();
+        ObjectMetadata metadata = putSequence(key, size, () -> Files.newInputStream(iterator.next()), iterator::hasNext);
+        FileUtils.deleteQuietly(uploadDir.toFile());
+        return metadata;
+    }
+
+    @Override
+    public void abortMultipart(String uploadId) throws IOException {
+        checkUploadId(uploadId);
+        for (Path dataDir : dataDirs) {
+            FileUtils.deleteDirectory(dataDir.resolve(MULTIPART_DIR).resolve(uploadId).toFile());
+        }
+    }
+
+    /**
+     * 扫描所有可用目录，重建缺失的分片并清理被覆盖的旧版本分片，返回重建的分片数
+     * <p>
+     * 首选目录不可用时重建到备用目录；没有可用的备用目录时跳过，等目录恢复后再次扫描。
+     * 同一时间只有一个扫描在执行。
+     */
+    public int reconstruct() throws IOException {
+        repairLock.lock();
+        try {
+            int rebuilt = 0;
+            for (Path dataDir : dataDirs) {
+                if (!isAvailable(dataDir)) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.walk(dataDir)) {
+                    Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+                    while (iterator.hasNext()) {
+                        Matcher matcher = matchShardFile(dataDir, iterator.next());
+                        // 同一对象只在编号最小的分片处理一次
+                        if (matcher != null && !hasLowerShard(matcher.group(1), Integer.parseInt(matcher.group(2)))) {
+                            rebuilt += repairObject(matcher.group(1));
+                        }
+                    }
+                }
+            }
+            return rebuilt;
+        } finally {
+            repairLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (repairExecutor != null) {
+            repairExecutor.shutdownNow();
+        }
+        super.close();
+    }
+
+    // ======================== 私有方法 ========================
+    // 定期检查数据目录，可用目录发生变化或启动时有新目录时扫描修复
+    private void checkDataDirs() {
+        try {
+            Set<Path> available = dataDirs.stream().filter(this::isAvailable).collect(Collectors.toSet());
+            boolean changed = lastAvailableDirs != null && !available.equals(lastAvailableDirs);
+            if (changed) {
+                log.warn("纠删码存储可用数据目录发生变化: 可用{}个/共{}个, 不可用目录={}", available.size(), dataDirs.size(),
+                        dataDirs.stream().filter(dir -> !available.contains(dir)).toList());
+            }
+            lastAvailableDirs = available;
+            if (changed || pendingRepair) {
+                pendingRepair = false;
+                long start = System.currentTimeMillis();
+                int rebuilt = reconstruct();
+                log.info("纠删码存储分片修复完成: 重建{}个分片, 耗时{}ms", rebuilt, System.currentTimeMillis() - start);
+            }
+        } catch (Exception e) {
+            log.error("纠删码存储分片修复失败", e);
+        }
+    }
+
+    // 修复一个对象：重建最新版本缺失的分片，删除其他版本的分片，返回重建的分片数
+    private int repairObject(String key) {
+        List<Path> placement = placement(key);
+        ReentrantLock lock = writeLock(key);
+        lock.lock();
+        Path[] writingFiles = new Path[totalShards];
+        FileChannel[] channels = new FileChannel[totalShards];
+        try (ShardSet shards = openShards(key)) {
+            if (shards == null) {
+                return 0;
+            }
+            // 清理被覆盖的旧版本分片和损坏的分片
+            Set<Path> usedDirs = new HashSet<>();
+            for (int i = 0; i < totalShards; i++) {
+                for (Path dir : candidateDirs(placement, i)) {
+                    if (dir.equals(shards.dirs[i])) {
+                        usedDirs.add(dir);
+                    } else if (isAvailable(dir)) {
+                        Files.deleteIfExists(shardPath(dir, key, i));
+                    }
+                }
+            }
+            List<Integer> targets = new ArrayList<>();
+            Path[] targetDirs = new Path[totalShards];
+            for (int i = 0; i < totalShards; i++) {
+                if (shards.channels[i] == null) {
+                    targetDirs[i] = candidateDirs(placement, i).stream()
+                            .filter(dir -> !usedDirs.contains(dir) && isAvailable(dir)).findFirst().orElse(null);
+                    if (targetDirs[i] != null) {
+                        usedDirs.add(targetDirs[i]);
+                        targets.add(i);
+                    }
+                }
+            }
+            if (targets.isEmpty()) {
+                return 0;
+            }
+            int[] targetShards = targets.stream().mapToInt(Integer::intValue).toArray();
+            for (int i : targetShards) {
+                writingFiles[i] = createWritingFile(shardPath(targetDirs[i], key, i));
+                channels[i] = FileChannel.open(writingFiles[i], StandardOpenOption.WRITE);
+                writeFully(channels[i], header(i, shards.generation, shards.size, shards.cellSize));
+            }
+            byte[][] cells = new byte[totalShards][shards.cellSize];
+            for (long stripe = 0, stripes = stripeCount(shards.size, shards.cellSize); stripe < stripes; stripe++) {
+                shards.decodeStripe(stripe, cells, targetShards);
+                for (int i : targetShards) {
+                    writeFully(channels[i], ByteBuffer.wrap(cells[i], 0, shards.cellSize));
+                }
+            }
+            forceAll(channels);
+            closeAll(channels);
+            for (int i : targetShards) {
+                Files.move(writingFiles[i], shardPath(targetDirs[i], key, i), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            for (int i : targetShards) {
+                forceDirectory(shardPath(targetDirs[i], key, i).getParent());
+            }
+            log.info("重建对象分片: key={}, shards={}", key, targets);
+            return targetShards.length;
+        } catch (IOException | RuntimeException e) {
+            log.warn("修复对象分片失败: key={}", key, e);
+            closeAll(channels);
+            for (Path writingFile : writingFiles) {
+                if (writingFile != null) {
+                    FileUtils.deleteQuietly(writingFile.toFile());
+                }
+            }
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 从一组依次打开的输入流写入对象，打开失败时抛出原始的IOException
+    private ObjectMetadata putSequence(String key, long size, IoSupplier<InputStream> next, BooleanSupplier hasNext) throws IOException {
+        try (InputStream input = new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return hasNext.getAsBoolean();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return next.get();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        })) {
+            return put(key, input, size);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 打开对象的分片，选择至少有k个分片的最新版本；对象不存在时返回null
+     */
+    private ShardSet openShards(String key) throws IOException {
+        checkShardKey(key);
+        List<Path> placement = placement(key);
+        for (int attempt = 0; ; attempt++) {
+            // 版本号 -> 各分片
+            TreeMap<Long, OpenedShard[]> generations = new TreeMap<>();
+            boolean found = false;
+            for (int i = 0; i < totalShards; i++) {
+                for (Path dir : candidateDirs(placement, i)) {
+                    OpenedShard shard = openShard(dir, key, i);
+                    if (shard == null) {
+                        continue;
+                    }
+                    found = true;
+                    OpenedShard[] shards = generations.computeIfAbsent(shard.generation, g -> new OpenedShard[totalShards]);
+                    if (shards[i] == null) {
+                        shards[i] = shard;
+                    } else {
+                        closeQuietly(shard.channel);
+                    }
+                }
+            }
+            if (!found) {
+                return null;
+            }
+            ShardSet selected = null;
+            for (Map.Entry<Long, OpenedShard[]> entry : generations.descendingMap().entrySet()) {
+                long present = Arrays.stream(entry.getValue()).filter(Objects::nonNull).count();
+                if (selected == null && present >= dataShards) {
+                    selected = new ShardSet(entry.getValue());
+                } else {
+                    Arrays.stream(entry.getValue()).filter(Objects::nonNull).forEach(shard -> closeQuietly(shard.channel));
+                }
+            }
+            if (selected != null) {
+                return selected;
+            }
+            if (attempt >= OPEN_RETRIES) {
+                throw new IOException(String.format("同一版本的可用分片不足%d个，无法读取对象: %s", dataShards, key));
+            }
+            try {
+                Thread.sleep(attempt + 1L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("读取对象分片时被中断: " + key);
+            }
+        }
+    }
+
+    // 打开分片文件并校验头部，文件不存在或损坏时返回null
+    private OpenedShard openShard(Path dir, String key, int index) {
+        Path path = shardPath(dir, key, index);
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("打开分片失败: {}", path, e);
+            return null;
+        }
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            CRC32 crc = new CRC32();
+            crc.update(header.array(), 0, HEADER_SIZE - 4);
+            if (header.remaining() == HEADER_SIZE && header.getInt() == MAGIC && header.get() == VERSION
+                    && header.get() == dataShards && header.get() == totalShards - dataShards && header.get() == index) {
+                long generation = header.getLong();
+                long size = header.getLong();
+                int cellSize = header.getInt();
+                if (header.getInt() == (int) crc.getValue() && size >= 0 && cellSize > 0
+                        && channel.size() == HEADER_SIZE + stripeCount(size, cellSize) * cellSize) {
+                    return new OpenedShard(dir, channel, generation, size, cellSize);
+                }
+            }
+            log.warn("分片文件损坏，忽略: {}", path);
+        } catch (IOException e) {
+            log.warn("读取分片头部失败: {}", path, e);
+        }
+        closeQuietly(channel);
+        return null;
+    }
+
+    // 提交写入：依次把临时文件原子改名为分片文件，刷写所在目录，再删除同一分片在其他位置的旧版本
+    private void commit(String key, List<Path> placement, Path[] targetDirs, Path[] writingFiles) throws IOException {
+        ReentrantLock lock = writeLock(key);
+        lock.lock();
+        try {
+            for (int i = 0; i < totalShards; i++) {
+                if (writingFiles[i] != null) {
+                    Files.move(writingFiles[i], shardPath(targetDirs[i], key, i), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            for (int i = 0; i < totalShards; i++) {
+                if (writingFiles[i] != null) {
+                    forceDirectory(shardPath(targetDirs[i], key, i).getParent());
+                }
+            }
+            for (int i = 0; i < totalShards; i++) {
+                for (Path dir : candidateDirs(placement, i)) {
+                    if (!dir.equals(targetDirs[i])) {
+                        FileUtils.deleteQuietly(shardPath(dir, key, i).toFile());
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 选择各分片的写入目录：首选目录不可用时依次使用可用的备用目录，不可用的分片为null
+    private Path[] chooseWriteDirs(List<Path> placement) throws IOException {
+        Path[] targetDirs = new Path[totalShards];
+        Iterator<Path> spares = placement.subList(totalShards, placement.size()).stream().filter(this::isAvailable).iterator();
+        int count = 0;
+        for (int i = 0; i < totalShards; i++) {
+            Path dir = placement.get(i);
+            if (isAvailable(dir)) {
+                targetDirs[i] = dir;
+            } else if (spares.hasNext()) {
+                targetDirs[i] = spares.next();
+            }
+            if (targetDirs[i] != null) {
+                count++;
+            }
+        }
+        if (count < writeQuorum) {
+            throw new IOException(String.format("可用数据目录不足，只能写入%d个分片，至少需要%d个", count, writeQuorum));
+        }
+        if (count < totalShards) {
+            log.warn("数据目录不可用，降级写入{}个分片，目录恢复后由后台修复补齐", count);
+        }
+        return targetDirs;
+    }
+
+    // 对象的目录顺序：前k+m个依次是各分片的首选目录，其余是备用目录
+    private List<Path> placement(String key) {
+        int start = Math.floorMod(key.hashCode(), dataDirs.size());
+        List<Path> placement = new ArrayList<>(dataDirs.size());
+        for (int i = 0; i < dataDirs.size(); i++) {
+            placement.add(dataDirs.get((start + i) % dataDirs.size()));
+        }
+        return placement;
+    }
+
+    // 分片可能所在的目录：首选目录和全部备用目录
+    private List<Path> candidateDirs(List<Path> placement, int index) {
+        List<Path> dirs = new ArrayList<>(placement.size() - totalShards + 1);
+        dirs.add(placement.get(index));
+        dirs.addAll(placement.subList(totalShards, placement.size()));
+        return dirs;
+    }
+
+    // 编号小于index的分片是否存在
+    private boolean hasLowerShard(String key, int index) {
+        List<Path> placement = placement(key);
+        for (int i = 0; i < index; i++) {
+            for (Path dir : candidateDirs(placement, i)) {
+                if (Files.exists(shardPath(dir, key, i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // 数据目录下的文件是分片文件时返回匹配结果，group(1)为key，group(2)为分片编号
+    private Matcher matchShardFile(Path dataDir, Path file) {
+        Path relative = dataDir.relativize(file);
+        if (relative.getNameCount() == 0 || MULTIPART_DIR.equals(relative.getName(0).toString())) {
+            return null;
+        }
+        Matcher matcher = SHARD_FILE_PATTERN.matcher(relative.toString().replace(file.getFileSystem().getSeparator(), "/"));
+        return matcher.matches() && Integer.parseInt(matcher.group(2)) < totalShards ? matcher : null;
+    }
+
+    private boolean isAvailable(Path dataDir) {
+        return Files.isRegularFile(dataDir.resolve(MARKER_FILE));
+    }
+
+    private Path shardPath(Path dataDir, String key, int index) {
+        return dataDir.resolve(key + SHARD_SUFFIX + index);
+    }
+
+    // 小对象按大小选择分片单元，避免补零
+    private int cellSizeFor(long size) {
+        long perShard = (size + dataShards - 1) / dataShards;
+        long aligned = Math.max(CELL_ALIGNMENT, (perShard + CELL_ALIGNMENT - 1) / CELL_ALIGNMENT * CELL_ALIGNMENT);
+        return (int) Math.min(maxCellSize, aligned);
+    }
+
+    private long stripeCount(long size, int cellSize) {
+        long stripeSize = (long) dataShards * cellSize;
+        return (size + stripeSize - 1) / stripeSize;
+    }
+
+    private ByteBuffer header(int index, long generation, long size, int cellSize) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put(VERSION).put((byte) dataShards)
+                .put((byte) (totalShards - dataShards)).put((byte) index).putLong(generation).putLong(size).putInt(cellSize);
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, header.position());
+        return header.putInt((int) crc.getValue()).flip();
+    }
+
+    private ReentrantLock writeLock(String key) {
+        return writeLocks[Math.floorMod(key.hashCode(), WRITE_LOCK_STRIPES)];
+    }
+
+    // key不能落在分段上传目录中，也不能与标记文件同名
+    private void checkShardKey(String key) {
+        checkKey(key);
+        String firstSegment = key.split("/", 2)[0];
+        if (MULTIPART_DIR.equals(firstSegment) || MARKER_FILE.equals(firstSegment)) {
+            throw new IllegalArgumentException("对象key不合法: " + key);
+        }
+    }
+
+    private String checkUploadId(String uploadId) {
+        if (uploadId == null || !uploadId.matches("^[0-9a-f]{32}$")) {
+            throw new IllegalArgumentException("分段上传ID不合法: " + uploadId);
+        }
+        return uploadId;
+    }
+
+    private Path getExistingMultipartDir(String uploadId) throws IOException {
+        checkUploadId(uploadId);
+        for (Path dataDir : dataDirs) {
+            Path uploadDir = dataDir.resolve(MULTIPART_DIR).resolve(uploadId);
+            if (Files.isDirectory(uploadDir)) {
+                return uploadDir;
+            }
+        }
+        throw new ObjectNotFoundException(MULTIPART_DIR + "/" + uploadId);
+    }
+
+    private void checkPartNumber(int partNumber) {
+        if (partNumber < 1 || partNumber > 10000) {
+            throw new IllegalArgumentException("分段号必须在1到10000之间: " + partNumber);
+        }
+    }
+
+    // 在目标文件同目录下创建唯一的临时文件，保证原子改名不跨文件系统
+    private static Path createWritingFile(Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path writingFile = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID().toString().replace("-", "") + WRITING_SUFFIX);
+        return Files.createFile(writingFile);
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // 改名前把分片内容刷盘，否则断电后改了名的分片可能为空或不完整
+    private void forceAll(FileChannel[] channels) throws IOException {
+        if (forceOnWrite) {
+            for (FileChannel channel : channels) {
+                if (channel != null) {
+                    channel.force(false);
+                }
+            }
+        }
+    }
+
+    // 改名后刷写目录，保证改名本身在断电后可见，不支持打开目录的平台上忽略
+    private void forceDirectory(Path dir) {
+        if (!forceOnWrite) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("刷写分片目录失败: dir={}", dir, e);
+        }
+    }
+
+    private static void closeAll(FileChannel[] channels) {
+        for (FileChannel channel : channels) {
+            closeQuietly(channel);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                log.debug("关闭分片文件失败", e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoSupplier<T> {
+        T get() throws IOException;
+    }
+
+    /**
+     * 打开的分片文件
+     */
+    private static class OpenedShard {
+        private final Path dir;
+        private final FileChannel channel;
+        private final long generation;
+        private final long size;
+        private final int cellSize;
+
+        private OpenedShard(Path dir, FileChannel channel, long generation, long size, int cellSize) {
+            this.dir = dir;
+            this.channel = channel;
+            this.generation = generation;
+            this.size = size;
+            this.cellSize = cellSize;
+        }
+    }
+
+    /**
+     * 同一版本的一组分片，读取失败的分片被关闭并视为缺失
+     */
+    private class ShardSet implements Closeable {
+        private final long generation;
+        private final long size;
+        private final int cellSize;
+        private final FileChannel[] channels = new FileChannel[totalShards];
+        private final Path[] dirs = new Path[totalShards];
+
+        private ShardSet(OpenedShard[] shards) {
+            OpenedShard first = Arrays.stream(shards).filter(Objects::nonNull).findFirst().orElseThrow();
+            this.generation = first.generation;
+            this.size = first.size;
+            this.cellSize = first.cellSize;
+            for (int i = 0; i < totalShards; i++) {
+                if (shards[i] != null) {
+                    channels[i] = shards[i].channel;
+                    dirs[i] = shards[i].dir;
+                }
+            }
+        }
+
+        // 读取分片单元中的一段，分片缺失或读取失败时返回false
+        private boolean readCell(int index, long stripe, int from, byte[] buffer, int offset, int length) {
+            FileChannel channel = channels[index];
+            if (channel == null) {
+                return false;
+            }
+            long position = HEADER_SIZE + stripe * cellSize + from;
+            ByteBuffer target = ByteBuffer.wrap(buffer, offset, length);
+            try {
+                while (target.hasRemaining()) {
+                    if (channel.read(target, position + target.position() - offset) < 0) {
+                        throw new EOFException("分片文件被截断");
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                log.warn("读取分片失败，改为从其他分片重建: dir={}, shard={}", dirs[index], index, e);
+                closeQuietly(channel);
+                channels[index] = null;
+                return false;
+            }
+        }
+
+        // 读取条带中任意k个可用分片的分片单元，重建targets中的分片单元
+        private void decodeStripe(long stripe, byte[][] cells, int[] targets) throws IOException {
+            boolean[] present = new boolean[totalShards];
+            int count = 0;
+            for (int i = 0; i < totalShards && count < dataShards; i++) {
+                if (readCell(i, stripe, 0, cells[i], 0, cellSize)) {
+                    present[i] = true;
+                    count++;
+                }
+            }
+            if (count < dataShards) {
+                throw new IOException(String.format("可用分片只有%d个，无法重建条带%d", count, stripe));
+            }
+            codec.reconstruct(cells, present, targets, cellSize);
+        }
+
+        @Override
+        public void close() {
+            closeAll(channels);
+        }
+    }
+
+    /**
+     * 按区间读取对象的输入流：数据分片可用时直接读取，缺失时解码所在条带并缓存，同一条带只解码一次
+     */
+    private class ShardInputStream extends InputStream {
+        private final ShardSet shards;
+        private final long end;
+        private final byte[] buffer;
+        private long position;
+        private int bufferPosition;
+        private int bufferLimit;
+        private byte[][] stripeCells;
+        private long decodedStripe = -1;
+
+        private ShardInputStream(ShardSet shards, long start, long end) {
+            this.shards = shards;
+            this.position = start;
+            this.end = end;
+            this.buffer = new byte[(int) Math.min(shards.cellSize, Math.max(1, end - start))];
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? buffer[bufferPosition++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int read = Math.min(length, bufferLimit - bufferPosition);
+            System.arraycopy(buffer, bufferPosition, bytes, offset, read);
+            bufferPosition += read;
+            return read;
+        }
+
+        // 直接移动读取位置，跳过的区间不读盘也不解码
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            int buffered = bufferLimit - bufferPosition;
+            if (n <= buffered) {
+                bufferPosition += (int) n;
+                return n;
+            }
+            long skipped = buffered + Math.min(n - buffered, end - position);
+            position += skipped - buffered;
+            bufferPosition = bufferLimit = 0;
+            return skipped;
+        }
+
+        @Override
+        public void close() {
+            shards.close();
+        }
+
+        private boolean fill() throws IOException {
+            if (bufferPosition < bufferLimit) {
+                return true;
+            }
+            if (position >= end) {
+                return false;
+            }
+            int cellSize = shards.cellSize;
+            long stripeSize = (long) dataShards * cellSize;
+            long stripe = position / stripeSize;
+            long inStripe = position % stripeSize;
+            int cellIndex = (int) (inStripe / cellSize);
+            int inCell = (int) (inStripe % cellSize);
+            int length = (int) Math.min(Math.min(cellSize - inCell, end - position), buffer.length);
+            if (decodedStripe != stripe && !shards.readCell(cellIndex, stripe, inCell, buffer, 0, length)) {
+                decode(stripe);
+            }
+            if (decodedStripe == stripe) {
+                System.arraycopy(stripeCells[cellIndex], inCell, buffer, 0, length);
+            }
+            bufferPosition = 0;
+            bufferLimit = length;
+            position += length;
+            return true;
+        }
+
+        // 解码条带中全部缺失的数据分片单元，解码过程中又有数据分片读取失败时重新解码
+        private void decode(long stripe) throws IOException {
+            if (stripeCells == null) {
+                stripeCells = new byte[totalShards][shards.cellSize];
+            }
+            decodedStripe = -1;
+            int[] targets;
+            do {
+                targets = missingDataShards();
+                shards.decodeStripe(stripe, stripeCells, targets);
+            } while (missingDataShards().length != targets.length);
+            decodedStripe = stripe;
+        }
+
+        private int[] missingDataShards() {
+            int[] missing = new int[dataShards];
+            int count = 0;
+            for (int j = 0; j < dataShards; j++) {
+                if (shards.channels[j] == null) {
+                    missing[count++] = j;
+                }
+            }
+            return Arrays.copyOf(missing, count);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.cutejiuge.storage.erasure;
+
+import java.util.Arrays;
+
+/**
+ * GF(2^8)有限域运算
+ * <p>
+ * 加法和减法都是异或；乘法使用预先计算好的256x256乘法表，系数固定时先取出对应的一行，
+ * 内层循环只有一次查表和一次异或，是简单的计数循环，JIT可以消除数组边界检查。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午3:10
+ */
+public final class GaloisField {
+    // 本原多项式 x^8 + x^4 + x^3 + x^2 + 1
+    private static final int PRIMITIVE_POLYNOMIAL = 0x11D;
+    private static final int[] LOG_TABLE = new int[256];
+    // 长度为两个周期，两个对数相加后不需要取模
+    private static final byte[] EXP_TABLE = new byte[510];
+    // MULTIPLY_TABLE[a][b] = a * b
+    private static final byte[][] MULTIPLY_TABLE = new byte[256][256];
+
+    static {
+        int x = 1;
+        for (int i = 0; i < 255; i++) {
+            EXP_TABLE[i] = (byte) x;
+            EXP_TABLE[i + 255] = (byte) x;
+            LOG_TABLE[x] = i;
+            x <<= 1;
+            if (x >= 256) {
+                x ^= PRIMITIVE_POLYNOMIAL;
+            }
+        }
+        for (int a = 1; a < 256; a++) {
+            for (int b = 1; b < 256; b++) {
+                MULTIPLY_TABLE[a][b] = EXP_TABLE[LOG_TABLE[a] + LOG_TABLE[b]];
+            }
+        }
+    }
+
+    private GaloisField() {
+    }
+
+    /**
+     * a * b
+     */
+    public static byte multiply(byte a, byte b) {
+        return MULTIPLY_TABLE[a & 0xFF][b & 0xFF];
+    }
+
+    /**
+     * a的乘法逆元
+     */
+    public static byte inverse(byte a) {
+        if (a == 0) {
+            throw new ArithmeticException("0没有乘法逆元");
+        }
+        return EXP_TABLE[255 - LOG_TABLE[a & 0xFF]];
+    }
+
+    /**
+     * target = coefficient * source
+     */
+    public static void multiplyRegion(byte coefficient, byte[] source, int sourceOffset, byte[] target, int targetOffset, int length) {
+        if (coefficient == 0) {
+            Arrays.fill(target, targetOffset, targetOffset + length, (byte) 0);
+        } else if (coefficient == 1) {
+            System.arraycopy(source, sourceOffset, target, targetOffset, length);
+        } else {
+            byte[] row = MULTIPLY_TABLE[coefficient & 0xFF];
+            for (int i = 0; i < length; i++) {
+                target[targetOffset + i] = row[source[sourceOffset + i] & 0xFF];
+            }
+        }
+    }
+
+    /**
+     * target ^= coefficient * source
+     */
+    public static void multiplyAddRegion(byte coefficient, byte[] source, int sourceOffset, byte[] target, int targetOffset, int length) {
+        if (coefficient == 0) {
+            return;
+        }
+        if (coefficient == 1) {
+            for (int i = 0; i < length; i++) {
+                target[targetOffset + i] ^= source[sourceOffset + i];
+            }
+        } else {
+            byte[] row = MULTIPLY_TABLE[coefficient & 0xFF];
+            for (int i = 0; i < length; i++) {
+                target[targetOffset + i] ^= row[source[sourceOffset + i] & 0xFF];
+            }
+        }
+    }
+
+    /**
+     * 高斯-约旦消元求方阵的逆，不修改原矩阵
+     *
+     * @throws IllegalArgumentException 矩阵不可逆
+     */
+    public static byte[][] invert(byte[][] matrix) {
+        int size = matrix.length;
+        byte[][] work = new byte[size][];
+        byte[][] result = new byte[size][size];
+        for (int i = 0; i < size; i++) {
+            work[i] = matrix[i].clone();
+            result[i][i] = 1;
+        }
+        for (int column = 0; column < size; column++) {
+            int pivot = column;
+            while (pivot < size && work[pivot][column] == 0) {
+                pivot++;
+            }
+            if (pivot == size) {
+                throw new IllegalArgumentException("矩阵不可逆");
+            }
+            swap(work, column, pivot);
+            swap(result, column, pivot);
+            byte scale = inverse(work[column][column]);
+            multiplyRegion(scale, work[column], 0, work[column], 0, size);
+            multiplyRegion(scale, result[column], 0, result[column], 0, size);
+            for (int row = 0; row < size; row++) {
+                byte factor = work[row][column];
+                if (row != column && factor != 0) {
+                    multiplyAddRegion(factor, work[column], 0, work[row], 0, size);
+                    multiplyAddRegion(factor, result[column], 0, result[row], 0, size);
+                }
+            }
+        }
+        return result;
+    }
+
+    // ======================== 私有方法 ========================
+    private static void swap(byte[][] matrix, int i, int j) {
+        byte[] temp = matrix[i];
+        matrix[i] = matrix[j];
+        matrix[j] = temp;
+    }
+}
@@ -0,0 +1,134 @@
+package com.cutejiuge.storage.erasure;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reed-Solomon纠删码，k个数据分片生成m个校验分片，任意k个分片都能恢复全部数据
+ * <p>
+ * 生成矩阵的前k行是单位矩阵（数据分片原样保存），后m行是柯西矩阵，保证任意k行组成的子矩阵都可逆。
+ * 解码矩阵只取决于使用了哪些分片，按分片组合缓存，同一批缺失分片的对象只求一次逆矩阵。
+ *
+ * @author cutejiuge
+ * @since 2026/10/19 下午3:20
+ */
+public final class ReedSolomon {
+    // 分片组合用int位图作为缓存key
+    private static final int MAX_TOTAL_SHARDS = 32;
+    // 编解码时每次处理的字节数
+    private static final int BLOCK_SIZE = 8 * 1024;
+
+    private final int dataShards;
+    private final int parityShards;
+    private final int totalShards;
+    private final byte[][] generator;
+    private final Map<Integer, byte[][]> decodeMatrixCache = new ConcurrentHashMap<>();
+
+    public ReedSolomon(int dataShards, int parityShards) {
+        if (dataShards < 1 || parityShards < 1 || dataShards + parityShards > MAX_TOTAL_SHARDS) {
+            throw new IllegalArgumentException(String.format("分片数不合法: dataShards=%d, parityShards=%d，总数不能超过%d",
+                    dataShards, parityShards, MAX_TOTAL_SHARDS));
+        }
+        this.dataShards = dataShards;
+        this.parityShards = parityShards;
+        this.totalShards = dataShards + parityShards;
+        this.generator = new byte[totalShards][dataShards];
+        for (int i = 0; i < dataShards; i++) {
+            generator[i][i] = 1;
+        }
+        // 柯西矩阵 C[p][j] = 1 / (x_p + y_j)，x_p = k + p，y_j = j，两组取值不相交
+        for (int p = 0; p < parityShards; p++) {
+            for (int j = 0; j < dataShards; j++) {
+                generator[dataShards + p][j] = GaloisField.inverse((byte) ((dataShards + p) ^ j));
+            }
+        }
+    }
+
+    public int getDataShards() {
+        return dataShards;
+    }
+
+    public int getParityShards() {
+        return parityShards;
+    }
+
+    public int getTotalShards() {
+        return totalShards;
+    }
+
+    /**
+     * 用前k个分片的[0, length)计算校验分片
+     *
+     * @param shards 全部分片，长度为k+m，每个分片至少length字节
+     */
+    public void encodeParity(byte[][] shards, int length) {
+        for (int p = dataShards; p < totalShards; p++) {
+            combine(generator[p], shards, null, shards[p], length);
+        }
+    }
+
+    /**
+     * 用任意k个可用分片重建指定的分片，可用分片优先选数据分片
+     *
+     * @param shards 全部分片，缺失的分片也要分配好缓冲区
+     * @param present 各分片是否可用
+     * @param targets 需要重建的分片编号
+     * @param length 每个分片参与计算的字节数
+     * @throws IllegalArgumentException 可用分片不足k个
+     */
+    public void reconstruct(byte[][] shards, boolean[] present, int[] targets, int length) {
+        int[] chosen = new int[dataShards];
+        int count = 0;
+        int mask = 0;
+        for (int i = 0; i < totalShards && count < dataShards; i++) {
+            if (present[i]) {
+                chosen[count++] = i;
+                mask |= 1 << i;
+            }
+        }
+        if (count < dataShards) {
+            throw new IllegalArgumentException(String.format("可用分片只有%d个，至少需要%d个", count, dataShards));
+        }
+        byte[][] decodeMatrix = decodeMatrixCache.computeIfAbsent(mask, key -> {
+            byte[][] subMatrix = new byte[dataShards][];
+            for (int r = 0; r < dataShards; r++) {
+                subMatrix[r] = generator[chosen[r]];
+            }
+            return GaloisField.invert(subMatrix);
+        });
+        for (int target : targets) {
+            byte[] coefficients;
+            if (target < dataShards) {
+                coefficients = decodeMatrix[target];
+            } else {
+                // 校验分片 = 生成矩阵对应行 x 解码矩阵 x 可用分片
+                coefficients = new byte[dataShards];
+                for (int r = 0; r < dataShards; r++) {
+                    byte value = 0;
+                    for (int j = 0; j < dataShards; j++) {
+                        value ^= GaloisField.multiply(generator[target][j], decodeMatrix[j][r]);
+                    }
+                    coefficients[r] = value;
+                }
+            }
+            combine(coefficients, shards, chosen, shards[target], length);
+        }
+    }
+
+    // ======================== 私有方法 ========================
+    // target = sum(coefficients[r] * shards[inputs[r]])，inputs为null时依次使用前k个分片；
+    // 按块处理，目标块在累加k次的过程中一直留在L1缓存中
+    private void combine(byte[] coefficients, byte[][] shards, int[] inputs, byte[] target, int length) {
+        for (int offset = 0; offset < length; offset += BLOCK_SIZE) {
+            int blockLength = Math.min(BLOCK_SIZE, length - offset);
+            for (int r = 0; r < dataShards; r++) {
+                byte[] source = shards[inputs == null ? r : inputs[r]];
+                if (r == 0) {
+                    GaloisField.multiplyRegion(coefficients[r], source, offset, target, offset, blockLength);
+                } else {
+                    GaloisField.multiplyAddRegion(coefficients[r], source, offset, target, offset, blockLength);
+                }
+            }
+        }
+    }
+}
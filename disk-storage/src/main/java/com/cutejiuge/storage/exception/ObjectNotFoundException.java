@@ -0,0 +1,19 @@
+package com.cutejiuge.storage.exception;
+
+import java.io.IOException;
+import java.io.Serial;
+
+/**
+ * 对象不存在
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午6:14
+ */
+public class ObjectNotFoundException extends IOException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public ObjectNotFoundException(String key) {
+        super("对象不存在: " + key);
+    }
+}
@@ -0,0 +1,28 @@
+package com.cutejiuge.storage.exception;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.Serial;
+
+/**
+ * 写入的数据量与声明的大小不一致
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午6:15
+ */
+@Getter
+public class ObjectSizeMismatchException extends IOException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 声明的大小
+     */
+    private final long expectedSize;
+
+    public ObjectSizeMismatchException(String key, long expectedSize) {
+        super(String.format("对象大小不正确，期望%d字节: %s", expectedSize, key));
+        this.expectedSize = expectedSize;
+    }
+}
@@ -0,0 +1,331 @@
+package com.cutejiuge.storage.local;
+
+import com.cutejiuge.storage.AbstractObjectStorage;
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.exception.ObjectNotFoundException;
+import com.cutejiuge.storage.exception.ObjectSizeMismatchException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 本地文件系统对象存储
+ * <p>
+ * 对象key直接映射为根目录下的相对路径，与改造前的目录结构完全一致，已有数据无需迁移。
+ * 写入先写同目录下的临时文件再原子改名；数据搬运全部使用FileChannel.transferFrom/transferTo，
+ * 文件间拼接和下载由内核完成拷贝，不经过堆内存。
+ * 分段上传的分段放在根目录下的 .multipart/{uploadId}/ 中，完成时拼接后原子改名为目标对象。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午6:30
+ */
+public class LocalFileSystemStorage extends AbstractObjectStorage {
+    /**
+     * 存储类型
+     */
+    public static final String TYPE = "local";
+
+    // 写入中的临时文件后缀
+    private static final String WRITING_SUFFIX = ".writing";
+    // 分段上传目录
+    private static final String MULTIPART_DIR = ".multipart";
+    // 分段上传目录中记录目标key的文件
+    private static final String MULTIPART_KEY_FILE = "target.key";
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path root;
+
+    /**
+     * 是否在拼接完成后fsync，保证对象在断电后仍然完整
+     */
+    private final boolean forceOnCompose;
+
+    public LocalFileSystemStorage(Path root, boolean forceOnCompose, int asyncThreads, int asyncQueueCapacity) throws IOException {
+        super(asyncThreads, asyncQueueCapacity);
+        this.root = Files.createDirectories(root).toAbsolutePath().normalize();
+        this.forceOnCompose = forceOnCompose;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public ObjectMetadata put(String key, InputStream input, long size) throws IOException {
+        Path target = resolve(key);
+        Path writingFile = createWritingFile(target);
+        try {
+            try (FileChannel channel = FileChannel.open(writingFile, StandardOpenOption.WRITE)) {
+                writeExactly(Channels.newChannel(input), channel, size, key);
+            }
+            return commit(writingFile, target, key);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(writingFile);
+            throw e;
+        }
+    }
+
+    @Override
+    public ObjectMetadata put(String key, ByteBuffer data) throws IOException {
+        Path target = resolve(key);
+        Path writingFile = createWritingFile(target);
+        try {
+            try (FileChannel channel = FileChannel.open(writingFile, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = data.duplicate();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            return commit(writingFile, target, key);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(writingFile);
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        try {
+            return Files.newInputStream(resolve(key));
+        } catch (NoSuchFileException e) {
+            throw new ObjectNotFoundException(key);
+        }
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        checkRange(offset, length);
+        FileChannel channel = openForRead(key);
+        try {
+            channel.position(offset);
+            return BoundedInputStream.builder()
+                    .setInputStream(Channels.newInputStream(channel))
+                    .setMaxCount(length)
+                    .get();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long transferTo(String key, long offset, long length, WritableByteChannel target) throws IOException {
+        checkRange(offset, length);
+        try (FileChannel channel = openForRead(key)) {
+            long end = Math.min(offset + length, channel.size());
+            long position = offset;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("对象在传输过程中被截断: " + key);
+                }
+                position += transferred;
+            }
+            return Math.max(0, end - offset);
+        }
+    }
+
+    @Override
+    public ObjectMetadata stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            return attributes.isRegularFile()
+                    ? new ObjectMetadata(key, attributes.size(), attributes.lastModifiedTime().toMillis())
+                    : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public int deleteByPrefix(String prefix) throws IOException {
+        Path directory = resolve(checkPrefix(prefix).substring(0, prefix.length() - 1));
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        int deleted;
+        try (Stream<Path> files = Files.walk(directory)) {
+            deleted = (int) files.filter(Files::isRegularFile).count();
+        }
+        FileUtils.deleteDirectory(directory.toFile());
+        return deleted;
+    }
+
+    @Override
+    public ObjectMetadata compose(String key, List<String> sourceKeys) throws IOException {
+        return concat(key, sourceKeys.stream().map(this::resolve).toList());
+    }
+
+    @Override
+    public String initiateMultipart(String key) throws IOException {
+        checkKey(key);
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Path uploadDir = getMultipartDir(uploadId);
+        Files.createDirectories(uploadDir);
+        Files.writeString(uploadDir.resolve(MULTIPART_KEY_FILE), key, StandardCharsets.UTF_8);
+        return uploadId;
+    }
+
+    @Override
+    public ObjectMetadata uploadPart(String uploadId, int partNumber, InputStream input, long size) throws IOException {
+        checkPartNumber(partNumber);
+        Path partFile = getExistingMultipartDir(uploadId).resolve(partNumber + PART_SUFFIX);
+        Path writingFile = createWritingFile(partFile);
+        try {
+            try (FileChannel channel = FileChannel.open(writingFile, StandardOpenOption.WRITE)) {
+                writeExactly(Channels.newChannel(input), channel, size, uploadId + "#" + partNumber);
+            }
+            Files.move(writingFile, partFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new ObjectMetadata(uploadId + "#" + partNumber, size, System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(writingFile);
+            throw e;
+        }
+    }
+
+    @Override
+    public ObjectMetadata completeMultipart(String uploadId, List<Integer> partNumbers) throws IOException {
+        Path uploadDir = getExistingMultipartDir(uploadId);
+        String key = Files.readString(uploadDir.resolve(MULTIPART_KEY_FILE), StandardCharsets.UTF_8);
+        List<Path> parts = partNumbers.stream().map(partNumber -> {
+            checkPartNumber(partNumber);
+            return uploadDir.resolve(partNumber + PART_SUFFIX);
+        }).toList();
+        ObjectMetadata metadata = concat(key, parts);
+        FileUtils.deleteQuietly(uploadDir.toFile());
+        return metadata;
+    }
+
+    @Override
+    public void abortMultipart(String uploadId) throws IOException {
+        FileUtils.deleteDirectory(getMultipartDir(uploadId).toFile());
+    }
+
+    /**
+     * 对象文件的绝对路径，对象不存在时返回null
+     */
+    @Override
+    public Path getLocalPath(String key) {
+        Path path = resolve(key);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    // ======================== 私有方法 ========================
+    // 按顺序把多个文件拼接到目标对象，文件间拷贝由内核完成
+    private ObjectMetadata concat(String key, List<Path> sources) throws IOException {
+        Path target = resolve(key);
+        Path writingFile = createWritingFile(target);
+        try {
+            try (FileChannel channel = FileChannel.open(writingFile, StandardOpenOption.WRITE)) {
+                for (Path source : sources) {
+                    try (FileChannel sourceChannel = FileChannel.open(source, StandardOpenOption.READ)) {
+                        long size = sourceChannel.size();
+                        long transferred = 0;
+                        while (transferred < size) {
+                            transferred += sourceChannel.transferTo(transferred, size - transferred, channel);
+                        }
+                    } catch (NoSuchFileException e) {
+                        throw new ObjectNotFoundException(root.relativize(source).toString());
+                    }
+                }
+                if (forceOnCompose) {
+                    channel.force(false);
+                }
+            }
+            return commit(writingFile, target, key);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(writingFile);
+            throw e;
+        }
+    }
+
+    // 从源通道恰好写入size个字节，transferFrom使用临时直接内存中转，不占用堆
+    private void writeExactly(ReadableByteChannel source, FileChannel target, long size, String key) throws IOException {
+        long written = 0;
+        while (written < size) {
+            long transferred = target.transferFrom(source, written, size - written);
+            if (transferred <= 0) {
+                break;
+            }
+            written += transferred;
+        }
+        if (written != size || source.read(ByteBuffer.allocate(1)) != -1) {
+            throw new ObjectSizeMismatchException(key, size);
+        }
+    }
+
+    // 在目标文件同目录下创建唯一的临时文件，保证原子改名不跨文件系统
+    private Path createWritingFile(Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path writingFile = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID().toString().replace("-", "") + WRITING_SUFFIX);
+        return Files.createFile(writingFile);
+    }
+
+    // 临时文件原子改名为目标文件
+    private ObjectMetadata commit(Path writingFile, Path target, String key) throws IOException {
+        Files.move(writingFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        BasicFileAttributes attributes = Files.readAttributes(target, BasicFileAttributes.class);
+        return new ObjectMetadata(key, attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    private FileChannel openForRead(String key) throws IOException {
+        try {
+            return FileChannel.open(resolve(key), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new ObjectNotFoundException(key);
+        }
+    }
+
+    // key映射为根目录下的路径，结果必须仍在根目录内，且不能落在分段上传目录中
+    private Path resolve(String key) {
+        Path path = root.resolve(checkKey(key)).normalize();
+        if (!path.startsWith(root) || path.equals(root) || path.startsWith(root.resolve(MULTIPART_DIR))) {
+            throw new IllegalArgumentException("对象key不合法: " + key);
+        }
+        return path;
+    }
+
+    private Path getMultipartDir(String uploadId) {
+        if (uploadId == null || !uploadId.matches("^[0-9a-f]{32}$")) {
+            throw new IllegalArgumentException("分段上传ID不合法: " + uploadId);
+        }
+        return root.resolve(MULTIPART_DIR).resolve(uploadId);
+    }
+
+    private Path getExistingMultipartDir(String uploadId) throws IOException {
+        Path uploadDir = getMultipartDir(uploadId);
+        if (!Files.isDirectory(uploadDir)) {
+            throw new ObjectNotFoundException(MULTIPART_DIR + "/" + uploadId);
+        }
+        return uploadDir;
+    }
+
+    private void checkPartNumber(int partNumber) {
+        if (partNumber < 1 || partNumber > 10000) {
+            throw new IllegalArgumentException("分段号必须在1到10000之间: " + partNumber);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.cutejiuge.storage.memory;
+
+import com.cutejiuge.storage.AbstractObjectStorage;
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.exception.ObjectNotFoundException;
+import com.cutejiuge.storage.exception.ObjectSizeMismatchException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 内存对象存储
+ * <p>
+ * 对象保存在堆内存中，只用于本机调试、压测时排除磁盘的影响，以及作为其他实现的行为参照，不能用于生产。
+ * 写入时先完整读出数据再替换引用，与其他实现一样保证读方看不到写了一半的对象。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午6:50
+ */
+public class InMemoryObjectStorage extends AbstractObjectStorage {
+    /**
+     * 存储类型
+     */
+    public static final String TYPE = "memory";
+
+    // 单个对象的最大大小，超过时无法放进一个字节数组
+    private static final long MAX_OBJECT_SIZE = Integer.MAX_VALUE - 8;
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final Map<String, MultipartUpload> multipartUploads = new ConcurrentHashMap<>();
+
+    public InMemoryObjectStorage(int asyncThreads, int asyncQueueCapacity) {
+        super(asyncThreads, asyncQueueCapacity);
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public ObjectMetadata put(String key, InputStream input, long size) throws IOException {
+        checkKey(key);
+        return store(key, readExactly(input, size, key));
+    }
+
+    @Override
+    public ObjectMetadata put(String key, ByteBuffer data) {
+        checkKey(key);
+        ByteBuffer buffer = data.duplicate();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return store(key, bytes);
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return new ByteArrayInputStream(load(key).data);
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        checkRange(offset, length);
+        byte[] data = load(key).data;
+        int start = (int) Math.min(offset, data.length);
+        return new ByteArrayInputStream(data, start, (int) Math.min(length, data.length - start));
+    }
+
+    @Override
+    public long transferTo(String key, long offset, long length, WritableByteChannel target) throws IOException {
+        checkRange(offset, length);
+        byte[] data = load(key).data;
+        int start = (int) Math.min(offset, data.length);
+        ByteBuffer buffer = ByteBuffer.wrap(data, start, (int) Math.min(length, data.length - start));
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        return written;
+    }
+
+    @Override
+    public ObjectMetadata stat(String key) {
+        StoredObject object = objects.get(checkKey(key));
+        return object == null ? null : new ObjectMetadata(key, object.data.length, object.lastModified);
+    }
+
+    @Override
+    public boolean delete(String key) {
+        return objects.remove(checkKey(key)) != null;
+    }
+
+    @Override
+    public int deleteByPrefix(String prefix) {
+        checkPrefix(prefix);
+        int[] deleted = new int[1];
+        objects.keySet().removeIf(key -> {
+            if (key.startsWith(prefix)) {
+                deleted[0]++;
+                return true;
+            }
+            return false;
+        });
+        return deleted[0];
+    }
+
+    @Override
+    public ObjectMetadata compose(String key, List<String> sourceKeys) throws IOException {
+        checkKey(key);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (String sourceKey : sourceKeys) {
+            byte[] data = load(sourceKey).data;
+            checkComposedSize(output.size(), data.length, key);
+            output.write(data);
+        }
+        return store(key, output.toByteArray());
+    }
+
+    @Override
+    public String initiateMultipart(String key) {
+        checkKey(key);
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        multipartUploads.put(uploadId, new MultipartUpload(key));
+        return uploadId;
+    }
+
+    @Override
+    public ObjectMetadata uploadPart(String uploadId, int partNumber, InputStream input, long size) throws IOException {
+        if (partNumber < 1 || partNumber > 10000) {
+            throw new IllegalArgumentException("分段号必须在1到10000之间: " + partNumber);
+        }
+        MultipartUpload upload = getMultipartUpload(uploadId);
+        upload.parts.put(partNumber, readExactly(input, size, uploadId + "#" + partNumber));
+        return new ObjectMetadata(uploadId + "#" + partNumber, size, System.currentTimeMillis());
+    }
+
+    @Override
+    public ObjectMetadata completeMultipart(String uploadId, List<Integer> partNumbers) throws IOException {
+        MultipartUpload upload = getMultipartUpload(uploadId);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (Integer partNumber : partNumbers) {
+            byte[] part = upload.parts.get(partNumber);
+            if (part == null) {
+                throw new ObjectNotFoundException(uploadId + "#" + partNumber);
+            }
+            checkComposedSize(output.size(), part.length, upload.key);
+            output.write(part);
+        }
+        ObjectMetadata metadata = store(upload.key, output.toByteArray());
+        multipartUploads.remove(uploadId);
+        return metadata;
+    }
+
+    @Override
+    public void abortMultipart(String uploadId) {
+        multipartUploads.remove(uploadId);
+    }
+
+    /**
+     * 当前保存的对象数
+     */
+    public int getObjectCount() {
+        return objects.size();
+    }
+
+    // ======================== 私有方法 ========================
+    private ObjectMetadata store(String key, byte[] data) {
+        StoredObject object = new StoredObject(data, System.currentTimeMillis());
+        objects.put(key, object);
+        return new ObjectMetadata(key, data.length, object.lastModified);
+    }
+
+    private StoredObject load(String key) throws ObjectNotFoundException {
+        StoredObject object = objects.get(checkKey(key));
+        if (object == null) {
+            throw new ObjectNotFoundException(key);
+        }
+        return object;
+    }
+
+    private MultipartUpload getMultipartUpload(String uploadId) throws ObjectNotFoundException {
+        MultipartUpload upload = multipartUploads.get(uploadId);
+        if (upload == null) {
+            throw new ObjectNotFoundException("multipart/" + uploadId);
+        }
+        return upload;
+    }
+
+    // 从输入流恰好读取size个字节
+    private byte[] readExactly(InputStream input, long size, String key) throws IOException {
+        if (size < 0 || size > MAX_OBJECT_SIZE) {
+            throw new ObjectSizeMismatchException(key, size);
+        }
+        byte[] data = input.readNBytes((int) size);
+        if (data.length != size || input.read() != -1) {
+            throw new ObjectSizeMismatchException(key, size);
+        }
+        return data;
+    }
+
+    private void checkComposedSize(long current, long append, String key) throws IOException {
+        if (current + append > MAX_OBJECT_SIZE) {
+            throw new IOException("对象超过内存存储的大小上限: " + key);
+        }
+    }
+
+    /**
+     * 保存的对象，数据写入后不再修改
+     */
+    private static class StoredObject {
+        private final byte[] data;
+        private final long lastModified;
+
+        StoredObject(byte[] data, long lastModified) {
+            this.data = data;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * 进行中的分段上传
+     */
+    private static class MultipartUpload {
+        private final String key;
+        private final Map<Integer, byte[]> parts = new ConcurrentSkipListMap<>();
+
+        MultipartUpload(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.cutejiuge.storage.contract;
+
+import com.cutejiuge.storage.ObjectMetadata;
+import com.cutejiuge.storage.ObjectStorage;
+import com.cutejiuge.storage.erasure.ErasureCodedStorage;
+import com.cutejiuge.storage.exception.ObjectNotFoundException;
+import com.cutejiuge.storage.exception.ObjectSizeMismatchException;
+import com.cutejiuge.storage.local.LocalFileSystemStorage;
+import com.cutejiuge.storage.memory.InMemoryObjectStorage;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 对象存储契约测试
+ * <p>
+ * 任何ObjectStorage实现都应该通过同一套测试：先逐项验证语义（读写一致、区间读取、大小不符时不留下对象、
+ * 覆盖写原子可见、拼接、分段上传、删除、异步方法、非法key），再测量大对象吞吐、小对象stat的QPS和区间读取的延迟，
+ * 测量结果通过TestReporter输出，便于在切换后端或调整I/O参数前后做对比。新增存储实现时在storages()中加入即可。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午7:20
+ */
+class ObjectStorageContractTest {
+    // 吞吐测试的对象大小和数量
+    private static final int LARGE_OBJECT_SIZE = 8 * 1024 * 1024;
+    private static final int LARGE_OBJECT_COUNT = 16;
+    // stat和区间读取测试的次数
+    private static final int SMALL_OPERATION_COUNT = 2000;
+    private static final int RANGE_LENGTH = 64 * 1024;
+    // 性能测量的时间上限，只用于发现数量级的退化
+    private static final Duration MEASURE_TIMEOUT = Duration.ofMinutes(2);
+
+    @TempDir
+    Path tempDir;
+
+    private final Random random = new Random(20261018L);
+    private ObjectStorage storage;
+
+    /**
+     * 参与契约测试的存储实现
+     */
+    static Stream<Named<StorageFactory>> storages() {
+        return Stream.of(
+                Named.of(LocalFileSystemStorage.TYPE, dir -> new LocalFileSystemStorage(dir, true, 2, 100)),
+                Named.of(InMemoryObjectStorage.TYPE, dir -> new InMemoryObjectStorage(2, 100)),
+                // 单机上用多个目录模拟多块磁盘，4+2外加1个备用目录
+                Named.of(ErasureCodedStorage.TYPE, dir -> {
+                    List<Path> dataDirs = new ArrayList<>();
+                    for (int i = 0; i < 7; i++) {
+                        dataDirs.add(dir.resolve("disk" + i));
+                    }
+                    return new ErasureCodedStorage(dataDirs, 4, 2, 256 * 1024, 0, true, 2, 100);
+                }));
+    }
+
+    @AfterEach
+    void closeStorage() throws IOException {
+        if (storage != null) {
+            storage.close();
+        }
+    }
+
+    // ======================== 语义校验 ========================
+    @ContractTest
+    void roundTrip(StorageFactory factory) throws IOException {
+        open(factory);
+        byte[] data = randomBytes(1024 * 1024 + 17);
+        ObjectMetadata metadata = storage.put(key("round-trip/a.bin"), new ByteArrayInputStream(data), data.length);
+        assertEquals(data.length, metadata.getSize(), "put返回的大小不正确");
+        assertArrayEquals(data, readAll(key("round-trip/a.bin")), "读出的内容与写入的不一致");
+        ObjectMetadata stat = storage.stat(key("round-trip/a.bin"));
+        assertNotNull(stat, "stat返回null");
+        assertEquals(data.length, stat.getSize(), "stat返回的大小不正确");
+        assertTrue(storage.exists(key("round-trip/a.bin")), "exists返回false");
+        // 空对象
+        storage.put(key("round-trip/empty"), ByteBuffer.allocate(0));
+        assertEquals(0, readAll(key("round-trip/empty")).length, "空对象读出了数据");
+        // put(ByteBuffer)不改变缓冲区的position
+        ByteBuffer buffer = ByteBuffer.wrap(data, 100, 1000);
+        storage.put(key("round-trip/buffer"), buffer);
+        assertEquals(100, buffer.position(), "put改变了缓冲区的position");
+        assertArrayEquals(Arrays.copyOfRange(data, 100, 1100), readAll(key("round-trip/buffer")), "缓冲区写入的内容不一致");
+    }
+
+    @ContractTest
+    void sizeMismatch(StorageFactory factory) throws IOException {
+        open(factory);
+        byte[] data = randomBytes(4096);
+        assertThrows(ObjectSizeMismatchException.class,
+                () -> storage.put(key("mismatch/short"), new ByteArrayInputStream(data), data.length + 1));
+        assertThrows(ObjectSizeMismatchException.class,
+                () -> storage.put(key("mismatch/long"), new ByteArrayInputStream(data), data.length - 1));
+        assertNull(storage.stat(key("mismatch/short")), "大小不符的写入留下了对象");
+        assertNull(storage.stat(key("mismatch/long")), "大小不符的写入留下了对象");
+        // 大小不符的覆盖写不影响原对象
+        storage.put(key("mismatch/keep"), ByteBuffer.wrap(data));
+        assertThrows(ObjectSizeMismatchException.class,
+                () -> storage.put(key("mismatch/keep"), new ByteArrayInputStream(new byte[10]), 11));
+        assertArrayEquals(data, readAll(key("mismatch/keep")), "失败的覆盖写破坏了原对象");
+    }
+
+    @ContractTest
+    void rangeRead(StorageFactory factory) throws IOException {
+        open(factory);
+        byte[] data = randomBytes(300_000);
+        storage.put(key("range/a.bin"), ByteBuffer.wrap(data));
+        long[][] ranges = {{0, 1}, {0, data.length}, {12345, 65536}, {data.length - 10, 10}, {data.length - 10, 100}, {data.length, 10}};
+        for (long[] range : ranges) {
+            int from = (int) Math.min(range[0], data.length);
+            int to = (int) Math.min(range[0] + range[1], data.length);
+            byte[] expected = Arrays.copyOfRange(data, from, to);
+            try (InputStream input = storage.get(key("range/a.bin"), range[0], range[1])) {
+                assertArrayEquals(expected, input.readAllBytes(), "区间读取内容不正确: " + Arrays.toString(range));
+            }
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            long transferred = storage.transferTo(key("range/a.bin"), range[0], range[1], Channels.newChannel(output));
+            assertEquals(expected.length, transferred, "transferTo返回的字节数不正确: " + Arrays.toString(range));
+            assertArrayEquals(expected, output.toByteArray(), "transferTo内容不正确: " + Arrays.toString(range));
+        }
+        assertThrows(ObjectNotFoundException.class, () -> storage.get(key("range/missing"), 0, 1));
+    }
+
+    @ContractTest
+    void atomicOverwrite(StorageFactory factory) throws Exception {
+        open(factory);
+        byte[] first = new byte[2 * 1024 * 1024];
+        byte[] second = new byte[2 * 1024 * 1024];
+        Arrays.fill(first, (byte) 1);
+        Arrays.fill(second, (byte) 2);
+        String key = key("atomic/a.bin");
+        storage.put(key, ByteBuffer.wrap(first));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20; i++) {
+                    storage.put(key, ByteBuffer.wrap(i % 2 == 0 ? second : first));
+                }
+                return null;
+            }));
+            for (int reader = 0; reader < 3; reader++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        byte[] read = readAll(key);
+                        assertTrue(Arrays.equals(read, first) || Arrays.equals(read, second), "读到了写了一半的对象");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @ContractTest
+    void compose(StorageFactory factory) throws IOException {
+        open(factory);
+        byte[] a = randomBytes(1000);
+        byte[] b = randomBytes(0);
+        byte[] c = randomBytes(70_000);
+        storage.put(key("compose/a"), ByteBuffer.wrap(a));
+        storage.put(key("compose/b"), ByteBuffer.wrap(b));
+        storage.put(key("compose/c"), ByteBuffer.wrap(c));
+        ObjectMetadata metadata = storage.compose(key("compose/all"), List.of(key("compose/c"), key("compose/a"), key("compose/b"), key("compose/a")));
+        assertEquals(c.length + 2L * a.length, metadata.getSize(), "拼接后的大小不正确");
+        assertArrayEquals(concat(c, a, b, a), readAll(key("compose/all")), "拼接后的内容不正确");
+        assertTrue(storage.exists(key("compose/a")), "拼接后源对象被删除");
+        assertThrows(ObjectNotFoundException.class,
+                () -> storage.compose(key("compose/bad"), List.of(key("compose/a"), key("compose/missing"))));
+        assertNull(storage.stat(key("compose/bad")), "拼接失败留下了对象");
+    }
+
+    @ContractTest
+    void multipart(StorageFactory factory) throws IOException {
+        open(factory);
+        byte[] part1 = randomBytes(5000);
+        byte[] part2 = randomBytes(7000);
+        byte[] part3 = randomBytes(10);
+        String uploadId = storage.initiateMultipart(key("multipart/a.bin"));
+        // 乱序上传，重复上传覆盖
+        storage.uploadPart(uploadId, 3, new ByteArrayInputStream(part3), part3.length);
+        storage.uploadPart(uploadId, 1, new ByteArrayInputStream(part2), part2.length);
+        storage.uploadPart(uploadId, 1, new ByteArrayInputStream(part1), part1.length);
+        storage.uploadPart(uploadId, 2, new ByteArrayInputStream(part2), part2.length);
+        assertNull(storage.stat(key("multipart/a.bin")), "分段上传完成前对象已可见");
+        ObjectMetadata metadata = storage.completeMultipart(uploadId, List.of(1, 2, 3));
+        assertEquals(part1.length + part2.length + part3.length, metadata.getSize(), "分段上传后的大小不正确");
+        assertArrayEquals(concat(part1, part2, part3), readAll(key("multipart/a.bin")), "分段上传后的内容不正确");
+        // 取消后不能再完成
+        String abortedId = storage.initiateMultipart(key("multipart/aborted.bin"));
+        storage.uploadPart(abortedId, 1, new ByteArrayInputStream(part1), part1.length);
+        storage.abortMultipart(abortedId);
+        assertThrows(ObjectNotFoundException.class, () -> storage.completeMultipart(abortedId, List.of(1)));
+        assertNull(storage.stat(key("multipart/aborted.bin")), "取消的分段上传留下了对象");
+    }
+
+    @ContractTest
+    void delete(StorageFactory factory) throws IOException {
+        open(factory);
+        storage.put(key("delete/a"), ByteBuffer.wrap(randomBytes(10)));
+        storage.put(key("delete/dir/b"), ByteBuffer.wrap(randomBytes(10)));
+        storage.put(key("delete/dir/sub/c"), ByteBuffer.wrap(randomBytes(10)));
+        storage.put(key("delete/dir2/d"), ByteBuffer.wrap(randomBytes(10)));
+        assertTrue(storage.delete(key("delete/a")), "删除已存在的对象返回false");
+        assertFalse(storage.delete(key("delete/a")), "删除不存在的对象返回true");
+        assertNull(storage.stat(key("delete/a")), "删除后stat仍返回元数据");
+        assertThrows(ObjectNotFoundException.class, () -> storage.get(key("delete/a")));
+        assertEquals(2, storage.deleteByPrefix(key("delete/dir/")), "按前缀删除的数量不正确");
+        assertNotNull(storage.stat(key("delete/dir2/d")), "按前缀删除误删了相邻前缀");
+        assertEquals(0, storage.deleteByPrefix(key("delete/none/")), "删除不存在的前缀返回了非0");
+    }
+
+    @ContractTest
+    void async(StorageFactory factory) throws Exception {
+        open(factory);
+        byte[] data = randomBytes(100_000);
+        ObjectMetadata metadata = storage.putAsync(key("async/a"), ByteBuffer.wrap(data)).get(30, TimeUnit.SECONDS);
+        assertEquals(data.length, metadata.getSize(), "异步写入的大小不正确");
+        byte[] range = storage.getAsync(key("async/a"), 10, 1000).get(30, TimeUnit.SECONDS);
+        assertArrayEquals(Arrays.copyOfRange(data, 10, 1010), range, "异步读取的内容不正确");
+        assertNotNull(storage.statAsync(key("async/a")).get(30, TimeUnit.SECONDS), "异步stat返回null");
+        assertTrue(storage.deleteAsync(key("async/a")).get(30, TimeUnit.SECONDS), "异步删除返回false");
+        CompletableFuture<byte[]> missing = storage.getAsync(key("async/a"), 0, 1);
+        CompletionException e = assertThrows(CompletionException.class, missing::join, "异步读取不存在的对象没有失败");
+        assertInstanceOf(ObjectNotFoundException.class, e.getCause(), "异步读取失败的原因不正确");
+    }
+
+    @ContractTest
+    void illegalKeys(StorageFactory factory) throws IOException {
+        open(factory);
+        for (String key : List.of("", "/abs", "a//b", "a/../../b", "../a", "a/./b", "a\\b", "a/")) {
+            assertThrows(IllegalArgumentException.class, () -> storage.stat(key), "非法key没有被拒绝: " + key);
+        }
+        assertThrows(IllegalArgumentException.class, () -> storage.deleteByPrefix("no-slash"));
+    }
+
+    // ======================== 性能测量 ========================
+    @ContractTest
+    void throughput(StorageFactory factory, TestReporter reporter) throws IOException {
+        open(factory);
+        byte[] data = randomBytes(LARGE_OBJECT_SIZE);
+        long totalBytes = (long) LARGE_OBJECT_SIZE * LARGE_OBJECT_COUNT;
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < LARGE_OBJECT_COUNT; i++) {
+            keys.add(key("throughput/" + i));
+        }
+        long putNanos = measure(() -> {
+            for (String key : keys) {
+                storage.put(key, new ByteArrayInputStream(data), data.length);
+            }
+        });
+        long getNanos = measure(() -> {
+            byte[] buffer = new byte[64 * 1024];
+            for (String key : keys) {
+                long read = 0;
+                try (InputStream input = storage.get(key)) {
+                    for (int n; (n = input.read(buffer)) >= 0; ) {
+                        read += n;
+                    }
+                }
+                assertEquals(LARGE_OBJECT_SIZE, read, "读出的字节数不正确");
+            }
+        });
+        long transferNanos = measure(() -> {
+            for (String key : keys) {
+                long transferred = storage.transferTo(key, 0, LARGE_OBJECT_SIZE, Channels.newChannel(NullOutputStream.INSTANCE));
+                assertEquals(LARGE_OBJECT_SIZE, transferred, "transferTo的字节数不正确");
+            }
+        });
+        long composeNanos = measure(() -> assertEquals(totalBytes, storage.compose(key("throughput/composed"), keys).getSize()));
+        reporter.publishEntry("put吞吐(MB/s)", format(megabytesPerSecond(totalBytes, putNanos)));
+        reporter.publishEntry("get吞吐(MB/s)", format(megabytesPerSecond(totalBytes, getNanos)));
+        reporter.publishEntry("transferTo吞吐(MB/s)", format(megabytesPerSecond(totalBytes, transferNanos)));
+        reporter.publishEntry("compose吞吐(MB/s)", format(megabytesPerSecond(totalBytes, composeNanos)));
+    }
+
+    @ContractTest
+    void smallOperations(StorageFactory factory, TestReporter reporter) throws IOException {
+        open(factory);
+        storage.put(key("small/a"), ByteBuffer.wrap(randomBytes(1024)));
+        storage.put(key("small/large"), ByteBuffer.wrap(randomBytes(LARGE_OBJECT_SIZE)));
+        long statNanos = measure(() -> {
+            for (int i = 0; i < SMALL_OPERATION_COUNT; i++) {
+                assertNotNull(storage.stat(key("small/a")));
+            }
+        });
+        long statMissingNanos = measure(() -> {
+            for (int i = 0; i < SMALL_OPERATION_COUNT; i++) {
+                assertNull(storage.stat(key("small/missing-" + i)));
+            }
+        });
+        // 区间读取延迟，模拟拖动进度条
+        long[] latencies = new long[SMALL_OPERATION_COUNT];
+        measure(() -> {
+            byte[] buffer = new byte[RANGE_LENGTH];
+            for (int i = 0; i < SMALL_OPERATION_COUNT; i++) {
+                long offset = random.nextInt(LARGE_OBJECT_SIZE - RANGE_LENGTH);
+                long operationStart = System.nanoTime();
+                try (InputStream input = storage.get(key("small/large"), offset, RANGE_LENGTH)) {
+                    assertEquals(RANGE_LENGTH, input.readNBytes(buffer, 0, RANGE_LENGTH), "区间读取的字节数不正确");
+                }
+                latencies[i] = System.nanoTime() - operationStart;
+            }
+        });
+        Arrays.sort(latencies);
+        reporter.publishEntry("stat(次/s)", format(SMALL_OPERATION_COUNT * 1e9 / statNanos));
+        reporter.publishEntry("stat不存在的对象(次/s)", format(SMALL_OPERATION_COUNT * 1e9 / statMissingNanos));
+        reporter.publishEntry("64KB区间读取p50(us)", format(latencies[latencies.length / 2] / 1e3));
+        reporter.publishEntry("64KB区间读取p99(us)", format(latencies[(int) (latencies.length * 0.99)] / 1e3));
+    }
+
+    // ======================== 私有方法 ========================
+    private void open(StorageFactory factory) throws IOException {
+        storage = factory.create(tempDir);
+    }
+
+    // 在时间上限内执行一段测量，返回耗时（纳秒）
+    private long measure(Action action) {
+        return assertTimeout(MEASURE_TIMEOUT, () -> {
+            long startTime = System.nanoTime();
+            action.run();
+            return System.nanoTime() - startTime;
+        });
+    }
+
+    private String key(String name) {
+        return "contract/" + name;
+    }
+
+    private byte[] readAll(String key) throws IOException {
+        try (InputStream input = storage.get(key)) {
+            return input.readAllBytes();
+        }
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private byte[] concat(byte[]... arrays) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (byte[] array : arrays) {
+            output.writeBytes(array);
+        }
+        return output.toByteArray();
+    }
+
+    private double megabytesPerSecond(long bytes, long nanos) {
+        return bytes / 1024.0 / 1024.0 / (nanos / 1e9);
+    }
+
+    private String format(double value) {
+        return String.format("%.2f", value);
+    }
+
+    /**
+     * 对每个存储实现执行一次的测试
+     */
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("storages")
+    @interface ContractTest {
+    }
+
+    /**
+     * 在临时目录下创建存储实例
+     */
+    @FunctionalInterface
+    interface StorageFactory {
+        ObjectStorage create(Path dir) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void run() throws IOException;
+    }
+}
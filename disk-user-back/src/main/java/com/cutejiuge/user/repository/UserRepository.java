@@ -1,5 +1,25 @@
 package com.cutejiuge.user.repository;
 
+import com.cutejiuge.user.entity.UserEntity;
+
+import java.util.List;
+import java.util.Map;
 
 public interface UserRepository {
+    /**
+     * 根据ID查询用户
+     */
+    UserEntity getById(Long userId);
+
+    /**
+     * 按ID顺序分页查询用户的存储配额，只查询ID、总空间和已用空间
+     */
+    List<UserEntity> listStorageQuotas(Long afterUserId, int limit);
+
+    /**
+     * 批量写回已用空间，一条语句更新一批用户
+     *
+     * @return 更新的行数
+     */
+    int batchUpdateUsedStorage(Map<Long, Long> usedStorageMap);
 }
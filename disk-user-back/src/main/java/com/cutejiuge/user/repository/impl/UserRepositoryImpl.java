@@ -1,11 +1,17 @@
 package com.cutejiuge.user.repository.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cutejiuge.user.entity.UserEntity;
 import com.cutejiuge.user.mapper.UserMapper;
 import com.cutejiuge.user.repository.UserRepository;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 处理User表的数据操作
  *
@@ -17,4 +23,43 @@ import org.springframework.stereotype.Repository;
 public class UserRepositoryImpl implements UserRepository {
     @Resource
     private UserMapper userMapper;
+
+    /**
+     * 根据ID查询用户
+     */
+    @Override
+    public UserEntity getById(Long userId) {
+        return userMapper.selectById(userId);
+    }
+
+    /**
+     * 按ID顺序分页查询用户的存储配额，使用ID游标避免深分页
+     */
+    @Override
+    public List<UserEntity> listStorageQuotas(Long afterUserId, int limit) {
+        LambdaQueryWrapper<UserEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.select(UserEntity::getId, UserEntity::getTotalStorage, UserEntity::getUsedStorage)
+                .gt(UserEntity::getId, afterUserId)
+                .orderByAsc(UserEntity::getId)
+                .last("LIMIT " + limit);
+        return userMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 批量写回已用空间，used_storage = CASE id WHEN ... END，一批用户只执行一条语句
+     */
+    @Override
+    public int batchUpdateUsedStorage(Map<Long, Long> usedStorageMap) {
+        if (usedStorageMap.isEmpty()) {
+            return 0;
+        }
+        StringBuilder caseSql = new StringBuilder("used_storage = CASE id");
+        usedStorageMap.forEach((userId, usedStorage) ->
+                caseSql.append(" WHEN ").append(userId.longValue()).append(" THEN ").append(usedStorage.longValue()));
+        caseSql.append(" ELSE used_storage END");
+        LambdaUpdateWrapper<UserEntity> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.setSql(caseSql.toString())
+                .in(UserEntity::getId, usedStorageMap.keySet());
+        return userMapper.update(updateWrapper);
+    }
 }
@@ -0,0 +1,39 @@
+package com.cutejiuge.user.rpc;
+
+import com.cutejiuge.common.annotation.BusinessLog;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.iface.service.user.UserService;
+import com.cutejiuge.user.service.StorageQuotaService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboService;
+import org.springframework.stereotype.Service;
+
+/**
+ * 用户服务RPC实现类
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午4:55
+ */
+@Slf4j
+@Service
+@DubboService(version = "1.0.0", group = "easy-disk")
+public class UserRpcServiceImpl implements UserService {
+    @Resource
+    private StorageQuotaService storageQuotaService;
+
+    /**
+     * 从数据库加载用户的存储配额到redis，配额已加载时只刷新总空间
+     */
+    @Override
+    @BusinessLog(operation = "加载存储配额")
+    public Result<Void> loadStorageQuota(Long userId) {
+        try {
+            storageQuotaService.loadQuota(userId);
+            return Result.success();
+        } catch (BusinessException e) {
+            return Result.error(e.getCode(), e.getMessage());
+        }
+    }
+}
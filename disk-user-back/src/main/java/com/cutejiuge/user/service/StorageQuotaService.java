@@ -0,0 +1,24 @@
+package com.cutejiuge.user.service;
+
+/**
+ * 存储配额服务层接口
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午4:40
+ */
+public interface StorageQuotaService {
+    /**
+     * 从数据库加载用户的存储配额到redis
+     */
+    void loadQuota(Long userId);
+
+    /**
+     * 把redis中有变化的已用空间批量写回tb_user
+     */
+    void flushUsedStorage();
+
+    /**
+     * 与实际文件大小对账，清理过期预占并修正已用空间的偏差
+     */
+    void reconcileUsedStorage();
+}
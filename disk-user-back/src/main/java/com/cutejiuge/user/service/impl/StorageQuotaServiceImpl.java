@@ -0,0 +1,161 @@
+package com.cutejiuge.user.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.ObjectUtil;
+import com.cutejiuge.common.exception.BusinessException;
+import com.cutejiuge.common.response.Result;
+import com.cutejiuge.common.response.ResultCode;
+import com.cutejiuge.common.util.RedisLockUtil;
+import com.cutejiuge.common.util.StorageQuotaUtil;
+import com.cutejiuge.iface.service.file.FileService;
+import com.cutejiuge.user.entity.UserEntity;
+import com.cutejiuge.user.repository.UserRepository;
+import com.cutejiuge.user.service.StorageQuotaService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.redisson.api.RLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 存储配额服务层接口实现类
+ * <p>
+ * 上传链路只在redis中预占和确认配额，tb_user.used_storage由这里定时批量写回：
+ * 每批用户一条CASE WHEN更新语句，不再是每次上传都对同一行加锁更新。
+ *
+ * @author cutejiuge
+ * @since 2026/10/18 下午4:45
+ */
+@Slf4j
+@Service
+public class StorageQuotaServiceImpl implements StorageQuotaService {
+    private static final String FLUSH_LOCK_KEY = "user_quota:flush";
+    private static final String RECONCILE_LOCK_KEY = "user_quota:reconcile";
+
+    @Resource
+    private UserRepository userRepository;
+
+    @Resource
+    private StorageQuotaUtil storageQuotaUtil;
+
+    @Resource
+    private RedisLockUtil redisLockUtil;
+
+    @DubboReference(version = "1.0.0", group = "easy-disk", check = false)
+    private FileService fileService;
+
+    @Value("${user.storage.flush-batch-size:500}")
+    private Integer flushBatchSize;
+
+    @Value("${user.storage.reconcile-batch-size:500}")
+    private Integer reconcileBatchSize;
+
+    /**
+     * 从数据库加载用户的存储配额到redis，已加载时只刷新总空间
+     */
+    @Override
+    public void loadQuota(Long userId) {
+        UserEntity user = userRepository.getById(userId);
+        if (ObjectUtil.isNull(user)) {
+            throw new BusinessException(ResultCode.USER_NOT_FOUND);
+        }
+        storageQuotaUtil.load(userId, user.getTotalStorage(), user.getUsedStorage());
+    }
+
+    /**
+     * 把redis中有变化的已用空间批量写回tb_user
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${user.storage.flush-interval-ms:5000}") // 默认每5s执行一次
+    public void flushUsedStorage() {
+        RLock lock = redisLockUtil.tryLock(FLUSH_LOCK_KEY, 60);
+        if (ObjectUtil.isNull(lock)) {
+            return;
+        }
+        try {
+            int flushedCount = 0;
+            List<Long> userIds;
+            while (!(userIds = storageQuotaUtil.popDirtyUsers(flushBatchSize)).isEmpty()) {
+                try {
+                    flushedCount += userRepository.batchUpdateUsedStorage(storageQuotaUtil.getUsed(userIds));
+                } catch (Exception e) {
+                    // 写回失败时放回脏集合，下次重试
+                    storageQuotaUtil.markDirty(userIds);
+                    throw e;
+                }
+            }
+            if (flushedCount > 0) {
+                log.debug("已用空间写回完成: flushedCount={}", flushedCount);
+            }
+        } catch (Exception e) {
+            log.error("已用空间写回异常", e);
+        } finally {
+            redisLockUtil.unlock(lock);
+        }
+    }
+
+    /**
+     * 与实际文件大小对账，清理过期预占并修正已用空间的偏差
+     */
+    @Override
+    @Scheduled(cron = "${user.storage.reconcile-cron:0 30 3 * * ?}") // 默认每天3点30分执行
+    public void reconcileUsedStorage() {
+        RLock lock = redisLockUtil.tryLock(RECONCILE_LOCK_KEY, 3600);
+        if (ObjectUtil.isNull(lock)) {
+            return;
+        }
+        try {
+            long startTime = System.currentTimeMillis();
+            int correctedCount = 0;
+            long afterUserId = 0L;
+            List<UserEntity> users;
+            while (!(users = userRepository.listStorageQuotas(afterUserId, reconcileBatchSize)).isEmpty()) {
+                correctedCount += reconcileBatch(users);
+                afterUserId = users.get(users.size() - 1).getId();
+            }
+            log.info("存储配额对账完成: correctedCount={}, cost={}ms", correctedCount, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("存储配额对账异常", e);
+        } finally {
+            redisLockUtil.unlock(lock);
+        }
+    }
+
+    // ===================== 私有方法 ======================
+    // 对账一批用户，返回修正的用户数
+    private int reconcileBatch(List<UserEntity> users) {
+        List<Long> userIds = users.stream().map(UserEntity::getId).toList();
+        // 先刷新总空间、清理过期预占，再读取对账前的已用空间
+        for (UserEntity user : users) {
+            storageQuotaUtil.load(user.getId(), user.getTotalStorage(), user.getUsedStorage());
+            storageQuotaUtil.pruneExpiredReservations(user.getId());
+        }
+        Map<Long, Long> usedMap = storageQuotaUtil.getUsed(userIds);
+        Result<Map<Long, Long>> sumResult = fileService.sumUsedStorage(userIds);
+        if (!sumResult.isSuccess()) {
+            log.warn("统计用户文件大小失败: code={}, message={}", sumResult.getCode(), sumResult.getMessage());
+            return 0;
+        }
+        Map<Long, Long> actualMap = CollUtil.isEmpty(sumResult.getData()) ? new HashMap<>() : sumResult.getData();
+        int correctedCount = 0;
+        for (Long userId : userIds) {
+            Long used = usedMap.get(userId);
+            long actual = actualMap.getOrDefault(userId, 0L);
+            if (ObjectUtil.isNull(used) || used == actual) {
+                continue;
+            }
+            // 对账期间有上传或删除时跳过，留到下次对账
+            if (storageQuotaUtil.correctUsed(userId, used, actual)) {
+                log.info("修正已用空间: userId={}, used={}, actual={}", userId, used, actual);
+                correctedCount++;
+            }
+        }
+        return correctedCount;
+    }
+}